@@ -0,0 +1,204 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fategmhelper.backend.service.snapshot.ActionSnapshot;
+import com.fategmhelper.backend.service.snapshot.ActionSnapshotCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 行动历史快照（action_history.snapshot）与原先三个 JSON 列的存储大小、解码耗时对比：
+ * <pre>
+ * mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Dfile.encoding=UTF-8 -cp target/classes:$(cat target/cp.txt) scripts/ActionSnapshotBench.java [--rounds 500] [--iterations 2000] [--seed 1]
+ * </pre>
+ * JDK 17 按系统区域设置读取源文件，区域不是 UTF-8 时需要 -Dfile.encoding=UTF-8，否则生成的中文行动文本会被误读。
+ * 按 RoundSnapshot 的结构生成回合（7 个阶职槽位、8 类行动的行动顺序表，空槽记为待机），分两组：
+ * <ol>
+ *   <li>普通回合：每条行动十来个字，正文在压缩阈值以下；</li>
+ *   <li>长行动：每 5 条行动有 1 条为数百字的长描述，正文超过压缩阈值，走 deflate。</li>
+ * </ol>
+ * 每组输出平均每回合的存储字节数、经过压缩的回合比例，以及每回合的解码耗时：快照完整解码、只取从者行动、Jackson 解析三个 JSON 列。
+ * 耗时为预热后多轮循环的平均值，只用于同一台机器上的相对比较。
+ */
+public class ActionSnapshotBench {
+
+    private static final List<String> CLASSES = List.of("弓", "枪", "骑", "剑", "杀", "术", "狂");
+    private static final List<String> CATEGORIES = List.of("机动", "魂食", "干涉", "解放", "制造", "信息", "休整", "摧毁工房");
+    private static final String[] PLACES = {"柳洞寺", "冬木大桥", "新都", "远坂邸", "间桐邸", "教会", "港口仓库", "爱因兹贝伦城"};
+    private static final String[] VERBS = {"侦察", "布阵", "接触", "潜伏", "补魔"};
+    private static final String STANDBY = "待机";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = 500;
+        int iterations = 2000;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rounds" -> rounds = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "%-8s %11s %11s %9s %13s %13s %13s",
+                "set", "snapshot(B)", "json(B)", "deflated", "decode(us)", "servant(us)", "jackson(us)"));
+        lines.add(run("typical", generate(rounds, 0, new Random(seed)), iterations));
+        lines.add(run("long1/5", generate(rounds, 5, new Random(seed)), iterations));
+        System.out.println();
+        lines.forEach(System.out::println);
+    }
+
+    private static String run(String name, List<Round> rounds, int iterations) throws Exception {
+        List<byte[]> snapshots = new ArrayList<>(rounds.size());
+        List<String[]> columns = new ArrayList<>(rounds.size());
+        long snapshotBytes = 0;
+        int deflated = 0;
+        long jsonBytes = 0;
+        for (Round round : rounds) {
+            byte[] snapshot = ActionSnapshotCodec.encode(CLASSES, round.actionOrder, round.servant, round.master);
+            String[] json = {
+                    MAPPER.writeValueAsString(round.actionOrder),
+                    MAPPER.writeValueAsString(round.servant),
+                    MAPPER.writeValueAsString(round.master),
+            };
+            snapshots.add(snapshot);
+            columns.add(json);
+            snapshotBytes += snapshot.length;
+            if ((snapshot[1] & 1) != 0) {
+                deflated++;
+            }
+            for (String column : json) {
+                jsonBytes += column.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+
+        // 预热到 JIT 编译稳定后再计时
+        for (int i = 0; i < Math.max(1, iterations / 4); i++) {
+            decodeAll(snapshots);
+            decodeServant(snapshots);
+            parseJson(columns);
+        }
+        double decode = time(iterations, rounds.size(), () -> decodeAll(snapshots));
+        double servant = time(iterations, rounds.size(), () -> decodeServant(snapshots));
+        double jackson = time(iterations, rounds.size(), () -> parseJson(columns));
+
+        String line = String.format(Locale.ROOT, "%-8s %11d %11d %8.0f%% %13.2f %13.2f %13.2f",
+                name, snapshotBytes / rounds.size(), jsonBytes / rounds.size(),
+                deflated * 100.0 / rounds.size(), decode, servant, jackson);
+        System.out.println(line);
+        return line;
+    }
+
+    private static double time(int iterations, int rounds, Task task) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / iterations / rounds;
+    }
+
+    private static void decodeAll(List<byte[]> snapshots) {
+        for (byte[] stored : snapshots) {
+            ActionSnapshot snapshot = ActionSnapshot.of(stored);
+            sink = snapshot.classes();
+            sink = snapshot.actionOrder();
+            sink = snapshot.servantActions();
+            sink = snapshot.masterActions();
+        }
+    }
+
+    private static void decodeServant(List<byte[]> snapshots) {
+        for (byte[] stored : snapshots) {
+            sink = ActionSnapshot.of(stored).servantActions();
+        }
+    }
+
+    private static void parseJson(List<String[]> columns) throws Exception {
+        for (String[] json : columns) {
+            sink = MAPPER.readValue(json[0], new TypeReference<List<Map<String, Object>>>() {});
+            sink = MAPPER.readValue(json[1], new TypeReference<List<String>>() {});
+            sink = MAPPER.readValue(json[2], new TypeReference<List<String>>() {});
+        }
+    }
+
+    /**
+     * @param longEvery 每多少条行动出现一条长描述，0 表示没有
+     */
+    private static List<Round> generate(int count, int longEvery, Random random) {
+        List<Round> rounds = new ArrayList<>(count);
+        int actions = 0;
+        for (int r = 0; r < count; r++) {
+            List<String> servant = new ArrayList<>();
+            List<String> master = new ArrayList<>();
+            String[][] cells = new String[CATEGORIES.size()][CLASSES.size()];
+            for (String[] row : cells) {
+                Arrays.fill(row, "");
+            }
+            for (int slot = 0; slot < CLASSES.size(); slot++) {
+                boolean any = false;
+                for (List<String> column : List.of(servant, master)) {
+                    // 约四分之一的槽位本回合没有提交
+                    if (random.nextInt(4) == 0) {
+                        column.add(null);
+                        continue;
+                    }
+                    int category = random.nextInt(CATEGORIES.size());
+                    boolean isLong = longEvery > 0 && ++actions % longEvery == 0;
+                    String text = action(CATEGORIES.get(category), isLong, random);
+                    column.add(text);
+                    String existing = cells[category][slot];
+                    cells[category][slot] = existing.isEmpty() ? text : existing + " / " + text;
+                    any = true;
+                }
+                if (!any) {
+                    cells[0][slot] = STANDBY;
+                }
+            }
+            List<Map<String, Object>> order = new ArrayList<>(CATEGORIES.size());
+            for (int i = 0; i < CATEGORIES.size(); i++) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("type", CATEGORIES.get(i));
+                row.put("actions", Arrays.asList(cells[i]));
+                order.add(row);
+            }
+            rounds.add(new Round(order, servant, master));
+        }
+        return rounds;
+    }
+
+    private static String action(String category, boolean isLong, Random random) {
+        StringBuilder text = new StringBuilder(category).append("：")
+                .append(PLACES[random.nextInt(PLACES.length)])
+                .append(VERBS[random.nextInt(VERBS.length)]);
+        if (isLong) {
+            // 长描述用常用汉字区间内的随机字填充，避免重复短语让 deflate 的效果好于真实文本
+            while (text.length() < 300) {
+                text.append("；经").append(PLACES[random.nextInt(PLACES.length)]).append("，");
+                for (int i = 4 + random.nextInt(12); i > 0; i--) {
+                    text.append((char) (0x4E00 + random.nextInt(3000)));
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private record Round(List<Map<String, Object>> actionOrder, List<String> servant, List<String> master) {
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
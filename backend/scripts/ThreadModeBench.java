@@ -0,0 +1,355 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 平台线程 / 虚拟线程两种执行模式的对比压测，单文件、无依赖：
+ * <pre>
+ * java scripts/ThreadModeBench.java --jar target/backend-0.0.1-SNAPSHOT.jar [选项] [-- 传给后端的启动参数]
+ * java scripts/ThreadModeBench.java --url http://localhost:8080 [选项]
+ * </pre>
+ * 给出 --jar 时按 --modes 依次以各模式启动后端。虚拟线程模式需要 JDK 21+：用 JDK 21+ 运行本脚本或用 --java 指定，
+ * 否则后端会在启动时失败；只有 JDK 17 时用 --modes platform。
+ * 给出 --url 时只压测已经在运行的实例。每一档连接数 N：
+ * <ol>
+ *   <li>在 --campaigns 个新建战役上均匀保持 N 个 /api/action-submissions/stream 连接；</li>
+ *   <li>用 --concurrency 个客户端线程提交 --requests 条行动，记录每条 POST 的延迟；</li>
+ *   <li>等待推送送达，输出 p50 / p99 / 最大延迟、失败数和推送送达率。</li>
+ * </ol>
+ * 压测会写入数据，请让后端连接专用的库。
+ */
+public class ThreadModeBench {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in");
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "%-9s %7s %9s %9s %9s %7s %10s",
+                "mode", "streams", "p50(ms)", "p99(ms)", "max(ms)", "errors", "delivered"));
+        if (options.url != null) {
+            runSteps("running", options.url, options, lines);
+        } else {
+            for (String mode : options.modes) {
+                Process server = startServer(mode, options);
+                try {
+                    runSteps(mode, "http://localhost:" + options.port, options, lines);
+                } finally {
+                    server.destroy();
+                    if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                        server.destroyForcibly();
+                    }
+                }
+            }
+        }
+        System.out.println();
+        lines.forEach(System.out::println);
+    }
+
+    private static void runSteps(String mode, String baseUrl, Options options, List<String> lines) throws Exception {
+        for (int streams : options.streams) {
+            Result result = runStep(baseUrl, streams, options);
+            String line = String.format(Locale.ROOT, "%-9s %7d %9.1f %9.1f %9.1f %7d %9.1f%%",
+                    mode, streams, result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+                    result.errors.get(), result.deliveredRatio() * 100);
+            System.out.println(line);
+            lines.add(line);
+            if (result.connectFailed) {
+                System.out.println("  " + mode + " 模式无法保持 " + streams + " 个连接，停止加大连接数");
+                break;
+            }
+        }
+    }
+
+    private static Result runStep(String baseUrl, int streamCount, Options options) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long[] campaigns = new long[options.campaigns];
+        for (int i = 0; i < campaigns.length; i++) {
+            campaigns[i] = createCampaign(client, baseUrl, "bench-" + System.nanoTime());
+        }
+
+        // 1. 保持 SSE 连接，等全部收到 connected
+        CountDownLatch connected = new CountDownLatch(streamCount);
+        AtomicLong events = new AtomicLong();
+        List<EventCounter> counters = new ArrayList<>(streamCount);
+        int[] subscribersPerCampaign = new int[campaigns.length];
+        for (int i = 0; i < streamCount; i++) {
+            int c = i % campaigns.length;
+            subscribersPerCampaign[c]++;
+            EventCounter counter = new EventCounter(connected, events);
+            counters.add(counter);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl
+                            + "/api/action-submissions/stream?campaignId=" + campaigns[c] + "&topics=submission.batch"))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(counter))
+                    .whenComplete((r, e) -> counter.failed(e));
+        }
+        boolean allConnected = connected.await(Math.max(30, streamCount / 50), TimeUnit.SECONDS);
+
+        // 2. 固定大小的客户端线程池提交行动，两种模式下客户端行为相同
+        Result result = new Result(options.requests);
+        result.connectFailed = !allConnected || counters.stream().anyMatch(EventCounter::isFailed);
+        AtomicLong expected = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency);
+        AtomicInteger next = new AtomicInteger();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int w = 0; w < options.concurrency; w++) {
+            done.add(CompletableFuture.runAsync(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < options.requests) {
+                    int c = i % campaigns.length;
+                    long campaignId = campaigns[c];
+                    String body = "{\"campaignId\":" + campaignId + ",\"servantClass\":\"C" + (i % 7)
+                            + "\",\"actionType\":\"SERVANT_ACTION\",\"content\":\"bench " + i + "\"}";
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/action-submissions"))
+                            .header("Content-Type", "application/json")
+                            .timeout(Duration.ofSeconds(30))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 == 2) {
+                            expected.addAndGet(subscribersPerCampaign[c]);
+                        } else {
+                            result.errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        result.errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    result.record(i, System.nanoTime() - start);
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+        workers.shutdown();
+
+        // 3. 等推送送达（最多 10 秒）后断开
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (events.get() < expected.get() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        result.delivered = events.get();
+        result.expected = expected.get();
+        counters.forEach(EventCounter::cancel);
+        return result;
+    }
+
+    private static long createCampaign(HttpClient client, String baseUrl, String name) throws Exception {
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/campaigns"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = Pattern.compile("\"id\"\\s*:\\s*(\\d+)").matcher(created.body());
+        if (created.statusCode() / 100 != 2 || !id.find()) {
+            throw new IllegalStateException("创建战役失败: " + created.statusCode() + " " + created.body());
+        }
+        long campaignId = Long.parseLong(id.group(1));
+        client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/rounds/next?campaignId=" + campaignId))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.discarding());
+        return campaignId;
+    }
+
+    private static Process startServer(String mode, Options options) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(options.java);
+        command.add("-jar");
+        command.add(options.jar);
+        command.add("--server.port=" + options.port);
+        command.add("--spring.threads.virtual.enabled=" + "virtual".equals(mode));
+        command.addAll(options.serverArgs);
+        Path log = Path.of("target", "bench-" + mode + ".log");
+        Files.createDirectories(log.getParent());
+        System.out.println("启动后端（" + mode + "），日志 " + log);
+        Process server = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            String output = Files.readString(log);
+            if (STARTED.matcher(output).find()) {
+                return server;
+            }
+            if (!server.isAlive()) {
+                throw new IllegalStateException("virtual".equals(mode) && output.contains("需要 JDK 21+")
+                        ? "虚拟线程模式需要 JDK 21+，请用 --java 指定 JDK 21+ 或改用 --modes platform"
+                        : "后端启动失败，见 " + log);
+            }
+            Thread.sleep(500);
+        }
+        server.destroyForcibly();
+        throw new IllegalStateException("后端启动超时，见 " + log);
+    }
+
+    /** 统计一个 SSE 连接收到的事件数 */
+    private static final class EventCounter implements Flow.Subscriber<String> {
+
+        private final CountDownLatch connected;
+        private final AtomicLong events;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean failed;
+        private boolean seenConnected;
+
+        EventCounter(CountDownLatch connected, AtomicLong events) {
+            this.connected = connected;
+            this.events = events;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("event:")) {
+                return;
+            }
+            if (!seenConnected) {
+                seenConnected = true;
+                connected.countDown();
+            } else {
+                events.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failed(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void failed(Throwable throwable) {
+            if (throwable != null && !seenConnected) {
+                failed = true;
+                connected.countDown();
+            }
+        }
+
+        boolean isFailed() {
+            return failed;
+        }
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private final long[] latencies;
+        private final AtomicInteger errors = new AtomicInteger();
+        private boolean connectFailed;
+        private long delivered;
+        private long expected;
+
+        Result(int requests) {
+            this.latencies = new long[requests];
+        }
+
+        void record(int i, long nanos) {
+            latencies[i] = nanos;
+        }
+
+        double percentile(double p) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+        }
+
+        double deliveredRatio() {
+            return expected == 0 ? 1 : (double) delivered / expected;
+        }
+    }
+
+    private static final class Options {
+
+        String jar;
+        String url;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> modes = List.of("platform", "virtual");
+        int[] streams = {100, 500, 1000, 2000, 4000};
+        int campaigns = 8;
+        int requests = 2000;
+        int concurrency = 32;
+        int port = 18080;
+        List<String> serverArgs = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--".equals(arg)) {
+                    o.serverArgs.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                    break;
+                }
+                if (i + 1 >= args.length) {
+                    throw usage("缺少 " + arg + " 的值");
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--jar" -> o.jar = value;
+                    case "--url" -> o.url = value.replaceAll("/+$", "");
+                    case "--java" -> o.java = value;
+                    case "--modes" -> o.modes = List.of(value.split(","));
+                    case "--streams" -> o.streams = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    case "--campaigns" -> o.campaigns = Integer.parseInt(value);
+                    case "--requests" -> o.requests = Integer.parseInt(value);
+                    case "--concurrency" -> o.concurrency = Integer.parseInt(value);
+                    case "--port" -> o.port = Integer.parseInt(value);
+                    default -> throw usage("未知参数 " + arg);
+                }
+            }
+            if ((o.jar == null) == (o.url == null)) {
+                throw usage("需要 --jar 或 --url 之一");
+            }
+            if (o.jar != null && !new File(o.jar).isFile()) {
+                throw usage("找不到 " + o.jar + "，先执行 mvn package");
+            }
+            return o;
+        }
+
+        private static IllegalArgumentException usage(String message) {
+            return new IllegalArgumentException(message + "\n用法: java scripts/ThreadModeBench.java "
+                    + "(--jar <后端 jar> | --url <地址>) [--modes platform,virtual] [--streams 100,500,1000] "
+                    + "[--campaigns 8] [--requests 2000] [--concurrency 32] [--port 18080] [--java <java>] [-- 后端参数]");
+        }
+    }
+}
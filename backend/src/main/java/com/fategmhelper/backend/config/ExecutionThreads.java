@@ -0,0 +1,78 @@
+package com.fategmhelper.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台执行线程的统一来源。
+ * <p>
+ * 设置 {@code spring.threads.virtual.enabled=true} 时进入虚拟线程模式：
+ * Spring Boot 让 Tomcat 请求处理跑在虚拟线程上，这里创建的战役邮箱、SSE 发送和组提交线程也一并改为虚拟线程。
+ * 虚拟线程需要 JDK 21+；在更低版本的 JRE 上开启该开关时启动失败，而不是悄悄退回平台线程池。
+ * 未开启时使用固定大小的平台线程池。
+ */
+@Component
+@Slf4j
+public class ExecutionThreads {
+
+    private final boolean virtual;
+
+    public ExecutionThreads(Environment environment) {
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true 需要 JDK 21+，当前运行在 JDK "
+                    + Runtime.version().feature() + "；请升级 JRE 或关闭该开关");
+        }
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (virtual) {
+            log.info("已启用虚拟线程执行模式");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 平台线程模式下为固定大小的守护线程池；虚拟线程模式下每个任务一个虚拟线程，忽略 platformThreads。
+     */
+    public Executor newExecutor(String namePrefix, int platformThreads) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(namePrefix);
+        }
+        AtomicInteger seq = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, r -> {
+            Thread t = new Thread(r, namePrefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 创建（未启动的）长期运行线程。
+     */
+    public Thread newThread(String name, Runnable task) {
+        if (virtual) {
+            Thread t = new VirtualThreadTaskExecutor().getVirtualThreadFactory().newThread(task);
+            t.setName(name);
+            return t;
+        }
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    public static void shutdown(Executor executor) {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.fategmhelper.backend.config;
+
+import com.fategmhelper.backend.web.ws.CampaignHandshakeInterceptor;
+import com.fategmhelper.backend.web.ws.CampaignSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final CampaignSocketHandler campaignSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(campaignSocketHandler, "/api/ws/campaigns/{campaignId}")
+                .addInterceptors(new CampaignHandshakeInterceptor())
+                .setAllowedOriginPatterns("http://localhost:*");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        // 批量提交可能超过默认的 8KB 帧缓冲
+        container.setMaxBinaryMessageBufferSize(256 * 1024);
+        return container;
+    }
+}
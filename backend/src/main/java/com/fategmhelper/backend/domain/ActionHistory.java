@@ -6,6 +6,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -38,14 +39,18 @@ public class ActionHistory {
     @Column(name = "closed_at")
     private Instant closedAt;
 
-    @Column(name = "action_order", columnDefinition = "TEXT")
-    private String actionOrderJson;
-
-    @Column(name = "servant_actions", columnDefinition = "TEXT")
-    private String servantActionsJson;
-
-    @Column(name = "master_actions", columnDefinition = "TEXT")
-    private String masterActionsJson;
+    /**
+     * 行动顺序、从者/御主行动的二进制快照，格式见 ActionSnapshotCodec。
+     */
+    @Lob
+    @Column(name = "snapshot", columnDefinition = "longblob")
+    private byte[] snapshot;
+
+    /**
+     * 回合关闭时各灵脉的已分配角色（JSON 对象：灵脉 ID → 角色卡 ID 数组），用于回看历史回合。
+     */
+    @Column(name = "leyline_assignments", columnDefinition = "TEXT")
+    private String leylineAssignmentsJson;
 
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -83,6 +83,10 @@ public class CharacterCard {
     })
     private Stats correctionStats;
 
+    /*
+     * 以下技能列表只能整体替换（setXxx 传入新列表）。转换器声明为不可变，Hibernate 只比较引用与加载时的 JSON，
+     * 原地增删改元素不会被脏检查发现，也不会写回；从数据库读出的列表本身是只读的，原地修改会抛出 UnsupportedOperationException。
+     */
     @Convert(converter = SkillListJsonConverter.class)
     @Column(columnDefinition = "json")
     private List<SkillItem> classSkills;
@@ -59,6 +59,11 @@ public class CharacterStatus {
     @Column(columnDefinition = "TEXT")
     private String notes;
 
+    // 版本号，每次实际发生变化时加一
+    @Column(nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
     @CreationTimestamp
     private Instant createdAt;
 
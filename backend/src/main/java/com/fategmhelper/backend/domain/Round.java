@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,7 +24,9 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "campaign_round")
+@Table(name = "campaign_round", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_round_campaign_turn", columnNames = {"campaign_id", "turn_number"})
+})
 public class Round {
 
     public enum Status {
@@ -52,4 +55,8 @@ public class Round {
 
     @Column(name = "closed_at")
     private Instant closedAt;
+
+    // 回合数据移入归档文件的时间，未归档为 null
+    @Column(name = "archived_at")
+    private Instant archivedAt;
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.fategmhelper.backend.domain.converter;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fategmhelper.backend.domain.SkillItem;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * 从数据库读出的技能列表：保留原始 JSON，首次访问元素时才解析。只读，修改需整体替换实体上的列表。
+ * 写回时直接使用原始 JSON；两份都未解析时按原始字符串比较，实体脏检查不触发解析。
+ */
+final class SkillList extends AbstractList<SkillItem> {
+
+    private final String json;
+    private final ObjectReader reader;
+    private volatile List<SkillItem> items;
+
+    SkillList(String json, ObjectReader reader) {
+        this.json = json;
+        this.reader = reader;
+    }
+
+    String json() {
+        return json;
+    }
+
+    @Override
+    public SkillItem get(int index) {
+        return items().get(index);
+    }
+
+    @Override
+    public int size() {
+        return items().size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SkillList other && json.equals(other.json)) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private List<SkillItem> items() {
+        List<SkillItem> decoded = items;
+        if (decoded == null) {
+            try {
+                List<SkillItem> read = reader.readValue(json);
+                decoded = read != null ? List.copyOf(read) : List.of();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to read skill list from JSON", e);
+            }
+            items = decoded;
+        }
+        return decoded;
+    }
+}
@@ -2,18 +2,29 @@ package com.fategmhelper.backend.domain.converter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fategmhelper.backend.domain.SkillItem;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
 
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * 技能列表与 JSON 列的转换。读出时不解析，返回延迟解析的 {@link SkillList}；
+ * 列表视为不可变，Hibernate 直接以加载时的引用作快照，只加载实体而不访问技能时既不解析也不复制。
+ */
 @Converter
+@Mutability(Immutability.class)
 public class SkillListJsonConverter implements AttributeConverter<List<SkillItem>, String> {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
     private static final TypeReference<List<SkillItem>> TYPE = new TypeReference<>() {};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = MAPPER.readerFor(TYPE);
+    private static final ObjectWriter WRITER = MAPPER.writerFor(TYPE);
 
     @Override
     public String convertToDatabaseColumn(List<SkillItem> attribute) {
@@ -21,7 +32,10 @@ public class SkillListJsonConverter implements AttributeConverter<List<SkillItem
             if (attribute == null) {
                 return null;
             }
-            return MAPPER.writeValueAsString(attribute);
+            if (attribute instanceof SkillList loaded) {
+                return loaded.json();
+            }
+            return WRITER.writeValueAsString(attribute);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to write skill list as JSON", e);
         }
@@ -29,14 +43,9 @@ public class SkillListJsonConverter implements AttributeConverter<List<SkillItem
 
     @Override
     public List<SkillItem> convertToEntityAttribute(String dbData) {
-        try {
-            if (dbData == null || dbData.isBlank()) {
-                return Collections.emptyList();
-            }
-            return MAPPER.readValue(dbData, TYPE);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to read skill list from JSON", e);
+        if (dbData == null || dbData.isBlank()) {
+            return Collections.emptyList();
         }
+        return new SkillList(dbData, READER);
     }
 }
-
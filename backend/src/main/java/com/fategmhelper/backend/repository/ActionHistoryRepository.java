@@ -1,12 +1,32 @@
 package com.fategmhelper.backend.repository;
 
 import com.fategmhelper.backend.domain.ActionHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ActionHistoryRepository extends JpaRepository<ActionHistory, Long> {
-    List<ActionHistory> findByCampaignIdOrderByRoundNumberDesc(Long campaignId);
-}
+    // 按 (回合号, id) 倒序的键集分页：第一页 / 后续页（游标为上一页最后一行的回合号与 id）
+    List<ActionHistory> findByCampaignIdOrderByRoundNumberDescIdDesc(Long campaignId, Pageable page);
+
+    @Query("""
+            select h from ActionHistory h
+             where h.campaign.id = :campaignId
+               and (h.roundNumber < :round or (h.roundNumber = :round and h.id < :id))
+             order by h.roundNumber desc, h.id desc
+            """)
+    List<ActionHistory> findPageBefore(@Param("campaignId") Long campaignId, @Param("round") Integer round,
+                                       @Param("id") Long id, Pageable page);
 
+    List<ActionHistory> findByCampaignIdAndRoundNumberBetween(Long campaignId, Integer fromRound, Integer toRound);
 
+    List<ActionHistory> findByCampaignIdAndRoundNumber(Long campaignId, Integer roundNumber);
+
+    @Modifying
+    @Query("delete from ActionHistory h where h.campaign.id = :campaignId and h.roundNumber = :roundNumber")
+    int deleteRound(@Param("campaignId") Long campaignId, @Param("roundNumber") Integer roundNumber);
+}
@@ -0,0 +1,14 @@
+package com.fategmhelper.backend.repository;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+
+import java.util.List;
+
+public interface ActionSubmissionBatchRepository {
+
+    /**
+     * 以一次 JDBC 批处理插入全部提交，并回填自增主键与创建时间。
+     * IDENTITY 主键会让 Hibernate 放弃插入批处理，因此这里绕过持久化上下文直接写入。
+     */
+    void insertAll(List<ActionSubmission> submissions);
+}
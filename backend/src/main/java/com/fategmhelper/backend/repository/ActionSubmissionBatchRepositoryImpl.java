@@ -0,0 +1,71 @@
+package com.fategmhelper.backend.repository;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+@RequiredArgsConstructor
+public class ActionSubmissionBatchRepositoryImpl implements ActionSubmissionBatchRepository {
+
+    private static final String INSERT_SQL = """
+            insert into action_submission
+                (campaign_id, round_id, round_number, servant_class, action_type,
+                 content, submitted_by, is_current, created_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<ActionSubmission> submissions) {
+        if (submissions.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ActionSubmission s = submissions.get(i);
+                        ps.setLong(1, s.getCampaign().getId());
+                        ps.setLong(2, s.getRound().getId());
+                        ps.setInt(3, s.getRoundNumber());
+                        ps.setString(4, s.getServantClass());
+                        ps.setString(5, s.getActionType().name());
+                        ps.setString(6, s.getContent());
+                        ps.setString(7, s.getSubmittedBy());
+                        ps.setBoolean(8, s.isCurrent());
+                        ps.setTimestamp(9, Timestamp.from(now), utc);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return submissions.size();
+                    }
+                },
+                keys);
+
+        List<java.util.Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < submissions.size(); i++) {
+            ActionSubmission s = submissions.get(i);
+            Object id = generated.get(i).values().iterator().next();
+            s.setId(((Number) id).longValue());
+            s.setCreatedAt(now);
+        }
+    }
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface ActionSubmissionRepository extends JpaRepository<ActionSubmission, Long> {
+import java.util.Collection;
+
+public interface ActionSubmissionRepository extends JpaRepository<ActionSubmission, Long>, ActionSubmissionBatchRepository {
 
     @Modifying
     @Query("""
@@ -22,7 +24,56 @@ public interface ActionSubmissionRepository extends JpaRepository<ActionSubmissi
                             @Param("servantClass") String servantClass,
                             @Param("actionType") ActionType actionType);
 
-    java.util.List<ActionSubmission> findByCampaignIdAndCurrentTrue(Long campaignId);
-}
+    // 一次清除同一回合、同一行动类型下多个阶职的当前提交
+    @Modifying
+    @Query("""
+            update ActionSubmission a
+               set a.current = false
+             where a.round.id = :roundId
+               and a.actionType = :actionType
+               and a.servantClass in :servantClasses
+               and a.current = true
+            """)
+    int clearCurrentForSlots(@Param("roundId") Long roundId,
+                             @Param("actionType") ActionType actionType,
+                             @Param("servantClasses") Collection<String> servantClasses);
+
+    // 指定战役最新开放回合中的当前提交
+    @Query("""
+            select a from ActionSubmission a
+             where a.campaign.id = :campaignId
+               and a.current = true
+               and a.round.status = com.fategmhelper.backend.domain.Round.Status.OPEN
+               and a.round.turnNumber = (select max(r.turnNumber) from Round r
+                                          where r.campaign.id = :campaignId
+                                            and r.status = com.fategmhelper.backend.domain.Round.Status.OPEN)
+            """)
+    java.util.List<ActionSubmission> findCurrentInOpenRound(@Param("campaignId") Long campaignId);
+
+    // 指定回合的全部当前提交（关闭回合时生成快照）
+    @Query("""
+            select a from ActionSubmission a
+             where a.round.id = :roundId
+               and a.current = true
+             order by a.id
+            """)
+    java.util.List<ActionSubmission> findCurrentByRoundId(@Param("roundId") Long roundId);
+
+    // 回合的全部提交，含已被覆盖的（归档）
+    java.util.List<ActionSubmission> findByRoundIdOrderByIdAsc(Long roundId);
 
+    @Modifying
+    @Query("delete from ActionSubmission a where a.round.id = :roundId")
+    int deleteByRoundId(@Param("roundId") Long roundId);
 
+    // 所有战役最新开放回合中的当前提交（启动时重建槽位看板）
+    @Query("""
+            select a from ActionSubmission a
+             where a.current = true
+               and a.round.status = com.fategmhelper.backend.domain.Round.Status.OPEN
+               and a.round.turnNumber = (select max(r.turnNumber) from Round r
+                                          where r.campaign = a.campaign
+                                            and r.status = com.fategmhelper.backend.domain.Round.Status.OPEN)
+            """)
+    java.util.List<ActionSubmission> findCurrentInOpenRounds();
+}
@@ -0,0 +1,73 @@
+package com.fategmhelper.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * campaign_event_outbox 表的读写。outbox 行没有对应的实体，直接用 JDBC 访问；
+ * 写入走当前事务的连接，因此与业务修改一起提交或回滚。
+ */
+@Repository
+@RequiredArgsConstructor
+public class CampaignEventOutboxRepository {
+
+    private static final String INSERT_SQL = """
+            insert into campaign_event_outbox (campaign_id, topic, payload, origin, created_at)
+            values (?, ?, ?, ?, ?)
+            """;
+    private static final String SELECT_COLUMNS = "select id, campaign_id, topic, payload, origin from campaign_event_outbox ";
+
+    private static final RowMapper<Entry> ROW_MAPPER = (rs, i) -> new Entry(
+            rs.getLong("id"), rs.getLong("campaign_id"), rs.getString("topic"),
+            rs.getString("payload"), rs.getString("origin"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Entry(long id, long campaignId, String topic, String payload, String origin) {
+    }
+
+    public void insert(Long campaignId, String topic, String payload, String origin) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.update(INSERT_SQL, ps -> {
+            ps.setLong(1, campaignId);
+            ps.setString(2, topic);
+            ps.setString(3, payload);
+            ps.setString(4, origin);
+            ps.setTimestamp(5, Timestamp.from(Instant.now()), utc);
+        });
+    }
+
+    public List<Entry> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_COLUMNS + "where id > ? order by id limit ?", ROW_MAPPER, afterId, limit);
+    }
+
+    public List<Entry> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(SELECT_COLUMNS + "where id in (" + placeholders + ") order by id",
+                ROW_MAPPER, ids.toArray());
+    }
+
+    public long maxId() {
+        Long max = jdbcTemplate.queryForObject("select max(id) from campaign_event_outbox", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    public int deleteCreatedBefore(Instant cutoff) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return jdbcTemplate.update("delete from campaign_event_outbox where created_at < ?",
+                ps -> ps.setTimestamp(1, Timestamp.from(cutoff), utc));
+    }
+}
@@ -1,8 +1,18 @@
 package com.fategmhelper.backend.repository;
 
 import com.fategmhelper.backend.domain.Campaign;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface CampaignRepository extends JpaRepository<Campaign, Long> {
-}
 
+    // select … for update：开启/关闭回合与写入提交前锁定战役行，跨实例串行化同一战役的写入
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Campaign c where c.id = :id")
+    Optional<Campaign> findByIdForUpdate(@Param("id") Long id);
+}
@@ -2,6 +2,7 @@ package com.fategmhelper.backend.repository;
 
 import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.web.dto.CharacterCardSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,16 +13,6 @@ import java.util.List;
 
 public interface CharacterCardRepository extends JpaRepository<CharacterCard, Long> {
     
-    @Query("SELECT c FROM CharacterCard c WHERE " +
-           "(:keyword IS NULL OR :keyword = '' OR " +
-           "LOWER(c.code) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(c.className) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-           "AND (:campaignId IS NULL OR c.campaign.id = :campaignId OR c.campaign IS NULL)")
-    Page<CharacterCard> searchByCodeOrClassName(
-            @Param("keyword") String keyword,
-            @Param("campaignId") Long campaignId,
-            Pageable pageable);
-    
     // 按战役ID查询（包含通用角色卡）
     @Query("SELECT c FROM CharacterCard c WHERE " +
            "(:campaignId IS NULL OR c.campaign.id = :campaignId OR c.campaign IS NULL)")
@@ -29,6 +20,29 @@ public interface CharacterCardRepository extends JpaRepository<CharacterCard, Lo
             @Param("campaignId") Long campaignId,
             Pageable pageable);
     
+    // 按 ID 游标分页的第一页 / 后续页（游标为上一页最后一行的 ID），顺带取出战役避免逐行加载
+    @Query("SELECT c FROM CharacterCard c LEFT JOIN FETCH c.campaign WHERE " +
+           "(:campaignId IS NULL OR c.campaign.id = :campaignId OR c.campaign IS NULL) " +
+           "ORDER BY c.id ASC")
+    List<CharacterCard> findFirstPage(@Param("campaignId") Long campaignId, Pageable pageable);
+
+    @Query("SELECT c FROM CharacterCard c LEFT JOIN FETCH c.campaign WHERE " +
+           "(:campaignId IS NULL OR c.campaign.id = :campaignId OR c.campaign IS NULL) " +
+           "AND c.id > :afterId ORDER BY c.id ASC")
+    List<CharacterCard> findPageAfter(@Param("campaignId") Long campaignId, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 摘要分页：只选列表需要的列，战役名称在同一查询里外连接取得（首页 afterId 传 0）
+    @Query("SELECT new com.fategmhelper.backend.web.dto.CharacterCardSummary(" +
+           "c.id, c.code, c.className, c.cardType, cp.id, cp.name, c.retired, c.createdAt) " +
+           "FROM CharacterCard c LEFT JOIN c.campaign cp WHERE " +
+           "(:campaignId IS NULL OR cp.id = :campaignId OR cp.id IS NULL) " +
+           "AND c.id > :afterId ORDER BY c.id ASC")
+    List<CharacterCardSummary> findSummariesAfter(@Param("campaignId") Long campaignId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COUNT(c) FROM CharacterCard c WHERE " +
+           "(:campaignId IS NULL OR c.campaign.id = :campaignId OR c.campaign IS NULL)")
+    long countByCampaignIdOrUniversal(@Param("campaignId") Long campaignId);
+
     // 查询指定战役的所有角色卡
     @Query("SELECT c FROM CharacterCard c WHERE c.campaign.id = :campaignId")
     List<CharacterCard> findByCampaignId(@Param("campaignId") Long campaignId);
@@ -2,6 +2,7 @@ package com.fategmhelper.backend.repository;
 
 import com.fategmhelper.backend.domain.CharacterStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -27,4 +28,18 @@ public interface CharacterStatusRepository extends JpaRepository<CharacterStatus
     @Query("SELECT cs FROM CharacterStatus cs WHERE cs.characterCard.id = :characterCardId AND cs.campaign.id = :campaignId ORDER BY cs.roundNumber DESC")
     List<CharacterStatus> findByCharacterCardIdAndCampaignId(
             @Param("characterCardId") Long characterCardId, @Param("campaignId") Long campaignId);
+
+    // 指定战役一段回合内的全部状态记录（按回合回看战役状态时作为逐回合增量）
+    @Query("""
+            SELECT cs FROM CharacterStatus cs JOIN FETCH cs.characterCard
+             WHERE cs.campaign.id = :campaignId AND cs.roundNumber BETWEEN :fromRound AND :toRound
+             ORDER BY cs.roundNumber, cs.characterCard.id
+            """)
+    List<CharacterStatus> findInRoundRange(@Param("campaignId") Long campaignId,
+                                           @Param("fromRound") Integer fromRound,
+                                           @Param("toRound") Integer toRound);
+
+    @Modifying
+    @Query("DELETE FROM CharacterStatus cs WHERE cs.campaign.id = :campaignId AND cs.roundNumber = :roundNumber")
+    int deleteRound(@Param("campaignId") Long campaignId, @Param("roundNumber") Integer roundNumber);
 }
@@ -2,7 +2,11 @@ package com.fategmhelper.backend.repository;
 
 import com.fategmhelper.backend.domain.Round;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoundRepository extends JpaRepository<Round, Long> {
@@ -10,6 +14,14 @@ public interface RoundRepository extends JpaRepository<Round, Long> {
     Optional<Round> findTopByCampaignIdAndStatusOrderByTurnNumberDesc(Long campaignId, Round.Status status);
 
     Optional<Round> findTopByCampaignIdOrderByTurnNumberDesc(Long campaignId);
-}
 
+    // 按主键核对登记表中的开放回合是否仍然开放
+    @Query("select r.status from Round r where r.id = :id")
+    Optional<Round.Status> findStatusById(@Param("id") Long id);
+
+    List<Round> findByCampaignIdAndTurnNumberBetweenOrderByIdAsc(Long campaignId, Integer fromTurn, Integer toTurn);
 
+    // 归档候选：关闭早于 cutoff 且尚未归档的回合，按 id 从 afterId 之后每次取一批
+    List<Round> findTop100ByStatusAndArchivedAtIsNullAndClosedAtBeforeAndIdGreaterThanOrderByIdAsc(
+            Round.Status status, Instant cutoff, Long afterId);
+}
@@ -3,28 +3,66 @@ package com.fategmhelper.backend.service;
 import com.fategmhelper.backend.domain.ActionHistory;
 import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.repository.ActionHistoryRepository;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
 import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.service.archive.ArchivedRound;
+import com.fategmhelper.backend.service.archive.RoundArchiveStore;
+import com.fategmhelper.backend.service.event.RoundChange;
+import com.fategmhelper.backend.service.snapshot.ActionSnapshotCodec;
+import com.fategmhelper.backend.web.dto.ActionHistoryRequest;
+import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class ActionHistoryService {
 
+    /** 全量导出时每次从数据库读取的行数 */
+    private static final int STREAM_CHUNK = 128;
+
     private final ActionHistoryRepository actionHistoryRepository;
     private final CampaignRepository campaignRepository;
+    private final ActionSubmissionRepository actionSubmissionRepository;
+    private final CharacterCardRepository characterCardRepository;
+    private final RoundService roundService;
+    private final LeylineService leylineService;
+    private final RoundArchiveStore archive;
+
+    /**
+     * 关闭当前回合，并在同一事务内由该回合的当前提交生成行动快照保存为历史，同时记下此刻的灵脉分配。
+     * 应在战役邮箱内调用，期间不会有新提交插入。
+     * req 为可选的覆盖项：其中非空的字段代替服务端生成的对应部分。
+     */
+    @Transactional
+    public ClosedRound closeRound(Long campaignId, ActionHistoryRequest req) {
+        Round closed = roundService.closeCurrentRound(campaignId);
+        RoundSnapshot snapshot = RoundSnapshot.of(actionSubmissionRepository.findCurrentByRoundId(closed.getId()),
+                () -> characterCardRepository.findByCampaignIdOrUniversal(campaignId, Pageable.unpaged()).getContent(),
+                req);
+        ActionHistory saved = saveSnapshot(campaignId, closed.getTurnNumber(), closed.getClosedAt(), snapshot,
+                leylineService.assignmentsJson(campaignId));
+        return new ClosedRound(RoundChange.of(closed, campaignId), ActionHistoryResponse.fromEntity(saved));
+    }
 
     @Transactional
     public ActionHistory saveSnapshot(Long campaignId,
                                       Integer roundNumber,
                                       Instant closedAt,
-                                      String actionOrderJson,
-                                      String servantActionsJson,
-                                      String masterActionsJson) {
+                                      RoundSnapshot snapshot,
+                                      String leylineAssignmentsJson) {
         Campaign campaign = campaignRepository.findById(campaignId)
                 .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + campaignId));
 
@@ -32,17 +70,107 @@ public class ActionHistoryService {
                 .campaign(campaign)
                 .roundNumber(roundNumber)
                 .closedAt(closedAt)
-                .actionOrderJson(actionOrderJson)
-                .servantActionsJson(servantActionsJson)
-                .masterActionsJson(masterActionsJson)
+                .snapshot(ActionSnapshotCodec.encode(RoundSnapshot.CLASSES, snapshot.getActionOrder(),
+                        snapshot.getServantActions(), snapshot.getMasterActions()))
+                .leylineAssignmentsJson(leylineAssignmentsJson)
                 .build();
         return actionHistoryRepository.save(h);
     }
 
+    /**
+     * 按 (回合号, id) 倒序取一页。before / beforeId 为上一页最后一行的回合号与 id，before 为 null 时从最新回合开始；
+     * 只给 before 时从该回合之前开始（兼容只按回合号翻页的客户端）。
+     * 已归档的回合从归档文件读取，按回合号与在库数据合并。
+     */
     @Transactional(readOnly = true)
-    public List<ActionHistory> listByCampaign(Long campaignId) {
-        return actionHistoryRepository.findByCampaignIdOrderByRoundNumberDesc(campaignId);
+    public List<ActionHistory> page(Long campaignId, Integer before, Long beforeId, int limit) {
+        List<ActionHistory> hot = hotPage(campaignId, before, beforeId, limit);
+        NavigableSet<Integer> archived = archive.rounds(campaignId);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        ArchivedHistories older = new ArchivedHistories(campaignId,
+                before == null ? archived : archived.headSet(before, false));
+        List<ActionHistory> result = new ArrayList<>(limit);
+        for (ActionHistory h : hot) {
+            older.emitAbove(h.getRoundNumber(), result::add, limit - result.size());
+            if (result.size() >= limit) {
+                return result;
+            }
+            if (!older.covers(h.getRoundNumber())) {
+                result.add(h);
+            }
+        }
+        older.emitAbove(Integer.MIN_VALUE, result::add, limit - result.size());
+        return result;
     }
-}
 
+    /**
+     * 按回合号倒序逐行回调。在库的行按 (回合号, id) 键集分批读取，每批是一次独立的短查询，
+     * 回调（例如写给慢客户端）期间不占用数据库连接，内存占用与战役的回合数无关；
+     * 已归档的回合按顺序插入，逐个从归档文件读取。不在事务内执行，批与批之间新写入的行可能被看到。
+     */
+    public void forEachByCampaign(Long campaignId, Consumer<ActionHistory> action) {
+        ArchivedHistories older = new ArchivedHistories(campaignId, archive.rounds(campaignId));
+        List<ActionHistory> chunk = hotPage(campaignId, null, null, STREAM_CHUNK);
+        while (!chunk.isEmpty()) {
+            for (ActionHistory h : chunk) {
+                older.emitAbove(h.getRoundNumber(), action, Integer.MAX_VALUE);
+                if (!older.covers(h.getRoundNumber())) {
+                    action.accept(h);
+                }
+            }
+            if (chunk.size() < STREAM_CHUNK) {
+                break;
+            }
+            ActionHistory last = chunk.get(chunk.size() - 1);
+            chunk = hotPage(campaignId, last.getRoundNumber(), last.getId(), STREAM_CHUNK);
+        }
+        older.emitAbove(Integer.MIN_VALUE, action, Integer.MAX_VALUE);
+    }
 
+    private List<ActionHistory> hotPage(Long campaignId, Integer before, Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (before == null) {
+            return actionHistoryRepository.findByCampaignIdOrderByRoundNumberDescIdDesc(campaignId, page);
+        }
+        // 没有 beforeId 时 id < 0 不成立，等价于只取 before 之前的回合
+        return actionHistoryRepository.findPageBefore(campaignId, before, beforeId != null ? beforeId : 0L, page);
+    }
+
+    /**
+     * 按回合号倒序输出已归档回合的行动历史。归档与在库同时存在的回合（归档后删除前中断）以归档为准。
+     */
+    private final class ArchivedHistories {
+        private final Long campaignId;
+        private final NavigableSet<Integer> rounds;
+        private final Iterator<Integer> descending;
+        private Integer next;
+
+        ArchivedHistories(Long campaignId, NavigableSet<Integer> rounds) {
+            this.campaignId = campaignId;
+            this.rounds = rounds;
+            this.descending = rounds.descendingIterator();
+            this.next = descending.hasNext() ? descending.next() : null;
+        }
+
+        boolean covers(int roundNumber) {
+            return rounds.contains(roundNumber);
+        }
+
+        /**
+         * 输出回合号大于 roundNumber 的归档回合，至多 max 条。
+         */
+        void emitAbove(int roundNumber, Consumer<ActionHistory> action, int max) {
+            int emitted = 0;
+            while (next != null && next > roundNumber && emitted < max) {
+                ActionHistory h = archive.read(campaignId, next).map(ArchivedRound::toHistory).orElse(null);
+                if (h != null) {
+                    action.accept(h);
+                    emitted++;
+                }
+                next = descending.hasNext() ? descending.next() : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 行动提交的组提交（group commit）写入管线。
+ * <p>
+ * 开启后，提交先进入有界内存队列，由单个写线程每隔几毫秒取出一批，
+ * 按战役拆分后交给各自的战役邮箱，在一个事务中完成槽位清除与批量插入；
+ * 调用方在所属批次提交后才拿到确认。关闭时（默认）每条提交在战役邮箱中走单独事务。
+ * <p>
+ * 一批中每个战役各一个事务，而不是整批一个事务：战役写入必须在该战役的邮箱内执行，
+ * 一个跨战役的事务无法同时占住多个邮箱。因此同一批内一个战役写入失败只影响该战役的条目。
+ */
+@Component
+@Slf4j
+public class ActionSubmissionGroupCommitter {
+
+    private final ActionSubmissionService service;
+    private final CampaignExecutor campaignExecutor;
+    private final ExecutionThreads executionThreads;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final long ackTimeoutMillis;
+    private final BlockingQueue<Pending> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ActionSubmissionGroupCommitter(ActionSubmissionService service,
+                                          CampaignExecutor campaignExecutor,
+                                          ExecutionThreads executionThreads,
+                                          @Value("${app.submissions.group-commit.enabled:false}") boolean enabled,
+                                          @Value("${app.submissions.group-commit.window-ms:5}") long windowMillis,
+                                          @Value("${app.submissions.group-commit.max-batch:256}") int maxBatch,
+                                          @Value("${app.submissions.group-commit.queue-capacity:4096}") int queueCapacity,
+                                          @Value("${app.submissions.group-commit.ack-timeout-ms:10000}") long ackTimeoutMillis) {
+        this.service = service;
+        this.campaignExecutor = campaignExecutor;
+        this.executionThreads = executionThreads;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = maxBatch;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = executionThreads.newThread("submission-group-commit", this::runWriter);
+        writer.start();
+        log.info("行动提交组提交已开启，窗口 {}ms，批次上限 {}", TimeUnit.NANOSECONDS.toMillis(windowNanos), maxBatch);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(ackTimeoutMillis);
+    }
+
+    /**
+     * 非阻塞地提交一条行动；开启组提交时进入写队列，否则直接投递到战役邮箱。
+     * 队列已满时抛出 RejectedExecutionException；组提交在 ack-timeout-ms 内没有确认时以 IllegalStateException 失败。
+     */
+    public CompletableFuture<SubmissionOutcome> submitAsync(SubmissionCommand command) {
+        if (!enabled) {
+            return dispatch(List.of(command)).get(0);
+        }
+        Pending pending = new Pending(command, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new RejectedExecutionException("行动提交队列已满，请稍后重试");
+        }
+        return pending.future
+                .orTimeout(ackTimeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(e instanceof TimeoutException
+                        ? new IllegalStateException("等待行动提交确认超时", e) : e));
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 从第一条到达起等待一个窗口，期间尽量攒满一批
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || batch.size() >= maxBatch) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 直接写入一批已成形的提交（不经过队列），例如批量提交接口。
+     * 各战役的写入失败只影响该战役的条目，返回结果与输入一一对应。
+     */
+    public CompletableFuture<List<SubmissionOutcome>> submitAllAsync(List<SubmissionCommand> commands) {
+        List<CompletableFuture<SubmissionOutcome>> results = dispatch(commands).stream()
+                .map(f -> f.exceptionally(e -> SubmissionOutcome.rejected(
+                        (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage())))
+                .toList();
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(v -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * 将写线程攒出的批次投递出去；写线程不等待提交完成，继续攒下一批。
+     */
+    private void commit(List<Pending> batch) {
+        List<CompletableFuture<SubmissionOutcome>> results = dispatch(batch.stream().map(Pending::command).toList());
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<SubmissionOutcome> target = batch.get(i).future;
+            results.get(i).whenComplete((outcome, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    target.complete(outcome);
+                }
+            });
+        }
+    }
+
+    /**
+     * 按战役拆分并投递到各战役邮箱，每个战役一个事务。返回与输入一一对应的结果。
+     */
+    private List<CompletableFuture<SubmissionOutcome>> dispatch(List<SubmissionCommand> commands) {
+        Map<Long, List<Integer>> indexesByCampaign = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            indexesByCampaign.computeIfAbsent(commands.get(i).getCampaignId(), k -> new ArrayList<>()).add(i);
+        }
+        List<CompletableFuture<SubmissionOutcome>> results = new ArrayList<>(Collections.nCopies(commands.size(), null));
+        indexesByCampaign.forEach((campaignId, indexes) -> {
+            List<SubmissionCommand> group = indexes.stream().map(commands::get).toList();
+            CompletableFuture<List<SubmissionOutcome>> written =
+                    campaignExecutor.submit(campaignId, () -> service.submitBatch(group));
+            written.whenComplete((outcomes, error) -> {
+                if (error != null) {
+                    log.error("战役 {} 批量写入 {} 条行动提交失败", campaignId, group.size(), error);
+                }
+            });
+            for (int k = 0; k < indexes.size(); k++) {
+                int position = k;
+                results.set(indexes.get(k), written.thenApply(outcomes -> outcomes.get(position)));
+            }
+        });
+        return results;
+    }
+
+    private record Pending(SubmissionCommand command, CompletableFuture<SubmissionOutcome> future) {
+    }
+}
@@ -4,21 +4,30 @@ import com.fategmhelper.backend.domain.ActionSubmission;
 import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.domain.Round;
 import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
 import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
-import org.springframework.context.ApplicationEventPublisher;
-import com.fategmhelper.backend.repository.CampaignRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
 @Service
 @RequiredArgsConstructor
 public class ActionSubmissionService {
 
     private final ActionSubmissionRepository actionSubmissionRepository;
-    private final CampaignRepository campaignRepository;
     private final RoundService roundService;
-    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentSlotBoard slotBoard;
+    private final CampaignEvents campaignEvents;
 
     @Transactional
     public ActionSubmission submitAction(Long campaignId,
@@ -26,42 +35,89 @@ public class ActionSubmissionService {
                                          ActionSubmission.ActionType actionType,
                                          String content,
                                          String submittedBy) {
-        Campaign campaign = campaignRepository.findById(campaignId)
-                .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + campaignId));
+        SubmissionOutcome outcome = submitBatch(List.of(
+                new SubmissionCommand(campaignId, servantClass, actionType, content, submittedBy))).get(0);
+        if (outcome.isRejected()) {
+            throw new IllegalArgumentException(outcome.getMessage());
+        }
+        return outcome.getSubmission();
+    }
+
+    /**
+     * 在一个事务内写入一批提交：每个战役只解析一次战役与回合，
+     * 每种行动类型只执行一次槽位清除，所有记录一次批量插入。
+     * 返回结果与输入一一对应；未知战役的提交被拒绝，不影响同批其他战役。
+     */
+    @Transactional
+    public List<SubmissionOutcome> submitBatch(List<SubmissionCommand> commands) {
+        SubmissionOutcome[] outcomes = new SubmissionOutcome[commands.size()];
+        // 多实例时按战役 id 顺序加锁，避免两个跨战役的批次互相等待
+        Map<Long, List<Integer>> indexesByCampaign = new TreeMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            indexesByCampaign.computeIfAbsent(commands.get(i).getCampaignId(), k -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Long, List<Integer>> entry : indexesByCampaign.entrySet()) {
+            Long campaignId = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            // 多实例时锁定战役行：与其它实例上的开启/关闭回合和提交串行化
+            Optional<Campaign> campaign = roundService.findCampaignForSubmission(campaignId);
+            if (campaign.isEmpty()) {
+                for (int idx : indexes) {
+                    outcomes[idx] = SubmissionOutcome.rejected("未找到对应战役：" + campaignId);
+                }
+                continue;
+            }
+
+            // 获取或创建当前开放回合（如果当前没有开放回合，则自动开启下一回合）
+            OpenRound open = roundService.currentRoundForUpdate(campaignId);
+            Round round = roundService.getReference(open.getId());
 
-        // 获取或创建当前开放回合（如果当前没有开放回合，则自动开启下一回合）
-        Round round = roundService.getOrCreateCurrentRound(campaign.getId());
+            // 同一批次内同槽位的多条提交，仅最后一条保持 current
+            List<ActionSubmission> rows = new ArrayList<>(indexes.size());
+            Map<ActionSubmission.ActionType, Map<String, ActionSubmission>> latestBySlot =
+                    new EnumMap<>(ActionSubmission.ActionType.class);
+            for (int idx : indexes) {
+                SubmissionCommand cmd = commands.get(idx);
+                ActionSubmission row = ActionSubmission.builder()
+                        .round(round)
+                        .campaign(campaign.get())
+                        .servantClass(cmd.getServantClass())
+                        .actionType(cmd.getActionType())
+                        .content(cmd.getContent())
+                        .submittedBy(cmd.getSubmittedBy())
+                        .current(true)
+                        .roundNumber(open.getTurnNumber())
+                        .build();
+                ActionSubmission previous = latestBySlot
+                        .computeIfAbsent(cmd.getActionType(), k -> new LinkedHashMap<>())
+                        .put(cmd.getServantClass(), row);
+                if (previous != null) {
+                    previous.setCurrent(false);
+                }
+                rows.add(row);
+            }
 
-        // 先把该回合下相同阶职 + 行动类型的旧记录标记为非 current
-        actionSubmissionRepository.clearCurrentForSlot(round.getId(), servantClass, actionType);
+            // 先把该回合下相同阶职 + 行动类型的旧记录标记为非 current
+            latestBySlot.forEach((actionType, byClass) ->
+                    actionSubmissionRepository.clearCurrentForSlots(open.getId(), actionType, byClass.keySet()));
+            actionSubmissionRepository.insertAll(rows);
 
-        ActionSubmission submission = ActionSubmission.builder()
-                .round(round)
-                .campaign(campaign)
-                .servantClass(servantClass)
-                .actionType(actionType)
-                .content(content)
-                .submittedBy(submittedBy)
-                .current(true)
-                .roundNumber(round.getTurnNumber())
-                .build();
-        ActionSubmission saved = actionSubmissionRepository.save(submission);
-        // publish SSE event for subscribers
-        try {
-            eventPublisher.publishEvent(ActionSubmissionResponse.fromEntity(saved));
-        } catch (Exception ignored) {
-            // Do not fail submit if publishing fails
+            for (int k = 0; k < indexes.size(); k++) {
+                outcomes[indexes.get(k)] = SubmissionOutcome.written(rows.get(k));
+            }
+            List<ActionSubmissionResponse> written = rows.stream().map(ActionSubmissionResponse::fromEntity).toList();
+            AfterCommit.run(() -> slotBoard.apply(campaignId, written));
+            campaignEvents.publish(campaignId, CampaignEventType.SUBMISSION_BATCH, written);
         }
-        return saved;
+        return Arrays.asList(outcomes);
     }
 
+    /**
+     * 当前开放回合各槽位的当前提交（来自内存看板）。
+     */
     @Transactional(readOnly = true)
     public java.util.List<com.fategmhelper.backend.web.dto.ActionSubmissionResponse> listCurrentByCampaign(Long campaignId) {
-        return actionSubmissionRepository.findByCampaignIdAndCurrentTrue(campaignId)
-                .stream()
-                .map(com.fategmhelper.backend.web.dto.ActionSubmissionResponse::fromEntity)
-                .toList();
+        return slotBoard.list(campaignId);
     }
 }
-
-
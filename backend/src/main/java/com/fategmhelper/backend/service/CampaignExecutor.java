@@ -0,0 +1,202 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 按战役划分的串行执行器（每个战役一个邮箱）。
+ * <p>
+ * 同一战役的写操作按到达顺序在单个逻辑工作者上依次执行，不同战役在共享线程池上并行。
+ * 因此同战役的并发写入（例如两次提交同时创建下一回合）无需数据库锁或重试即可保持一致。
+ * 任务内部应自行开启事务，使事务完整地运行在邮箱内。
+ * 虚拟线程模式下每次排空邮箱使用一个新的虚拟线程，串行语义不变。
+ * <p>
+ * 只为存在的战役创建邮箱；空闲超过 app.campaign-executor.idle-timeout 的邮箱在之后新建邮箱时顺带回收。
+ * <p>
+ * 控制器、WebSocket 消息和组提交写线程使用 {@link #submit}，拿到 future 后立即释放调用线程。
+ * {@link #call} 会阻塞调用线程直到任务在邮箱内执行完毕，只供后台线程（如回合归档）使用；
+ * 在邮箱任务内对另一个战役调用 {@link #call} 会被拒绝：两个战役互相等待对方邮箱时会占住工作线程造成死锁，
+ * 跨战役的后续操作应在 {@link #submit} 返回的 future 上串联。
+ */
+@Component
+@Slf4j
+public class CampaignExecutor {
+
+    /** 单个邮箱每次占用工作线程时最多执行的任务数，避免热点战役饿死其他战役 */
+    private static final int DRAIN_LIMIT = 32;
+
+    private final Executor workers;
+    private final CampaignRepository campaignRepository;
+    private final long idleTimeoutNanos;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> runningCampaign = new ThreadLocal<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    public CampaignExecutor(ExecutionThreads executionThreads,
+                            CampaignRepository campaignRepository,
+                            @Value("${app.campaign-executor.threads:0}") int threads,
+                            @Value("${app.campaign-executor.idle-timeout:PT10M}") Duration idleTimeout) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.workers = executionThreads.newExecutor("campaign-worker-", size);
+        this.campaignRepository = campaignRepository;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ExecutionThreads.shutdown(workers);
+    }
+
+    /**
+     * 在战役邮箱中异步执行任务，不阻塞调用线程。战役不存在时返回以 IllegalArgumentException 失败的 future。
+     */
+    public <T> CompletableFuture<T> submit(Long campaignId, Supplier<T> task) {
+        if (!mailboxes.containsKey(campaignId)) {
+            if (!campaignRepository.existsById(campaignId)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("未找到对应战役：" + campaignId));
+            }
+            sweepIdle();
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable job = () -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        // 入队与回收都在 compute 内完成，回收不会丢掉刚入队的任务，也不会出现同一战役的两个邮箱
+        Mailbox mailbox = mailboxes.compute(campaignId, (id, existing) -> {
+            Mailbox target = existing != null ? existing : new Mailbox(id);
+            target.tasks.add(job);
+            return target;
+        });
+        mailbox.schedule();
+        return future;
+    }
+
+    public CompletableFuture<Void> submit(Long campaignId, Runnable task) {
+        return submit(campaignId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在战役邮箱中执行任务并阻塞等待结果；已在同一战役邮箱内时直接执行。
+     * 在另一个战役的邮箱任务内调用时抛出 IllegalStateException。
+     */
+    public <T> T call(Long campaignId, Supplier<T> task) {
+        Long running = runningCampaign.get();
+        if (campaignId == null || campaignId.equals(running)) {
+            return task.get();
+        }
+        if (running != null) {
+            throw new IllegalStateException("不能在战役 " + running + " 的邮箱内同步等待战役 " + campaignId + " 的任务");
+        }
+        try {
+            return submit(campaignId, task).get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待战役任务执行被中断", e);
+        }
+    }
+
+    public void run(Long campaignId, Runnable task) {
+        call(campaignId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 回收空闲超时的邮箱：队列为空、未在排空且最近一次排空早于超时。
+     */
+    private void sweepIdle() {
+        long now = System.nanoTime();
+        if (now - lastSweep < idleTimeoutNanos / 2) {
+            return;
+        }
+        lastSweep = now;
+        for (Long campaignId : mailboxes.keySet()) {
+            mailboxes.computeIfPresent(campaignId, (id, mailbox) -> mailbox.idleSince(now - idleTimeoutNanos) ? null : mailbox);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private final class Mailbox {
+        private final Long campaignId;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long lastActive = System.nanoTime();
+
+        Mailbox(Long campaignId) {
+            this.campaignId = campaignId;
+        }
+
+        boolean idleSince(long cutoff) {
+            return !scheduled.get() && tasks.isEmpty() && lastActive - cutoff < 0;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            runningCampaign.set(campaignId);
+            try {
+                for (int i = 0; i < DRAIN_LIMIT; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        log.error("战役 {} 的任务执行失败", campaignId, e);
+                    }
+                }
+            } finally {
+                runningCampaign.remove();
+                lastActive = System.nanoTime();
+                scheduled.set(false);
+            }
+            // 释放后再检查一次，防止与 enqueue 竞争时遗漏任务
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
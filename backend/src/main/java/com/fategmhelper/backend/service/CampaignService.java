@@ -4,6 +4,7 @@ import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.domain.CharacterCard;
 import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.service.search.CharacterCardSearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +17,8 @@ public class CampaignService {
 
     private final CampaignRepository repository;
     private final CharacterCardRepository characterCardRepository;
+    private final RoundService roundService;
+    private final CharacterCardSearchIndex cardSearchIndex;
 
     @Transactional(readOnly = true)
     public List<Campaign> findAll() {
@@ -44,9 +47,11 @@ public class CampaignService {
         
         // 将关联的角色卡的campaign_id设置为null（变成通用角色卡）
         characterCardRepository.clearCampaignFromCards(id);
+        AfterCommit.run(() -> cardSearchIndex.clearCampaign(id));
         
         // 删除战役
         repository.delete(campaign);
+        roundService.evict(id);
     }
 }
 
@@ -6,17 +6,26 @@ import com.fategmhelper.backend.domain.SkillItem;
 import com.fategmhelper.backend.domain.Stats;
 import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.service.search.CharacterCardSearchIndex;
+import com.fategmhelper.backend.web.dto.CharacterCardPage;
 import com.fategmhelper.backend.web.dto.CharacterCardRequest;
 import com.fategmhelper.backend.web.dto.CharacterCardResponse;
+import com.fategmhelper.backend.web.dto.CharacterCardSummary;
 import com.fategmhelper.backend.web.dto.SkillItemDto;
 import com.fategmhelper.backend.web.dto.StatsDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +33,7 @@ public class CharacterCardService {
 
     private final CharacterCardRepository repository;
     private final CampaignRepository campaignRepository;
+    private final CharacterCardSearchIndex searchIndex;
 
     @Transactional
     public CharacterCardResponse create(CharacterCardRequest req) {
@@ -50,6 +60,7 @@ public class CharacterCardService {
                 .build();
 
         CharacterCard saved = repository.save(entity);
+        AfterCommit.run(() -> searchIndex.put(saved));
         return toResponse(saved);
     }
 
@@ -74,10 +85,55 @@ public class CharacterCardService {
                 .map(this::toResponse);
     }
 
+    /**
+     * 按 ID 游标分页：cursor 为上一页返回的 nextCursor，首页传 null。不做 OFFSET 扫描，
+     * 多取一行判断是否还有下一页，总数只在 withTotal 为 true 时另行统计。
+     */
+    @Transactional(readOnly = true)
+    public CharacterCardPage<CharacterCardResponse> page(Long campaignId, String cursor, int limit, boolean withTotal) {
+        PageRequest window = PageRequest.of(0, limit + 1);
+        List<CharacterCard> rows = cursor == null
+                ? repository.findFirstPage(campaignId, window)
+                : repository.findPageAfter(campaignId, decodeCursor(cursor), window);
+        boolean hasNext = rows.size() > limit;
+        List<CharacterCard> items = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        Long total = withTotal ? repository.countByCampaignIdOrUniversal(campaignId) : null;
+        return new CharacterCardPage<>(items.stream().map(this::toResponse).toList(), nextCursor, total);
+    }
+
+    /**
+     * 与 {@link #page} 相同的游标分页，但只返回摘要列，不加载原始文本、属性和技能列表。
+     */
+    @Transactional(readOnly = true)
+    public CharacterCardPage<CharacterCardSummary> summaries(Long campaignId, String cursor, int limit, boolean withTotal) {
+        List<CharacterCardSummary> rows = repository.findSummariesAfter(campaignId,
+                cursor == null ? 0L : decodeCursor(cursor), PageRequest.of(0, limit + 1));
+        boolean hasNext = rows.size() > limit;
+        List<CharacterCardSummary> items = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        Long total = withTotal ? repository.countByCampaignIdOrUniversal(campaignId) : null;
+        return new CharacterCardPage<>(items, nextCursor, total);
+    }
+
+    /**
+     * 关键词搜索：由内存索引给出按相关度排序的 ID，只加载当前页的角色卡。
+     */
     @Transactional(readOnly = true)
     public Page<CharacterCardResponse> search(String keyword, Long campaignId, int page, int size) {
-        return repository.searchByCodeOrClassName(keyword, campaignId, PageRequest.of(page, size))
-                .map(this::toResponse);
+        PageRequest pageable = PageRequest.of(page, size);
+        List<Long> ids = searchIndex.search(keyword, campaignId);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        List<Long> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+        Map<Long, Integer> order = new HashMap<>();
+        for (int i = 0; i < pageIds.size(); i++) {
+            order.put(pageIds.get(i), i);
+        }
+        List<CharacterCardResponse> content = repository.findAllById(pageIds).stream()
+                .sorted(Comparator.comparing(c -> order.get(c.getId())))
+                .map(this::toResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.size());
     }
 
     @Transactional
@@ -86,6 +142,7 @@ public class CharacterCardService {
             throw new IllegalArgumentException("Character card not found: " + id);
         }
         repository.deleteById(id);
+        AfterCommit.run(() -> searchIndex.remove(id));
     }
 
     @Transactional
@@ -93,6 +150,7 @@ public class CharacterCardService {
         CharacterCard c = repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Character card not found: " + id));
         c.setRetired(true);
         repository.save(c);
+        AfterCommit.run(() -> searchIndex.setRetired(id, true));
     }
 
     @Transactional
@@ -100,6 +158,23 @@ public class CharacterCardService {
         CharacterCard c = repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Character card not found: " + id));
         c.setRetired(false);
         repository.save(c);
+        AfterCommit.run(() -> searchIndex.setRetired(id, false));
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("c1:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith("c1:")) {
+                return Long.parseLong(decoded.substring(3));
+            }
+        } catch (IllegalArgumentException e) {
+            // 落到下面统一报错（NumberFormatException 也是 IllegalArgumentException）
+        }
+        throw new IllegalArgumentException("无效的分页游标：" + cursor);
     }
 
     private Stats toStats(StatsDto dto) {
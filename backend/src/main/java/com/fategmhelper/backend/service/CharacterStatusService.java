@@ -7,28 +7,56 @@ import com.fategmhelper.backend.domain.StatusEffect;
 import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.CharacterCardRepository;
 import com.fategmhelper.backend.repository.CharacterStatusRepository;
+import com.fategmhelper.backend.service.archive.ArchivedRound;
+import com.fategmhelper.backend.service.archive.RoundArchiveStore;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import com.fategmhelper.backend.web.dto.CharacterStatusPatch;
 import com.fategmhelper.backend.web.dto.CharacterStatusRequest;
 import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CharacterStatusService {
 
+    /** JSON 结构比较时数值按大小比较（1 与 1.0 相同） */
+    private static final Comparator<JsonNode> NUMERIC = (a, b) -> {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    };
+
     private final CharacterStatusRepository statusRepository;
     private final CharacterCardRepository characterCardRepository;
     private final CampaignRepository campaignRepository;
     private final ObjectMapper objectMapper;
+    private final CampaignEvents campaignEvents;
+    private final RoundArchiveStore archive;
 
+    /**
+     * 更新或创建角色状态，已有记录时推送带版本号的补丁。
+     * 版本号靠战役邮箱串行化，只在单实例内有效：多实例（outbox）时没有行锁或乐观锁保护，
+     * 两个实例并发修改同一记录会互相覆盖并产生相同的版本号。
+     */
     @Transactional
     public CharacterStatusResponse updateOrCreate(CharacterStatusRequest req) {
         // 数据验证
@@ -41,6 +69,9 @@ public class CharacterStatusService {
         if (req.getRoundNumber() == null || req.getRoundNumber() < 1) {
             throw new IllegalArgumentException("回合数必须大于0");
         }
+        if (archive.contains(req.getCampaignId(), req.getRoundNumber())) {
+            throw new IllegalArgumentException("第 " + req.getRoundNumber() + " 回合已归档，不能修改角色状态");
+        }
 
         Campaign campaign = campaignRepository.findById(req.getCampaignId())
                 .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + req.getCampaignId()));
@@ -60,50 +91,190 @@ public class CharacterStatusService {
                         req.getCampaignId(),
                         req.getRoundNumber());
 
-        CharacterStatus status;
+        // 序列化失败时记录日志并保留原有的异常状态列表，其余字段照常更新
+        String effectsJson = req.getStatusEffectsList() != null ? writeStatusEffects(req.getStatusEffectsList()) : null;
+
         if (existingStatus.isPresent()) {
-            // 更新现有记录
-            status = existingStatus.get();
-            updateStatusFromRequest(status, req);
-        } else {
-            // 创建新记录
-            status = CharacterStatus.builder()
-                    .characterCard(characterCard)
-                    .campaign(campaign)
-                    .roundNumber(req.getRoundNumber())
-                    .build();
-            updateStatusFromRequest(status, req);
+            // 更新现有记录：只推送实际变化的字段；没有变化时照常保存，但不提升版本号、不推送
+            CharacterStatus status = existingStatus.get();
+            CharacterStatusPatch patch = diff(status, req, effectsJson);
+            if (patch == null) {
+                return CharacterStatusResponse.fromEntity(statusRepository.save(status));
+            }
+            updateStatusFromRequest(status, req, effectsJson);
+            status.setVersion(patch.getVersion());
+            CharacterStatus saved = statusRepository.save(status);
+            campaignEvents.publish(campaign.getId(), CampaignEventType.STATUS_PATCHED, patch);
+            return CharacterStatusResponse.fromEntity(saved);
         }
 
+        // 创建新记录：推送完整状态
+        CharacterStatus status = CharacterStatus.builder()
+                .characterCard(characterCard)
+                .campaign(campaign)
+                .roundNumber(req.getRoundNumber())
+                .version(1L)
+                .build();
+        updateStatusFromRequest(status, req, effectsJson);
         CharacterStatus saved = statusRepository.save(status);
-        return toResponse(saved);
+        CharacterStatusResponse response = CharacterStatusResponse.fromEntity(saved);
+        campaignEvents.publish(campaign.getId(), CampaignEventType.STATUS_UPDATED, response);
+        return response;
     }
 
     @Transactional(readOnly = true)
     public CharacterStatusResponse findByCharacterCardAndCampaignAndRound(Long characterCardId, Long campaignId, Integer roundNumber) {
+        if (archive.contains(campaignId, roundNumber)) {
+            return archivedStatuses(campaignId, roundNumber).stream()
+                    .filter(s -> characterCardId.equals(s.getCharacterCardId()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("未找到角色状态记录"));
+        }
         CharacterStatus status = statusRepository
                 .findByCharacterCardIdAndCampaignIdAndRoundNumber(characterCardId, campaignId, roundNumber)
                 .orElseThrow(() -> new IllegalArgumentException("未找到角色状态记录"));
-        return toResponse(status);
+        return CharacterStatusResponse.fromEntity(status);
     }
 
     @Transactional(readOnly = true)
     public List<CharacterStatusResponse> findByCampaignAndRound(Long campaignId, Integer roundNumber) {
+        if (archive.contains(campaignId, roundNumber)) {
+            return archivedStatuses(campaignId, roundNumber);
+        }
         return statusRepository.findByCampaignIdAndRoundNumber(campaignId, roundNumber)
                 .stream()
-                .map(this::toResponse)
+                .map(CharacterStatusResponse::fromEntity)
                 .toList();
     }
 
+    /**
+     * 角色卡在战役中的全部状态（回合降序），已归档的回合从归档文件读取。
+     */
     @Transactional(readOnly = true)
     public List<CharacterStatusResponse> findByCharacterCardAndCampaign(Long characterCardId, Long campaignId) {
-        return statusRepository.findByCharacterCardIdAndCampaignId(characterCardId, campaignId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        Set<Integer> archived = archive.rounds(campaignId);
+        List<CharacterStatusResponse> result = new ArrayList<>();
+        statusRepository.findByCharacterCardIdAndCampaignId(characterCardId, campaignId).stream()
+                .filter(s -> !archived.contains(s.getRoundNumber()))
+                .map(CharacterStatusResponse::fromEntity)
+                .forEach(result::add);
+        for (Integer round : archived) {
+            archivedStatuses(campaignId, round).stream()
+                    .filter(s -> characterCardId.equals(s.getCharacterCardId()))
+                    .forEach(result::add);
+        }
+        result.sort(Comparator.comparing(CharacterStatusResponse::getRoundNumber).reversed());
+        return result;
     }
 
-    private void updateStatusFromRequest(CharacterStatus status, CharacterStatusRequest req) {
+    private List<CharacterStatusResponse> archivedStatuses(Long campaignId, Integer roundNumber) {
+        return archive.read(campaignId, roundNumber)
+                .map(ArchivedRound::toStatusResponses)
+                .orElse(List.of());
+    }
+
+    /**
+     * 比较请求与现有记录，返回变化补丁；没有任何变化时返回 null。
+     * JSON 列按解析后的结构比较（数据库返回的是规范化后的文本，键顺序和空白与请求不同）。
+     * 异常状态列表有差异时先尝试按名称给出增删，
+     * 按客户端的应用方式得不到请求的列表（只调整顺序、存在同名状态、旧值无法解析）时改为整体替换。
+     */
+    private CharacterStatusPatch diff(CharacterStatus status, CharacterStatusRequest req, String effectsJson) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "currentMana", status.getCurrentMana(), req.getCurrentMana());
+        putIfChanged(changes, "manaLimit", status.getManaLimit(), req.getManaLimit());
+        putIfChanged(changes, "currentCommandSeals", status.getCurrentCommandSeals(), req.getCurrentCommandSeals());
+        if (req.getStatusEffects() != null && !sameJson(status.getStatusEffects(), req.getStatusEffects())) {
+            changes.put("statusEffects", req.getStatusEffects());
+        }
+        putIfChanged(changes, "notes", status.getNotes(), req.getNotes());
+
+        List<StatusEffect> upserted = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<StatusEffect> replaced = null;
+        boolean effectsChanged = effectsJson != null && !sameJson(status.getStatusEffectsList(), effectsJson);
+        if (effectsChanged) {
+            List<StatusEffect> requested = req.getStatusEffectsList();
+            String stored = status.getStatusEffectsList();
+            List<StatusEffect> parsed = parseStatusEffects(stored);
+            boolean oldUnreadable = parsed == null && stored != null && !stored.isBlank();
+            List<StatusEffect> old = parsed != null ? parsed : List.of();
+            Map<String, StatusEffect> before = new LinkedHashMap<>();
+            old.forEach(e -> before.put(e.getName(), e));
+            Set<String> seen = new HashSet<>();
+            for (StatusEffect effect : requested) {
+                seen.add(effect.getName());
+                if (!effect.equals(before.get(effect.getName()))) {
+                    upserted.add(effect);
+                }
+            }
+            before.keySet().stream().filter(name -> !seen.contains(name)).forEach(removed::add);
+            if (oldUnreadable || !applyByName(old, upserted, removed).equals(requested)) {
+                replaced = requested;
+                upserted = List.of();
+                removed = List.of();
+            }
+        }
+
+        if (changes.isEmpty() && !effectsChanged) {
+            return null;
+        }
+        long baseVersion = status.getVersion() != null ? status.getVersion() : 0L;
+        return CharacterStatusPatch.builder()
+                .id(status.getId())
+                .characterCardId(status.getCharacterCard().getId())
+                .campaignId(status.getCampaign().getId())
+                .roundNumber(status.getRoundNumber())
+                .baseVersion(baseVersion)
+                .version(baseVersion + 1)
+                .changes(changes)
+                .effectsUpserted(upserted)
+                .effectsRemoved(removed)
+                .effectsReplaced(replaced)
+                .build();
+    }
+
+    /**
+     * 与客户端相同的补丁应用方式：先按名称移除，再按名称原位替换或追加到末尾。
+     */
+    private static List<StatusEffect> applyByName(List<StatusEffect> old, List<StatusEffect> upserted, List<String> removed) {
+        List<StatusEffect> list = new ArrayList<>(old);
+        list.removeIf(e -> removed.contains(e.getName()));
+        for (StatusEffect effect : upserted) {
+            int i = 0;
+            while (i < list.size() && !Objects.equals(list.get(i).getName(), effect.getName())) {
+                i++;
+            }
+            if (i < list.size()) {
+                list.set(i, effect);
+            } else {
+                list.add(effect);
+            }
+        }
+        return list;
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String field, Object current, Object requested) {
+        if (requested != null && !requested.equals(current)) {
+            changes.put(field, requested);
+        }
+    }
+
+    /**
+     * 两段 JSON 文本解析后结构相同（数值按大小比较）；任一方无法解析时退回按文本比较。
+     */
+    private boolean sameJson(String stored, String requested) {
+        if (stored == null || requested == null) {
+            return Objects.equals(stored, requested);
+        }
+        try {
+            return objectMapper.readTree(stored).equals(NUMERIC, objectMapper.readTree(requested));
+        } catch (Exception e) {
+            return stored.equals(requested);
+        }
+    }
+
+    private void updateStatusFromRequest(CharacterStatus status, CharacterStatusRequest req, String effectsJson) {
         if (req.getCurrentMana() != null) {
             status.setCurrentMana(req.getCurrentMana());
         }
@@ -116,46 +287,34 @@ public class CharacterStatusService {
         if (req.getStatusEffects() != null) {
             status.setStatusEffects(req.getStatusEffects());
         }
-        if (req.getStatusEffectsList() != null) {
-            try {
-                status.setStatusEffectsList(objectMapper.writeValueAsString(req.getStatusEffectsList()));
-            } catch (Exception e) {
-                // 记录错误但不中断操作
-                System.err.println("序列化异常状态列表失败: " + e.getMessage());
-            }
+        if (effectsJson != null) {
+            status.setStatusEffectsList(effectsJson);
         }
         if (req.getNotes() != null) {
             status.setNotes(req.getNotes());
         }
     }
 
-    private CharacterStatusResponse toResponse(CharacterStatus status) {
-        List<StatusEffect> statusEffectsList = null;
-        if (status.getStatusEffectsList() != null && !status.getStatusEffectsList().trim().isEmpty()) {
-            try {
-                statusEffectsList = objectMapper.readValue(status.getStatusEffectsList(),
-                    new TypeReference<List<StatusEffect>>() {});
-            } catch (Exception e) {
-                // 记录错误但不中断操作
-                System.err.println("反序列化异常状态列表失败: " + e.getMessage());
-            }
+    private String writeStatusEffects(List<StatusEffect> effects) {
+        try {
+            return objectMapper.writeValueAsString(effects);
+        } catch (Exception e) {
+            // 记录错误但不中断操作
+            log.warn("序列化异常状态列表失败: {}", e.getMessage());
+            return null;
         }
+    }
 
-        return CharacterStatusResponse.builder()
-                .id(status.getId())
-                .characterCardId(status.getCharacterCard().getId())
-                .characterCardCode(status.getCharacterCard().getCode())
-                .characterCardClassName(status.getCharacterCard().getClassName())
-                .campaignId(status.getCampaign().getId())
-                .roundNumber(status.getRoundNumber())
-                .currentMana(status.getCurrentMana())
-                .manaLimit(status.getManaLimit())
-                .currentCommandSeals(status.getCurrentCommandSeals())
-                .statusEffects(status.getStatusEffects())
-                .statusEffectsList(statusEffectsList)
-                .notes(status.getNotes())
-                .createdAt(status.getCreatedAt())
-                .updatedAt(status.getUpdatedAt())
-                .build();
+    private List<StatusEffect> parseStatusEffects(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<StatusEffect>>() {});
+        } catch (Exception e) {
+            // 记录错误但不中断操作
+            log.warn("反序列化异常状态列表失败: {}", e.getMessage());
+            return null;
+        }
     }
 }
@@ -0,0 +1,14 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.service.event.RoundChange;
+import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
+import lombok.Value;
+
+/**
+ * 关闭回合的结果：被关闭的回合，以及随之保存的行动快照（未提交快照时为 null）。
+ */
+@Value
+public class ClosedRound {
+    RoundChange round;
+    ActionHistoryResponse history;
+}
@@ -0,0 +1,125 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 每个战役当前回合的槽位看板（阶职 + 行动类型 → 当前提交）。
+ * <p>
+ * 提交事务提交后更新，回合关闭或新回合开启时清空，启动时从数据库重建；
+ * GM 面板读取当前提交时直接返回看板内容，不再查询历史回合的 is_current 记录。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CurrentSlotBoard {
+
+    private final ActionSubmissionRepository actionSubmissionRepository;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+    /** 每次 apply/reset/evict 改完看板后加一，用于判断加载期间是否有写入 */
+    private final AtomicLong writes = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<Long, List<ActionSubmission>> byCampaign = actionSubmissionRepository.findCurrentInOpenRounds().stream()
+                .collect(Collectors.groupingBy(a -> a.getCampaign().getId()));
+        byCampaign.forEach((campaignId, rows) -> boards.put(campaignId, Board.of(rows)));
+        log.info("已重建 {} 个战役的当前回合槽位看板", byCampaign.size());
+    }
+
+    /**
+     * 未命中时在 ConcurrentHashMap 的计算函数之外查询数据库，避免查询期间占住哈希桶、阻塞同桶其它战役的读写。
+     * 查询期间有写入时不缓存本次结果（写入可能因看板未加载而被跳过），下次读取重新加载。
+     */
+    public List<ActionSubmissionResponse> list(Long campaignId) {
+        Board board = boards.get(campaignId);
+        if (board == null) {
+            long before = writes.get();
+            Board loaded = load(campaignId);
+            board = writes.get() == before ? boards.putIfAbsent(campaignId, loaded) : null;
+            if (board == null) {
+                board = loaded;
+            }
+        }
+        return List.copyOf(board.slots().values());
+    }
+
+    /**
+     * 应用一批已提交的写入。看板尚未加载时跳过，下次读取会从数据库得到包含本批的结果。
+     */
+    public void apply(Long campaignId, Collection<ActionSubmissionResponse> written) {
+        boards.computeIfPresent(campaignId, (k, board) -> {
+            Board next = board;
+            for (ActionSubmissionResponse s : written) {
+                if (s.isCurrent()) {
+                    next = next.with(s);
+                }
+            }
+            return next;
+        });
+        writes.incrementAndGet();
+    }
+
+    /**
+     * 回合关闭或新回合开启：当前回合尚无提交。
+     */
+    public void reset(Long campaignId, Long roundId) {
+        boards.put(campaignId, new Board(roundId, Map.of()));
+        writes.incrementAndGet();
+    }
+
+    public void evict(Long campaignId) {
+        boards.remove(campaignId);
+        writes.incrementAndGet();
+    }
+
+    private Board load(Long campaignId) {
+        return Board.of(actionSubmissionRepository.findCurrentInOpenRound(campaignId));
+    }
+
+    private record SlotKey(String servantClass, ActionSubmission.ActionType actionType) {
+    }
+
+    /**
+     * 不可变快照，更新时整体替换；槽位数很少，复制成本可以忽略。
+     */
+    private record Board(Long roundId, Map<SlotKey, ActionSubmissionResponse> slots) {
+
+        static Board of(List<ActionSubmission> rows) {
+            Map<SlotKey, ActionSubmissionResponse> slots = new LinkedHashMap<>();
+            Long roundId = null;
+            for (ActionSubmission row : rows) {
+                ActionSubmissionResponse s = ActionSubmissionResponse.fromEntity(row);
+                roundId = s.getRoundId();
+                slots.put(new SlotKey(s.getServantClass(), s.getActionType()), s);
+            }
+            return new Board(roundId, slots);
+        }
+
+        Board with(ActionSubmissionResponse s) {
+            // 属于新回合的提交意味着旧回合已结束
+            Map<SlotKey, ActionSubmissionResponse> slots = s.getRoundId().equals(roundId)
+                    ? new LinkedHashMap<>(this.slots)
+                    : new LinkedHashMap<>();
+            slots.put(new SlotKey(s.getServantClass(), s.getActionType()), s);
+            return new Board(s.getRoundId(), slots);
+        }
+    }
+}
@@ -8,13 +8,17 @@ import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.CharacterCardRepository;
 import com.fategmhelper.backend.repository.LeylineAssignmentRepository;
 import com.fategmhelper.backend.repository.LeylineRepository;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
 import com.fategmhelper.backend.web.dto.LeylineAssignmentRequest;
 import com.fategmhelper.backend.web.dto.LeylineAssignmentResponse;
+import com.fategmhelper.backend.web.dto.LeylineResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -26,6 +30,7 @@ public class LeylineAssignmentService {
     private final CampaignRepository campaignRepository;
     private final LeylineRepository leylineRepository;
     private final CharacterCardRepository characterCardRepository;
+    private final CampaignEvents campaignEvents;
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     @Transactional(readOnly = true)
@@ -48,6 +53,8 @@ public class LeylineAssignmentService {
 
         if (req.getLeylineId() == null) {
             repository.deleteByCampaignIdAndCharacterCardId(campaign.getId(), card.getId());
+            campaignEvents.publish(campaign.getId(), CampaignEventType.LEYLINE_ASSIGNED,
+                    Map.of("characterCardId", card.getId(), "removed", true));
             return null;
         }
 
@@ -62,7 +69,9 @@ public class LeylineAssignmentService {
                 .leyline(ley)
                 .characterCard(card)
                 .build();
-        return LeylineAssignmentResponse.fromEntity(repository.save(entity));
+        LeylineAssignmentResponse response = LeylineAssignmentResponse.fromEntity(repository.save(entity));
+        campaignEvents.publish(campaign.getId(), CampaignEventType.LEYLINE_ASSIGNED, response);
+        return response;
     }
 
     /**
@@ -130,6 +139,9 @@ public class LeylineAssignmentService {
                 // ignore
             }
         }
+        // 批量分配改写的是灵脉上的角色列表，直接推送更新后的灵脉
+        campaignEvents.publish(campaignId, CampaignEventType.LEYLINE_ASSIGNMENTS_REPLACED,
+                leylines.stream().map(LeylineResponse::fromEntity).toList());
     }
 }
 
@@ -4,14 +4,20 @@ import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.domain.Leyline;
 import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.LeylineRepository;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
 import com.fategmhelper.backend.web.dto.LeylineRequest;
 import com.fategmhelper.backend.web.dto.LeylineResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +25,7 @@ public class LeylineService {
 
     private final LeylineRepository repository;
     private final CampaignRepository campaignRepository;
+    private final CampaignEvents campaignEvents;
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     @Transactional(readOnly = true)
@@ -29,6 +36,29 @@ public class LeylineService {
                 .toList();
     }
 
+    /**
+     * 战役当前的灵脉分配，JSON 对象：灵脉 ID → 已分配角色卡 ID 数组。各灵脉存储的数组原样拼入，不逐个解析。
+     */
+    @Transactional(readOnly = true)
+    public String assignmentsJson(Long campaignId) {
+        ObjectNode assignments = MAPPER.createObjectNode();
+        for (Leyline leyline : repository.findByCampaignIdOrderByIdAsc(campaignId)) {
+            assignments.putRawValue(String.valueOf(leyline.getId()),
+                    new RawValue(RawJson.orDefault(leyline.getAssignedCharacterIdsJson(), "[]").json()));
+        }
+        return assignments.toString();
+    }
+
+    /**
+     * 灵脉所属战役（以库中记录为准，不信任请求体中的 campaignId）。
+     */
+    @Transactional(readOnly = true)
+    public Long findCampaignId(Long id) {
+        return repository.findById(id)
+                .map(l -> l.getCampaign().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Leyline not found: " + id));
+    }
+
     @Transactional
     public LeylineResponse create(LeylineRequest req) {
         Campaign campaign = campaignRepository.findById(req.getCampaignId())
@@ -49,7 +79,9 @@ public class LeylineService {
         } catch (Exception e) {
             // ignore serialization errors for testing
         }
-        return LeylineResponse.fromEntity(repository.save(entity));
+        LeylineResponse response = LeylineResponse.fromEntity(repository.save(entity));
+        campaignEvents.publish(campaign.getId(), CampaignEventType.LEYLINE_CREATED, response);
+        return response;
     }
 
     @Transactional
@@ -69,15 +101,17 @@ public class LeylineService {
         } catch (Exception e) {
             // ignore
         }
-        return LeylineResponse.fromEntity(repository.save(entity));
+        LeylineResponse response = LeylineResponse.fromEntity(repository.save(entity));
+        campaignEvents.publish(entity.getCampaign().getId(), CampaignEventType.LEYLINE_UPDATED, response);
+        return response;
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
-            throw new IllegalArgumentException("Leyline not found: " + id);
-        }
-        repository.deleteById(id);
+        Leyline entity = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Leyline not found: " + id));
+        repository.delete(entity);
+        campaignEvents.publish(entity.getCampaign().getId(), CampaignEventType.LEYLINE_DELETED, Map.of("id", id));
     }
 }
 
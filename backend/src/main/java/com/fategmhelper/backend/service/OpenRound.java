@@ -0,0 +1,24 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.Round;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * 战役当前开放回合的只读快照，由 {@link RoundService} 缓存在内存中。
+ */
+@Value
+public class OpenRound {
+    Long id;
+    Long campaignId;
+    Integer turnNumber;
+    Round.Status status;
+    Instant createdAt;
+    Instant closedAt;
+
+    public static OpenRound of(Round round, Long campaignId) {
+        return new OpenRound(round.getId(), campaignId, round.getTurnNumber(), round.getStatus(), round.getCreatedAt(),
+                round.getClosedAt());
+    }
+}
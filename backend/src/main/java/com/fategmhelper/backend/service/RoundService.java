@@ -5,49 +5,145 @@ import com.fategmhelper.backend.domain.Round;
 import com.fategmhelper.backend.domain.Round.Status;
 import com.fategmhelper.backend.repository.CampaignRepository;
 import com.fategmhelper.backend.repository.RoundRepository;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import com.fategmhelper.backend.service.event.RoundChange;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class RoundService {
 
+    private static final int UNKNOWN_TURN = -1;
+
     private final RoundRepository roundRepository;
     private final CampaignRepository campaignRepository;
+    private final CurrentSlotBoard slotBoard;
+    private final CampaignEvents campaignEvents;
+    private final CampaignEventRelay eventRelay;
+
+    /**
+     * 战役 → 开放回合登记表。首次访问时从数据库加载，之后只在关闭/创建回合的事务提交后更新。
+     * 单实例（app.events.relay=local）时同一战役的写入已由战役邮箱串行化，登记表就是权威状态：
+     * 查询当前回合、提交行动、开启下一回合都不需要回合查询，也不加锁。
+     * 多实例（outbox）时登记表只是本实例的缓存，其它实例的修改要等 outbox 事件到达才会失效，
+     * 因此开启/关闭回合与写入提交先锁定战役行、按数据库判断：每次提交多一次行锁和一次按主键的回合状态查询，
+     * 开启/关闭回合各多一次回合查询。
+     */
+    private final Map<Long, CampaignRounds> registry = new ConcurrentHashMap<>();
 
     @Transactional(readOnly = true)
-    public Optional<Round> findCurrentOpenRound(Long campaignId) {
-        return roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(campaignId, Status.OPEN);
+    public Optional<OpenRound> findCurrentOpenRound(Long campaignId) {
+        return Optional.ofNullable(lookup(campaignId).open());
     }
 
+    /**
+     * 登记表中有开放回合时直接返回，没有时开启下一回合；多实例时先锁定战役行后按数据库重新判断。
+     */
     @Transactional
-    public Round getOrCreateCurrentRound(Long campaignId) {
-        return findCurrentOpenRound(campaignId)
-                .orElseGet(() -> createNextRound(campaignId));
+    public OpenRound getOrCreateCurrentRound(Long campaignId) {
+        return findCurrentOpenRound(campaignId).orElseGet(() -> {
+            if (!eventRelay.multiInstance()) {
+                return OpenRound.of(createNextRound(campaignId), campaignId);
+            }
+            lockCampaign(campaignId);
+            return openOrCreateLocked(campaignId);
+        });
+    }
+
+    /**
+     * 写入提交用的战役；多实例时同时锁定战役行，与其它实例上的开启/关闭回合和提交串行化。
+     */
+    @Transactional
+    public Optional<Campaign> findCampaignForSubmission(Long campaignId) {
+        return eventRelay.multiInstance()
+                ? campaignRepository.findByIdForUpdate(campaignId)
+                : campaignRepository.findById(campaignId);
+    }
+
+    /**
+     * 写入提交用的当前开放回合，调用方须已通过 {@link #findCampaignForSubmission} 取得战役。
+     * 单实例时与 {@link #getOrCreateCurrentRound} 相同；多实例时登记表中的回合按主键核对一次状态，
+     * 其它实例已关闭回合而通知尚未到达时改为从数据库读取，没有开放回合则开启下一回合。
+     */
+    @Transactional
+    public OpenRound currentRoundForUpdate(Long campaignId) {
+        if (!eventRelay.multiInstance()) {
+            return getOrCreateCurrentRound(campaignId);
+        }
+        OpenRound cached = lookup(campaignId).open();
+        if (cached != null && roundRepository.findStatusById(cached.getId()).orElse(null) == Status.OPEN) {
+            return cached;
+        }
+        return openOrCreateLocked(campaignId);
+    }
+
+    /**
+     * 不查询数据库，返回指定回合的引用（用于外键关联）。
+     */
+    public Round getReference(Long roundId) {
+        return roundRepository.getReferenceById(roundId);
     }
 
     @Transactional
     public Round closeCurrentRound(Long campaignId) {
-        Round round = findCurrentOpenRound(campaignId)
-                .orElseThrow(() -> new IllegalStateException("当前战役没有处于开放状态的回合"));
+        boolean multiInstance = eventRelay.multiInstance();
+        Optional<Round> open;
+        if (multiInstance) {
+            lockCampaign(campaignId);
+            open = roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(campaignId, Status.OPEN);
+        } else {
+            open = findCurrentOpenRound(campaignId).flatMap(r -> roundRepository.findById(r.getId()));
+        }
+        Round round = open.orElseThrow(() -> new IllegalStateException("当前战役没有处于开放状态的回合"));
         round.setStatus(Status.CLOSED);
         round.setClosedAt(Instant.now());
-        return roundRepository.save(round);
+        Round saved = roundRepository.save(round);
+        int lastTurn = multiInstance ? UNKNOWN_TURN : lookup(campaignId).lastTurn();
+        AfterCommit.run(() -> {
+            if (multiInstance) {
+                registry.remove(campaignId);
+            } else {
+                registry.put(campaignId, new CampaignRounds(null, lastTurn));
+            }
+            slotBoard.reset(campaignId, null);
+        });
+        campaignEvents.publish(campaignId, CampaignEventType.ROUND_CLOSED, RoundChange.of(saved, campaignId));
+        return saved;
     }
 
+    /**
+     * 单实例时回合号取自登记表；多实例时登记表可能落后于其它实例，锁定战役行后按数据库中的最大回合号计算。
+     */
     @Transactional
     public Round createNextRound(Long campaignId) {
-        Campaign campaign = campaignRepository.findById(campaignId)
-                .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + campaignId));
-
-        int nextTurn = roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(campaignId)
-                .map(Round::getTurnNumber)
-                .map(t -> t + 1)
-                .orElse(1);
+        CampaignRounds known = eventRelay.multiInstance() ? null : registry.get(campaignId);
+        Campaign campaign;
+        int nextTurn;
+        if (known != null) {
+            // 登记表命中意味着战役存在且已知最大回合号
+            campaign = campaignRepository.getReferenceById(campaignId);
+            nextTurn = known.lastTurn() + 1;
+        } else {
+            campaign = eventRelay.multiInstance()
+                    ? lockCampaign(campaignId)
+                    : campaignRepository.findById(campaignId)
+                            .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + campaignId));
+            nextTurn = roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(campaignId)
+                    .map(Round::getTurnNumber)
+                    .map(t -> t + 1)
+                    .orElse(1);
+        }
 
         Round round = Round.builder()
                 .campaign(campaign)
@@ -55,8 +151,82 @@ public class RoundService {
                 .status(Status.OPEN)
                 .build();
 
-        return roundRepository.save(round);
+        Round saved = roundRepository.save(round);
+        OpenRound open = OpenRound.of(saved, campaignId);
+        AfterCommit.run(() -> {
+            registry.put(campaignId, new CampaignRounds(open, open.getTurnNumber()));
+            slotBoard.reset(campaignId, open.getId());
+        });
+        campaignEvents.publish(campaignId, CampaignEventType.ROUND_OPENED, RoundChange.of(saved, campaignId));
+        return saved;
     }
-}
 
+    /**
+     * 从登记表移除战役（例如战役被删除时）。
+     */
+    public void evict(Long campaignId) {
+        AfterCommit.run(() -> {
+            registry.remove(campaignId);
+            slotBoard.evict(campaignId);
+        });
+    }
+
+    /**
+     * 其它节点关闭/开启了回合或写入了提交：本节点的登记表与看板已过期，下次访问时从数据库重新加载。
+     */
+    @EventListener
+    public void onCampaignEvent(CampaignEvent event) {
+        if (!event.isRemote()) {
+            return;
+        }
+        CampaignEventType type = event.getType();
+        if (type == CampaignEventType.ROUND_OPENED || type == CampaignEventType.ROUND_CLOSED
+                || type == CampaignEventType.SUBMISSION_BATCH) {
+            registry.remove(event.getCampaignId());
+            slotBoard.evict(event.getCampaignId());
+        }
+    }
+
+    private Campaign lockCampaign(Long campaignId) {
+        return campaignRepository.findByIdForUpdate(campaignId)
+                .orElseThrow(() -> new IllegalArgumentException("未找到对应战役：" + campaignId));
+    }
 
+    /**
+     * 已持有战役行锁：从数据库读取开放回合（登记表可能已过期，一并丢弃），没有则开启下一回合。
+     */
+    private OpenRound openOrCreateLocked(Long campaignId) {
+        Optional<Round> open = roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(campaignId, Status.OPEN);
+        if (open.isEmpty()) {
+            return OpenRound.of(createNextRound(campaignId), campaignId);
+        }
+        registry.remove(campaignId);
+        return OpenRound.of(open.get(), campaignId);
+    }
+
+    private CampaignRounds lookup(Long campaignId) {
+        CampaignRounds cached = registry.get(campaignId);
+        if (cached != null) {
+            return cached;
+        }
+        OpenRound open = roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(campaignId, Status.OPEN)
+                .map(r -> OpenRound.of(r, campaignId))
+                .orElse(null);
+        // 最大回合号只在单实例开启下一回合时使用，多实例时在锁内按数据库计算，不必查询
+        int lastTurn = eventRelay.multiInstance()
+                ? UNKNOWN_TURN
+                : roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(campaignId)
+                        .map(Round::getTurnNumber)
+                        .orElse(0);
+        // 仅在没有并发写入时写入，避免覆盖刚提交的新状态
+        CampaignRounds loaded = new CampaignRounds(open, lastTurn);
+        CampaignRounds raced = registry.putIfAbsent(campaignId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * @param lastTurn 战役已有的最大回合号；多实例时不维护，为 {@link #UNKNOWN_TURN}
+     */
+    private record CampaignRounds(OpenRound open, int lastTurn) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.web.dto.ActionHistoryRequest;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 回合关闭时保存的行动快照：按阶职槽位排列的从者/御主行动，以及按结算顺序归类的行动顺序表。
+ * 槽位与归类规则与战斗控制页面一致。
+ */
+@Value
+@Slf4j
+public class RoundSnapshot {
+
+    /** 槽位顺序，与前端回合信息表的默认阶职一致 */
+    public static final List<String> CLASSES = List.of("弓", "枪", "骑", "剑", "杀", "术", "狂");
+
+    /** 行动结算顺序 */
+    public static final List<String> CATEGORIES = List.of("机动", "魂食", "干涉", "解放", "制造", "信息", "休整", "摧毁工房");
+
+    private static final String STANDBY = "待机";
+
+    List<Map<String, Object>> actionOrder;
+    List<String> servantActions;
+    List<String> masterActions;
+
+    /**
+     * 由当前回合的提交生成快照；overrides 中非空的字段原样覆盖生成结果。
+     * 只覆盖了从者/御主行动时，行动顺序表按覆盖后的行动重新归类。
+     * cards 为战役可用的角色卡，只在有提交的阶职无法直接识别时才取用（见 {@link #slotOf}）。
+     */
+    public static RoundSnapshot of(List<ActionSubmission> submissions, Supplier<List<CharacterCard>> cards,
+                                   ActionHistoryRequest overrides) {
+        List<String> servant = new ArrayList<>(Collections.nCopies(CLASSES.size(), null));
+        List<String> master = new ArrayList<>(Collections.nCopies(CLASSES.size(), null));
+        List<CharacterCard> loaded = null;
+        for (ActionSubmission s : submissions) {
+            int slot = CLASSES.indexOf(normalizeClass(s.getServantClass()));
+            if (slot < 0) {
+                if (loaded == null) {
+                    loaded = cards.get();
+                }
+                slot = slotOf(s.getServantClass(), loaded);
+            }
+            if (slot < 0) {
+                log.warn("提交 {} 的阶职“{}”无法对应到槽位，未计入回合快照", s.getId(), s.getServantClass());
+                continue;
+            }
+            String content = s.getContent() != null ? s.getContent() : "";
+            if (s.getActionType() == ActionType.SERVANT_ACTION) {
+                servant.set(slot, content);
+            } else {
+                master.set(slot, content);
+            }
+        }
+        if (overrides != null && overrides.getServantActions() != null) {
+            servant = overrides.getServantActions();
+        }
+        if (overrides != null && overrides.getMasterActions() != null) {
+            master = overrides.getMasterActions();
+        }
+        List<Map<String, Object>> order = overrides != null && overrides.getActionOrder() != null
+                ? overrides.getActionOrder()
+                : buildActionOrder(servant, master);
+        return new RoundSnapshot(order, servant, master);
+    }
+
+    /**
+     * 阶职名无法直接识别时的槽位查找，与战斗控制页面相同：先找阶职名包含该文本的角色卡，
+     * 按槽位顺序取第一个；再找代号与之相同的角色卡，取其阶职的槽位。找不到返回 -1。
+     */
+    static int slotOf(String servantClass, List<CharacterCard> cards) {
+        if (servantClass == null || servantClass.isEmpty()) {
+            return -1;
+        }
+        String text = servantClass.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < CLASSES.size(); i++) {
+            String cls = CLASSES.get(i);
+            for (CharacterCard card : cards) {
+                String className = card.getClassName() != null ? card.getClassName() : "";
+                if (normalizeClass(className).equals(cls) && className.toLowerCase(Locale.ROOT).contains(text)) {
+                    return i;
+                }
+            }
+        }
+        for (CharacterCard card : cards) {
+            String code = card.getCode() != null ? card.getCode() : "";
+            if (code.toLowerCase(Locale.ROOT).equals(text)) {
+                int slot = CLASSES.indexOf(normalizeClass(card.getClassName()));
+                if (slot >= 0) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static List<Map<String, Object>> buildActionOrder(List<String> servant, List<String> master) {
+        int slots = CLASSES.size();
+        String[][] cells = new String[CATEGORIES.size()][slots];
+        for (String[] row : cells) {
+            Arrays.fill(row, "");
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            boolean any = false;
+            for (String text : new String[]{slotValue(servant, slot), slotValue(master, slot)}) {
+                if (text == null || text.isEmpty()) {
+                    continue;
+                }
+                int category = CATEGORIES.indexOf(detectCategory(text));
+                if (category < 0) {
+                    continue;
+                }
+                String existing = cells[category][slot];
+                cells[category][slot] = existing.isEmpty() ? text : existing + " / " + text;
+                any = true;
+            }
+            // 没有可归类行动的槽位按待机处理，记入机动
+            if (!any) {
+                cells[0][slot] = STANDBY;
+            }
+        }
+        List<Map<String, Object>> order = new ArrayList<>(CATEGORIES.size());
+        for (int i = 0; i < CATEGORIES.size(); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("type", CATEGORIES.get(i));
+            row.put("actions", Arrays.asList(cells[i]));
+            order.add(row);
+        }
+        return order;
+    }
+
+    private static String slotValue(List<String> actions, int slot) {
+        return actions != null && slot < actions.size() ? actions.get(slot) : null;
+    }
+
+    static String normalizeClass(String className) {
+        if (className == null) {
+            return "";
+        }
+        String text = className.toLowerCase(Locale.ROOT);
+        if (text.contains("archer") || text.contains("弓")) return "弓";
+        if (text.contains("lancer") || text.contains("枪") || text.contains("槍")) return "枪";
+        if (text.contains("assassin") || text.contains("杀")) return "杀";
+        if (text.contains("rider") || text.contains("骑")) return "骑";
+        if (text.contains("saber") || text.contains("剑")) return "剑";
+        if (text.contains("caster") || text.contains("术")) return "术";
+        if (text.contains("berserker") || text.contains("狂")) return "狂";
+        return "";
+    }
+
+    static String detectCategory(String text) {
+        String t = text.toLowerCase(Locale.ROOT);
+        // 待机、恶性魂食都按机动结算
+        if (t.contains("待机") || t.contains("待命")) return "机动";
+        if (t.contains("恶性魂食") || t.contains("恶性魂")) return "机动";
+        if (t.contains("机动") || t.contains("移动")) return "机动";
+        if (t.contains("魂食")) return "魂食";
+        if (t.contains("干涉")) return "干涉";
+        if (t.contains("解放")) return "解放";
+        if (t.contains("摧毁工") || (t.contains("摧毁") && t.contains("工坊"))) return "摧毁工房";
+        if (t.contains("制造") || t.contains("建筑") || t.contains("工坊") || t.contains("礼装")) return "制造";
+        if (t.contains("侦察") || t.contains("侦查") || t.contains("信息") || t.contains("调查")
+                || t.contains("资料") || t.contains("情报")) return "信息";
+        if (t.contains("休整")) return "休整";
+        if (t.contains("from") || t.contains("至") || t.contains("->")) return "机动";
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import lombok.Value;
+
+/**
+ * 一条待写入的行动提交（尚未分配回合与主键）。
+ */
+@Value
+public class SubmissionCommand {
+    Long campaignId;
+    String servantClass;
+    ActionSubmission.ActionType actionType;
+    String content;
+    String submittedBy;
+}
@@ -0,0 +1,36 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import lombok.Value;
+
+/**
+ * 批量写入中单条提交的结果。
+ */
+@Value
+public class SubmissionOutcome {
+
+    public enum Status {
+        /** 已写入并成为该槽位的当前提交 */
+        ACCEPTED,
+        /** 已写入，但被同一批次中同槽位的后续提交覆盖 */
+        SUPERSEDED,
+        /** 未写入 */
+        REJECTED
+    }
+
+    Status status;
+    ActionSubmission submission;
+    String message;
+
+    public static SubmissionOutcome written(ActionSubmission submission) {
+        return new SubmissionOutcome(submission.isCurrent() ? Status.ACCEPTED : Status.SUPERSEDED, submission, null);
+    }
+
+    public static SubmissionOutcome rejected(String message) {
+        return new SubmissionOutcome(Status.REJECTED, null, message);
+    }
+
+    public boolean isRejected() {
+        return status == Status.REJECTED;
+    }
+}
@@ -0,0 +1,141 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.CharacterStatus;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 归档文件中的一个回合：该回合的全部行动提交（含已被覆盖的）、行动历史和角色状态，字段与对应表一致。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedRound {
+
+    private Long campaignId;
+    private Integer roundNumber;
+    private Long roundId;
+    private Instant archivedAt;
+    private List<Submission> submissions;
+    private History history;
+    private List<Status> statuses;
+
+    static ArchivedRound of(Round round,
+                            Long campaignId,
+                            List<ActionSubmission> submissions,
+                            ActionHistory history,
+                            List<CharacterStatus> statuses) {
+        return new ArchivedRound(campaignId, round.getTurnNumber(), round.getId(), Instant.now(),
+                submissions.stream().map(Submission::of).toList(),
+                history != null ? History.of(history) : null,
+                statuses.stream().map(Status::of).toList());
+    }
+
+    /**
+     * 还原为不受持久化上下文管理的行动历史实体，供历史接口与在库数据统一处理。
+     */
+    public ActionHistory toHistory() {
+        if (history == null) {
+            return null;
+        }
+        return ActionHistory.builder()
+                .id(history.id)
+                .campaign(Campaign.builder().id(campaignId).build())
+                .roundNumber(roundNumber)
+                .closedAt(history.closedAt)
+                .snapshot(history.snapshot)
+                .leylineAssignmentsJson(history.leylineAssignments)
+                .createdAt(history.createdAt)
+                .build();
+    }
+
+    public List<CharacterStatusResponse> toStatusResponses() {
+        return statuses.stream().map(s -> CharacterStatusResponse.builder()
+                        .id(s.id)
+                        .characterCardId(s.characterCardId)
+                        .characterCardCode(s.characterCardCode)
+                        .characterCardClassName(s.characterCardClassName)
+                        .campaignId(campaignId)
+                        .roundNumber(roundNumber)
+                        .currentMana(s.currentMana)
+                        .manaLimit(s.manaLimit)
+                        .currentCommandSeals(s.currentCommandSeals)
+                        .statusEffects(s.statusEffects)
+                        .statusEffectsList(RawJson.of(s.statusEffectsList))
+                        .notes(s.notes)
+                        .version(s.version)
+                        .createdAt(s.createdAt)
+                        .updatedAt(s.updatedAt)
+                        .build())
+                .toList();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Submission {
+        private Long id;
+        private String servantClass;
+        private ActionSubmission.ActionType actionType;
+        private String content;
+        private String submittedBy;
+        private boolean current;
+        private Instant createdAt;
+
+        static Submission of(ActionSubmission a) {
+            return new Submission(a.getId(), a.getServantClass(), a.getActionType(), a.getContent(),
+                    a.getSubmittedBy(), a.isCurrent(), a.getCreatedAt());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class History {
+        private Long id;
+        private Instant closedAt;
+        private byte[] snapshot;
+        private String leylineAssignments;
+        private Instant createdAt;
+
+        static History of(ActionHistory h) {
+            return new History(h.getId(), h.getClosedAt(), h.getSnapshot(), h.getLeylineAssignmentsJson(), h.getCreatedAt());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Status {
+        private Long id;
+        private Long characterCardId;
+        private String characterCardCode;
+        private String characterCardClassName;
+        private Integer currentMana;
+        private Integer manaLimit;
+        private Integer currentCommandSeals;
+        private String statusEffects;
+        private String statusEffectsList;
+        private String notes;
+        private Long version;
+        private Instant createdAt;
+        private Instant updatedAt;
+
+        static Status of(CharacterStatus s) {
+            return new Status(s.getId(), s.getCharacterCard().getId(), s.getCharacterCard().getCode(),
+                    s.getCharacterCard().getClassName(), s.getCurrentMana(), s.getManaLimit(),
+                    s.getCurrentCommandSeals(), s.getStatusEffects(), s.getStatusEffectsList(), s.getNotes(),
+                    s.getVersion(), s.getCreatedAt(), s.getUpdatedAt());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.ActionHistoryRepository;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterStatusRepository;
+import com.fategmhelper.backend.repository.RoundRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 归档任务的数据库部分：挑选候选回合、读出回合数据、归档落盘后删除在库数据。
+ */
+@Service
+@RequiredArgsConstructor
+public class RoundArchiveService {
+
+    private final RoundRepository roundRepository;
+    private final ActionSubmissionRepository actionSubmissionRepository;
+    private final ActionHistoryRepository actionHistoryRepository;
+    private final CharacterStatusRepository characterStatusRepository;
+    private final CampaignRepository campaignRepository;
+
+    /**
+     * 关闭早于 cutoff 且未归档、id 大于 afterId 的回合，返回 [回合 ID, 战役 ID] 对。
+     */
+    @Transactional(readOnly = true)
+    public List<long[]> candidates(Instant cutoff, long afterId) {
+        return roundRepository.findTop100ByStatusAndArchivedAtIsNullAndClosedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                        Round.Status.CLOSED, cutoff, afterId)
+                .stream()
+                .map(r -> new long[]{r.getId(), r.getCampaign().getId()})
+                .toList();
+    }
+
+    /**
+     * 读出回合的全部数据。行动历史与角色状态按回合号关联，回合号在战役内唯一（V11）；
+     * 历史数据中同一回合号有多条行动历史时无法自动取舍，拒绝归档，以免清理时删掉未归档的记录。
+     */
+    @Transactional(readOnly = true)
+    public ArchivedRound collect(Long roundId) {
+        Round round = roundRepository.findById(roundId)
+                .orElseThrow(() -> new IllegalArgumentException("未找到回合：" + roundId));
+        Long campaignId = round.getCampaign().getId();
+        List<ActionHistory> histories = actionHistoryRepository.findByCampaignIdAndRoundNumber(campaignId, round.getTurnNumber());
+        if (histories.size() > 1) {
+            throw new IllegalStateException("回合 " + roundId + "（战役 " + campaignId + " 第 " + round.getTurnNumber()
+                    + " 回合）有 " + histories.size() + " 条行动历史，需人工合并后才能归档");
+        }
+        ActionHistory history = histories.isEmpty() ? null : histories.get(0);
+        return ArchivedRound.of(round, campaignId,
+                actionSubmissionRepository.findByRoundIdOrderByIdAsc(roundId),
+                history,
+                characterStatusRepository.findByCampaignIdAndRoundNumber(campaignId, round.getTurnNumber()));
+    }
+
+    /**
+     * 回合已写入归档文件后删除在库数据并标记回合。
+     */
+    @Transactional
+    public void purge(Long roundId) {
+        Round round = roundRepository.findById(roundId)
+                .orElseThrow(() -> new IllegalArgumentException("未找到回合：" + roundId));
+        Long campaignId = round.getCampaign().getId();
+        actionSubmissionRepository.deleteByRoundId(roundId);
+        actionHistoryRepository.deleteRound(campaignId, round.getTurnNumber());
+        characterStatusRepository.deleteRound(campaignId, round.getTurnNumber());
+        round.setArchivedAt(Instant.now());
+    }
+
+    @Transactional(readOnly = true)
+    public boolean campaignExists(Long campaignId) {
+        return campaignRepository.existsById(campaignId);
+    }
+}
@@ -0,0 +1,294 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 已归档回合的本地存储：只追加的段文件 + 定长索引。
+ * <p>
+ * 每个回合压缩为一条记录追加到当前段，段超过 segment-bytes 后换新段；记录头为
+ * [magic][原始长度][压缩长度][CRC32]。索引每条 28 字节：[战役 ID][回合号][段号][偏移][记录长度]，
+ * 回合号为 -1 表示该战役已删除。同一回合重复归档时以后写入的为准。
+ * 读取时按段做只读内存映射，段增长后重新映射。
+ * <p>
+ * 只允许一个进程写入（开启归档任务的实例）；其它实例共享同一目录时，每次读取前按索引文件长度增量加载新条目。
+ */
+@Component
+@Slf4j
+public class RoundArchiveStore {
+
+    private static final int MAGIC = 0x46474152;
+    private static final int HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 28;
+    private static final int DROPPED = -1;
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final long segmentBytes;
+
+    private final Map<Long, NavigableMap<Integer, Location>> index = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    private FileChannel indexChannel;
+    private volatile long indexLoaded;
+    private FileChannel segment;
+    private int segmentNo;
+
+    public RoundArchiveStore(ObjectMapper objectMapper,
+                             @Value("${app.archive.dir:data/archive}") String dir,
+                             @Value("${app.archive.segment-bytes:67108864}") long segmentBytes) {
+        this.objectMapper = objectMapper;
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(dir);
+        indexChannel = FileChannel.open(dir.resolve("index"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        refresh();
+        if (!index.isEmpty()) {
+            log.info("已加载 {} 个战役的归档索引", index.size());
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        indexChannel.close();
+    }
+
+    public boolean contains(Long campaignId, int roundNumber) {
+        refresh();
+        NavigableMap<Integer, Location> rounds = index.get(campaignId);
+        return rounds != null && rounds.containsKey(roundNumber);
+    }
+
+    /**
+     * 战役已归档的回合号（升序）。
+     */
+    public NavigableSet<Integer> rounds(Long campaignId) {
+        refresh();
+        NavigableMap<Integer, Location> rounds = index.get(campaignId);
+        return rounds != null ? new TreeSet<>(rounds.keySet()) : new TreeSet<>();
+    }
+
+    public Set<Long> campaigns() {
+        refresh();
+        return Set.copyOf(index.keySet());
+    }
+
+    public Optional<ArchivedRound> read(Long campaignId, int roundNumber) {
+        refresh();
+        NavigableMap<Integer, Location> rounds = index.get(campaignId);
+        Location location = rounds != null ? rounds.get(roundNumber) : null;
+        if (location == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(decode(location));
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("读取归档失败：战役 " + campaignId + " 第 " + roundNumber + " 回合", e);
+        }
+    }
+
+    /**
+     * 追加一个回合并刷盘；返回后即可从索引读到。
+     */
+    public synchronized void append(ArchivedRound round) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(round);
+        byte[] compressed = deflate(json);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + compressed.length)
+                .putInt(MAGIC).putInt(json.length).putInt(compressed.length).putInt((int) crc.getValue())
+                .put(compressed)
+                .flip();
+
+        FileChannel out = activeSegment(record.remaining());
+        long offset = out.size();
+        while (record.hasRemaining()) {
+            out.write(record, offset + record.position());
+        }
+        out.force(false);
+        writeIndex(round.getCampaignId(), round.getRoundNumber(), segmentNo, offset, HEADER_BYTES + compressed.length);
+    }
+
+    /**
+     * 战役已删除：之后不再返回它的归档回合。段文件只追加，空间不回收。
+     */
+    public synchronized void drop(Long campaignId) throws IOException {
+        writeIndex(campaignId, DROPPED, 0, 0, 0);
+    }
+
+    private void writeIndex(Long campaignId, int roundNumber, int segment, long offset, int length) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                .putLong(campaignId).putInt(roundNumber).putInt(segment).putLong(offset).putInt(length)
+                .flip();
+        long position = indexChannel.size();
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry, position + entry.position());
+        }
+        indexChannel.force(false);
+        refresh();
+    }
+
+    /**
+     * 从上次读到的位置起加载索引文件中新增的完整条目（末尾不完整的条目留到下次）。
+     * 没有新条目时只比较一次文件长度，不加锁。
+     */
+    private void refresh() {
+        try {
+            if (indexChannel.size() - indexLoaded >= INDEX_ENTRY_BYTES) {
+                load();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取归档索引失败", e);
+        }
+    }
+
+    private synchronized void load() throws IOException {
+        long size = indexChannel.size();
+        long complete = size - size % INDEX_ENTRY_BYTES;
+        if (complete <= indexLoaded) {
+            return;
+        }
+        ByteBuffer entries = ByteBuffer.allocate((int) (complete - indexLoaded));
+        while (entries.hasRemaining()) {
+            if (indexChannel.read(entries, indexLoaded + entries.position()) < 0) {
+                break;
+            }
+        }
+        entries.flip();
+        while (entries.remaining() >= INDEX_ENTRY_BYTES) {
+            long campaignId = entries.getLong();
+            int roundNumber = entries.getInt();
+            Location location = new Location(entries.getInt(), entries.getLong(), entries.getInt());
+            if (roundNumber == DROPPED) {
+                index.remove(campaignId);
+            } else {
+                index.computeIfAbsent(campaignId, k -> new ConcurrentSkipListMap<>()).put(roundNumber, location);
+            }
+            segmentNo = Math.max(segmentNo, location.segment());
+        }
+        indexLoaded = complete;
+    }
+
+    private FileChannel activeSegment(int recordBytes) throws IOException {
+        if (segment != null && segment.size() > 0 && segment.size() + recordBytes > segmentBytes) {
+            segment.close();
+            segment = null;
+            segmentNo++;
+        }
+        if (segment == null) {
+            segmentNo = Math.max(segmentNo, 1);
+            segment = FileChannel.open(segmentPath(segmentNo), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        return segment;
+    }
+
+    private ArchivedRound decode(Location location) throws IOException, DataFormatException {
+        MappedByteBuffer mapped = mapping(location.segment(), location.offset() + location.length());
+        int at = (int) location.offset();
+        if (mapped.getInt(at) != MAGIC) {
+            throw new IOException("归档记录头损坏");
+        }
+        int rawLength = mapped.getInt(at + 4);
+        int compressedLength = mapped.getInt(at + 8);
+        int expectedCrc = mapped.getInt(at + 12);
+        byte[] compressed = new byte[compressedLength];
+        mapped.get(at + HEADER_BYTES, compressed);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("归档记录校验失败");
+        }
+        byte[] json = new byte[rawLength];
+        int n = 0;
+        // 每次读取新建并立即释放：Inflater 持有本地内存，放在 ThreadLocal 里会随线程（含虚拟线程）数增长
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(json, n, rawLength - n);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new IOException("归档记录不完整");
+                }
+                n += read;
+            }
+        } finally {
+            inflater.end();
+        }
+        return objectMapper.readValue(json, 0, n, ArchivedRound.class);
+    }
+
+    /**
+     * 段文件的只读映射；记录超出已映射范围（活跃段增长后）时重新映射整个文件。
+     */
+    private MappedByteBuffer mapping(int segment, long requiredBytes) throws IOException {
+        MappedByteBuffer mapped = mappings.get(segment);
+        if (mapped != null && mapped.capacity() >= requiredBytes) {
+            return mapped;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.capacity() < requiredBytes) {
+            throw new IOException("归档段 " + segment + " 长度不足");
+        }
+        mappings.put(segment, mapped);
+        return mapped;
+    }
+
+    private Path segmentPath(int segment) {
+        return dir.resolve(String.format("segment-%06d.seg", segment));
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private record Location(int segment, long offset, int length) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 定期把关闭已久的回合移入归档文件，使 action_submission、action_history、character_status 只保留近期数据。
+ * <p>
+ * 每个回合在所属战役邮箱内处理：先追加到归档文件并刷盘，再在一个事务里删除在库数据并标记回合。
+ * 两步之间中断时，回合在归档中可读、在库数据原样保留，下次运行会重新归档并完成删除。
+ * 多实例部署时只应在一个实例上开启。
+ */
+@Component
+@Slf4j
+public class RoundArchiver {
+
+    private final RoundArchiveService service;
+    private final RoundArchiveStore store;
+    private final CampaignExecutor campaignExecutor;
+    private final ExecutionThreads executionThreads;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final Duration interval;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public RoundArchiver(RoundArchiveService service,
+                         RoundArchiveStore store,
+                         CampaignExecutor campaignExecutor,
+                         ExecutionThreads executionThreads,
+                         @Value("${app.archive.enabled:false}") boolean enabled,
+                         @Value("${app.archive.min-age:P30D}") Duration minAge,
+                         @Value("${app.archive.interval:PT1H}") Duration interval) {
+        this.service = service;
+        this.store = store;
+        this.campaignExecutor = campaignExecutor;
+        this.executionThreads = executionThreads;
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = executionThreads.newThread("round-archiver", this::runWorker);
+        worker.start();
+        log.info("回合归档已开启：归档关闭超过 {} 的回合，每 {} 运行一次", minAge, interval);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        worker.join(10_000);
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                int archived = archiveOnce();
+                if (archived > 0) {
+                    log.info("已归档 {} 个回合", archived);
+                }
+                dropDeletedCampaigns();
+            } catch (Exception e) {
+                log.warn("回合归档失败: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(interval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * 归档当前所有符合条件的回合，返回归档数。
+     */
+    public int archiveOnce() {
+        Instant cutoff = Instant.now().minus(minAge);
+        int archived = 0;
+        long afterId = 0;
+        List<long[]> batch;
+        do {
+            batch = service.candidates(cutoff, afterId);
+            for (long[] candidate : batch) {
+                long roundId = candidate[0];
+                afterId = roundId;
+                try {
+                    campaignExecutor.run(candidate[1], () -> archive(roundId));
+                    archived++;
+                } catch (IllegalStateException e) {
+                    // 数据需人工处理的回合跳过，不阻塞之后的回合
+                    log.warn("跳过回合归档: {}", e.getMessage());
+                }
+            }
+        } while (running && !batch.isEmpty());
+        return archived;
+    }
+
+    private void archive(long roundId) {
+        try {
+            store.append(service.collect(roundId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入归档文件失败", e);
+        }
+        service.purge(roundId);
+    }
+
+    private void dropDeletedCampaigns() throws IOException {
+        for (Long campaignId : store.campaigns()) {
+            if (!service.campaignExists(campaignId)) {
+                store.drop(campaignId);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.fategmhelper.backend.service.event;
+
+import lombok.Value;
+
+/**
+ * 战役内的一次状态变化，事务提交后发布。payload 为直接推送给客户端的数据，
+ * 经 outbox 转发时是存储的 JSON 原文（RawJson）。
+ * <p>
+ * 经由 outbox 转发的事件带有全局递增的 id（outbox 行号，各节点一致），可直接用作 SSE 事件 id；
+ * remote 表示事件由其它节点写入，本节点的内存状态需要据此失效。
+ */
+@Value
+public class CampaignEvent {
+    Long id;
+    Long campaignId;
+    CampaignEventType type;
+    Object payload;
+    boolean remote;
+
+    public static CampaignEvent local(Long campaignId, CampaignEventType type, Object payload) {
+        return new CampaignEvent(null, campaignId, type, payload, false);
+    }
+}
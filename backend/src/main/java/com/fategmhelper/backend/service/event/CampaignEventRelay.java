@@ -0,0 +1,32 @@
+package com.fategmhelper.backend.service.event;
+
+/**
+ * 战役事件从写入方到各节点订阅者的转发方式，由 app.events.relay 选择：
+ * <ul>
+ *     <li>local（默认）：事务提交后直接在本进程内分发，只适用于单节点部署；</li>
+ *     <li>outbox（多实例部署时开启）：事件与业务修改在同一事务写入 outbox 表，各节点轮询后分发给自己的 SSE / WebSocket 连接。</li>
+ * </ul>
+ */
+public interface CampaignEventRelay {
+
+    /**
+     * 登记一个事件；只有当前事务提交后才会被分发，没有事务时立即生效。
+     */
+    void enqueue(Long campaignId, CampaignEventType type, Object payload);
+
+    /**
+     * id 不大于该值的事件可能没有在本节点分发过（本节点启动前写入），本地事件日志不能据此连续回放。
+     * 事件 id 由本进程分配时返回 0。
+     */
+    default long replayableAfter() {
+        return 0;
+    }
+
+    /**
+     * 事件是否经共享存储转发给其它实例。为 true 时回合的开启/关闭与提交须由数据库行锁串行化，
+     * 为 false（单实例）时战役邮箱已保证同一战役的写入串行，回合登记表就是权威状态。
+     */
+    default boolean multiInstance() {
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fategmhelper.backend.service.event;
+
+/**
+ * 战役事件类型；topic 同时用作 SSE 事件名，客户端可按 “round.*” 之类的前缀订阅。
+ */
+public enum CampaignEventType {
+    ROUND_OPENED("round.opened"),
+    ROUND_CLOSED("round.closed"),
+    STATUS_UPDATED("status.updated"),
+    STATUS_PATCHED("status.patched"),
+    LEYLINE_CREATED("leyline.created"),
+    LEYLINE_UPDATED("leyline.updated"),
+    LEYLINE_DELETED("leyline.deleted"),
+    LEYLINE_ASSIGNED("leyline.assigned"),
+    LEYLINE_ASSIGNMENTS_REPLACED("leyline.assignments"),
+    SUBMISSION_BATCH("submission.batch");
+
+    private final String topic;
+
+    CampaignEventType(String topic) {
+        this.topic = topic;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public static CampaignEventType fromTopic(String topic) {
+        for (CampaignEventType type : values()) {
+            if (type.topic.equals(topic)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的战役事件主题：" + topic);
+    }
+}
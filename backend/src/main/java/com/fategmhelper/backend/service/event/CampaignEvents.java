@@ -0,0 +1,22 @@
+package com.fategmhelper.backend.service.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 战役事件总线的发布端：事件在当前事务提交后才发出，回滚的修改不会被推送。
+ * 具体的转发方式见 {@link CampaignEventRelay}。
+ */
+@Component
+@RequiredArgsConstructor
+public class CampaignEvents {
+
+    private final CampaignEventRelay relay;
+
+    public void publish(Long campaignId, CampaignEventType type, Object payload) {
+        if (campaignId == null) {
+            return;
+        }
+        relay.enqueue(campaignId, type, payload);
+    }
+}
@@ -0,0 +1,32 @@
+package com.fategmhelper.backend.service.event;
+
+import com.fategmhelper.backend.service.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单节点转发（默认）：事务提交后直接发布到本进程的事件总线，事件不带 id。
+ */
+@Component
+@ConditionalOnProperty(name = "app.events.relay", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class LocalEventRelay implements CampaignEventRelay {
+
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public void enqueue(Long campaignId, CampaignEventType type, Object payload) {
+        AfterCommit.run(() -> {
+            try {
+                publisher.publishEvent(CampaignEvent.local(campaignId, type, payload));
+            } catch (Exception e) {
+                // 推送失败不影响已提交的修改
+                log.warn("发布战役 {} 的 {} 事件失败: {}", campaignId, type.topic(), e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package com.fategmhelper.backend.service.event;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.repository.CampaignEventOutboxRepository;
+import com.fategmhelper.backend.repository.CampaignEventOutboxRepository.Entry;
+import com.fategmhelper.backend.service.AfterCommit;
+import com.fategmhelper.backend.web.dto.RawJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox 转发，多实例部署时通过 app.events.relay=outbox 开启。
+ * 事件在业务事务内写入 campaign_event_outbox，事务回滚则事件随之消失；
+ * 每个节点的轮询线程按 id 顺序读取新行，发布到本进程的事件总线，由本节点的 SSE / WebSocket 分发。
+ * 事件数据以存储的 JSON 原文（{@link RawJson}）发布，不在转发时解析。
+ * <p>
+ * 本节点写入的事件在提交后立即唤醒轮询，其它节点写入的事件最迟在一个轮询间隔后送达。
+ * 自增 id 的分配顺序与提交顺序不一定一致：读到 id 跳号时记下缺口，在 gap-timeout 内继续补查，
+ * 补到的事件照常分发（其 id 小于已分发的事件，事件日志不会把它作为可回放的位置）；超时仍未出现的视为已回滚。
+ * 各节点的游标只在内存中，启动时从当前最大 id 开始；在此之前写入的事件不会在本节点分发。
+ */
+@Component
+@ConditionalOnProperty(name = "app.events.relay", havingValue = "outbox")
+@Slf4j
+public class OutboxEventRelay implements CampaignEventRelay {
+
+    private static final int MAX_TRACKED_GAPS = 1024;
+    private static final long CLEANUP_INTERVAL_MILLIS = 60_000;
+
+    private final CampaignEventOutboxRepository outbox;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher publisher;
+    private final ExecutionThreads executionThreads;
+    private final String nodeId;
+    private final long pollMillis;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final Duration retention;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    /** 缺口 id → 放弃补查的时间点；只由轮询线程访问 */
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private volatile long startCursor;
+    private long cursor;
+    private long nextCleanupAt;
+    private volatile boolean running;
+    private Thread poller;
+
+    public OutboxEventRelay(CampaignEventOutboxRepository outbox,
+                            ObjectMapper objectMapper,
+                            ApplicationEventPublisher publisher,
+                            ExecutionThreads executionThreads,
+                            @Value("${app.events.node-id:}") String nodeId,
+                            @Value("${app.events.outbox.poll-ms:500}") long pollMillis,
+                            @Value("${app.events.outbox.batch-size:500}") int batchSize,
+                            @Value("${app.events.outbox.gap-timeout-ms:5000}") long gapTimeoutMillis,
+                            @Value("${app.events.outbox.retention:PT1H}") Duration retention) {
+        this.outbox = outbox;
+        this.objectMapper = objectMapper;
+        this.publisher = publisher;
+        this.executionThreads = executionThreads;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.pollMillis = Math.max(10, pollMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retention = retention;
+    }
+
+    @Override
+    public void enqueue(Long campaignId, CampaignEventType type, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            // 推送失败不影响业务修改
+            log.warn("战役 {} 的 {} 事件序列化失败: {}", campaignId, type.topic(), e.getMessage());
+            return;
+        }
+        outbox.insert(campaignId, type.topic(), json, nodeId);
+        AfterCommit.run(wakeups::release);
+    }
+
+    @PostConstruct
+    void init() {
+        cursor = outbox.maxId();
+        startCursor = cursor;
+    }
+
+    @Override
+    public boolean multiInstance() {
+        return true;
+    }
+
+    @Override
+    public long replayableAfter() {
+        return startCursor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        poller = executionThreads.newThread("campaign-event-relay", this::runPoller);
+        poller.start();
+        log.info("战役事件 outbox 转发已启动，节点 {}，从事件 {} 之后开始", nodeId, cursor);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (poller == null) {
+            return;
+        }
+        running = false;
+        wakeups.release();
+        poller.join(pollMillis * 4);
+    }
+
+    private void runPoller() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+                if (!running) {
+                    break;
+                }
+                pollOnce();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.warn("轮询战役事件 outbox 失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void pollOnce() {
+        long now = System.currentTimeMillis();
+        if (!gaps.isEmpty()) {
+            recheckGaps(now);
+        }
+        List<Entry> entries;
+        do {
+            entries = outbox.findAfter(cursor, batchSize);
+            for (Entry entry : entries) {
+                trackGaps(cursor + 1, entry.id(), now);
+                cursor = entry.id();
+                dispatch(entry, false);
+            }
+        } while (running && entries.size() == batchSize);
+        if (now >= nextCleanupAt) {
+            nextCleanupAt = now + CLEANUP_INTERVAL_MILLIS;
+            int removed = outbox.deleteCreatedBefore(Instant.now().minus(retention));
+            if (removed > 0) {
+                log.debug("已清理 {} 条过期的战役事件 outbox 记录", removed);
+            }
+        }
+    }
+
+    private void trackGaps(long from, long to, long now) {
+        for (long id = from; id < to && gaps.size() < MAX_TRACKED_GAPS; id++) {
+            gaps.put(id, now + gapTimeoutMillis);
+        }
+    }
+
+    private void recheckGaps(long now) {
+        for (Entry entry : outbox.findByIds(new ArrayList<>(gaps.keySet()))) {
+            gaps.remove(entry.id());
+            dispatch(entry, true);
+        }
+        Iterator<Long> deadlines = gaps.values().iterator();
+        while (deadlines.hasNext()) {
+            if (deadlines.next() <= now) {
+                deadlines.remove();
+            }
+        }
+    }
+
+    private void dispatch(Entry entry, boolean late) {
+        try {
+            RawJson payload = RawJson.orDefault(entry.payload(), "null");
+            if (late) {
+                log.debug("战役 {} 的事件 {} 迟于后续事件提交", entry.campaignId(), entry.id());
+            }
+            boolean remote = !nodeId.equals(entry.origin());
+            publisher.publishEvent(new CampaignEvent(entry.id(), entry.campaignId(),
+                    CampaignEventType.fromTopic(entry.topic()), payload, remote));
+        } catch (Exception e) {
+            log.warn("分发战役 {} 的事件 {} 失败: {}", entry.campaignId(), entry.id(), e.getMessage());
+        }
+    }
+}
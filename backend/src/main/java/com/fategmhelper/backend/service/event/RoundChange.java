@@ -0,0 +1,25 @@
+package com.fategmhelper.backend.service.event;
+
+import com.fategmhelper.backend.domain.Round;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * round.* 事件的数据。
+ */
+@Value
+public class RoundChange {
+    Long id;
+    Long campaignId;
+    Integer turnNumber;
+    String status;
+    Instant createdAt;
+    Instant closedAt;
+
+    public static RoundChange of(Round round, Long campaignId) {
+        return new RoundChange(round.getId(), campaignId, round.getTurnNumber(),
+                round.getStatus() != null ? round.getStatus().name() : null,
+                round.getCreatedAt(), round.getClosedAt());
+    }
+}
@@ -0,0 +1,444 @@
+package com.fategmhelper.backend.service.search;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.domain.SkillItem;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 角色卡的内存倒排索引，覆盖编号、职阶、各技能列表中的名称和原始文本。
+ * <p>
+ * 文本先做 NFKC 归一化并转小写，再按字母数字连续段切分，索引每段的单字与相邻二字（中日韩文字即二元组）；
+ * 每个词项的倒排表是按文档序号的位图。查询取关键词各段的二元组（单字段取单字）求交得到候选，
+ * 再逐字段核对包含关系并按字段权重与匹配程度（完全相同 &gt; 前缀 &gt; 包含）打分。
+ * <p>
+ * 角色卡增删、退役在事务提交后增量更新；另按 app.cards.search.refresh 定期从数据库整体重建，
+ * 多实例部署时其它实例的修改在重建后可见。
+ */
+@Component
+@Slf4j
+public class CharacterCardSearchIndex {
+
+    private static final int WEIGHT_CODE = 8;
+    private static final int WEIGHT_CLASS = 6;
+    private static final int WEIGHT_SKILL = 4;
+    private static final int WEIGHT_RAW = 1;
+
+    private final CharacterCardRepository repository;
+    private final ExecutionThreads executionThreads;
+    private final Duration refresh;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private long mutations;
+    private volatile boolean built;
+
+    private volatile boolean running;
+    private Thread refresher;
+
+    public CharacterCardSearchIndex(CharacterCardRepository repository,
+                                    ExecutionThreads executionThreads,
+                                    @Value("${app.cards.search.refresh:PT5M}") Duration refresh) {
+        this.repository = repository;
+        this.executionThreads = executionThreads;
+        this.refresh = refresh;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        if (refresh.isZero() || refresh.isNegative()) {
+            return;
+        }
+        running = true;
+        refresher = executionThreads.newThread("card-search-refresh", this::runRefresher);
+        refresher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (refresher == null) {
+            return;
+        }
+        running = false;
+        refresher.interrupt();
+        refresher.join(5_000);
+    }
+
+    /**
+     * 按相关度排序的角色卡 ID。campaignId 不为 null 时只返回该战役的卡和通用卡。
+     */
+    public List<Long> search(String keyword, Long campaignId) {
+        if (!built) {
+            rebuild();
+        }
+        List<String> segments = segments(normalize(keyword));
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String segment : segments) {
+            if (segment.codePointCount(0, segment.length()) == 1) {
+                terms.add(segment);
+            } else {
+                bigrams(segment, terms::add);
+            }
+        }
+        lock.readLock().lock();
+        try {
+            BitSet candidates = index.intersect(terms);
+            if (candidates == null) {
+                return List.of();
+            }
+            List<Hit> hits = new ArrayList<>();
+            for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+                Doc doc = index.docs.get(ord);
+                if (campaignId != null && doc.campaignId != null && !doc.campaignId.equals(campaignId)) {
+                    continue;
+                }
+                int score = doc.score(segments);
+                if (score > 0) {
+                    hits.add(new Hit(doc.id, score, doc.retired));
+                }
+            }
+            hits.sort(Comparator.comparingInt(Hit::score).reversed()
+                    .thenComparing(Hit::retired)
+                    .thenComparingLong(Hit::id));
+            return hits.stream().map(Hit::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或替换一张卡；应在事务提交后调用。
+     */
+    public void put(CharacterCard card) {
+        Doc doc = Doc.of(card);
+        lock.writeLock().lock();
+        try {
+            index.remove(doc.id);
+            index.add(doc);
+            mutations++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+            mutations++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 退役状态只影响排序，不重新分词（也不必解析技能列表）。
+     */
+    public void setRetired(Long id, boolean retired) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = index.ordinals.get(id);
+            if (ord != null) {
+                index.docs.get(ord).retired = retired;
+            }
+            mutations++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 战役删除后其角色卡变为通用卡。
+     */
+    public void clearCampaign(Long campaignId) {
+        lock.writeLock().lock();
+        try {
+            for (Doc doc : index.docs) {
+                if (doc != null && campaignId.equals(doc.campaignId)) {
+                    doc.campaignId = null;
+                }
+            }
+            mutations++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从数据库整体重建。读库期间有增量更新时放弃本次结果，保留增量更新后的索引。
+     */
+    public void rebuild() {
+        long before;
+        lock.readLock().lock();
+        try {
+            before = mutations;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Index fresh = new Index();
+        for (CharacterCard card : repository.findAll()) {
+            fresh.add(Doc.of(card));
+        }
+        lock.writeLock().lock();
+        try {
+            if (mutations == before || !built) {
+                index = fresh;
+                built = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("角色卡搜索索引已重建：{} 张卡，{} 个词项", fresh.size(), fresh.postings.size());
+    }
+
+    private void runRefresher() {
+        while (running) {
+            try {
+                Thread.sleep(refresh.toMillis());
+                rebuild();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.warn("重建角色卡搜索索引失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 按非字母数字字符切分为连续段。
+     */
+    static List<String> segments(String normalized) {
+        List<String> segments = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            boolean word = Character.isLetterOrDigit(cp);
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                segments.add(normalized.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(cp);
+        }
+        if (start >= 0) {
+            segments.add(normalized.substring(start));
+        }
+        return segments;
+    }
+
+    private static void bigrams(String segment, Consumer<String> sink) {
+        int first = 0;
+        int second = segment.offsetByCodePoints(0, 1);
+        while (second < segment.length()) {
+            int end = segment.offsetByCodePoints(second, 1);
+            sink.accept(segment.substring(first, end));
+            first = second;
+            second = end;
+        }
+    }
+
+    private static void addTerms(String normalized, Set<String> sink) {
+        for (String segment : segments(normalized)) {
+            for (int i = 0; i < segment.length(); ) {
+                int cp = segment.codePointAt(i);
+                sink.add(new String(Character.toChars(cp)));
+                i += Character.charCount(cp);
+            }
+            bigrams(segment, sink::add);
+        }
+    }
+
+    private record Hit(long id, int score, boolean retired) {
+    }
+
+    /**
+     * 文档按序号稠密存放，删除后序号回收复用，位图不会随增删无限变长。
+     */
+    private static final class Index {
+        final List<Doc> docs = new ArrayList<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final Map<String, BitSet> postings = new HashMap<>();
+        final Deque<Integer> free = new ArrayDeque<>();
+
+        int size() {
+            return ordinals.size();
+        }
+
+        void add(Doc doc) {
+            int ord;
+            if (free.isEmpty()) {
+                ord = docs.size();
+                docs.add(doc);
+            } else {
+                ord = free.pop();
+                docs.set(ord, doc);
+            }
+            ordinals.put(doc.id, ord);
+            for (String term : doc.terms()) {
+                postings.computeIfAbsent(term, k -> new BitSet()).set(ord);
+            }
+        }
+
+        void remove(Long id) {
+            Integer ord = ordinals.remove(id);
+            if (ord == null) {
+                return;
+            }
+            Doc doc = docs.set(ord, null);
+            for (String term : doc.terms()) {
+                BitSet bits = postings.get(term);
+                if (bits != null) {
+                    bits.clear(ord);
+                    if (bits.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            free.push(ord);
+        }
+
+        /**
+         * 各词项倒排表的交集；任一词项不存在时返回 null。
+         */
+        BitSet intersect(List<String> terms) {
+            List<BitSet> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                BitSet bits = postings.get(term);
+                if (bits == null) {
+                    return null;
+                }
+                lists.add(bits);
+            }
+            lists.sort(Comparator.comparingInt(BitSet::length));
+            BitSet result = (BitSet) lists.get(0).clone();
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.and(lists.get(i));
+            }
+            return result;
+        }
+    }
+
+    private static final class Doc {
+        final long id;
+        Long campaignId;
+        boolean retired;
+        final String code;
+        final String className;
+        final List<String> skillNames;
+        final String rawText;
+
+        private Doc(long id, Long campaignId, boolean retired, String code, String className,
+                    List<String> skillNames, String rawText) {
+            this.id = id;
+            this.campaignId = campaignId;
+            this.retired = retired;
+            this.code = code;
+            this.className = className;
+            this.skillNames = skillNames;
+            this.rawText = rawText;
+        }
+
+        static Doc of(CharacterCard card) {
+            List<String> skills = new ArrayList<>();
+            for (List<SkillItem> list : List.of(nullToEmpty(card.getClassSkills()), nullToEmpty(card.getPersonalSkills()),
+                    nullToEmpty(card.getNoblePhantasms()), nullToEmpty(card.getWorkshops()),
+                    nullToEmpty(card.getCraftEssences()))) {
+                for (SkillItem item : list) {
+                    if (item != null && item.getName() != null && !item.getName().isBlank()) {
+                        skills.add(normalize(item.getName()));
+                    }
+                }
+            }
+            return new Doc(card.getId(),
+                    card.getCampaign() != null ? card.getCampaign().getId() : null,
+                    card.isRetired(),
+                    normalize(card.getCode()),
+                    normalize(card.getClassName()),
+                    List.copyOf(skills),
+                    normalize(card.getRawText()));
+        }
+
+        private static List<SkillItem> nullToEmpty(List<SkillItem> list) {
+            return list != null ? list : List.of();
+        }
+
+        Set<String> terms() {
+            Set<String> terms = new LinkedHashSet<>();
+            addTerms(code, terms);
+            addTerms(className, terms);
+            for (String name : skillNames) {
+                addTerms(name, terms);
+            }
+            addTerms(rawText, terms);
+            return terms;
+        }
+
+        /**
+         * 每个查询段取得分最高的字段，任一段在所有字段中都不出现时为 0（词项分散在不同字段，不算命中）。
+         * 原始文本权重最低，只在其它字段都不含该段时才扫描。
+         */
+        int score(List<String> segments) {
+            int total = 0;
+            for (String segment : segments) {
+                int best = Math.max(WEIGHT_CODE * quality(code, segment), WEIGHT_CLASS * quality(className, segment));
+                for (String name : skillNames) {
+                    best = Math.max(best, WEIGHT_SKILL * quality(name, segment));
+                }
+                if (best == 0) {
+                    best = WEIGHT_RAW * quality(rawText, segment);
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int quality(String field, String segment) {
+            if (field.isEmpty()) {
+                return 0;
+            }
+            if (field.equals(segment)) {
+                return 4;
+            }
+            if (field.startsWith(segment)) {
+                return 3;
+            }
+            return field.contains(segment) ? 2 : 0;
+        }
+    }
+}
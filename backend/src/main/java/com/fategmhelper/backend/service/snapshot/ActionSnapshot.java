@@ -0,0 +1,63 @@
+package com.fategmhelper.backend.service.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * 延迟解码的行动快照：首次读取任一部分时才解压并解析字符串表，各分段在被访问时才解码，
+ * 只需要其中一部分（例如从者行动）的调用方不必付出完整解析的代价。
+ * 数据损坏时对应部分返回 null，与旧版 JSON 列解析失败时的行为一致。
+ */
+@Slf4j
+public final class ActionSnapshot {
+
+    private final byte[] stored;
+    private ActionSnapshotCodec.Decoded decoded;
+    private boolean broken;
+
+    private ActionSnapshot(byte[] stored) {
+        this.stored = stored;
+    }
+
+    /**
+     * @return 没有快照数据时返回 null
+     */
+    public static ActionSnapshot of(byte[] stored) {
+        return stored == null || stored.length == 0 ? null : new ActionSnapshot(stored);
+    }
+
+    public List<String> classes() {
+        return section(ActionSnapshotCodec.SECTION_CLASSES);
+    }
+
+    public List<Object> actionOrder() {
+        return section(ActionSnapshotCodec.SECTION_ACTION_ORDER);
+    }
+
+    public List<String> servantActions() {
+        return section(ActionSnapshotCodec.SECTION_SERVANT_ACTIONS);
+    }
+
+    public List<String> masterActions() {
+        return section(ActionSnapshotCodec.SECTION_MASTER_ACTIONS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> List<T> section(int index) {
+        if (broken) {
+            return null;
+        }
+        try {
+            if (decoded == null) {
+                decoded = ActionSnapshotCodec.open(stored);
+            }
+            Object value = decoded.section(index);
+            return value instanceof List<?> list ? (List<T>) list : null;
+        } catch (RuntimeException e) {
+            log.warn("行动快照解码失败: {}", e.getMessage());
+            broken = true;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.fategmhelper.backend.service.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 行动历史快照的二进制格式（action_history.snapshot 列）。
+ * <pre>
+ * 头部：   [格式版本 1B][标志 1B]，标志 bit0 表示正文经 deflate 压缩，此时紧跟 varint 的原始长度
+ * 正文：   字符串表  varint 个数，每项 varint 字节数 + UTF-8
+ *         4 个分段（阶职槽位、行动顺序、从者行动、御主行动），每段 varint 字节数 + 值
+ * 值：     1B 标签 + 内容；字符串只写字符串表下标，阶职名、行动类别、“待机”等重复文本只存一次
+ * </pre>
+ * 分段带长度，读取方可以只解码需要的部分（见 {@link ActionSnapshot}）。
+ * 新版本只能追加格式版本号，解码端需继续支持已写入的旧版本。
+ */
+public final class ActionSnapshotCodec {
+
+    static final int FORMAT_V1 = 1;
+    static final int FLAG_DEFLATE = 1;
+
+    static final int SECTION_CLASSES = 0;
+    static final int SECTION_ACTION_ORDER = 1;
+    static final int SECTION_SERVANT_ACTIONS = 2;
+    static final int SECTION_MASTER_ACTIONS = 3;
+    static final int SECTION_COUNT = 4;
+
+    static final int TAG_NULL = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_LIST = 2;
+    static final int TAG_MAP = 3;
+    static final int TAG_LONG = 4;
+    static final int TAG_DOUBLE = 5;
+    static final int TAG_TRUE = 6;
+    static final int TAG_FALSE = 7;
+
+    /**
+     * 正文达到该长度才压缩。字符串表去重后普通回合只有几百字节，不压缩时解码比解析 JSON 快；
+     * 压缩能再省一半空间，但解压的耗时是解码本身的数倍，只对大快照值得。
+     */
+    private static final int DEFLATE_THRESHOLD = 1024;
+
+    private ActionSnapshotCodec() {
+    }
+
+    /**
+     * @param classes     槽位对应的阶职，servantActions / masterActions / actionOrder 中的列按此顺序排列
+     * @param actionOrder 行动顺序表，任意 JSON 结构（Map / List / 字符串 / 数字 / 布尔 / null）
+     */
+    public static byte[] encode(List<String> classes, Object actionOrder,
+                                List<String> servantActions, List<String> masterActions) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        byte[][] sections = {
+                encodeValue(classes, strings),
+                encodeValue(actionOrder, strings),
+                encodeValue(servantActions, strings),
+                encodeValue(masterActions, strings),
+        };
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeVarint(body, strings.size());
+        for (String s : strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(body, utf8.length);
+            body.writeBytes(utf8);
+        }
+        for (byte[] section : sections) {
+            writeVarint(body, section.length);
+            body.writeBytes(section);
+        }
+        byte[] raw = body.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 8);
+        out.write(FORMAT_V1);
+        byte[] deflated = raw.length >= DEFLATE_THRESHOLD ? deflate(raw) : null;
+        if (deflated != null && deflated.length < raw.length) {
+            out.write(FLAG_DEFLATE);
+            writeVarint(out, raw.length);
+            out.writeBytes(deflated);
+        } else {
+            out.write(0);
+            out.writeBytes(raw);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解开头部与字符串表，返回各分段在正文中的位置；分段本身留给调用方按需解码。
+     */
+    static Decoded open(byte[] stored) {
+        if (stored.length < 2) {
+            throw new IllegalArgumentException("行动快照数据不完整");
+        }
+        int version = stored[0];
+        if (version != FORMAT_V1) {
+            throw new IllegalArgumentException("不支持的行动快照格式版本：" + version);
+        }
+        ByteBuffer header = ByteBuffer.wrap(stored, 2, stored.length - 2);
+        byte[] body;
+        if ((stored[1] & FLAG_DEFLATE) != 0) {
+            int rawLength = readVarint(header);
+            body = inflate(stored, header.position(), stored.length - header.position(), rawLength);
+        } else {
+            body = Arrays.copyOfRange(stored, 2, stored.length);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(body);
+        String[] strings = new String[readVarint(in)];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarint(in);
+            strings[i] = new String(body, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        int[] offsets = new int[SECTION_COUNT];
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            int length = readVarint(in);
+            offsets[i] = in.position();
+            in.position(in.position() + length);
+        }
+        return new Decoded(body, strings, offsets);
+    }
+
+    record Decoded(byte[] body, String[] strings, int[] offsets) {
+
+        Object section(int index) {
+            return readValue(ByteBuffer.wrap(body).position(offsets[index]), strings);
+        }
+    }
+
+    private static byte[] encodeValue(Object value, Map<String, Integer> strings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeValue(out, value, strings);
+        return out.toByteArray();
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value, Map<String, Integer> strings) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof CharSequence s) {
+            out.write(TAG_STRING);
+            writeVarint(out, strings.computeIfAbsent(s.toString(), k -> strings.size()));
+        } else if (value instanceof List<?> list) {
+            out.write(TAG_LIST);
+            writeVarint(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item, strings);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.write(TAG_MAP);
+            writeVarint(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeVarint(out, strings.computeIfAbsent(String.valueOf(entry.getKey()), k -> strings.size()));
+                writeValue(out, entry.getValue(), strings);
+            }
+        } else if (value instanceof Boolean b) {
+            out.write(b ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Float || value instanceof Double) {
+            out.write(TAG_DOUBLE);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (value instanceof Number n) {
+            out.write(TAG_LONG);
+            long v = n.longValue();
+            writeVarint(out, (v << 1) ^ (v >> 63));
+        } else {
+            throw new IllegalArgumentException("行动快照不支持的值类型：" + value.getClass().getSimpleName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, String[] strings) {
+        int tag = in.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return strings[readVarint(in)];
+            case TAG_LIST: {
+                int size = readVarint(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, strings));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = readVarint(in);
+                Map<String, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    String key = strings[readVarint(in)];
+                    map.put(key, readValue(in, strings));
+                }
+                return map;
+            }
+            case TAG_LONG: {
+                long zigzag = readVarLong(in);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            case TAG_DOUBLE:
+                return in.getDouble();
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("行动快照数据损坏：未知标签 " + tag);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] src, int offset, int length, int rawLength) {
+        // 每次解压新建并立即释放：Inflater 持有本地内存，放在 ThreadLocal 里会随线程（含虚拟线程）数增长
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(src, offset, length);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new IllegalArgumentException("行动快照数据损坏：解压后长度不符");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("行动快照数据损坏：" + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("行动快照数据损坏：长度越界");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("行动快照数据损坏：varint 过长");
+    }
+}
@@ -0,0 +1,63 @@
+package com.fategmhelper.backend.service.timeline;
+
+import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 战役在某一回合的完整状态。不可变，由上一回合的状态应用本回合的增量得到，
+ * 相邻回合之间没有变化的部分共享同一对象。
+ */
+@Value
+public class CampaignState {
+
+    Long campaignId;
+    int roundNumber;
+
+    /** OPEN / CLOSED；回合记录缺失时为 null */
+    String roundStatus;
+    Instant closedAt;
+
+    /** 角色卡 ID → 截至本回合最近一次记录的状态（其 roundNumber 为记录所在回合） */
+    Map<Long, CharacterStatusResponse> characters;
+
+    /** 本回合关闭时保存的行动快照，回合未关闭时为 null */
+    ActionHistoryResponse actions;
+
+    /** 灵脉 ID → 已分配角色卡 ID 数组，取自 leylinesRound 关闭时的记录；开放回合为当前分配 */
+    RawJson leylines;
+    Integer leylinesRound;
+
+    /** 灵脉分配取自当前数据而不是关闭记录，灵脉修改后即失效 */
+    @JsonIgnore
+    boolean leylinesLive;
+
+    static CampaignState empty(Long campaignId) {
+        return new CampaignState(campaignId, 0, null, null, Map.of(), null, null, null, false);
+    }
+
+    CampaignState next(RoundDelta delta) {
+        Map<Long, CharacterStatusResponse> nextCharacters = characters;
+        if (!delta.statuses().isEmpty()) {
+            Map<Long, CharacterStatusResponse> copy = new TreeMap<>(characters);
+            for (CharacterStatusResponse status : delta.statuses()) {
+                copy.put(status.getCharacterCardId(), status);
+            }
+            nextCharacters = Collections.unmodifiableMap(copy);
+        }
+        // 本回合没有灵脉记录（早于记录功能关闭的回合）时沿用之前最近的记录
+        boolean recorded = delta.leylines() != null;
+        return new CampaignState(campaignId, delta.roundNumber(), delta.roundStatus(), delta.closedAt(),
+                nextCharacters, delta.actions(),
+                recorded ? delta.leylines() : leylines,
+                recorded ? Integer.valueOf(delta.roundNumber()) : leylinesRound,
+                recorded ? delta.leylinesLive() : leylinesLive);
+    }
+}
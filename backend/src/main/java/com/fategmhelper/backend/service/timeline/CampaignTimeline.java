@@ -0,0 +1,260 @@
+package com.fategmhelper.backend.service.timeline;
+
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.RoundChange;
+import com.fategmhelper.backend.web.dto.CharacterStatusPatch;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * 按回合回看战役状态。
+ * <p>
+ * 状态由逐回合增量（角色状态记录、行动快照、灵脉分配记录）依次应用得到：每隔 keyframe-interval 个回合
+ * 在内存中保留一份完整状态作为关键帧，最近构建的状态放在 LRU 缓存里。请求某回合时从缓存中最近的更早回合
+ * 或关键帧出发，只读取中间回合的增量；前后逐回合拖动时多数请求只需读取一个回合的增量或直接命中缓存。
+ * 相关数据修改后（按战役事件）丢弃受影响回合及之后的状态。
+ * <p>
+ * 关键帧总数有上限（所有战役共用，按最近使用淘汰）；超过 idle-ttl 未被访问的战役整体移出内存。
+ */
+@Component
+public class CampaignTimeline {
+
+    private final RoundDeltaLoader loader;
+    private final int keyframeInterval;
+    private final long idleNanos;
+    private final Map<Key, CampaignState> cache;
+    /** 按战役的关键帧，用于按回合号查找 */
+    private final Map<Long, NavigableMap<Integer, CampaignState>> keyframes = new HashMap<>();
+    /** 同一批关键帧按最近使用排序，超过上限时从最久未用的淘汰 */
+    private final Map<Key, CampaignState> keyframeOrder;
+    private final Map<Long, Long> lastAccess = new HashMap<>();
+    /**
+     * 失效计数：每次失效递增，invalidatedAt 记录各战役最近一次失效时的值。构建开始时记下当前值，
+     * 结束时战役在此之后失效过则不缓存结果；战役被移出内存后以 forgottenAt 代替。
+     */
+    private long epoch;
+    private long forgottenAt;
+    private final Map<Long, Long> invalidatedAt = new HashMap<>();
+    private long lastSweep = System.nanoTime();
+
+    public CampaignTimeline(RoundDeltaLoader loader,
+                            @Value("${app.timeline.keyframe-interval:10}") int keyframeInterval,
+                            @Value("${app.timeline.cache-size:256}") int cacheSize,
+                            @Value("${app.timeline.keyframe-limit:1024}") int keyframeLimit,
+                            @Value("${app.timeline.idle-ttl:PT30M}") Duration idleTtl) {
+        this.loader = loader;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.idleNanos = Math.max(1, idleTtl.toNanos());
+        int capacity = Math.max(1, cacheSize);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CampaignState> eldest) {
+                return size() > capacity;
+            }
+        };
+        int frameCapacity = Math.max(1, keyframeLimit);
+        this.keyframeOrder = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CampaignState> eldest) {
+                if (size() <= frameCapacity) {
+                    return false;
+                }
+                removeKeyframe(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    public CampaignState stateAt(Long campaignId, int roundNumber) {
+        if (roundNumber < 1) {
+            throw new IllegalArgumentException("回合号需大于 0");
+        }
+        CampaignState base;
+        long generation;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - lastSweep > idleNanos / 4) {
+                sweep(now);
+            }
+            lastAccess.put(campaignId, now);
+            CampaignState hit = cache.get(new Key(campaignId, roundNumber));
+            if (hit != null) {
+                return hit;
+            }
+            generation = epoch;
+            base = nearestAtOrBefore(campaignId, roundNumber);
+        }
+        if (base != null && base.getRoundNumber() == roundNumber) {
+            return base;
+        }
+        // 读库不持锁；期间若有失效，构建结果只返回、不缓存
+        int fromRound = base != null ? base.getRoundNumber() + 1 : 1;
+        CampaignState state = base != null ? base : CampaignState.empty(campaignId);
+        List<CampaignState> built = new ArrayList<>(roundNumber - fromRound + 1);
+        for (RoundDelta delta : loader.load(campaignId, fromRound, roundNumber)) {
+            state = state.next(delta);
+            built.add(state);
+        }
+        remember(campaignId, generation, built);
+        return state;
+    }
+
+    @EventListener
+    public void onCampaignEvent(CampaignEvent event) {
+        Long campaignId = event.getCampaignId();
+        switch (event.getType()) {
+            case STATUS_UPDATED, STATUS_PATCHED -> invalidateFrom(campaignId, roundOf(event.getPayload(), "roundNumber"));
+            case ROUND_OPENED, ROUND_CLOSED -> invalidateFrom(campaignId, roundOf(event.getPayload(), "turnNumber"));
+            // 关闭的回合用的是关闭时的记录，灵脉修改只影响取当前分配的开放回合
+            case LEYLINE_CREATED, LEYLINE_UPDATED, LEYLINE_DELETED, LEYLINE_ASSIGNED, LEYLINE_ASSIGNMENTS_REPLACED ->
+                    invalidate(campaignId, CampaignState::isLeylinesLive);
+            default -> {
+            }
+        }
+    }
+
+    public synchronized void drop(Long campaignId) {
+        forget(campaignId);
+    }
+
+    /**
+     * 缓存中不晚于 roundNumber 的最近状态：先向前找至多一个关键帧间隔内的缓存，再退到关键帧。
+     */
+    private CampaignState nearestAtOrBefore(Long campaignId, int roundNumber) {
+        NavigableMap<Integer, CampaignState> frames = keyframes.get(campaignId);
+        Map.Entry<Integer, CampaignState> frame = frames != null ? frames.floorEntry(roundNumber) : null;
+        if (frame != null) {
+            keyframeOrder.get(new Key(campaignId, frame.getKey()));
+        }
+        int stop = frame != null ? frame.getKey() : Math.max(0, roundNumber - keyframeInterval);
+        for (int r = roundNumber - 1; r > stop; r--) {
+            CampaignState hit = cache.get(new Key(campaignId, r));
+            if (hit != null) {
+                return hit;
+            }
+        }
+        return frame != null ? frame.getValue() : null;
+    }
+
+    /**
+     * 缓存本次构建的最后一个间隔内的状态（即请求回合的近邻），途经的关键帧回合另存为关键帧。
+     */
+    private synchronized void remember(Long campaignId, long generation, List<CampaignState> built) {
+        if (invalidatedAt.getOrDefault(campaignId, forgottenAt) > generation) {
+            return;
+        }
+        int firstCached = Math.max(0, built.size() - keyframeInterval);
+        for (int i = 0; i < built.size(); i++) {
+            CampaignState state = built.get(i);
+            if (state.getRoundNumber() % keyframeInterval == 0) {
+                keyframes.computeIfAbsent(campaignId, k -> new TreeMap<>()).put(state.getRoundNumber(), state);
+                keyframeOrder.put(new Key(campaignId, state.getRoundNumber()), state);
+            }
+            if (i >= firstCached) {
+                cache.put(new Key(campaignId, state.getRoundNumber()), state);
+            }
+        }
+    }
+
+    private void invalidateFrom(Long campaignId, Integer roundNumber) {
+        if (roundNumber == null) {
+            invalidate(campaignId, s -> true);
+        } else {
+            invalidate(campaignId, s -> s.getRoundNumber() >= roundNumber);
+        }
+    }
+
+    private synchronized void invalidate(Long campaignId, Predicate<CampaignState> stale) {
+        if (!lastAccess.containsKey(campaignId)) {
+            // 没有缓存的状态，也没有进行中的构建
+            return;
+        }
+        invalidatedAt.put(campaignId, ++epoch);
+        cache.values().removeIf(s -> s.getCampaignId().equals(campaignId) && stale.test(s));
+        NavigableMap<Integer, CampaignState> frames = keyframes.get(campaignId);
+        if (frames != null) {
+            for (Iterator<CampaignState> it = frames.values().iterator(); it.hasNext(); ) {
+                CampaignState state = it.next();
+                if (stale.test(state)) {
+                    it.remove();
+                    keyframeOrder.remove(new Key(campaignId, state.getRoundNumber()));
+                }
+            }
+        }
+    }
+
+    /**
+     * 移出超过 idle-ttl 未被访问的战役。
+     */
+    private void sweep(long now) {
+        lastSweep = now;
+        List<Long> idle = new ArrayList<>();
+        lastAccess.forEach((campaignId, at) -> {
+            if (now - at > idleNanos) {
+                idle.add(campaignId);
+            }
+        });
+        idle.forEach(this::forget);
+    }
+
+    private void forget(Long campaignId) {
+        cache.keySet().removeIf(k -> k.campaignId().equals(campaignId));
+        keyframeOrder.keySet().removeIf(k -> k.campaignId().equals(campaignId));
+        keyframes.remove(campaignId);
+        lastAccess.remove(campaignId);
+        invalidatedAt.remove(campaignId);
+        // 进行中的构建无法再按战役判断是否失效，一律不缓存
+        forgottenAt = ++epoch;
+    }
+
+    private void removeKeyframe(Key key) {
+        NavigableMap<Integer, CampaignState> frames = keyframes.get(key.campaignId());
+        if (frames != null) {
+            frames.remove(key.roundNumber());
+            if (frames.isEmpty()) {
+                keyframes.remove(key.campaignId());
+            }
+        }
+    }
+
+    /**
+     * 事件数据中的回合号。本地转发时为原对象，经 outbox 转发时为 JSON 树；取不到时返回 null（整体失效）。
+     */
+    private static Integer roundOf(Object payload, String field) {
+        if (payload instanceof RawJson raw) {
+            payload = raw.tree();
+        }
+        if (payload instanceof JsonNode node) {
+            JsonNode value = node.get(field);
+            return value != null && value.canConvertToInt() ? value.intValue() : null;
+        }
+        if (payload instanceof CharacterStatusResponse status) {
+            return status.getRoundNumber();
+        }
+        if (payload instanceof CharacterStatusPatch patch) {
+            return patch.getRoundNumber();
+        }
+        if (payload instanceof RoundChange round) {
+            return round.getTurnNumber();
+        }
+        return null;
+    }
+
+    private record Key(Long campaignId, int roundNumber) {
+    }
+}
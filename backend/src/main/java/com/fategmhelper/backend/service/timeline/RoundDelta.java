@@ -0,0 +1,23 @@
+package com.fategmhelper.backend.service.timeline;
+
+import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 单个回合相对上一回合的变化：本回合写入的角色状态、行动快照和灵脉分配记录。
+ *
+ * @param leylines     本回合的灵脉分配；没有记录时为 null，沿用之前的状态
+ * @param leylinesLive leylines 取自当前数据（最新的开放回合）
+ */
+record RoundDelta(int roundNumber,
+                  String roundStatus,
+                  Instant closedAt,
+                  List<CharacterStatusResponse> statuses,
+                  ActionHistoryResponse actions,
+                  RawJson leylines,
+                  boolean leylinesLive) {
+}
@@ -0,0 +1,99 @@
+package com.fategmhelper.backend.service.timeline;
+
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.domain.CharacterStatus;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.ActionHistoryRepository;
+import com.fategmhelper.backend.repository.CharacterStatusRepository;
+import com.fategmhelper.backend.repository.RoundRepository;
+import com.fategmhelper.backend.service.LeylineService;
+import com.fategmhelper.backend.service.archive.ArchivedRound;
+import com.fategmhelper.backend.service.archive.RoundArchiveStore;
+import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fategmhelper.backend.web.dto.RawJson;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读取一段连续回合的增量：在库数据每类一次范围查询，已归档的回合从归档文件读取。
+ */
+@Component
+@RequiredArgsConstructor
+public class RoundDeltaLoader {
+
+    private final RoundRepository roundRepository;
+    private final CharacterStatusRepository characterStatusRepository;
+    private final ActionHistoryRepository actionHistoryRepository;
+    private final LeylineService leylineService;
+    private final RoundArchiveStore archive;
+
+    /**
+     * 读取 [fromRound, toRound] 内每个回合的增量，按回合号升序返回。
+     */
+    @Transactional(readOnly = true)
+    public List<RoundDelta> load(Long campaignId, int fromRound, int toRound) {
+        int latest = roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(campaignId)
+                .map(Round::getTurnNumber)
+                .orElse(0);
+        if (toRound > latest) {
+            throw new IllegalArgumentException(latest == 0
+                    ? "战役尚无回合：" + campaignId
+                    : "战役 " + campaignId + " 没有第 " + toRound + " 回合（最新为第 " + latest + " 回合）");
+        }
+
+        // 同一回合号有多条记录时以最后写入的为准
+        Map<Integer, Round> rounds = new HashMap<>();
+        for (Round round : roundRepository.findByCampaignIdAndTurnNumberBetweenOrderByIdAsc(campaignId, fromRound, toRound)) {
+            rounds.put(round.getTurnNumber(), round);
+        }
+        Map<Integer, ActionHistory> histories = new HashMap<>();
+        for (ActionHistory h : actionHistoryRepository.findByCampaignIdAndRoundNumberBetween(campaignId, fromRound, toRound)) {
+            histories.merge(h.getRoundNumber(), h, (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+        Map<Integer, List<CharacterStatusResponse>> statuses = new HashMap<>();
+        for (CharacterStatus status : characterStatusRepository.findInRoundRange(campaignId, fromRound, toRound)) {
+            statuses.computeIfAbsent(status.getRoundNumber(), k -> new ArrayList<>())
+                    .add(CharacterStatusResponse.fromEntity(status));
+        }
+        // 已归档的回合以归档文件为准
+        for (Integer r : archive.rounds(campaignId).subSet(fromRound, true, toRound, true)) {
+            ArchivedRound archived = archive.read(campaignId, r).orElse(null);
+            if (archived == null) {
+                continue;
+            }
+            ActionHistory history = archived.toHistory();
+            if (history != null) {
+                histories.put(r, history);
+            } else {
+                histories.remove(r);
+            }
+            statuses.put(r, archived.toStatusResponses());
+        }
+
+        List<RoundDelta> deltas = new ArrayList<>(toRound - fromRound + 1);
+        for (int r = fromRound; r <= toRound; r++) {
+            Round round = rounds.get(r);
+            ActionHistory history = histories.get(r);
+            // 最新的开放回合尚无关闭记录，灵脉分配取当前数据
+            boolean live = r == latest && round != null && round.getStatus() == Round.Status.OPEN;
+            RawJson leylines = live
+                    ? RawJson.of(leylineService.assignmentsJson(campaignId))
+                    : history != null ? RawJson.of(history.getLeylineAssignmentsJson()) : null;
+            deltas.add(new RoundDelta(r,
+                    round != null && round.getStatus() != null ? round.getStatus().name() : null,
+                    round != null ? round.getClosedAt() : null,
+                    statuses.getOrDefault(r, List.of()),
+                    history != null ? ActionHistoryResponse.fromEntity(history) : null,
+                    leylines,
+                    live));
+        }
+        return deltas;
+    }
+}
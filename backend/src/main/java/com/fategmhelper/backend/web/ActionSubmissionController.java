@@ -1,7 +1,10 @@
 package com.fategmhelper.backend.web;
 
-import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.service.ActionSubmissionGroupCommitter;
 import com.fategmhelper.backend.service.ActionSubmissionService;
+import com.fategmhelper.backend.service.SubmissionCommand;
+import com.fategmhelper.backend.web.dto.ActionSubmissionBatchRequest;
+import com.fategmhelper.backend.web.dto.ActionSubmissionBatchResponse;
 import com.fategmhelper.backend.web.dto.ActionSubmissionRequest;
 import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
 import jakarta.validation.Valid;
@@ -9,23 +12,47 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/action-submissions")
 @RequiredArgsConstructor
 public class ActionSubmissionController {
 
     private final ActionSubmissionService service;
+    private final ActionSubmissionGroupCommitter groupCommitter;
 
     @PostMapping
-    public ResponseEntity<ActionSubmissionResponse> submit(@Valid @RequestBody ActionSubmissionRequest req) {
-        ActionSubmission saved = service.submitAction(
+    public CompletableFuture<ResponseEntity<ActionSubmissionResponse>> submit(@Valid @RequestBody ActionSubmissionRequest req) {
+        return groupCommitter.submitAsync(new SubmissionCommand(
                 req.getCampaignId(),
                 req.getServantClass(),
                 req.getActionType(),
                 req.getContent(),
                 req.getSubmittedBy()
-        );
-        return ResponseEntity.ok(ActionSubmissionResponse.fromEntity(saved));
+        )).thenApply(outcome -> {
+            if (outcome.isRejected()) {
+                throw new IllegalArgumentException(outcome.getMessage());
+            }
+            return ResponseEntity.ok(ActionSubmissionResponse.fromEntity(outcome.getSubmission()));
+        });
+    }
+
+    /**
+     * 批量提交：每个战役只解析一次回合，一次清除槽位、一次批量插入，并推送一条 submission.batch 事件。
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<ActionSubmissionBatchResponse>> submitBatch(@Valid @RequestBody ActionSubmissionBatchRequest req) {
+        java.util.List<SubmissionCommand> commands = req.getSubmissions().stream()
+                .map(r -> new SubmissionCommand(
+                        r.getCampaignId(),
+                        r.getServantClass(),
+                        r.getActionType(),
+                        r.getContent(),
+                        r.getSubmittedBy()))
+                .toList();
+        return groupCommitter.submitAllAsync(commands)
+                .thenApply(outcomes -> ResponseEntity.ok(ActionSubmissionBatchResponse.fromOutcomes(outcomes)));
     }
 
     @GetMapping
@@ -33,5 +60,3 @@ public class ActionSubmissionController {
         return ResponseEntity.ok(service.listCurrentByCampaign(campaignId));
     }
 }
-
-
@@ -1,68 +1,55 @@
 package com.fategmhelper.backend.web;
 
-import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
-import lombok.extern.slf4j.Slf4j;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.web.sse.SseDispatcher;
+import com.fategmhelper.backend.web.sse.TopicFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.EventListener;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @RestController
 @RequestMapping("/api/action-submissions")
-@Slf4j
+@RequiredArgsConstructor
 public class ActionSubmissionSseController {
 
-    private final Map<Long, List<SseEmitter>> emittersByCampaign = new ConcurrentHashMap<>();
+    private final SseDispatcher dispatcher;
 
     @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(@RequestParam Long campaignId) {
-        SseEmitter emitter = new SseEmitter(0L); // no timeout
-        emittersByCampaign.computeIfAbsent(campaignId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-
-        emitter.onCompletion(() -> removeEmitter(campaignId, emitter));
-        emitter.onTimeout(() -> removeEmitter(campaignId, emitter));
-        emitter.onError((e) -> removeEmitter(campaignId, emitter));
+    public void stream(@RequestParam Long campaignId,
+                       @RequestParam(value = "topics", required = false) String topics,
+                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                       @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        // 浏览器自动重连时带请求头；手动重建 EventSource 时可以用查询参数
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        dispatcher.subscribe(request, response, campaignId, TopicFilter.parse(topics), parseEventId(lastEventId));
+    }
 
-        // send a welcome/heartbeat event to confirm connection
+    private static Long parseEventId(String value) {
+        if (value == null || value.isBlank()) return null;
         try {
-            emitter.send(SseEmitter.event().name("connected").data("connected"));
-        } catch (IOException ignored) {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return emitter;
     }
 
+    /**
+     * 战役事件总线 → SSE：事件名即主题（round.closed、submission.batch 等）。
+     */
     @EventListener
-    public void onNewSubmission(ActionSubmissionResponse submission) {
-        if (submission == null || submission.getCampaignId() == null) return;
-        List<SseEmitter> list = emittersByCampaign.get(submission.getCampaignId());
-        if (list == null || list.isEmpty()) return;
-        for (SseEmitter emitter : list) {
-            try {
-                emitter.send(SseEmitter.event().name("submission").data(submission));
-            } catch (Exception e) {
-                removeEmitter(submission.getCampaignId(), emitter);
-            }
-        }
-    }
-
-    private void removeEmitter(Long campaignId, SseEmitter emitter) {
-        List<SseEmitter> list = emittersByCampaign.get(campaignId);
-        if (list != null) {
-            list.remove(emitter);
-            if (list.isEmpty()) {
-                emittersByCampaign.remove(campaignId);
-            }
-        }
+    public void onCampaignEvent(CampaignEvent event) {
+        if (event == null) return;
+        dispatcher.publish(event.getCampaignId(), event.getId(), event.getType().topic(), event.getPayload());
     }
 }
-
-
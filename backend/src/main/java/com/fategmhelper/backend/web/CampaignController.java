@@ -2,21 +2,36 @@ package com.fategmhelper.backend.web;
 
 import com.fategmhelper.backend.domain.Campaign;
 import com.fategmhelper.backend.service.AppSettingsService;
+import com.fategmhelper.backend.service.CampaignExecutor;
 import com.fategmhelper.backend.service.CampaignService;
+import com.fategmhelper.backend.service.timeline.CampaignState;
+import com.fategmhelper.backend.service.timeline.CampaignTimeline;
+import com.fategmhelper.backend.web.dto.CampaignChangesResponse;
+import com.fategmhelper.backend.web.poll.CampaignChangeFeed;
+import com.fategmhelper.backend.web.sse.EventJournal;
+import com.fategmhelper.backend.web.sse.TopicFilter;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/campaigns")
 @RequiredArgsConstructor
 public class CampaignController {
 
+    private static final int MAX_POLL_SECONDS = 60;
+
     private final CampaignService service;
     private final AppSettingsService appSettingsService;
+    private final CampaignExecutor campaignExecutor;
+    private final EventJournal eventJournal;
+    private final CampaignChangeFeed changeFeed;
+    private final CampaignTimeline timeline;
 
     @GetMapping
     public ResponseEntity<List<Campaign>> list() {
@@ -35,14 +50,41 @@ public class CampaignController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        service.delete(id);
-        // 如果删除的是当前选择的战役，清除选择
-        Long selectedId = appSettingsService.getSelectedCampaign();
-        if (selectedId != null && selectedId.equals(id)) {
-            appSettingsService.setSelectedCampaign(null);
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return campaignExecutor.submit(id, () -> service.delete(id)).thenApply(v -> {
+            eventJournal.drop(id);
+            changeFeed.drop(id);
+            timeline.drop(id);
+            // 如果删除的是当前选择的战役，清除选择
+            Long selectedId = appSettingsService.getSelectedCampaign();
+            if (selectedId != null && selectedId.equals(id)) {
+                appSettingsService.setSelectedCampaign(null);
+            }
+            return ResponseEntity.ok().<Void>build();
+        });
+    }
+
+    /**
+     * 长轮询战役变化：since 为上次返回的 version，有新变化立即返回，否则最多挂起 timeout 秒。
+     * topics 与 SSE 相同（如 round.*），只影响返回哪些变化。
+     */
+    @GetMapping("/{id}/changes")
+    public DeferredResult<CampaignChangesResponse> changes(@PathVariable Long id,
+                                                           @RequestParam(required = false) Long since,
+                                                           @RequestParam(required = false) String topics,
+                                                           @RequestParam(defaultValue = "25") int timeout) {
+        if (timeout < 1 || timeout > MAX_POLL_SECONDS) {
+            throw new IllegalArgumentException("timeout 需在 1 到 " + MAX_POLL_SECONDS + " 秒之间");
         }
-        return ResponseEntity.ok().build();
+        return changeFeed.poll(id, since, TopicFilter.parse(topics), timeout * 1000L);
+    }
+
+    /**
+     * 战役在指定回合的完整状态：回合信息、各角色当时的状态、该回合的行动快照与灵脉分配。
+     */
+    @GetMapping("/{id}/state")
+    public ResponseEntity<CampaignState> state(@PathVariable Long id, @RequestParam int round) {
+        return ResponseEntity.ok(timeline.stateAt(id, round));
     }
 
     @PostMapping("/{id}/select")
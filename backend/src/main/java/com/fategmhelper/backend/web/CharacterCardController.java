@@ -1,8 +1,10 @@
 package com.fategmhelper.backend.web;
 
 import com.fategmhelper.backend.service.CharacterCardService;
+import com.fategmhelper.backend.web.dto.CharacterCardPage;
 import com.fategmhelper.backend.web.dto.CharacterCardRequest;
 import com.fategmhelper.backend.web.dto.CharacterCardResponse;
+import com.fategmhelper.backend.web.dto.CharacterCardSummary;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -14,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class CharacterCardController {
 
+    private static final int MAX_PAGE = 200;
+
     private final CharacterCardService service;
 
     @PostMapping
@@ -43,6 +47,38 @@ public class CharacterCardController {
         return ResponseEntity.ok(service.list(page, size));
     }
 
+    /**
+     * 按 ID 游标分页：cursor 取上一页返回的 nextCursor，首页不传；withTotal=true 时附带总数（通常只在首页请求）。
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CharacterCardPage<CharacterCardResponse>> page(
+            @RequestParam(required = false) Long campaignId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        if (limit < 1 || limit > MAX_PAGE) {
+            throw new IllegalArgumentException("limit 需在 1 到 " + MAX_PAGE + " 之间");
+        }
+        return ResponseEntity.ok(service.page(campaignId, cursor == null || cursor.isBlank() ? null : cursor, limit, withTotal));
+    }
+
+    /**
+     * 列表、选择器用的摘要（编号、职阶、类型、战役、退役状态），分页参数同 /page。
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<CharacterCardPage<CharacterCardSummary>> summaries(
+            @RequestParam(required = false) Long campaignId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        if (limit < 1 || limit > MAX_PAGE) {
+            throw new IllegalArgumentException("limit 需在 1 到 " + MAX_PAGE + " 之间");
+        }
+        return ResponseEntity.ok(service.summaries(campaignId, cursor == null || cursor.isBlank() ? null : cursor, limit, withTotal));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         service.delete(id);
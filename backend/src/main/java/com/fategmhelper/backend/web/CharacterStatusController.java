@@ -1,5 +1,6 @@
 package com.fategmhelper.backend.web;
 
+import com.fategmhelper.backend.service.CampaignExecutor;
 import com.fategmhelper.backend.service.CharacterStatusService;
 import com.fategmhelper.backend.web.dto.CharacterStatusRequest;
 import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/character-status")
@@ -16,14 +18,17 @@ import java.util.List;
 public class CharacterStatusController {
 
     private final CharacterStatusService service;
+    private final CampaignExecutor campaignExecutor;
 
     /**
-     * 更新或创建角色状态
+     * 更新或创建角色状态。
+     * 已有记录的内容没有变化时不提升版本号、不推送 status.patched；
+     * 异常状态列表无法序列化时保留原有列表，其余字段照常更新。
      */
     @PostMapping
-    public ResponseEntity<CharacterStatusResponse> updateOrCreate(@Valid @RequestBody CharacterStatusRequest req) {
-        CharacterStatusResponse response = service.updateOrCreate(req);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<CharacterStatusResponse>> updateOrCreate(@Valid @RequestBody CharacterStatusRequest req) {
+        return campaignExecutor.submit(req.getCampaignId(), () -> service.updateOrCreate(req))
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
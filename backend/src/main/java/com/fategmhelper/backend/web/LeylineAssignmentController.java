@@ -1,5 +1,6 @@
 package com.fategmhelper.backend.web;
 
+import com.fategmhelper.backend.service.CampaignExecutor;
 import com.fategmhelper.backend.service.LeylineAssignmentService;
 import com.fategmhelper.backend.web.dto.LeylineAssignmentRequest;
 import com.fategmhelper.backend.web.dto.LeylineAssignmentResponse;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/leyline-assignments")
@@ -16,6 +18,7 @@ import java.util.List;
 public class LeylineAssignmentController {
 
     private final LeylineAssignmentService service;
+    private final CampaignExecutor campaignExecutor;
 
     @GetMapping
     public ResponseEntity<List<LeylineAssignmentResponse>> list(@RequestParam Long campaignId) {
@@ -23,16 +26,17 @@ public class LeylineAssignmentController {
     }
 
     @PostMapping
-    public ResponseEntity<LeylineAssignmentResponse> assign(@Valid @RequestBody LeylineAssignmentRequest req) {
-        LeylineAssignmentResponse res = service.assign(req);
-        if (res == null) return ResponseEntity.ok().build();
-        return ResponseEntity.ok(res);
+    public CompletableFuture<ResponseEntity<LeylineAssignmentResponse>> assign(@Valid @RequestBody LeylineAssignmentRequest req) {
+        return campaignExecutor.submit(req.getCampaignId(), () -> service.assign(req)).thenApply(res -> {
+            if (res == null) return ResponseEntity.ok().<LeylineAssignmentResponse>build();
+            return ResponseEntity.ok(res);
+        });
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<Void> assignBulk(@Valid @RequestBody LeylineAssignmentRequest req) {
-        service.assignBulk(req.getCampaignId(), req.getItems());
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> assignBulk(@Valid @RequestBody LeylineAssignmentRequest req) {
+        return campaignExecutor.submit(req.getCampaignId(), () -> service.assignBulk(req.getCampaignId(), req.getItems()))
+                .thenApply(v -> ResponseEntity.ok().<Void>build());
     }
 }
 
@@ -1,15 +1,24 @@
 package com.fategmhelper.backend.web;
 
-import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.service.ClosedRound;
 import com.fategmhelper.backend.service.RoundService;
 import com.fategmhelper.backend.service.ActionHistoryService;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import com.fategmhelper.backend.web.dto.ActionHistoryPage;
 import com.fategmhelper.backend.web.dto.ActionHistoryRequest;
 import com.fategmhelper.backend.web.dto.ActionHistoryResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/rounds")
@@ -17,75 +26,100 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class RoundController {
 
+    private static final int MAX_HISTORY_PAGE = 200;
+    private static final int HISTORY_FLUSH_ROWS = 32;
+
     private final RoundService roundService;
     private final ActionHistoryService actionHistoryService;
+    private final CampaignExecutor campaignExecutor;
     private final ObjectMapper objectMapper;
 
     /**
      * 关闭指定战役下当前开放的回合。
      */
     @PostMapping("/close-current")
-    public ResponseEntity<java.util.Map<String, Object>> closeCurrent(@RequestParam Long campaignId,
-                                                                      @RequestBody(required = false) ActionHistoryRequest req) {
-        Round closed = roundService.closeCurrentRound(campaignId);
-        java.util.Map<String, Object> out = new java.util.HashMap<>();
-        // avoid returning JPA entity proxies directly (Jackson/Hibernate proxy serialization issues)
-        java.util.Map<String, Object> roundMap = new java.util.HashMap<>();
-        roundMap.put("id", closed.getId());
-        roundMap.put("turnNumber", closed.getTurnNumber());
-        roundMap.put("status", closed.getStatus() != null ? closed.getStatus().name() : null);
-        roundMap.put("closedAt", closed.getClosedAt());
-        roundMap.put("createdAt", closed.getCreatedAt());
-        out.put("round", roundMap);
-        if (req != null) {
-            try {
-                String ao = req.getActionOrder() != null ? objectMapper.writeValueAsString(req.getActionOrder()) : null;
-                String sa = req.getServantActions() != null ? objectMapper.writeValueAsString(req.getServantActions()) : null;
-                String ma = req.getMasterActions() != null ? objectMapper.writeValueAsString(req.getMasterActions()) : null;
-                com.fategmhelper.backend.domain.ActionHistory saved = actionHistoryService.saveSnapshot(
-                        campaignId,
-                        closed.getTurnNumber(),
-                        closed.getClosedAt(),
-                        ao, sa, ma
-                );
-                ActionHistoryResponse resp = ActionHistoryResponse.fromEntity(saved, objectMapper);
-                out.put("history", resp);
-            } catch (Exception e) {
-                log.error("保存历史动作失败", e);
-            }
-        }
-        return ResponseEntity.ok(out);
+    public CompletableFuture<ResponseEntity<ClosedRound>> closeCurrent(@RequestParam Long campaignId,
+                                                                       @RequestBody(required = false) ActionHistoryRequest req) {
+        // 关闭回合与保存快照在同一战役邮箱内完成，期间不会有新提交插入
+        return campaignExecutor.submit(campaignId, () -> actionHistoryService.closeRound(campaignId, req))
+                .thenApply(ResponseEntity::ok);
     }
 
+    /**
+     * 战役的全部行动历史（回合号倒序）。按键集分批读取、边读边写出 JSON 数组，
+     * 服务端内存占用不随回合数增长，写给客户端期间不占用数据库连接，首批数据读到即开始返回。
+     */
     @GetMapping("/history")
-    public ResponseEntity<java.util.List<ActionHistoryResponse>> history(@RequestParam Long campaignId) {
-        java.util.List<com.fategmhelper.backend.domain.ActionHistory> list = actionHistoryService.listByCampaign(campaignId);
-        java.util.List<ActionHistoryResponse> res = list.stream().map(e -> ActionHistoryResponse.fromEntity(e, objectMapper)).toList();
-        return ResponseEntity.ok(res);
+    public ResponseEntity<StreamingResponseBody> history(@RequestParam Long campaignId) {
+        StreamingResponseBody body = out -> {
+            JsonGenerator json = objectMapper.createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            int[] written = {0};
+            actionHistoryService.forEachByCampaign(campaignId, h -> {
+                try {
+                    json.writeObject(ActionHistoryResponse.fromEntity(h));
+                    // 第一行立即发出，之后按批冲刷
+                    if (++written[0] % HISTORY_FLUSH_ROWS == 1) {
+                        json.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+            json.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 按 (回合号, id) 游标分页：before / beforeId 取上一页返回的 nextBefore / nextBeforeId，首页不传。
+     * 只传 beforeId 或参数不是整数时返回 400。
+     */
+    @GetMapping("/history/page")
+    public ResponseEntity<ActionHistoryPage> historyPage(@RequestParam Long campaignId,
+                                                         @RequestParam(required = false) Integer before,
+                                                         @RequestParam(required = false) Long beforeId,
+                                                         @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE) {
+            throw new IllegalArgumentException("limit 需在 1 到 " + MAX_HISTORY_PAGE + " 之间");
+        }
+        if (beforeId != null && before == null) {
+            throw new IllegalArgumentException("beforeId 须与 before 一起传入");
+        }
+        java.util.List<ActionHistoryResponse> items = actionHistoryService.page(campaignId, before, beforeId, limit).stream()
+                .map(ActionHistoryResponse::fromEntity)
+                .toList();
+        ActionHistoryResponse last = items.size() == limit ? items.get(items.size() - 1) : null;
+        return ResponseEntity.ok(new ActionHistoryPage(items,
+                last != null ? last.getRoundNumber() : null, last != null ? last.getId() : null));
     }
 
     @GetMapping("/current")
-    public ResponseEntity<java.util.Map<String, Object>> current(@RequestParam Long campaignId) {
-        com.fategmhelper.backend.domain.Round r = roundService.getOrCreateCurrentRound(campaignId);
-        java.util.Map<String, Object> roundMap = new java.util.HashMap<>();
-        roundMap.put("id", r.getId());
-        roundMap.put("turnNumber", r.getTurnNumber());
-        roundMap.put("status", r.getStatus() != null ? r.getStatus().name() : null);
-        roundMap.put("createdAt", r.getCreatedAt());
-        roundMap.put("closedAt", r.getClosedAt());
-        return ResponseEntity.ok(java.util.Map.of("round", roundMap));
+    public CompletableFuture<ResponseEntity<java.util.Map<String, Object>>> current(@RequestParam Long campaignId) {
+        return campaignExecutor.submit(campaignId, () -> roundService.getOrCreateCurrentRound(campaignId)).thenApply(r -> {
+            java.util.Map<String, Object> roundMap = new java.util.HashMap<>();
+            roundMap.put("id", r.getId());
+            roundMap.put("turnNumber", r.getTurnNumber());
+            roundMap.put("status", r.getStatus() != null ? r.getStatus().name() : null);
+            roundMap.put("createdAt", r.getCreatedAt());
+            roundMap.put("closedAt", r.getClosedAt());
+            return ResponseEntity.ok(java.util.Map.of("round", roundMap));
+        });
     }
 
     @PostMapping("/next")
-    public ResponseEntity<java.util.Map<String, Object>> next(@RequestParam Long campaignId) {
-        com.fategmhelper.backend.domain.Round next = roundService.createNextRound(campaignId);
-        java.util.Map<String, Object> roundMap = new java.util.HashMap<>();
-        roundMap.put("id", next.getId());
-        roundMap.put("turnNumber", next.getTurnNumber());
-        roundMap.put("status", next.getStatus() != null ? next.getStatus().name() : null);
-        roundMap.put("createdAt", next.getCreatedAt());
-        roundMap.put("closedAt", next.getClosedAt());
-        return ResponseEntity.ok(java.util.Map.of("round", roundMap));
+    public CompletableFuture<ResponseEntity<java.util.Map<String, Object>>> next(@RequestParam Long campaignId) {
+        return campaignExecutor.submit(campaignId, () -> roundService.createNextRound(campaignId)).thenApply(next -> {
+            java.util.Map<String, Object> roundMap = new java.util.HashMap<>();
+            roundMap.put("id", next.getId());
+            roundMap.put("turnNumber", next.getTurnNumber());
+            roundMap.put("status", next.getStatus() != null ? next.getStatus().name() : null);
+            roundMap.put("createdAt", next.getCreatedAt());
+            roundMap.put("closedAt", next.getClosedAt());
+            return ResponseEntity.ok(java.util.Map.of("round", roundMap));
+        });
     }
 }
 
@@ -0,0 +1,16 @@
+package com.fategmhelper.backend.web.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 行动历史的一页（按回合号、id 倒序）。nextBefore / nextBeforeId 作为下一页请求的 before / beforeId 参数，
+ * nextBefore 为 null 表示已到最早的回合。
+ */
+@Value
+public class ActionHistoryPage {
+    List<ActionHistoryResponse> items;
+    Integer nextBefore;
+    Long nextBeforeId;
+}
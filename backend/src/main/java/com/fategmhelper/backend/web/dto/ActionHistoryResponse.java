@@ -1,41 +1,51 @@
 package com.fategmhelper.backend.web.dto;
 
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.service.snapshot.ActionSnapshot;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Value;
 
 import java.time.Instant;
 import java.util.List;
 
+/**
+ * 行动历史。快照部分在序列化时才从二进制列解码。
+ */
 @Value
+@JsonPropertyOrder({"id", "campaignId", "roundNumber", "closedAt", "actionOrder", "servantActions", "masterActions", "createdAt"})
 public class ActionHistoryResponse {
     Long id;
     Long campaignId;
     Integer roundNumber;
     Instant closedAt;
-    List<Object> actionOrder;
-    List<String> servantActions;
-    List<String> masterActions;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    ActionSnapshot snapshot;
     Instant createdAt;
 
-    public static ActionHistoryResponse fromEntity(com.fategmhelper.backend.domain.ActionHistory e, com.fasterxml.jackson.databind.ObjectMapper mapper) {
-        List<Object> ao = null;
-        try {
-            ao = e.getActionOrderJson() != null ? mapper.readValue(e.getActionOrderJson(), List.class) : null;
-        } catch (Exception ex) { ao = null; }
-        List<String> sa = null;
-        try { sa = e.getServantActionsJson() != null ? mapper.readValue(e.getServantActionsJson(), List.class) : null; } catch (Exception ex) { sa = null; }
-        List<String> ma = null;
-        try { ma = e.getMasterActionsJson() != null ? mapper.readValue(e.getMasterActionsJson(), List.class) : null; } catch (Exception ex) { ma = null; }
+    public List<Object> getActionOrder() {
+        return snapshot != null ? snapshot.actionOrder() : null;
+    }
+
+    public List<String> getServantActions() {
+        return snapshot != null ? snapshot.servantActions() : null;
+    }
+
+    public List<String> getMasterActions() {
+        return snapshot != null ? snapshot.masterActions() : null;
+    }
+
+    public static ActionHistoryResponse fromEntity(ActionHistory e) {
         return new ActionHistoryResponse(
                 e.getId(),
                 e.getCampaign() != null ? e.getCampaign().getId() : null,
                 e.getRoundNumber(),
                 e.getClosedAt(),
-                ao,
-                sa,
-                ma,
+                ActionSnapshot.of(e.getSnapshot()),
                 e.getCreatedAt()
         );
     }
 }
-
-
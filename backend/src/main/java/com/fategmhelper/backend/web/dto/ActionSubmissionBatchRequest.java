@@ -0,0 +1,22 @@
+package com.fategmhelper.backend.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ActionSubmissionBatchRequest {
+
+    public static final int MAX_SIZE = 200;
+
+    /**
+     * 按提交顺序排列；同一回合同一槽位的多条提交，以最后一条为准。单次最多 MAX_SIZE 条
+     */
+    @NotEmpty
+    @Size(max = MAX_SIZE, message = "单次最多提交 " + MAX_SIZE + " 条")
+    @Valid
+    private List<ActionSubmissionRequest> submissions;
+}
@@ -0,0 +1,41 @@
+package com.fategmhelper.backend.web.dto;
+
+import com.fategmhelper.backend.service.SubmissionOutcome;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Value
+public class ActionSubmissionBatchResponse {
+
+    int accepted;
+    int superseded;
+    int rejected;
+    List<Item> results;
+
+    @Value
+    public static class Item {
+        int index;
+        SubmissionOutcome.Status status;
+        ActionSubmissionResponse submission;
+        String message;
+    }
+
+    public static ActionSubmissionBatchResponse fromOutcomes(List<SubmissionOutcome> outcomes) {
+        List<Item> items = new ArrayList<>(outcomes.size());
+        int accepted = 0, superseded = 0, rejected = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            SubmissionOutcome o = outcomes.get(i);
+            switch (o.getStatus()) {
+                case ACCEPTED -> accepted++;
+                case SUPERSEDED -> superseded++;
+                case REJECTED -> rejected++;
+            }
+            items.add(new Item(i, o.getStatus(),
+                    o.getSubmission() != null ? ActionSubmissionResponse.fromEntity(o.getSubmission()) : null,
+                    o.getMessage()));
+        }
+        return new ActionSubmissionBatchResponse(accepted, superseded, rejected, items);
+    }
+}
@@ -0,0 +1,26 @@
+package com.fategmhelper.backend.web.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 长轮询的返回：version 为战役当前版本号，下次请求以它作为 since；
+ * reset 为 true 时说明缺失的变化已无法补齐（首次请求、版本过旧或服务重启），客户端应全量刷新。
+ */
+@Value
+public class CampaignChangesResponse {
+    Long campaignId;
+    long version;
+    boolean reset;
+    List<Change> changes;
+
+    @Value
+    public static class Change {
+        long version;
+        String topic;
+        Instant at;
+        Object payload;
+    }
+}
@@ -0,0 +1,16 @@
+package com.fategmhelper.backend.web.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 角色卡（完整信息或摘要）的一页（按 ID 升序）。nextCursor 作为下一页请求的 cursor 参数，为 null 表示已到最后一页；
+ * total 只在请求 withTotal=true 时计算，否则为 null。
+ */
+@Value
+public class CharacterCardPage<T> {
+    List<T> items;
+    String nextCursor;
+    Long total;
+}
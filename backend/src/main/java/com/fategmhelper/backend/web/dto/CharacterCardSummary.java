@@ -0,0 +1,21 @@
+package com.fategmhelper.backend.web.dto;
+
+import com.fategmhelper.backend.domain.CharacterCard;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * 列表和选择器用的角色卡摘要。由 JPQL 构造表达式直接查出，不读取原始文本、属性和技能 JSON 列。
+ */
+@Value
+public class CharacterCardSummary {
+    Long id;
+    String code;
+    String className;
+    CharacterCard.CardType cardType;
+    Long campaignId;
+    String campaignName;
+    boolean retired;
+    Instant createdAt;
+}
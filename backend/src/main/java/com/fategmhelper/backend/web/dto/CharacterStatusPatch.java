@@ -0,0 +1,41 @@
+package com.fategmhelper.backend.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fategmhelper.backend.domain.StatusEffect;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 角色状态的增量补丁（status.patched 事件）。
+ * 客户端本地版本等于 baseVersion 时直接应用，否则重新加载完整状态。
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class CharacterStatusPatch {
+
+    private Long id;
+    private Long characterCardId;
+    private Long campaignId;
+    private Integer roundNumber;
+
+    private Long baseVersion;
+    private Long version;
+
+    // 发生变化的字段：currentMana / manaLimit / currentCommandSeals / statusEffects / notes
+    private Map<String, Object> changes;
+
+    // 新增或层数/类型变化的异常状态（按名称）
+    private List<StatusEffect> effectsUpserted;
+
+    // 被移除的异常状态名称
+    private List<String> effectsRemoved;
+
+    // 按名称增删无法表达的变化（只调整顺序、同名状态去掉其中一个等）时给出完整的新列表，客户端整体替换；
+    // 空列表表示清空，同样需要输出
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<StatusEffect> effectsReplaced;
+}
@@ -1,5 +1,6 @@
 package com.fategmhelper.backend.web.dto;
 
+import com.fategmhelper.backend.domain.CharacterStatus;
 import lombok.Builder;
 import lombok.Data;
 
@@ -28,12 +29,35 @@ public class CharacterStatusResponse {
     // 异常状态（JSON格式字符串）
     private String statusEffects;
 
-    // 异常状态列表（结构化数据）
-    private java.util.List<com.fategmhelper.backend.domain.StatusEffect> statusEffectsList;
+    // 异常状态列表（结构化数据），直接输出存储的 JSON
+    private RawJson statusEffectsList;
 
     // 特殊标记
     private String notes;
 
+    // 版本号，用于增量补丁（status.patched）校验
+    private Long version;
+
     private Instant createdAt;
     private Instant updatedAt;
+
+    public static CharacterStatusResponse fromEntity(CharacterStatus status) {
+        return CharacterStatusResponse.builder()
+                .id(status.getId())
+                .characterCardId(status.getCharacterCard().getId())
+                .characterCardCode(status.getCharacterCard().getCode())
+                .characterCardClassName(status.getCharacterCard().getClassName())
+                .campaignId(status.getCampaign().getId())
+                .roundNumber(status.getRoundNumber())
+                .currentMana(status.getCurrentMana())
+                .manaLimit(status.getManaLimit())
+                .currentCommandSeals(status.getCurrentCommandSeals())
+                .statusEffects(status.getStatusEffects())
+                .statusEffectsList(RawJson.of(status.getStatusEffectsList()))
+                .notes(status.getNotes())
+                .version(status.getVersion())
+                .createdAt(status.getCreatedAt())
+                .updatedAt(status.getUpdatedAt())
+                .build();
+    }
 }
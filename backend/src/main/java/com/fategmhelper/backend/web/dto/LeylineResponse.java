@@ -14,18 +14,10 @@ public class LeylineResponse {
     Integer manaAmount;
     Integer battlefieldWidth;
     Integer populationFlow;
-    java.util.List<Long> assignedCharacterIds;
+    // 已分配角色 ID 数组，直接输出存储的 JSON
+    RawJson assignedCharacterIds;
 
     public static LeylineResponse fromEntity(Leyline leyline) {
-        java.util.List<Long> assigned = java.util.Collections.emptyList();
-        try {
-            if (leyline.getAssignedCharacterIdsJson() != null && !leyline.getAssignedCharacterIdsJson().trim().isEmpty()) {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                assigned = mapper.readValue(leyline.getAssignedCharacterIdsJson(), mapper.getTypeFactory().constructCollectionType(java.util.List.class, Long.class));
-            }
-        } catch (Exception ignore) {
-            assigned = java.util.Collections.emptyList();
-        }
         return new LeylineResponse(
                 leyline.getId(),
                 leyline.getCampaign() != null ? leyline.getCampaign().getId() : null,
@@ -35,7 +27,7 @@ public class LeylineResponse {
                 leyline.getManaAmount(),
                 leyline.getBattlefieldWidth(),
                 leyline.getPopulationFlow(),
-                assigned
+                RawJson.orDefault(leyline.getAssignedCharacterIdsJson(), "[]")
         );
     }
 }
@@ -0,0 +1,110 @@
+package com.fategmhelper.backend.web.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 数据库中已存储的 JSON 文本，序列化时原样写入输出，不经过树或 POJO。
+ * <p>
+ * 只用于写入时已由 ObjectMapper 生成（即已校验）的列；读取路径不再解析。
+ * 输出目标不是文本 JSON（如 CBOR、TokenBuffer）时退回为解析后按树写出。
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public final class RawJson {
+
+    private static final ObjectReader TREE_READER = new ObjectMapper().reader();
+
+    private final String json;
+
+    private RawJson(String json) {
+        this.json = json;
+    }
+
+    /** 空值或空白文本返回 null */
+    public static RawJson of(String json) {
+        return json == null || json.isBlank() ? null : new RawJson(json);
+    }
+
+    public static RawJson orDefault(String json, String fallback) {
+        RawJson raw = of(json);
+        return raw != null ? raw : new RawJson(fallback);
+    }
+
+    public String json() {
+        return json;
+    }
+
+    public byte[] utf8() {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析为树，只给需要读取个别字段的调用方使用。
+     */
+    public JsonNode tree() {
+        try {
+            return TREE_READER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RawJson other && json.equals(other.json);
+    }
+
+    @Override
+    public int hashCode() {
+        return json.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    static class Serializer extends StdSerializer<RawJson> {
+
+        Serializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen instanceof JsonGeneratorImpl) {
+                gen.writeRawValue(value.json);
+            } else {
+                provider.defaultSerializeValue(TREE_READER.readTree(value.json), gen);
+            }
+        }
+    }
+
+    static class Deserializer extends StdDeserializer<RawJson> {
+
+        Deserializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public RawJson deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return new RawJson(ctxt.readTree(p).toString());
+        }
+    }
+}
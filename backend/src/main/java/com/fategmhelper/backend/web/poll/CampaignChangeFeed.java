@@ -0,0 +1,198 @@
+package com.fategmhelper.backend.web.poll;
+
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.web.dto.CampaignChangesResponse;
+import com.fategmhelper.backend.web.dto.CampaignChangesResponse.Change;
+import com.fategmhelper.backend.web.sse.TopicFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 面向机器人/脚本的长轮询：每个战役在内存中维护一个版本号和最近若干条变化。
+ * 请求带上次拿到的版本号，有新变化时立即返回，否则挂起到有变化或超时，空闲时几乎不占资源。
+ * <p>
+ * 版本号是本节点按到达顺序分配的序号，而不是事件的 outbox id：outbox 事件可能迟于 id 更大的事件送达
+ * （补查到的缺口），按 id 比较会把它当作已看过而漏掉。outbox id 只用于去重。
+ * 序号跨战役递增，同一战役内不连续；起点取自启动时间，服务重启或换到其它节点后，
+ * 客户端带来的旧版本号落在缓冲之外，收到 reset。
+ */
+@Component
+public class CampaignChangeFeed {
+
+    private final Map<Long, Feed> feeds = new ConcurrentHashMap<>();
+    /** 本节点的版本序号；新建的缓冲从当前值开始，之前的变化视为已无法补齐 */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final CampaignRepository campaignRepository;
+    private final int bufferSize;
+
+    public CampaignChangeFeed(CampaignRepository campaignRepository,
+                              @Value("${app.changes.buffer-size:256}") int bufferSize) {
+        this.campaignRepository = campaignRepository;
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /**
+     * @param since 客户端已看到的版本；为 null 时直接返回当前版本（reset）
+     */
+    public DeferredResult<CampaignChangesResponse> poll(Long campaignId, Long since, TopicFilter topics, long timeoutMillis) {
+        Feed feed = feedOf(campaignId);
+        if (feed == null) {
+            throw new IllegalArgumentException("未找到对应战役：" + campaignId);
+        }
+        DeferredResult<CampaignChangesResponse> result = new DeferredResult<>(timeoutMillis);
+        Waiter waiter = new Waiter(campaignId, since, topics, result);
+        synchronized (feed) {
+            CampaignChangesResponse ready = feed.collect(waiter);
+            if (ready != null) {
+                result.setResult(ready);
+                return result;
+            }
+            feed.waiters.add(waiter);
+        }
+        result.onTimeout(() -> {
+            synchronized (feed) {
+                feed.waiters.remove(waiter);
+                result.setResult(new CampaignChangesResponse(campaignId, feed.version, false, List.of()));
+            }
+        });
+        result.onCompletion(() -> {
+            synchronized (feed) {
+                feed.waiters.remove(waiter);
+            }
+        });
+        return result;
+    }
+
+    @EventListener
+    public void onCampaignEvent(CampaignEvent event) {
+        Feed feed = feedOf(event.getCampaignId());
+        if (feed == null) {
+            // 战役已删除（例如其它节点删除后仍有在途事件）
+            return;
+        }
+        List<Runnable> wakeups = new ArrayList<>();
+        synchronized (feed) {
+            // 在锁内取号，保证同一战役内递增；同一 outbox 事件只记录一次
+            Long outboxId = event.getId();
+            if (outboxId != null && !feed.outboxIds.add(outboxId)) {
+                return;
+            }
+            feed.version = sequence.incrementAndGet();
+            feed.entries.addLast(new Entry(outboxId,
+                    new Change(feed.version, event.getType().topic(), Instant.now(), event.getPayload())));
+            while (feed.entries.size() > bufferSize) {
+                Entry evicted = feed.entries.removeFirst();
+                feed.floor = evicted.change().getVersion();
+                if (evicted.outboxId() != null) {
+                    feed.outboxIds.remove(evicted.outboxId());
+                }
+            }
+            Iterator<Waiter> it = feed.waiters.iterator();
+            while (it.hasNext()) {
+                Waiter waiter = it.next();
+                CampaignChangesResponse ready = feed.collect(waiter);
+                if (ready != null) {
+                    it.remove();
+                    wakeups.add(() -> waiter.result.setResult(ready));
+                }
+            }
+        }
+        // 在锁外唤醒，写回响应不阻塞后续事件
+        wakeups.forEach(Runnable::run);
+    }
+
+    /**
+     * 战役删除后释放其缓冲，挂起的请求收到 reset。
+     */
+    public void drop(Long campaignId) {
+        Feed feed = feeds.remove(campaignId);
+        if (feed == null) {
+            return;
+        }
+        List<Waiter> waiting;
+        synchronized (feed) {
+            waiting = new ArrayList<>(feed.waiters);
+            feed.waiters.clear();
+        }
+        waiting.forEach(w -> w.result.setResult(new CampaignChangesResponse(campaignId, 0, true, List.of())));
+    }
+
+    /**
+     * 取战役的缓冲；不存在时先确认战役存在再创建，不为任意 id 分配缓冲。战役不存在返回 null。
+     */
+    private Feed feedOf(Long campaignId) {
+        Feed feed = feeds.get(campaignId);
+        if (feed != null || !campaignRepository.existsById(campaignId)) {
+            return feed;
+        }
+        return feeds.computeIfAbsent(campaignId, k -> new Feed(sequence.get()));
+    }
+
+    private record Waiter(Long campaignId, Long since, TopicFilter topics,
+                          DeferredResult<CampaignChangesResponse> result) {
+    }
+
+    /** 缓冲中的一条变化及其 outbox id（local 转发模式下为 null） */
+    private record Entry(Long outboxId, Change change) {
+    }
+
+    private static final class Feed {
+        long version;
+        /** 缓冲中最早一条变化之前的版本：since 小于它时中间的变化已被丢弃 */
+        long floor;
+        final Deque<Entry> entries = new ArrayDeque<>();
+        /** 缓冲中各变化的 outbox id，用于去重 */
+        final Set<Long> outboxIds = new HashSet<>();
+        final List<Waiter> waiters = new ArrayList<>();
+
+        Feed(long start) {
+            this.version = start;
+            this.floor = start;
+        }
+
+        /**
+         * 在持有本对象锁时调用：可以立即答复时返回响应，需要继续等待时返回 null。
+         */
+        CampaignChangesResponse collect(Waiter waiter) {
+            Long since = waiter.since();
+            if (since == null || since > version || since < floor) {
+                return new CampaignChangesResponse(waiter.campaignId(), version, true, List.of());
+            }
+            if (since == version) {
+                return null;
+            }
+            List<Change> matched = new ArrayList<>();
+            for (Iterator<Entry> it = entries.descendingIterator(); it.hasNext(); ) {
+                Change change = it.next().change();
+                if (change.getVersion() <= since) {
+                    break;
+                }
+                if (waiter.topics().matches(change.getTopic())) {
+                    matched.add(change);
+                }
+            }
+            if (matched.isEmpty()) {
+                // 只有未订阅主题的变化：继续等待，但版本号前进到最新
+                return null;
+            }
+            Collections.reverse(matched);
+            return new CampaignChangesResponse(waiter.campaignId(), version, false, matched);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.fategmhelper.backend.web.sse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 单个战役的事件日志：分配（或沿用 outbox 的）单调递增的事件 id，把编码好的帧追加到当前段，
+ * 写满后滚动到新段，只保留最近的若干个段。
+ * 所有方法都在本对象的锁内执行，SseDispatcher 也借这把锁保证“回放 + 订阅”与发布之间不丢不重。
+ * 空闲时由 EventJournal 关闭（{@link #close()}），之后持锁的调用方须改用重新打开的日志。
+ */
+@Slf4j
+class CampaignJournal {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{20}\\.seg");
+
+    private final Long campaignId;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Deque<JournalSegment> segments = new ArrayDeque<>();
+    private long lastId;
+    /** 在此之前的事件无法完整回放（已淘汰或写入失败） */
+    private long replayableFrom = 1;
+    private boolean closed;
+    /** 最近一次被取用的时间（System.nanoTime），由 EventJournal 判断空闲 */
+    private volatile long lastAccess = System.nanoTime();
+
+    private CampaignJournal(Long campaignId, Path dir, int segmentBytes, int maxSegments) {
+        this.campaignId = campaignId;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+    }
+
+    static CampaignJournal open(Long campaignId, Path dir, int segmentBytes, int maxSegments) throws IOException {
+        Files.createDirectories(dir);
+        CampaignJournal journal = new CampaignJournal(campaignId, dir, segmentBytes, maxSegments);
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches()).sorted().toList();
+        }
+        try {
+            for (Path file : files) {
+                long firstId = Long.parseLong(file.getFileName().toString().substring(0, 20));
+                if (firstId <= journal.lastId) {
+                    // 与前一段的序号重叠，说明目录被改动过，丢弃该段
+                    log.warn("战役 {} 的事件日志段 {} 序号重叠，已丢弃", campaignId, file.getFileName());
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                JournalSegment segment = JournalSegment.open(file, firstId, segmentBytes);
+                if (journal.segments.isEmpty()) {
+                    // 第一段之前的事件已淘汰（事件 id 可能来自 outbox，段与段之间本就不连续）
+                    journal.replayableFrom = firstId;
+                }
+                journal.segments.addLast(segment);
+                journal.lastId = segment.lastId();
+            }
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        journal.trim();
+        return journal;
+    }
+
+    /**
+     * @param eventId 事件自带的 id（outbox 行号）；为 null 时由日志分配下一个 id
+     */
+    synchronized SseFrame append(Long eventId, String eventName, byte[] data) {
+        if (eventId != null && eventId <= lastId) {
+            // 迟于后续事件提交的事件：照常推送但不带 id、不写入日志，此前断开的客户端重连时改为全量刷新
+            replayableFrom = lastId + 1;
+            return SseFrame.of(eventName, data);
+        }
+        long id = eventId != null ? eventId : lastId + 1;
+        lastId = id;
+        SseFrame frame = SseFrame.of(id, eventName, data);
+        int length = frame.length();
+        try {
+            JournalSegment active = segments.peekLast();
+            boolean rolled = active == null || !active.fits(length);
+            if (rolled) {
+                active = JournalSegment.create(dir.resolve(String.format("%020d.seg", id)), id,
+                        Math.max(segmentBytes, length));
+                segments.addLast(active);
+            }
+            active.append(id, eventName, frame.content());
+            if (rolled) {
+                trim();
+            }
+        } catch (IOException e) {
+            log.warn("战役 {} 写入事件日志失败，断线重连将改为全量刷新: {}", campaignId, e.getMessage());
+            replayableFrom = id + 1;
+        }
+        return frame;
+    }
+
+    /**
+     * 取出 id 大于 after 的所有帧（段映射内存的视图，用完须逐个 release）；
+     * 无法完整回放（过旧或比当前还新）时返回 null。
+     */
+    synchronized List<SseFrame> readAfter(long after, TopicFilter topics) {
+        if (after > lastId || after + 1 < replayableFrom) {
+            return null;
+        }
+        List<SseFrame> chunks = new ArrayList<>();
+        for (JournalSegment segment : segments) {
+            if (segment.lastId() > after) {
+                segment.readAfter(after, topics, chunks);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 在此 id 之前的事件不能从本日志连续回放。
+     */
+    synchronized void requireAfter(long id) {
+        replayableFrom = Math.max(replayableFrom, id + 1);
+    }
+
+    synchronized void flush() {
+        segments.forEach(JournalSegment::force);
+    }
+
+    /**
+     * 关闭全部段文件，内容留在磁盘上，下次打开时重建索引；仍在回放中的段等发送完毕后再解除映射。
+     */
+    synchronized void close() {
+        segments.forEach(JournalSegment::close);
+        segments.clear();
+        closed = true;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * 淘汰全部段；仍在回放中的段等发送完毕后再删除。
+     */
+    synchronized void deleteAll() {
+        segments.forEach(JournalSegment::retire);
+        segments.clear();
+        replayableFrom = lastId + 1;
+    }
+
+    private void trim() {
+        while (segments.size() > maxSegments) {
+            segments.removeFirst().retire();
+        }
+        JournalSegment first = segments.peekFirst();
+        if (first != null) {
+            replayableFrom = Math.max(replayableFrom, first.firstId());
+        }
+    }
+}
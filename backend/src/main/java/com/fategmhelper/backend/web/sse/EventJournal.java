@@ -0,0 +1,166 @@
+package com.fategmhelper.backend.web.sse;
+
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 按战役划分的持久化事件日志（按段滚动），为 SSE 断线重连提供 Last-Event-ID 回放。
+ * 目录结构：{dir}/{campaignId}/{首个事件 id}.seg
+ * <p>
+ * 超过 idle-timeout 未发布也未订阅的战役关闭其段文件、移出内存，下次访问时重新打开并重建索引。
+ */
+@Component
+@Slf4j
+public class EventJournal {
+
+    private static final long RETRY_MILLIS = 60_000;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final long idleNanos;
+    private final CampaignEventRelay relay;
+    private final Map<Long, CampaignJournal> journals = new ConcurrentHashMap<>();
+    /** 打开失败的战役 → 下次重试的时间点，期间不再尝试（也不重复打日志） */
+    private final Map<Long, Long> retryAt = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public EventJournal(CampaignEventRelay relay,
+                        @Value("${app.sse.journal.enabled:true}") boolean enabled,
+                        @Value("${app.sse.journal.dir:data/event-journal}") String dir,
+                        @Value("${app.sse.journal.segment-bytes:1048576}") int segmentBytes,
+                        @Value("${app.sse.journal.max-segments:8}") int maxSegments,
+                        @Value("${app.sse.journal.idle-timeout:PT10M}") Duration idleTimeout) {
+        this.relay = relay;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.idleNanos = Math.max(1, idleTimeout.toNanos());
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在战役日志的锁内执行 action，SseDispatcher 借此保证“回放 + 订阅”与发布之间不丢不重；
+     * 日志未启用或不可用时以 null 调用。取到的日志恰好因空闲被关闭时，改用重新打开的日志。
+     */
+    void withJournal(Long campaignId, Consumer<CampaignJournal> action) {
+        while (true) {
+            CampaignJournal journal = journal(campaignId);
+            if (journal == null) {
+                action.accept(null);
+                return;
+            }
+            synchronized (journal) {
+                if (!journal.isClosed()) {
+                    action.accept(journal);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 取得（必要时打开）战役的日志；未启用或目录不可用时返回 null，此时事件不带 id、不支持回放。
+     * 打开失败后在 RETRY_MILLIS 内直接返回 null。
+     */
+    CampaignJournal journal(Long campaignId) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last > idleNanos / 4 && lastSweep.compareAndSet(last, now)) {
+            sweep();
+        }
+        CampaignJournal open = journals.get(campaignId);
+        if (open != null) {
+            open.touch();
+            return open;
+        }
+        Long retry = retryAt.get(campaignId);
+        if (retry != null && System.currentTimeMillis() < retry) {
+            return null;
+        }
+        return journals.computeIfAbsent(campaignId, id -> {
+            try {
+                CampaignJournal journal = CampaignJournal.open(id, dir.resolve(String.valueOf(id)), segmentBytes, maxSegments);
+                // 本节点停机期间其它节点写入的事件不在本地日志里
+                journal.requireAfter(relay.replayableAfter());
+                retryAt.remove(id);
+                return journal;
+            } catch (IOException e) {
+                log.warn("无法打开战役 {} 的事件日志，{} 秒内不再重试: {}", id, RETRY_MILLIS / 1000, e.getMessage());
+                retryAt.put(id, System.currentTimeMillis() + RETRY_MILLIS);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 关闭空闲的日志：在日志锁内关闭并移出，持有旧引用的调用方拿到锁后会看到已关闭，改为重新打开。
+     */
+    private void sweep() {
+        journals.forEach((campaignId, journal) -> {
+            if (System.nanoTime() - journal.lastAccess() <= idleNanos) {
+                return;
+            }
+            synchronized (journal) {
+                if (System.nanoTime() - journal.lastAccess() > idleNanos) {
+                    journal.close();
+                    journals.remove(campaignId, journal);
+                }
+            }
+        });
+    }
+
+    /**
+     * 战役删除后清理其日志文件。
+     */
+    public void drop(Long campaignId) {
+        if (!enabled) {
+            return;
+        }
+        retryAt.remove(campaignId);
+        CampaignJournal journal = journals.remove(campaignId);
+        Path campaignDir = dir.resolve(String.valueOf(campaignId));
+        try {
+            if (journal != null) {
+                journal.deleteAll();
+            } else if (Files.isDirectory(campaignDir)) {
+                try (var files = Files.list(campaignDir)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            Files.deleteIfExists(campaignDir);
+        } catch (DirectoryNotEmptyException e) {
+            log.debug("战役 {} 的事件日志目录在清理期间又写入了新段，留待下次清理", campaignId);
+        } catch (IOException e) {
+            log.warn("清理战役 {} 的事件日志失败: {}", campaignId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flush() {
+        journals.values().forEach(CampaignJournal::flush);
+    }
+}
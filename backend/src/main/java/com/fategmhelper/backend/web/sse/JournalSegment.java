@@ -0,0 +1,281 @@
+package com.fategmhelper.backend.web.sse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 日志的一个段文件：内存映射的定长文件，内容就是首尾相接的 SSE 帧（每帧以 id 行开头），
+ * 未写入部分保持全 0。内存中只保存每个帧的 id、偏移量和事件名。
+ * <p>
+ * 回放时交出的是映射内存的只读视图（不拷贝），每个视图持有段的一次引用。
+ * 段被关闭（{@link #close()}）或淘汰（{@link #retire()}）后，等最后一个引用释放才解除映射，
+ * 淘汰的段随后删除文件（Windows 上不能删除仍被映射的文件）。
+ * <p>
+ * 除 {@link #release()} 外，所有方法都在所属日志的锁内调用。
+ */
+@Slf4j
+class JournalSegment {
+
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    private final Path file;
+    private final long firstId;
+    private final MappedByteBuffer buffer;
+    private int writePos;
+    private long[] ids = new long[64];
+    private int[] offsets = new int[64];
+    private String[] names = new String[64];
+    private int count;
+    /** 日志自身持有一次引用，close / retire 时释放 */
+    private final AtomicInteger refs = new AtomicInteger(1);
+    private volatile boolean deleteOnRelease;
+
+    private JournalSegment(Path file, long firstId, MappedByteBuffer buffer) {
+        this.file = file;
+        this.firstId = firstId;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path file, long firstId, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new JournalSegment(file, firstId, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * 打开已有段文件并重建索引；遇到残缺的尾部帧时从该处清零。
+     * 未按容量预分配的段文件（只写到最后一帧）映射时补足到 size。
+     */
+    static JournalSegment open(Path file, long firstId, int size) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), size));
+        }
+        JournalSegment segment = new JournalSegment(file, firstId, buffer);
+        segment.recover();
+        return segment;
+    }
+
+    private void recover() {
+        int limit = buffer.capacity();
+        int pos = 0;
+        while (pos < limit && buffer.get(pos) != 0) {
+            long id = parseId(pos, limit);
+            int end = id < 0 ? -1 : frameEnd(pos, limit);
+            String name = end < 0 ? null : eventName(pos, end);
+            if (id <= lastId() || name == null) {
+                break;
+            }
+            index(id, pos, name.intern());
+            pos = end;
+        }
+        writePos = pos;
+        for (int i = pos; i < limit && buffer.get(i) != 0; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    private long parseId(int pos, int limit) {
+        if (pos + 3 >= limit || buffer.get(pos) != 'i' || buffer.get(pos + 1) != 'd' || buffer.get(pos + 2) != ':') {
+            return -1;
+        }
+        long id = 0;
+        int digits = 0;
+        for (int i = pos + 3; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                return digits > 0 ? id : -1;
+            }
+            if (b < '0' || b > '9' || ++digits > 18) {
+                return -1;
+            }
+            id = id * 10 + (b - '0');
+        }
+        return -1;
+    }
+
+    /** 返回帧结束（空行之后）的位置，找不到完整帧返回 -1。 */
+    private int frameEnd(int pos, int limit) {
+        for (int i = pos; i + 1 < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == 0) {
+                return -1;
+            }
+            if (b == '\n' && buffer.get(i + 1) == '\n') {
+                return i + 2;
+            }
+        }
+        return -1;
+    }
+
+    /** 帧的第二行是 event:<name>；格式不符返回 null。 */
+    private String eventName(int pos, int end) {
+        while (pos < end && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        int start = pos + 1 + "event:".length();
+        if (start > end) {
+            return null;
+        }
+        byte[] prefix = new byte["event:".length()];
+        buffer.get(pos + 1, prefix);
+        if (!new String(prefix, StandardCharsets.UTF_8).equals("event:")) {
+            return null;
+        }
+        int stop = start;
+        while (stop < end && buffer.get(stop) != '\n') {
+            stop++;
+        }
+        byte[] name = new byte[stop - start];
+        buffer.get(start, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    boolean fits(int length) {
+        return buffer.capacity() - writePos >= length;
+    }
+
+    void append(long id, String name, ByteBuffer frame) {
+        int length = frame.remaining();
+        buffer.put(writePos, frame, frame.position(), length);
+        index(id, writePos, name);
+        writePos += length;
+    }
+
+    private void index(long id, int offset, String name) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+            names = Arrays.copyOf(names, count * 2);
+        }
+        ids[count] = id;
+        offsets[count] = offset;
+        names[count] = name;
+        count++;
+    }
+
+    /**
+     * 把 id 大于 after 且主题匹配的帧作为映射内存的只读视图加入 into，不拷贝；用完须逐个 release。
+     * 不过滤时它们在文件里是连续的一段；过滤时按索引中的事件名把相邻的匹配帧合并为一个视图。
+     */
+    void readAfter(long after, TopicFilter topics, List<SseFrame> into) {
+        int i = Arrays.binarySearch(ids, 0, count, after + 1);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        if (i >= count) {
+            return;
+        }
+        if (topics.isAll()) {
+            into.add(view(offsets[i], writePos));
+            return;
+        }
+        int runStart = -1;
+        for (int j = i; j <= count; j++) {
+            boolean match = j < count && topics.matches(names[j]);
+            if (match && runStart < 0) {
+                runStart = offsets[j];
+            } else if (!match && runStart >= 0) {
+                into.add(view(runStart, j < count ? offsets[j] : writePos));
+                runStart = -1;
+            }
+        }
+    }
+
+    private SseFrame view(int start, int end) {
+        refs.incrementAndGet();
+        return SseFrame.raw(buffer.slice(start, end - start).asReadOnlyBuffer(), this::release);
+    }
+
+    long firstId() {
+        return firstId;
+    }
+
+    /** 段内最后一个 id；空段返回 firstId - 1。 */
+    long lastId() {
+        return count == 0 ? firstId - 1 : ids[count - 1];
+    }
+
+    Path file() {
+        return file;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * 关闭：不再追加或回放，内容留在磁盘上供下次打开日志时回放；所有视图释放后解除映射。
+     */
+    void close() {
+        release();
+    }
+
+    /**
+     * 从日志中淘汰：不再追加或回放，所有视图释放后解除映射并删除文件。
+     */
+    void retire() {
+        deleteOnRelease = true;
+        release();
+    }
+
+    private void release() {
+        if (refs.decrementAndGet() != 0) {
+            return;
+        }
+        unmap(buffer);
+        if (!deleteOnRelease) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // 残留的段在下次打开日志时按序号淘汰
+            log.warn("删除事件日志段 {} 失败: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 立即解除映射，之后不能再访问该缓冲区及其视图；不支持时留给 GC。
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            log.debug("解除事件日志段映射失败: {}", e.getMessage());
+        }
+    }
+
+    private static MethodHandle unmapHandle() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.info("无法主动解除内存映射，淘汰的事件日志段由 GC 回收后才能删除: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.fategmhelper.backend.web.sse;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.web.dto.RawJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 分发阶段：发布只把事件放进分发队列，由单个分发线程按发布顺序序列化、写入事件日志，
+ * 再放进每个订阅者的有界队列；实际写出由独立的发送线程完成，发布方（战役邮箱、outbox 转发）不等待编码、磁盘或浏览器连接。
+ * 分发队列写满时发布方阻塞等待，而不是丢弃事件。
+ * 订阅者队列写满（消费过慢）或持续不可写超过 send-timeout 的连接会被断开，由客户端重连后重新加载。
+ * 每个事件只序列化一次，所有订阅者共享同一份编码后的帧。
+ * 启用事件日志时每个事件带有递增的 id（经 outbox 转发时即 outbox 行号，换节点重连也有效），
+ * 重连时按 Last-Event-ID 从本节点日志补发。
+ */
+@Component
+@Slf4j
+public class SseDispatcher {
+
+    private final Map<Long, List<SseSubscriber>> subscribersByCampaign = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final EventJournal journal;
+    private final Executor senders;
+    private final ExecutionThreads executionThreads;
+    private final int queueCapacity;
+    private final Duration sendTimeout;
+    private final BlockingQueue<Published> published;
+    private volatile boolean running = true;
+    private Thread publisher;
+    private Thread watchdog;
+
+    public SseDispatcher(ObjectMapper objectMapper,
+                         EventJournal journal,
+                         ExecutionThreads executionThreads,
+                         @Value("${app.sse.sender-threads:0}") int senderThreads,
+                         @Value("${app.sse.queue-capacity:256}") int queueCapacity,
+                         @Value("${app.sse.send-timeout:PT15S}") Duration sendTimeout,
+                         @Value("${app.sse.publish-queue-capacity:8192}") int publishQueueCapacity) {
+        this.objectMapper = objectMapper;
+        this.journal = journal;
+        int size = senderThreads > 0 ? senderThreads : Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.senders = executionThreads.newExecutor("sse-sender-", size);
+        this.executionThreads = executionThreads;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeout = sendTimeout;
+        this.published = new ArrayBlockingQueue<>(publishQueueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        publisher = executionThreads.newThread("sse-publisher", this::runPublisher);
+        publisher.start();
+        if (sendTimeout.isZero() || sendTimeout.isNegative()) {
+            return;
+        }
+        watchdog = executionThreads.newThread("sse-send-watchdog", this::runWatchdog);
+        watchdog.start();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (publisher != null) {
+            // 不中断分发线程：中断会关闭正在写入的段文件，等它处理完队列中剩余的事件
+            publisher.join(5_000);
+        }
+        if (watchdog != null) {
+            watchdog.interrupt();
+            watchdog.join(5_000);
+        }
+        subscribersByCampaign.values().forEach(list -> list.forEach(SseSubscriber::close));
+        ExecutionThreads.shutdown(senders);
+    }
+
+    /**
+     * 在当前请求上开启异步 SSE 响应并登记订阅者，必须在请求线程上调用。
+     *
+     * @param lastEventId 客户端最后收到的事件 id；能从日志补齐时先补发缺失的事件，
+     *                    连接事件的数据为 "resumed"，否则为 "connected"（客户端应全量刷新）
+     */
+    public void subscribe(HttpServletRequest request, HttpServletResponse response,
+                          Long campaignId, TopicFilter topics, Long lastEventId) throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache");
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(0); // no timeout
+        SseSubscriber subscriber = new SseSubscriber(campaignId, asyncContext, topics, queueCapacity, senders);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                remove(subscriber);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                subscriber.close();
+                remove(subscriber);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                subscriber.close();
+                remove(subscriber);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // 在日志锁内补发并登记，期间发布的事件要么已在回放里，要么会进入队列
+        journal.withJournal(campaignId, campaignJournal -> register(subscriber,
+                campaignJournal == null || lastEventId == null ? null : campaignJournal.readAfter(lastEventId, topics)));
+        subscriber.start();
+    }
+
+    private void register(SseSubscriber subscriber, List<SseFrame> replay) {
+        // send a welcome/heartbeat event to confirm connection
+        subscriber.offer(SseFrame.of("connected", replay == null ? "connected" : "resumed"));
+        if (replay != null) {
+            for (SseFrame frame : replay) {
+                if (!subscriber.offer(frame)) {
+                    frame.release();
+                }
+            }
+        }
+        subscribersByCampaign.computeIfAbsent(subscriber.campaignId(), k -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /**
+     * 把事件放进分发队列后立即返回；序列化、写日志和分发都在分发线程上完成。
+     *
+     * @param eventId 事件自带的全局 id（outbox 行号），各节点一致；为 null 时由本地日志分配
+     */
+    public void publish(Long campaignId, Long eventId, String eventName, Object data) {
+        if (campaignId == null) return;
+        if (!journal.isEnabled() && !subscribersByCampaign.containsKey(campaignId)) return;
+        try {
+            published.put(new Published(campaignId, eventId, eventName, data));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("战役 {} 的 SSE 事件 {} 等待入队时被中断，已丢弃", campaignId, eventName);
+        }
+    }
+
+    private void runPublisher() {
+        while (running || !published.isEmpty()) {
+            Published event;
+            try {
+                event = published.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event == null) {
+                continue;
+            }
+            try {
+                dispatch(event);
+            } catch (RuntimeException e) {
+                log.error("分发战役 {} 的 SSE 事件 {} 失败", event.campaignId(), event.eventName(), e);
+            }
+        }
+    }
+
+    private void dispatch(Published event) {
+        byte[] json;
+        try {
+            // outbox 中的原文即紧凑输出的 JSON，直接作为 data 行
+            json = event.data() instanceof RawJson raw ? raw.utf8() : objectMapper.writeValueAsBytes(event.data());
+        } catch (JsonProcessingException e) {
+            log.error("SSE 事件 {} 序列化失败", event.eventName(), e);
+            return;
+        }
+        journal.withJournal(event.campaignId(), campaignJournal -> deliver(event.campaignId(), campaignJournal == null
+                ? SseFrame.of(event.eventName(), json)
+                : campaignJournal.append(event.eventId(), event.eventName(), json)));
+    }
+
+    private void deliver(Long campaignId, SseFrame frame) {
+        List<SseSubscriber> list = subscribersByCampaign.get(campaignId);
+        if (list == null) return;
+        for (SseSubscriber subscriber : list) {
+            if (!subscriber.topics().matches(frame.name())) {
+                continue;
+            }
+            if (!subscriber.offer(frame)) {
+                log.warn("战役 {} 的 SSE 连接消费过慢，已断开", campaignId);
+                subscriber.close();
+                remove(subscriber);
+            }
+        }
+    }
+
+    private void runWatchdog() {
+        long timeoutNanos = sendTimeout.toNanos();
+        long interval = Math.max(100, sendTimeout.toMillis() / 4);
+        while (running) {
+            try {
+                Thread.sleep(interval);
+                subscribersByCampaign.values().forEach(list -> list.forEach(subscriber -> {
+                    if (subscriber.stalledLongerThan(timeoutNanos)) {
+                        log.warn("战役 {} 的 SSE 连接超过 {} 不可写，已断开", subscriber.campaignId(), sendTimeout);
+                        subscriber.close();
+                        remove(subscriber);
+                    }
+                }));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.warn("检查 SSE 连接失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void remove(SseSubscriber subscriber) {
+        subscribersByCampaign.computeIfPresent(subscriber.campaignId(), (k, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private record Published(Long campaignId, Long eventId, String eventName, Object data) {
+    }
+}
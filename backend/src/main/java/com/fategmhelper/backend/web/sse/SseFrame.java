@@ -0,0 +1,89 @@
+package com.fategmhelper.backend.web.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 已编码好的完整 SSE 帧（event / data 行及结尾空行，UTF-8）。
+ * 每次发布只编码一次，之后把同一份字节原样写给所有订阅者。
+ * <p>
+ * 回放帧是日志段映射内存的只读视图，持有段的一次引用：写完或丢弃后必须 {@link #release()}，
+ * 段才能在关闭或淘汰时解除映射。
+ */
+public final class SseFrame {
+
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+
+    private final String name;
+    private final ByteBuffer content;
+    private final Runnable release;
+
+    private SseFrame(String name, ByteBuffer content, Runnable release) {
+        this.name = name;
+        this.content = content;
+        this.release = release;
+    }
+
+    /**
+     * @param data 单行 UTF-8 数据（例如紧凑输出的 JSON），不得包含换行
+     */
+    public static SseFrame of(String name, byte[] data) {
+        return of(0, name, data);
+    }
+
+    /**
+     * @param id 事件 id，大于 0 时写入 id 行，浏览器断线重连时会以 Last-Event-ID 带回
+     */
+    public static SseFrame of(long id, String name, byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + name.length() + 40);
+        if (id > 0) {
+            out.writeBytes(ID);
+            out.writeBytes(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+            out.write('\n');
+        }
+        out.writeBytes(EVENT);
+        out.writeBytes(name.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+        out.writeBytes(DATA);
+        out.writeBytes(data);
+        out.write('\n');
+        out.write('\n');
+        return new SseFrame(name, ByteBuffer.wrap(out.toByteArray()), null);
+    }
+
+    public static SseFrame of(String name, String data) {
+        return of(name, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 已经是完整 SSE 帧（可以是多帧拼接）的字节视图，原样发送；写完或丢弃后调用 release。
+     */
+    static SseFrame raw(ByteBuffer frames, Runnable release) {
+        return new SseFrame(null, frames, release);
+    }
+
+    /** 事件名（即主题）；回放用的拼接帧为 null。 */
+    public String name() {
+        return name;
+    }
+
+    public int length() {
+        return content.remaining();
+    }
+
+    /**
+     * 帧内容的独立视图（各自的读取位置），可以同时交给多个订阅者。
+     */
+    public ByteBuffer content() {
+        return content.duplicate();
+    }
+
+    void release() {
+        if (release != null) {
+            release.run();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.fategmhelper.backend.web.sse;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个 SSE 连接：有界待发送队列 + 按需调度的发送任务。
+ * 同一时刻最多一个发送任务在写这个连接，慢连接只会占满自己的队列。
+ * <p>
+ * 使用 Servlet 非阻塞输出：只在 {@link ServletOutputStream#isReady()} 为 true 时写出，
+ * 客户端不收数据时发送任务直接返回，等容器回调 {@link WriteListener#onWritePossible()} 后再继续，
+ * 发送线程不会被慢连接占住。持续不可写的时长由 {@link #stalledLongerThan(long)} 交给调度器判断。
+ * <p>
+ * 帧只由发送任务释放（写完、或连接关闭后清空队列时），关闭连接的线程只负责再调度一次发送任务，
+ * 避免回放帧所在的段在写出途中被解除映射。
+ */
+@Slf4j
+class SseSubscriber implements WriteListener {
+
+    private static final int DRAIN_LIMIT = 64;
+    /** 非堆缓冲区（日志段视图）每次拷贝写出的字节数，每块之间重新检查可写 */
+    private static final int CHUNK_BYTES = 8192;
+
+    private final Long campaignId;
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final TopicFilter topics;
+    private final BlockingQueue<SseFrame> pending;
+    private final Executor sender;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    /** 最近一次 isReady() 为 false（或尚未收到首次可写回调）时为 true。 */
+    private volatile boolean waiting = true;
+    private volatile long waitingSince = System.nanoTime();
+    /* 以下只由当前发送任务读写 */
+    /** 已写出但尚未 flush */
+    private boolean dirty;
+    private SseFrame current;
+    private ByteBuffer remaining;
+    private byte[] chunk;
+
+    SseSubscriber(Long campaignId, AsyncContext asyncContext, TopicFilter topics, int queueCapacity, Executor sender)
+            throws IOException {
+        this.campaignId = campaignId;
+        this.asyncContext = asyncContext;
+        this.out = asyncContext.getResponse().getOutputStream();
+        this.topics = topics;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.sender = sender;
+    }
+
+    Long campaignId() {
+        return campaignId;
+    }
+
+    TopicFilter topics() {
+        return topics;
+    }
+
+    /**
+     * 注册写监听；必须在请求线程上调用，容器随后回调 onWritePossible 开始发送。
+     */
+    void start() {
+        out.setWriteListener(this);
+    }
+
+    /**
+     * 非阻塞入队；队列已满返回 false，由调用方断开该连接。
+     */
+    boolean offer(SseFrame frame) {
+        if (closed.get() || !pending.offer(frame)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * 客户端持续不可写超过 timeoutNanos。
+     */
+    boolean stalledLongerThan(long timeoutNanos) {
+        return waiting && System.nanoTime() - waitingSince > timeoutNanos;
+    }
+
+    /**
+     * 断开连接；客户端 EventSource 会自动重连。未发送的帧由随后的发送任务释放。
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                asyncContext.complete();
+            } catch (Exception ignored) {
+                // 连接可能已经失效
+            }
+            schedule();
+        }
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public void onWritePossible() {
+        waiting = false;
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("SSE 连接出错，断开战役 {} 的连接: {}", campaignId, t.getMessage());
+        close();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            // 等待可写回调期间不要调用 isReady()，否则会重复注册
+            for (int i = 0; i < DRAIN_LIMIT && !waiting && !closed.get(); i++) {
+                // 先置 waiting 再检查：isReady() 为 false 后的可写回调可能立即在容器线程上到来
+                waitingSince = System.nanoTime();
+                waiting = true;
+                if (!out.isReady()) {
+                    break;
+                }
+                waiting = false;
+                if (current == null && (current = pending.poll()) != null) {
+                    remaining = current.content();
+                }
+                if (current != null) {
+                    write();
+                } else if (dirty) {
+                    out.flush();
+                    dirty = false;
+                } else {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("SSE 发送失败，断开战役 {} 的连接: {}", campaignId, e.getMessage());
+            closed.set(true);
+            try {
+                asyncContext.complete();
+            } catch (Exception ignored) {
+                // 连接可能已经失效
+            }
+        } finally {
+            if (closed.get()) {
+                discard();
+            }
+            scheduled.set(false);
+        }
+        boolean more = closed.get()
+                ? !pending.isEmpty()
+                : !waiting && (dirty || current != null || !pending.isEmpty());
+        if (more) {
+            schedule();
+        }
+    }
+
+    /**
+     * 写出当前帧：堆上的帧一次写完，日志段视图按块拷贝，每块之间重新检查可写。
+     */
+    private void write() throws IOException {
+        if (remaining.hasArray()) {
+            out.write(remaining.array(), remaining.arrayOffset() + remaining.position(), remaining.remaining());
+            remaining.position(remaining.limit());
+        } else {
+            if (chunk == null) {
+                chunk = new byte[CHUNK_BYTES];
+            }
+            int n = Math.min(chunk.length, remaining.remaining());
+            remaining.get(chunk, 0, n);
+            out.write(chunk, 0, n);
+        }
+        dirty = true;
+        if (!remaining.hasRemaining()) {
+            current.release();
+            current = null;
+            remaining = null;
+        }
+    }
+
+    private void discard() {
+        if (current != null) {
+            current.release();
+            current = null;
+            remaining = null;
+        }
+        SseFrame frame;
+        while ((frame = pending.poll()) != null) {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.fategmhelper.backend.web.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SSE 订阅的主题过滤：逗号分隔，支持精确主题（round.closed）、前缀通配（round.*）和 *。
+ * 未指定时接收全部主题。
+ */
+public final class TopicFilter {
+
+    public static final TopicFilter ALL = new TopicFilter(List.of(), List.of());
+
+    private final List<String> exact;
+    private final List<String> prefixes;
+
+    private TopicFilter(List<String> exact, List<String> prefixes) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+    }
+
+    public static TopicFilter parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return ALL;
+        }
+        List<String> exact = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String topic = part.trim();
+            if (topic.isEmpty()) {
+                continue;
+            }
+            if (topic.equals("*")) {
+                return ALL;
+            }
+            if (topic.endsWith(".*")) {
+                prefixes.add(topic.substring(0, topic.length() - 1));
+            } else {
+                exact.add(topic);
+            }
+        }
+        if (exact.isEmpty() && prefixes.isEmpty()) {
+            return ALL;
+        }
+        return new TopicFilter(List.copyOf(exact), List.copyOf(prefixes));
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    public boolean matches(String topic) {
+        if (isAll()) {
+            return true;
+        }
+        if (topic == null) {
+            return false;
+        }
+        if (exact.contains(topic)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (topic.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package com.fategmhelper.backend.web.ws;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 从握手地址 /api/ws/campaigns/{campaignId}?topics=... 中取出战役和订阅主题。
+ */
+public class CampaignHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String CAMPAIGN_ID = "campaignId";
+    static final String TOPICS = "topics";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        var uri = UriComponentsBuilder.fromUri(request.getURI()).build();
+        var segments = uri.getPathSegments();
+        try {
+            attributes.put(CAMPAIGN_ID, Long.parseLong(segments.get(segments.size() - 1)));
+        } catch (RuntimeException e) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        String topics = uri.getQueryParams().getFirst(TOPICS);
+        if (topics != null) {
+            attributes.put(TOPICS, UriUtils.decode(topics, StandardCharsets.UTF_8));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
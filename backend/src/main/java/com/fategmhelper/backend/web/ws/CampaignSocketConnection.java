@@ -0,0 +1,138 @@
+package com.fategmhelper.backend.web.ws;
+
+import com.fategmhelper.backend.web.sse.TopicFilter;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个 WebSocket 连接：有界待发送队列 + 独立的发送任务，与 SSE 订阅者相同。
+ * 发布事件和回复命令的线程只负责入队，队列写满（消费过慢）的连接会被断开。
+ * <p>
+ * 同一时刻最多一帧在途：经容器的异步发送写出，完成回调再调度下一帧，发送线程不会被慢连接占住；
+ * 单帧超过 sendTimeoutMillis 仍未写出视为连接失效。
+ */
+@Slf4j
+class CampaignSocketConnection {
+
+    private final Long campaignId;
+    private final WebSocketSession session;
+    private final RemoteEndpoint.Async remote;
+    private final BlockingQueue<byte[]> pending;
+    private final Executor sender;
+    /** 有帧在途或已调度发送任务 */
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile TopicFilter topics;
+
+    CampaignSocketConnection(Long campaignId, WebSocketSession session, TopicFilter topics,
+                             int queueCapacity, long sendTimeoutMillis, Executor sender) {
+        this.campaignId = campaignId;
+        this.session = session;
+        Session nativeSession = session instanceof NativeWebSocketSession n ? n.getNativeSession(Session.class) : null;
+        this.remote = nativeSession != null ? nativeSession.getAsyncRemote() : null;
+        if (remote != null) {
+            remote.setSendTimeout(sendTimeoutMillis);
+        }
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.sender = sender;
+        this.topics = topics;
+    }
+
+    Long campaignId() {
+        return campaignId;
+    }
+
+    String sessionId() {
+        return session.getId();
+    }
+
+    TopicFilter topics() {
+        return topics;
+    }
+
+    void topics(TopicFilter topics) {
+        this.topics = topics;
+    }
+
+    /**
+     * 非阻塞地把已编码的帧放入发送队列；同一份字节可以放入多个连接。队列已满时断开连接并返回 false。
+     */
+    boolean send(byte[] frame) {
+        if (closed.get() || !session.isOpen()) {
+            return false;
+        }
+        if (!pending.offer(frame)) {
+            log.warn("战役 {} 的 WebSocket 连接消费过慢，已断开", campaignId);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    void close(CloseStatus status) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        pending.clear();
+        try {
+            session.close(status);
+        } catch (Exception ignored) {
+            // 连接可能已经失效
+        }
+    }
+
+    private void schedule() {
+        if (sending.compareAndSet(false, true)) {
+            sender.execute(this::sendNext);
+        }
+    }
+
+    private void sendNext() {
+        byte[] frame = closed.get() ? null : pending.poll();
+        if (frame == null) {
+            sending.set(false);
+            if (!pending.isEmpty() && !closed.get()) {
+                schedule();
+            }
+            return;
+        }
+        try {
+            if (remote != null) {
+                // 回调可能在容器线程上同步执行，下一帧回到发送线程发出，避免递归
+                remote.sendBinary(ByteBuffer.wrap(frame), this::sent);
+            } else {
+                session.sendMessage(new BinaryMessage(frame));
+                sender.execute(this::sendNext);
+            }
+        } catch (Exception e) {
+            failed(e);
+        }
+    }
+
+    private void sent(SendResult result) {
+        if (result.isOK()) {
+            sender.execute(this::sendNext);
+        } else {
+            failed(result.getException());
+        }
+    }
+
+    private void failed(Throwable e) {
+        log.debug("WebSocket 发送失败，断开战役 {} 的连接: {}", campaignId, String.valueOf(e));
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+        sending.set(false);
+    }
+}
@@ -0,0 +1,283 @@
+package com.fategmhelper.backend.web.ws;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.service.ActionHistoryService;
+import com.fategmhelper.backend.service.ActionSubmissionGroupCommitter;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import com.fategmhelper.backend.service.CharacterStatusService;
+import com.fategmhelper.backend.service.RoundService;
+import com.fategmhelper.backend.service.SubmissionCommand;
+import com.fategmhelper.backend.service.SubmissionOutcome;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.RoundChange;
+import com.fategmhelper.backend.web.dto.ActionHistoryRequest;
+import com.fategmhelper.backend.web.dto.ActionSubmissionBatchRequest;
+import com.fategmhelper.backend.web.dto.ActionSubmissionBatchResponse;
+import com.fategmhelper.backend.web.dto.ActionSubmissionRequest;
+import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
+import com.fategmhelper.backend.web.dto.CharacterStatusRequest;
+import com.fategmhelper.backend.web.sse.TopicFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * 战控页面的双向通道：/api/ws/campaigns/{campaignId}，帧内容为 CBOR。
+ * <p>
+ * 客户端发送 {id, op, body}，服务端异步执行后回复 {re: id, ok, body | error}，同一连接上可以有多个命令在途；
+ * 战役事件以 {topic, body} 推送，主题过滤与 SSE 相同。命令复用现有服务层，写操作同样经过战役邮箱。
+ * <p>
+ * 支持的 op：ping、subscribe{topics}、submit、submitBatch{submissions}、status、closeRound、nextRound。
+ * 请求体中的 campaignId 一律以连接所属战役为准。
+ * <p>
+ * 回复和推送都只放入连接的发送队列，由发送线程写出，事件转发线程和战役邮箱不会等待任何客户端。
+ */
+@Component
+@Slf4j
+public class CampaignSocketHandler extends BinaryWebSocketHandler {
+
+    private final ObjectMapper cbor;
+    private final Validator validator;
+    private final ActionSubmissionGroupCommitter groupCommitter;
+    private final CharacterStatusService characterStatusService;
+    private final ActionHistoryService actionHistoryService;
+    private final RoundService roundService;
+    private final CampaignExecutor campaignExecutor;
+    private final Executor senders;
+    private final int queueCapacity;
+    private final long sendTimeoutMillis;
+
+    private final Map<Long, List<CampaignSocketConnection>> connectionsByCampaign = new ConcurrentHashMap<>();
+    private final Map<String, CampaignSocketConnection> connectionsBySession = new ConcurrentHashMap<>();
+
+    public CampaignSocketHandler(Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                 Validator validator,
+                                 ActionSubmissionGroupCommitter groupCommitter,
+                                 CharacterStatusService characterStatusService,
+                                 ActionHistoryService actionHistoryService,
+                                 RoundService roundService,
+                                 CampaignExecutor campaignExecutor,
+                                 ExecutionThreads executionThreads,
+                                 @Value("${app.ws.sender-threads:0}") int senderThreads,
+                                 @Value("${app.ws.queue-capacity:256}") int queueCapacity,
+                                 @Value("${app.ws.send-timeout:PT5S}") Duration sendTimeout) {
+        // 与 REST 共用 spring.jackson.* 配置，只换成 CBOR 编码
+        this.cbor = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.validator = validator;
+        this.groupCommitter = groupCommitter;
+        this.characterStatusService = characterStatusService;
+        this.actionHistoryService = actionHistoryService;
+        this.roundService = roundService;
+        this.campaignExecutor = campaignExecutor;
+        int size = senderThreads > 0 ? senderThreads : Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.senders = executionThreads.newExecutor("ws-sender-", size);
+        this.queueCapacity = queueCapacity;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connectionsBySession.values().forEach(c -> c.close(CloseStatus.GOING_AWAY));
+        ExecutionThreads.shutdown(senders);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Long campaignId = (Long) session.getAttributes().get(CampaignHandshakeInterceptor.CAMPAIGN_ID);
+        TopicFilter topics = TopicFilter.parse((String) session.getAttributes().get(CampaignHandshakeInterceptor.TOPICS));
+        CampaignSocketConnection connection = new CampaignSocketConnection(campaignId, session, topics,
+                queueCapacity, sendTimeoutMillis, senders);
+        connectionsBySession.put(session.getId(), connection);
+        connectionsByCampaign.computeIfAbsent(campaignId, k -> new CopyOnWriteArrayList<>()).add(connection);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        CampaignSocketConnection connection = connectionsBySession.remove(session.getId());
+        if (connection == null) {
+            return;
+        }
+        connectionsByCampaign.computeIfPresent(connection.campaignId(), (k, list) -> {
+            list.remove(connection);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        CampaignSocketConnection connection = connectionsBySession.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+        SocketCommand command;
+        try {
+            ByteBuffer payload = message.getPayload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            command = cbor.readValue(bytes, SocketCommand.class);
+        } catch (Exception e) {
+            connection.send(encode(SocketFrame.error(null, "无法解析的消息")));
+            return;
+        }
+        CompletableFuture<?> result;
+        try {
+            result = execute(connection, command);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        Long re = command.getId();
+        result.whenComplete((body, error) -> connection.send(encode(
+                error == null ? SocketFrame.ack(re, body) : SocketFrame.error(re, describe(error)))));
+    }
+
+    private CompletableFuture<?> execute(CampaignSocketConnection connection, SocketCommand command) {
+        Long campaignId = connection.campaignId();
+        JsonNode body = command.getBody();
+        String op = command.getOp() == null ? "" : command.getOp();
+        switch (op) {
+            case "ping":
+                return CompletableFuture.completedFuture(null);
+            case "subscribe": {
+                String topics = body != null && body.hasNonNull("topics") ? body.get("topics").asText() : null;
+                connection.topics(TopicFilter.parse(topics));
+                return CompletableFuture.completedFuture(null);
+            }
+            case "submit": {
+                ActionSubmissionRequest req = read(body, ActionSubmissionRequest.class);
+                req.setCampaignId(campaignId);
+                validate(req);
+                return groupCommitter.submitAsync(toCommand(req)).thenApply(outcome -> {
+                    if (outcome.isRejected()) {
+                        throw new IllegalArgumentException(outcome.getMessage());
+                    }
+                    return ActionSubmissionResponse.fromEntity(outcome.getSubmission());
+                });
+            }
+            case "submitBatch": {
+                ActionSubmissionBatchRequest req = read(body, ActionSubmissionBatchRequest.class);
+                if (req.getSubmissions() != null) {
+                    req.getSubmissions().forEach(r -> r.setCampaignId(campaignId));
+                }
+                validate(req);
+                List<SubmissionCommand> commands = req.getSubmissions().stream().map(this::toCommand).toList();
+                return groupCommitter.submitAllAsync(commands).thenApply(ActionSubmissionBatchResponse::fromOutcomes);
+            }
+            case "status": {
+                CharacterStatusRequest req = read(body, CharacterStatusRequest.class);
+                req.setCampaignId(campaignId);
+                validate(req);
+                return campaignExecutor.submit(campaignId, () -> characterStatusService.updateOrCreate(req));
+            }
+            case "closeRound": {
+                ActionHistoryRequest req = body == null || body.isNull() ? null : read(body, ActionHistoryRequest.class);
+                return campaignExecutor.submit(campaignId, () -> actionHistoryService.closeRound(campaignId, req));
+            }
+            case "nextRound":
+                return campaignExecutor.submit(campaignId,
+                        () -> Map.of("round", RoundChange.of(roundService.createNextRound(campaignId), campaignId)));
+            default:
+                throw new IllegalArgumentException("未知操作：" + op);
+        }
+    }
+
+    /**
+     * 战役事件总线 → WebSocket：每个事件只编码一次。
+     */
+    @EventListener
+    public void onCampaignEvent(CampaignEvent event) {
+        List<CampaignSocketConnection> list = connectionsByCampaign.get(event.getCampaignId());
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        String topic = event.getType().topic();
+        byte[] frame = null;
+        for (CampaignSocketConnection connection : list) {
+            if (!connection.topics().matches(topic)) {
+                continue;
+            }
+            if (frame == null) {
+                frame = encode(SocketFrame.event(topic, event.getPayload()));
+            }
+            connection.send(frame);
+        }
+    }
+
+    private SubmissionCommand toCommand(ActionSubmissionRequest r) {
+        return new SubmissionCommand(r.getCampaignId(), r.getServantClass(), r.getActionType(),
+                r.getContent(), r.getSubmittedBy());
+    }
+
+    private <T> T read(JsonNode body, Class<T> type) {
+        if (body == null || body.isNull()) {
+            throw new IllegalArgumentException("缺少请求体");
+        }
+        try {
+            return cbor.treeToValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("请求体格式错误: " + e.getOriginalMessage());
+        }
+    }
+
+    private void validate(Object target) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(target);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private byte[] encode(SocketFrame frame) {
+        try {
+            return cbor.writeValueAsBytes(frame);
+        } catch (JsonProcessingException e) {
+            log.error("WebSocket 帧编码失败", e);
+            return encodeError(frame.getRe());
+        }
+    }
+
+    private byte[] encodeError(Long re) {
+        try {
+            return cbor.writeValueAsBytes(SocketFrame.error(re, "服务器内部错误"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException
+                || cause instanceof RejectedExecutionException) {
+            return cause.getMessage();
+        }
+        log.error("WebSocket 命令执行失败", cause);
+        return "服务器内部错误";
+    }
+}
@@ -0,0 +1,14 @@
+package com.fategmhelper.backend.web.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+/**
+ * 客户端发来的命令：id 为客户端自选的关联号，服务端在确认帧中原样带回（re）。
+ */
+@Data
+public class SocketCommand {
+    private Long id;
+    private String op;
+    private JsonNode body;
+}
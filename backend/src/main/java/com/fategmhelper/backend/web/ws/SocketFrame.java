@@ -0,0 +1,29 @@
+package com.fategmhelper.backend.web.ws;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * 服务端发出的帧：命令确认（re + ok，失败时带 error）或战役事件（topic）。
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SocketFrame {
+    Long re;
+    Boolean ok;
+    String topic;
+    Object body;
+    String error;
+
+    public static SocketFrame ack(Long re, Object body) {
+        return new SocketFrame(re, true, null, body, null);
+    }
+
+    public static SocketFrame error(Long re, String error) {
+        return new SocketFrame(re, false, null, null, error);
+    }
+
+    public static SocketFrame event(String topic, Object body) {
+        return new SocketFrame(null, null, topic, body, null);
+    }
+}
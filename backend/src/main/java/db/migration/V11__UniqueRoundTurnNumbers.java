@@ -0,0 +1,64 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 campaign_round (campaign_id, turn_number) 改为唯一索引，由数据库保证同一战役的回合号不重复。
+ * <p>
+ * 历史数据中的重复回合号按“以最后写入的为准”处理：同组中较早的、没有任何行动提交的回合直接删除；
+ * 较早的回合仍有提交时无法自动取舍，迁移失败并列出这些回合，需人工合并或改号后再启动。
+ */
+public class V11__UniqueRoundTurnNumbers extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<String> conflicts = new ArrayList<>();
+        List<Long> removable = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery("""
+                     select r.id, r.campaign_id, r.turn_number,
+                            (select count(*) from action_submission a where a.round_id = r.id) as submissions
+                       from campaign_round r
+                       join (select campaign_id, turn_number, max(id) as keep_id
+                               from campaign_round
+                              group by campaign_id, turn_number
+                             having count(*) > 1) d
+                         on d.campaign_id = r.campaign_id and d.turn_number = r.turn_number and r.id <> d.keep_id
+                      order by r.id
+                     """)) {
+            while (rs.next()) {
+                if (rs.getLong(4) == 0) {
+                    removable.add(rs.getLong(1));
+                } else {
+                    conflicts.add("回合 " + rs.getLong(1) + "（战役 " + rs.getLong(2) + " 第 " + rs.getInt(3)
+                            + " 回合，" + rs.getLong(4) + " 条提交）");
+                }
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException("存在回合号重复且仍有行动提交的回合，无法建立唯一索引：" + String.join("；", conflicts));
+        }
+        try (PreparedStatement delete = connection.prepareStatement("delete from campaign_round where id = ?")) {
+            for (Long id : removable) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            if (!removable.isEmpty()) {
+                delete.executeBatch();
+            }
+        }
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create unique index uk_round_campaign_turn on campaign_round (campaign_id, turn_number)");
+            ddl.execute("alter table campaign_round drop index idx_round_campaign_turn");
+        }
+    }
+}
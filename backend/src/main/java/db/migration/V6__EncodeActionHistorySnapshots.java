@@ -0,0 +1,188 @@
+package db.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 把 action_history 已有行的三个 JSON 列编码为 snapshot 列。
+ * 无法解析的 JSON 按 null 处理，与旧版读取时的容错一致。
+ * <p>
+ * 迁移只能按写入时的格式执行，因此阶职列表和编码器都是格式版本 1 的冻结副本，
+ * 不引用 RoundSnapshot / ActionSnapshotCodec：它们以后的改动不能改变这次迁移写出的内容。
+ */
+public class V6__EncodeActionHistorySnapshots extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final List<String> CLASSES = List.of("弓", "枪", "骑", "剑", "杀", "术", "狂");
+
+    private static final int FORMAT_V1 = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int DEFLATE_THRESHOLD = 1024;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_LIST = 2;
+    private static final int TAG_MAP = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_TRUE = 6;
+    private static final int TAG_FALSE = 7;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "select id, action_order, servant_actions, master_actions from action_history where snapshot is null");
+             PreparedStatement update = connection.prepareStatement("update action_history set snapshot = ? where id = ?")) {
+            int pending = 0;
+            while (rs.next()) {
+                byte[] snapshot = encode(CLASSES,
+                        parse(rs.getString("action_order")),
+                        parse(rs.getString("servant_actions")),
+                        parse(rs.getString("master_actions")));
+                update.setBytes(1, snapshot);
+                update.setLong(2, rs.getLong("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> parse(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            Object value = mapper.readValue(json, Object.class);
+            return value instanceof List<?> list ? (List<T>) list : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(List<String> classes, Object actionOrder,
+                                 List<String> servantActions, List<String> masterActions) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        byte[][] sections = {
+                encodeValue(classes, strings),
+                encodeValue(actionOrder, strings),
+                encodeValue(servantActions, strings),
+                encodeValue(masterActions, strings),
+        };
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeVarint(body, strings.size());
+        for (String s : strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(body, utf8.length);
+            body.writeBytes(utf8);
+        }
+        for (byte[] section : sections) {
+            writeVarint(body, section.length);
+            body.writeBytes(section);
+        }
+        byte[] raw = body.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 8);
+        out.write(FORMAT_V1);
+        byte[] deflated = raw.length >= DEFLATE_THRESHOLD ? deflate(raw) : null;
+        if (deflated != null && deflated.length < raw.length) {
+            out.write(FLAG_DEFLATE);
+            writeVarint(out, raw.length);
+            out.writeBytes(deflated);
+        } else {
+            out.write(0);
+            out.writeBytes(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeValue(Object value, Map<String, Integer> strings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeValue(out, value, strings);
+        return out.toByteArray();
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value, Map<String, Integer> strings) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof CharSequence s) {
+            out.write(TAG_STRING);
+            writeVarint(out, strings.computeIfAbsent(s.toString(), k -> strings.size()));
+        } else if (value instanceof List<?> list) {
+            out.write(TAG_LIST);
+            writeVarint(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item, strings);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.write(TAG_MAP);
+            writeVarint(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeVarint(out, strings.computeIfAbsent(String.valueOf(entry.getKey()), k -> strings.size()));
+                writeValue(out, entry.getValue(), strings);
+            }
+        } else if (value instanceof Boolean b) {
+            out.write(b ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Float || value instanceof Double) {
+            out.write(TAG_DOUBLE);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (value instanceof Number n) {
+            out.write(TAG_LONG);
+            long v = n.longValue();
+            writeVarint(out, (v << 1) ^ (v >> 63));
+        } else {
+            throw new IllegalArgumentException("行动快照不支持的值类型：" + value.getClass().getSimpleName());
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
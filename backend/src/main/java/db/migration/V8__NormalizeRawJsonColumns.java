@@ -0,0 +1,152 @@
+package db.migration;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * 接口改为原样输出 leyline.assigned_character_ids 与 character_status.status_effects_list 后，
+ * 读取时不再解析；这里用与旧版读取相同的方式解析每个值（异常状态为 StatusEffect 对象，灵脉为角色 id），
+ * 使原样输出的内容与旧版接口一致：解析失败的置为 null，解析后再序列化与原值结构不同的
+ * （如 "3" 转为 3、丢弃未知字段）改写为序列化后的文本。
+ * <p>
+ * 比较的是解析后的结构而不是文本：MySQL 的 json 列读回的是规范化后的文本，键顺序和空白与序列化结果不同，
+ * 按文本比较会改写每一行。
+ * <p>
+ * 异常状态的元素类型是写迁移时 StatusEffect 的冻结副本（字段、顺序与取值范围相同），
+ * 领域类以后的改动不会改变这次迁移的结果。
+ * <p>
+ * 被改写或置空的每个原值都先写入 raw_json_backup_v8（表名、行 id、列名、原值、改写后的值），
+ * 并逐行记录日志，置空的同时记录解析错误；需要恢复时按表名和 id 从备份表写回。
+ */
+public class V8__NormalizeRawJsonColumns extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V8__NormalizeRawJsonColumns.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    // 与 Spring Boot 默认的 ObjectMapper 一致：忽略未知字段
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("""
+                    create table raw_json_backup_v8 (
+                        id bigint not null auto_increment primary key,
+                        table_name varchar(64) not null,
+                        row_id bigint not null,
+                        column_name varchar(64) not null,
+                        original_value longtext not null,
+                        normalized_value longtext
+                    )
+                    """);
+        }
+        normalize(connection, "leyline", "assigned_character_ids", new TypeReference<List<Long>>() {});
+        normalize(connection, "character_status", "status_effects_list", new TypeReference<List<Effect>>() {});
+    }
+
+    private void normalize(Connection connection, String table, String column, TypeReference<?> type) throws Exception {
+        int rewritten = 0;
+        int cleared = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "select id, " + column + " from " + table + " where " + column + " is not null");
+             PreparedStatement update = connection.prepareStatement(
+                     "update " + table + " set " + column + " = ? where id = ?");
+             PreparedStatement backup = connection.prepareStatement(
+                     "insert into raw_json_backup_v8 (table_name, row_id, column_name, original_value, normalized_value)"
+                             + " values (?, ?, ?, ?, ?)")) {
+            int pending = 0;
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                String json = rs.getString(2);
+                String normalized = null;
+                try {
+                    normalized = normalize(json, type);
+                    if (normalized == null) {
+                        log.info("V8: {}.{} id={} 值为 JSON null，置为 null", table, column, id);
+                    }
+                } catch (Exception e) {
+                    log.warn("V8: {}.{} id={} 无法解析，置为 null，原值：{}（{}）", table, column, id, json, e.getMessage());
+                }
+                if (normalized != null && readTree(normalized).equals(readTree(json))) {
+                    continue;
+                }
+                if (normalized == null) {
+                    update.setNull(1, Types.VARCHAR);
+                    cleared++;
+                } else {
+                    log.info("V8: {}.{} id={} 改写为 {}，原值：{}", table, column, id, normalized, json);
+                    update.setString(1, normalized);
+                    rewritten++;
+                }
+                update.setLong(2, id);
+                update.addBatch();
+                backup.setString(1, table);
+                backup.setLong(2, id);
+                backup.setString(3, column);
+                backup.setString(4, json);
+                backup.setString(5, normalized);
+                backup.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    backup.executeBatch();
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                backup.executeBatch();
+                update.executeBatch();
+            }
+        }
+        if (rewritten + cleared > 0) {
+            log.warn("V8: {}.{} 改写 {} 行、置空 {} 行，原值已备份到 raw_json_backup_v8", table, column, rewritten, cleared);
+        }
+    }
+
+    /** 迁移时的 StatusEffect：字段按声明顺序序列化，type 只接受这三个取值，缺少 level 时为 0。 */
+    public static class Effect {
+
+        public String name;
+        public EffectType type;
+        public int level;
+    }
+
+    public enum EffectType {
+        BUFF,
+        DEBUFF,
+        ABNORMAL
+    }
+
+    /** 按类型解析后再序列化；值为 null 时返回 null，解析失败时抛出异常由调用方记录。 */
+    private String normalize(String json, TypeReference<?> type) throws Exception {
+        Object value = mapper.readValue(json, type);
+        return value == null ? null : mapper.writeValueAsString(value);
+    }
+
+    /** 两边都从文本解析，数值节点的类型一致，可以直接比较；只对已按类型解析成功的值调用，不会失败 */
+    private JsonNode readTree(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
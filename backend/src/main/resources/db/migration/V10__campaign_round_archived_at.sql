@@ -0,0 +1,6 @@
+-- 回合归档：提交、行动历史和角色状态移到归档文件后，回合行保留并记下归档时间。
+alter table campaign_round add column archived_at datetime(6);
+
+-- 归档任务按状态 + 未归档 + 关闭时间挑选回合
+create index idx_round_archive_candidates
+    on campaign_round (status, archived_at, closed_at);
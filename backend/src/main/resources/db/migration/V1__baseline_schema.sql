@@ -0,0 +1,144 @@
+-- 基线表结构：与此前 ddl-auto: update 在 MySQL 8 上生成的结构一致。
+-- 已有数据库通过 baseline-on-migrate 标记为版本 1，不会重复执行本脚本。
+
+create table campaign (
+    id          bigint       not null auto_increment,
+    name        varchar(255) not null,
+    description varchar(255),
+    created_at  datetime(6),
+    primary key (id),
+    constraint UKktyf1tkuo57qs1vaevr3thf19 unique (name)
+) engine=InnoDB;
+
+create table app_settings (
+    id            bigint       not null auto_increment,
+    setting_key   varchar(255) not null,
+    setting_value varchar(255),
+    created_at    datetime(6),
+    updated_at    datetime(6),
+    primary key (id),
+    constraint UK7p82g7l6uve2vd8l30djhxpel unique (setting_key)
+) engine=InnoDB;
+
+create table campaign_round (
+    id          bigint                  not null auto_increment,
+    campaign_id bigint                  not null,
+    turn_number integer                 not null,
+    status      enum ('CLOSED','OPEN')  not null,
+    created_at  datetime(6),
+    closed_at   datetime(6),
+    primary key (id),
+    constraint FKcmqkmlh4sowod2gsud6xav30b foreign key (campaign_id) references campaign (id)
+) engine=InnoDB;
+
+create table action_submission (
+    id            bigint                                  not null auto_increment,
+    round_id      bigint                                  not null,
+    round_number  integer                                 not null,
+    campaign_id   bigint                                  not null,
+    servant_class varchar(255)                            not null,
+    action_type   enum ('MASTER_ACTION','SERVANT_ACTION') not null,
+    content       TEXT                                    not null,
+    submitted_by  varchar(255),
+    is_current    bit                                     not null,
+    created_at    datetime(6),
+    primary key (id),
+    constraint FKd15lrq8hp5n6eub20bgrc95nv foreign key (campaign_id) references campaign (id),
+    constraint FKlirx22gkljey9rttfmi9usiem foreign key (round_id) references campaign_round (id)
+) engine=InnoDB;
+
+create table action_history (
+    id              bigint  not null auto_increment,
+    campaign_id     bigint  not null,
+    round_number    integer not null,
+    closed_at       datetime(6),
+    action_order    TEXT,
+    servant_actions TEXT,
+    master_actions  TEXT,
+    created_at      datetime(6),
+    primary key (id),
+    constraint FKhuvsc9ve3jrh58ba2mqarj0jl foreign key (campaign_id) references campaign (id)
+) engine=InnoDB;
+
+create table character_card (
+    id                   bigint                   not null auto_increment,
+    code                 varchar(255),
+    class_name           varchar(255),
+    raw_text             TEXT,
+    card_type            enum ('MASTER','SERVANT') not null,
+    campaign_id          bigint,
+    created_at           datetime(6),
+    total_level          integer,
+    total_strength       integer,
+    total_endurance      integer,
+    total_agility        integer,
+    total_mana           integer,
+    total_luck           integer,
+    total_noble_phantasm integer,
+    base_level           integer,
+    base_strength        integer,
+    base_endurance       integer,
+    base_agility         integer,
+    base_mana            integer,
+    base_luck            integer,
+    base_noble_phantasm  integer,
+    corr_level           integer,
+    corr_strength        integer,
+    corr_endurance       integer,
+    corr_agility         integer,
+    corr_mana            integer,
+    corr_luck            integer,
+    corr_noble_phantasm  integer,
+    class_skills         json,
+    personal_skills      json,
+    noble_phantasms      json,
+    workshops            json,
+    craft_essences       json,
+    retired              bit                      not null,
+    primary key (id),
+    constraint FK24urmmxc89b6sjh8ewp9wd36m foreign key (campaign_id) references campaign (id)
+) engine=InnoDB;
+
+create table character_status (
+    id                    bigint  not null auto_increment,
+    character_card_id     bigint  not null,
+    campaign_id           bigint  not null,
+    round_number          integer not null,
+    current_mana          integer,
+    mana_limit            integer,
+    current_command_seals integer,
+    status_effects        json,
+    status_effects_list   json,
+    notes                 TEXT,
+    created_at            datetime(6),
+    updated_at            datetime(6),
+    primary key (id),
+    constraint UKpk7tieydtuy5q8kqa7blx640 unique (character_card_id, campaign_id, round_number),
+    constraint FKiexye4gqi6kpkdk6n6ltnmaq foreign key (campaign_id) references campaign (id),
+    constraint FK7enrwiupabhfnl77xfr4pjbca foreign key (character_card_id) references character_card (id)
+) engine=InnoDB;
+
+create table leyline (
+    id                     bigint       not null auto_increment,
+    campaign_id            bigint       not null,
+    name                   varchar(255) not null,
+    mana_amount            integer      not null,
+    battlefield_width      integer      not null,
+    population_flow        integer      not null,
+    effect                 TEXT,
+    description            TEXT,
+    assigned_character_ids TEXT,
+    primary key (id),
+    constraint FK5e8d868kwd0xagftrkwpeyrxl foreign key (campaign_id) references campaign (id)
+) engine=InnoDB;
+
+create table leyline_assignment (
+    id                bigint not null auto_increment,
+    campaign_id       bigint not null,
+    leyline_id        bigint not null,
+    character_card_id bigint not null,
+    primary key (id),
+    constraint FKluj20ffqfrndjrxsh6xy375d1 foreign key (campaign_id) references campaign (id),
+    constraint FKl34istflop5gaxi1p4o1ucn43 foreign key (character_card_id) references character_card (id),
+    constraint FKpapmphm03v6fy6mnyxe8pb7ij foreign key (leyline_id) references leyline (id)
+) engine=InnoDB;
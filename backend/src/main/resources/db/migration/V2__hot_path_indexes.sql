@@ -0,0 +1,29 @@
+-- 热点查询所需的复合/覆盖索引。
+
+-- clearCurrentForSlot / clearCurrentForSlots：按回合 + 槽位定位当前提交
+create index idx_action_submission_slot
+    on action_submission (round_id, servant_class, action_type, is_current);
+
+-- findCurrentInOpenRound(s)：按战役取当前提交再按回合过滤
+create index idx_action_submission_campaign_current
+    on action_submission (campaign_id, is_current, round_id);
+
+-- findTopByCampaignIdAndStatusOrderByTurnNumberDesc 及开放回合子查询
+create index idx_round_campaign_status_turn
+    on campaign_round (campaign_id, status, turn_number);
+
+-- findTopByCampaignIdOrderByTurnNumberDesc
+create index idx_round_campaign_turn
+    on campaign_round (campaign_id, turn_number);
+
+-- findByCampaignIdAndRoundNumber / findByCampaignIdOrderByRoundDesc（覆盖 updated_at 排序）
+create index idx_character_status_campaign_round
+    on character_status (campaign_id, round_number, updated_at);
+
+-- findByCampaignIdOrderByRoundNumberDesc
+create index idx_action_history_campaign_round
+    on action_history (campaign_id, round_number);
+
+-- findByCampaignIdAndCharacterCardId / deleteByCampaignIdAndCharacterCardId
+create index idx_leyline_assignment_campaign_card
+    on leyline_assignment (campaign_id, character_card_id);
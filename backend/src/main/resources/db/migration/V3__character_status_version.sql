@@ -0,0 +1,3 @@
+-- 角色状态版本号：每次实际发生变化时加一，客户端据此按增量补丁同步
+alter table character_status
+    add column version bigint not null default 0;
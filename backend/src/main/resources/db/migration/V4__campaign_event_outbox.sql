@@ -0,0 +1,14 @@
+-- 战役事件 outbox：事件与业务修改在同一事务写入，各节点按 id 轮询后分发给自己的订阅者。
+-- 行只保留一段时间（app.events.outbox.retention），不与战役建立外键。
+
+create table campaign_event_outbox (
+    id          bigint      not null auto_increment,
+    campaign_id bigint      not null,
+    topic       varchar(64) not null,
+    payload     longtext    not null,
+    origin      varchar(64),
+    created_at  datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_campaign_event_outbox_created_at on campaign_event_outbox (created_at);
@@ -0,0 +1,2 @@
+-- 行动历史改为单列二进制快照（格式见 ActionSnapshotCodec），由 V6 转换已有数据，V7 删除旧的 JSON 列。
+alter table action_history add column snapshot longblob;
@@ -0,0 +1,4 @@
+-- 旧的 JSON 列已由 V6 转换为 snapshot 列。
+alter table action_history drop column action_order;
+alter table action_history drop column servant_actions;
+alter table action_history drop column master_actions;
@@ -0,0 +1,2 @@
+-- 回合关闭时记录灵脉分配，供按回合回看战役状态；此前关闭的回合没有记录。
+alter table action_history add column leyline_assignments TEXT;
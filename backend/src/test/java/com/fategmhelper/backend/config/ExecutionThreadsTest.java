@@ -0,0 +1,40 @@
+package com.fategmhelper.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 虚拟线程需要 JDK 21+：更低版本上开启时启动失败，而不是悄悄退回平台线程池。
+ */
+class ExecutionThreadsTest {
+
+    @Test
+    void platformThreadsByDefault() {
+        ExecutionThreads threads = new ExecutionThreads(new MockEnvironment());
+
+        assertThat(threads.isVirtual()).isFalse();
+        assertThat(threads.newThread("t", () -> { }).isDaemon()).isTrue();
+    }
+
+    @Test
+    void virtualModeFailsFastBelowJdk21() {
+        assumeTrue(Runtime.version().feature() < 21);
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThatThrownBy(() -> new ExecutionThreads(environment))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("需要 JDK 21+");
+    }
+
+    @Test
+    void virtualModeIsActiveOnJdk21() {
+        assumeTrue(Runtime.version().feature() >= 21);
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThat(new ExecutionThreads(environment).isVirtual()).isTrue();
+    }
+}
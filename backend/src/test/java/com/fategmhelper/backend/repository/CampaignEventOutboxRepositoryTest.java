@@ -0,0 +1,113 @@
+package com.fategmhelper.backend.repository;
+
+import com.fategmhelper.backend.repository.CampaignEventOutboxRepository.Entry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 多实例路径在嵌入式 H2（MySQL 模式）上的 SQL：outbox 的写入、按 id 续读、补查缺口和过期清理，
+ * 以及锁定战役行的查询确实带 for update。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.fategmhelper.backend.repository.CampaignEventOutboxRepositoryTest$Recorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CampaignEventOutboxRepository.class)
+class CampaignEventOutboxRepositoryTest {
+
+    @Autowired
+    private CampaignEventOutboxRepository outbox;
+    @Autowired
+    private CampaignRepository campaignRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("delete from campaign_event_outbox");
+        jdbc.update("delete from campaign");
+        jdbc.update("insert into campaign (id, name) values (1, 'c1')");
+        Recorder.SQL.clear();
+    }
+
+    @Test
+    void rowsAreReadInIdOrderAfterCursor() {
+        long start = outbox.maxId();
+        outbox.insert(1L, "round.opened", "{\"id\":1}", "node-a");
+        outbox.insert(1L, "submission.batch", "[]", "node-b");
+        outbox.insert(2L, "round.closed", "{}", "node-a");
+
+        List<Entry> first = outbox.findAfter(start, 2);
+        assertThat(first).extracting(Entry::topic).containsExactly("round.opened", "submission.batch");
+        assertThat(first.get(0).payload()).isEqualTo("{\"id\":1}");
+        assertThat(first.get(1).origin()).isEqualTo("node-b");
+        List<Entry> rest = outbox.findAfter(first.get(1).id(), 2);
+        assertThat(rest).extracting(Entry::campaignId).containsExactly(2L);
+        assertThat(outbox.maxId()).isEqualTo(rest.get(0).id());
+    }
+
+    @Test
+    void gapsAreRecheckedById() {
+        outbox.insert(1L, "round.opened", "{}", "node-a");
+        outbox.insert(1L, "round.closed", "{}", "node-a");
+        long last = outbox.maxId();
+
+        assertThat(outbox.findByIds(List.of(last, last - 1, last + 100))).extracting(Entry::id)
+                .containsExactly(last - 1, last);
+        assertThat(outbox.findByIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void expiredRowsAreDeleted() {
+        outbox.insert(1L, "round.opened", "{}", "node-a");
+        jdbc.update("update campaign_event_outbox set created_at = ?", Timestamp.from(Instant.parse("2020-01-01T00:00:00Z")));
+        outbox.insert(1L, "round.closed", "{}", "node-a");
+
+        assertThat(outbox.deleteCreatedBefore(Instant.now().minusSeconds(3600))).isEqualTo(1);
+        assertThat(outbox.findAfter(0, 10)).extracting(Entry::topic).containsExactly("round.closed");
+    }
+
+    @Test
+    void campaignRowLockIsSelectForUpdate() {
+        assertThat(campaignRepository.findByIdForUpdate(1L)).isPresent();
+
+        assertThat(Recorder.SQL).anySatisfy(sql -> assertThat(sql.toLowerCase(Locale.ROOT)).contains("for update"));
+    }
+
+    @Configuration
+    @EntityScan("com.fategmhelper.backend.domain")
+    @EnableJpaRepositories("com.fategmhelper.backend.repository")
+    static class JpaOnly {
+    }
+
+    /** 记录 Hibernate 生成的 SQL */
+    public static class Recorder implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
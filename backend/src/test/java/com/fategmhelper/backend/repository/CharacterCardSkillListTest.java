@@ -0,0 +1,123 @@
+package com.fategmhelper.backend.repository;
+
+import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.domain.SkillItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 技能列表列的不可变契约：只加载不访问时既不解析 JSON，也不产生 UPDATE；整体替换的列表会写回，
+ * 读出的列表不能原地修改。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:skill-list;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.fategmhelper.backend.repository.CharacterCardSkillListTest$Recorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterCardSkillListTest {
+
+    private static final String SKILLS = "[{\"name\":\"对魔力\",\"rank\":\"A\",\"desc\":\"\"}]";
+
+    @Autowired
+    private CharacterCardRepository repository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        // H2 的 json 列会把绑定的字符串参数存成 JSON 字符串值，与 MySQL 不同；这里改为文本列，只验证实体层的行为
+        jdbc.execute("alter table character_card modify column class_skills longtext");
+        jdbc.update("delete from character_card");
+        jdbc.update("insert into character_card (id, code, card_type, retired, class_skills) values (1, 'saber', 'SERVANT', false, ?)",
+                SKILLS);
+        Recorder.SQL.clear();
+    }
+
+    @Test
+    void untouchedLoadNeitherDecodesNorUpdates() {
+        CharacterCard card = repository.findById(1L).orElseThrow();
+        card.setCode("saber-alter");
+
+        entityManager.flush();
+
+        // 只有 code 变化时 UPDATE 仍会带上技能列，写回的是加载时的原始 JSON，列表本身没有解析
+        assertThat(ReflectionTestUtils.getField(card.getClassSkills(), "items")).isNull();
+        assertThat(jdbc.queryForObject("select class_skills from character_card where id = 1", String.class))
+                .isEqualTo(SKILLS);
+
+        Recorder.SQL.clear();
+        entityManager.clear();
+        repository.findById(1L).orElseThrow();
+        entityManager.flush();
+
+        assertThat(updates()).isEmpty();
+    }
+
+    @Test
+    void replacedListIsPersisted() {
+        CharacterCard card = repository.findById(1L).orElseThrow();
+        assertThat(card.getClassSkills()).extracting(SkillItem::getName).containsExactly("对魔力");
+
+        List<SkillItem> replaced = new ArrayList<>(card.getClassSkills());
+        replaced.add(SkillItem.builder().name("骑乘").rank("B").build());
+        card.setClassSkills(replaced);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(updates()).hasSize(1);
+        assertThat(repository.findById(1L).orElseThrow().getClassSkills())
+                .extracting(SkillItem::getName).containsExactly("对魔力", "骑乘");
+    }
+
+    @Test
+    void loadedListIsReadOnly() {
+        CharacterCard card = repository.findById(1L).orElseThrow();
+
+        assertThatThrownBy(() -> card.getClassSkills().add(SkillItem.builder().name("骑乘").build()))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(card.getPersonalSkills()).isEmpty();
+    }
+
+    private static List<String> updates() {
+        return Recorder.SQL.stream().filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("update")).toList();
+    }
+
+    @Configuration
+    @EntityScan("com.fategmhelper.backend.domain")
+    @EnableJpaRepositories("com.fategmhelper.backend.repository")
+    static class JpaOnly {
+    }
+
+    /** 记录 Hibernate 生成的 SQL */
+    public static class Recorder implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
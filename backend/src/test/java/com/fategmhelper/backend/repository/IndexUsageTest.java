@@ -0,0 +1,224 @@
+package com.fategmhelper.backend.repository;
+
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fategmhelper.backend.domain.Round;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在嵌入式 H2（MySQL 模式）上执行全部 Flyway 迁移，调用热点仓库方法，
+ * 对 Hibernate 实际生成的 SQL 做 EXPLAIN，确认走的是迁移中建立的复合索引，
+ * 而不是全表扫描或只覆盖外键列的索引。
+ * <p>
+ * 空表上各索引代价相同，优化器的选择没有意义，因此先按典型分布写入数据并 ANALYZE：
+ * 20 个战役，每个 40 回合、5 张角色卡，每回合 7 个阶职 × 2 种行动各有一条当前提交和一条已覆盖提交；
+ * 另有 200 张通用卡在每个战役都分配了灵脉。
+ * <p>
+ * 形如 campaign_id = ? ORDER BY x DESC 的查询，H2 只在排序列从索引首列起一致时才计入排序收益，
+ * 也不会倒序扫描索引，因此在外键索引和复合索引之间的选择没有意义（MySQL 会用复合索引倒序扫描免去排序）。
+ * 这类查询只断言按 campaign_id 走索引而非全表扫描，另外核对复合索引的列顺序覆盖了排序列。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-usage;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.fategmhelper.backend.repository.IndexUsageTest$Recorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IndexUsageTest {
+
+    @Autowired
+    private RoundRepository roundRepository;
+    @Autowired
+    private ActionSubmissionRepository actionSubmissionRepository;
+    @Autowired
+    private CharacterStatusRepository characterStatusRepository;
+    @Autowired
+    private ActionHistoryRepository actionHistoryRepository;
+    @Autowired
+    private LeylineAssignmentRepository leylineAssignmentRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * ANALYZE 会提交当前事务，数据因此保留到后续用例，只需写入一次。
+     */
+    @BeforeEach
+    void seed() {
+        if (jdbc.queryForObject("select count(*) from campaign", Long.class) > 0) {
+            return;
+        }
+        jdbc.execute("insert into campaign (id, name) select r.n, concat('c', r.n) from system_range(1, 20) r(n)");
+        jdbc.execute("""
+                insert into campaign_round (campaign_id, turn_number, status)
+                select c.n, t.n, case when t.n = 40 then 'OPEN' else 'CLOSED' end
+                  from system_range(1, 20) c(n), system_range(1, 40) t(n)
+                """);
+        jdbc.execute("""
+                insert into action_submission (round_id, round_number, campaign_id, servant_class, action_type, content, is_current)
+                select r.id, r.turn_number, r.campaign_id, concat('C', k.n), t.type, 'x', v.n = 2
+                  from campaign_round r, system_range(1, 7) k(n), system_range(1, 2) v(n),
+                       (select 'SERVANT_ACTION' as type union all select 'MASTER_ACTION') t
+                """);
+        jdbc.execute("""
+                insert into character_card (id, code, card_type, campaign_id, retired)
+                select r.n, concat('card', r.n), 'SERVANT', case when r.n <= 100 then (r.n - 1) / 5 + 1 end, false
+                  from system_range(1, 300) r(n)
+                """);
+        jdbc.execute("""
+                insert into character_status (character_card_id, campaign_id, round_number, updated_at)
+                select c.id, c.campaign_id, t.n, current_timestamp
+                  from character_card c, system_range(1, 40) t(n)
+                 where c.campaign_id is not null
+                """);
+        jdbc.execute("""
+                insert into action_history (campaign_id, round_number)
+                select campaign_id, turn_number from campaign_round
+                """);
+        jdbc.execute("""
+                insert into leyline (id, campaign_id, name, mana_amount, battlefield_width, population_flow)
+                select r.n, (r.n - 1) / 3 + 1, concat('l', r.n), 1, 1, 1 from system_range(1, 60) r(n)
+                """);
+        jdbc.execute("""
+                insert into leyline_assignment (campaign_id, leyline_id, character_card_id)
+                select c.campaign_id, (c.campaign_id - 1) * 3 + 1, c.id from character_card c where c.campaign_id is not null
+                """);
+        jdbc.execute("""
+                insert into leyline_assignment (campaign_id, leyline_id, character_card_id)
+                select k.n, (k.n - 1) * 3 + 2, c.id from character_card c, system_range(1, 20) k(n) where c.campaign_id is null
+                """);
+        jdbc.execute("analyze");
+    }
+
+    @Test
+    void openRoundLookupUsesCampaignStatusTurnIndex() {
+        assertUsesIndex(() -> roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(1L, Round.Status.OPEN),
+                "idx_round_campaign_status_turn", 1L, "OPEN", 1);
+    }
+
+    @Test
+    void latestTurnLookupUsesCampaignIndex() {
+        assertSeeksOn(() -> roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(1L), "campaign_id", 1L, 1);
+        assertIndexColumns("campaign_round", "uk_round_campaign_turn", "campaign_id", "turn_number");
+    }
+
+    @Test
+    void turnNumbersAreUniquePerCampaign() {
+        assertThat(jdbc.queryForObject("""
+                select index_type_name from information_schema.indexes
+                 where table_name = 'campaign_round' and index_name = 'uk_round_campaign_turn'
+                """, String.class)).isEqualTo("UNIQUE INDEX");
+    }
+
+    @Test
+    void clearCurrentForSlotUsesSlotIndex() {
+        assertUsesIndex(() -> actionSubmissionRepository.clearCurrentForSlot(1L, "SABER", ActionType.SERVANT_ACTION),
+                "idx_action_submission_slot", 1L, "SABER", "SERVANT_ACTION");
+    }
+
+    @Test
+    void clearCurrentForSlotsUsesSlotIndex() {
+        assertUsesIndex(() -> actionSubmissionRepository.clearCurrentForSlots(1L, ActionType.SERVANT_ACTION, List.of("SABER", "ARCHER")),
+                "idx_action_submission_slot", 1L, "SERVANT_ACTION", "SABER", "ARCHER");
+    }
+
+    @Test
+    void currentInOpenRoundUsesCampaignCurrentIndex() {
+        assertUsesIndex(() -> actionSubmissionRepository.findCurrentInOpenRound(1L),
+                "idx_action_submission_campaign_current", 1L, 1L);
+    }
+
+    @Test
+    void statusesByRoundUseCampaignRoundIndex() {
+        assertUsesIndex(() -> characterStatusRepository.findByCampaignIdAndRoundNumber(1L, 1),
+                "idx_character_status_campaign_round", 1L, 1);
+    }
+
+    @Test
+    void statusesByCampaignUseCampaignIndex() {
+        assertSeeksOn(() -> characterStatusRepository.findByCampaignIdOrderByRoundDesc(1L), "campaign_id", 1L);
+        assertIndexColumns("character_status", "idx_character_status_campaign_round",
+                "campaign_id", "round_number", "updated_at");
+    }
+
+    @Test
+    void historyPageUsesCampaignIndex() {
+        assertSeeksOn(() -> actionHistoryRepository.findByCampaignIdOrderByRoundNumberDescIdDesc(1L, PageRequest.of(0, 20)),
+                "campaign_id", 1L, 20);
+        assertSeeksOn(() -> actionHistoryRepository.findPageBefore(1L, 10, 100L, PageRequest.of(0, 20)),
+                "campaign_id", 1L, 10, 10, 100L, 20);
+        assertIndexColumns("action_history", "idx_action_history_campaign_round", "campaign_id", "round_number");
+    }
+
+    @Test
+    void assignmentLookupUsesCampaignCardIndex() {
+        assertUsesIndex(() -> leylineAssignmentRepository.findByCampaignIdAndCharacterCardId(1L, 1L),
+                "idx_leyline_assignment_campaign_card", 1L, 1L);
+    }
+
+    /**
+     * 执行仓库调用并取其最后一条 SQL，按给定参数 EXPLAIN，断言计划使用了指定索引。
+     */
+    private void assertUsesIndex(Runnable call, String index, Object... params) {
+        assertThat(explain(call, params)).contains("/* public." + index + ":");
+    }
+
+    /**
+     * 断言计划以 column 上的等值条件走索引查找（任一以该列开头的索引），而不是全表扫描。
+     */
+    private void assertSeeksOn(Runnable call, String column, Object... params) {
+        assertThat(explain(call, params))
+                .doesNotContain("tablescan")
+                .containsPattern("/\\* public\\.\\w+: " + column + " = \\?1");
+    }
+
+    private void assertIndexColumns(String table, String index, String... columns) {
+        assertThat(jdbc.queryForList("""
+                select column_name from information_schema.index_columns
+                 where table_name = ? and index_name = ?
+                 order by ordinal_position
+                """, String.class, table, index)).containsExactly(columns);
+    }
+
+    private String explain(Runnable call, Object... params) {
+        Recorder.STATEMENTS.clear();
+        call.run();
+        assertThat(Recorder.STATEMENTS).as("仓库调用没有执行 SQL").isNotEmpty();
+        String sql = Recorder.STATEMENTS.get(Recorder.STATEMENTS.size() - 1);
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, params)).toLowerCase(Locale.ROOT);
+    }
+
+    @Configuration
+    @EntityScan("com.fategmhelper.backend.domain")
+    @EnableJpaRepositories("com.fategmhelper.backend.repository")
+    static class JpaOnly {
+    }
+
+    /**
+     * 记录 Hibernate 发出的 SQL，供 EXPLAIN 使用。
+     */
+    public static class Recorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 写线程按时间窗口或批次上限取出一批，按战役拆分后在各自邮箱内写入；调用方拿到的结果与输入一一对应。
+ */
+class ActionSubmissionGroupCommitterTest {
+
+    private final ActionSubmissionService service = mock(ActionSubmissionService.class);
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final ExecutionThreads threads = new ExecutionThreads(new MockEnvironment());
+    private final CampaignExecutor executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMinutes(10));
+    /** 每次 submitBatch 收到的批次 */
+    private final List<List<SubmissionCommand>> batches = Collections.synchronizedList(new ArrayList<>());
+    private ActionSubmissionGroupCommitter committer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (committer != null) {
+            committer.stop();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void submissionsWithinWindowShareOneBatch() throws Exception {
+        writesSucceed();
+        committer = start(200, 100, 10_000);
+
+        List<CompletableFuture<SubmissionOutcome>> futures = List.of(
+                committer.submitAsync(command(1L, "弓")),
+                committer.submitAsync(command(1L, "枪")),
+                committer.submitAsync(command(1L, "骑")));
+
+        assertThat(outcomes(futures)).extracting(o -> o.getSubmission().getServantClass())
+                .containsExactly("弓", "枪", "骑");
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(3);
+    }
+
+    @Test
+    void fullBatchIsFlushedBeforeWindowEnds() throws Exception {
+        writesSucceed();
+        committer = start(60_000, 2, 10_000);
+
+        List<CompletableFuture<SubmissionOutcome>> futures = List.of(
+                committer.submitAsync(command(1L, "弓")),
+                committer.submitAsync(command(1L, "枪")));
+
+        // 窗口长达一分钟，只有达到批次上限才会在几秒内写入
+        assertThat(outcomes(futures)).hasSize(2);
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void windowIsSplitByCampaign() throws Exception {
+        writesSucceed();
+        committer = start(200, 100, 10_000);
+
+        List<CompletableFuture<SubmissionOutcome>> futures = List.of(
+                committer.submitAsync(command(1L, "弓")),
+                committer.submitAsync(command(2L, "枪")),
+                committer.submitAsync(command(1L, "骑")));
+
+        assertThat(outcomes(futures)).extracting(o -> o.getSubmission().getServantClass())
+                .containsExactly("弓", "枪", "骑");
+        assertThat(batches).extracting(List::size).containsExactlyInAnyOrder(2, 1);
+    }
+
+    @Test
+    void failedCampaignOnlyFailsItsOwnEntries() throws Exception {
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+        when(service.submitBatch(anyList())).thenAnswer(invocation -> {
+            List<SubmissionCommand> commands = invocation.getArgument(0);
+            if (commands.get(0).getCampaignId() == 2L) {
+                throw new IllegalStateException("写入失败");
+            }
+            return written(commands);
+        });
+        committer = start(200, 100, 10_000);
+
+        CompletableFuture<SubmissionOutcome> ok = committer.submitAsync(command(1L, "弓"));
+        CompletableFuture<SubmissionOutcome> failed = committer.submitAsync(command(2L, "枪"));
+
+        assertThat(ok.get(5, TimeUnit.SECONDS).isRejected()).isFalse();
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(IllegalStateException.class).hasMessage("写入失败");
+    }
+
+    @Test
+    void submitAllReportsFailuresPerEntry() throws Exception {
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+        when(campaignRepository.existsById(3L)).thenReturn(false);
+        when(service.submitBatch(anyList())).thenAnswer(invocation -> {
+            List<SubmissionCommand> commands = invocation.getArgument(0);
+            if (commands.get(0).getCampaignId() == 2L) {
+                throw new IllegalStateException("写入失败");
+            }
+            return written(commands);
+        });
+        committer = start(200, 100, 10_000);
+
+        List<SubmissionOutcome> outcomes = committer.submitAllAsync(List.of(
+                command(1L, "弓"), command(2L, "枪"), command(3L, "骑"), command(1L, "剑"))).get(5, TimeUnit.SECONDS);
+
+        assertThat(outcomes).extracting(SubmissionOutcome::getStatus).containsExactly(
+                SubmissionOutcome.Status.ACCEPTED, SubmissionOutcome.Status.REJECTED,
+                SubmissionOutcome.Status.REJECTED, SubmissionOutcome.Status.ACCEPTED);
+        assertThat(outcomes.get(1).getMessage()).isEqualTo("写入失败");
+        assertThat(outcomes.get(2).getMessage()).contains("未找到对应战役");
+    }
+
+    @Test
+    void unacknowledgedSubmissionTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+        when(service.submitBatch(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return written(invocation.getArgument(0));
+        });
+        committer = start(1, 100, 100);
+        try {
+            CompletableFuture<SubmissionOutcome> future = committer.submitAsync(command(1L, "弓"));
+
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .cause().isInstanceOf(IllegalStateException.class).hasMessageContaining("超时");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void stoppedCommitterRejectsSubmissions() throws InterruptedException {
+        committer = start(200, 100, 10_000);
+        committer.stop();
+
+        assertThatThrownBy(() -> committer.submitAsync(command(1L, "弓")))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private ActionSubmissionGroupCommitter start(long windowMillis, int maxBatch, long ackTimeoutMillis) {
+        ActionSubmissionGroupCommitter started = new ActionSubmissionGroupCommitter(service, executor, threads,
+                true, windowMillis, maxBatch, 1024, ackTimeoutMillis);
+        started.start();
+        return started;
+    }
+
+    private void writesSucceed() {
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+        when(service.submitBatch(anyList())).thenAnswer(invocation -> written(invocation.getArgument(0)));
+    }
+
+    private List<SubmissionOutcome> written(List<SubmissionCommand> commands) {
+        batches.add(commands);
+        return commands.stream()
+                .map(c -> SubmissionOutcome.written(ActionSubmission.builder()
+                        .servantClass(c.getServantClass())
+                        .actionType(c.getActionType())
+                        .content(c.getContent())
+                        .current(true)
+                        .build()))
+                .toList();
+    }
+
+    private static List<SubmissionOutcome> outcomes(List<CompletableFuture<SubmissionOutcome>> futures) throws Exception {
+        List<SubmissionOutcome> outcomes = new ArrayList<>();
+        for (CompletableFuture<SubmissionOutcome> future : futures) {
+            outcomes.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return outcomes;
+    }
+
+    private static SubmissionCommand command(Long campaignId, String servantClass) {
+        return new SubmissionCommand(campaignId, servantClass, ActionType.SERVANT_ACTION, "行动", "gm");
+    }
+}
@@ -0,0 +1,153 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 同一战役的任务按到达顺序串行执行；单次排空有上限，热点战役不会饿死其他战役。
+ */
+class CampaignExecutorTest {
+
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final ExecutionThreads threads = new ExecutionThreads(new MockEnvironment());
+    private CampaignExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void tasksOfOneCampaignRunInSubmissionOrder() throws Exception {
+        campaignsExist();
+        executor = new CampaignExecutor(threads, campaignRepository, 4, Duration.ofMinutes(10));
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<?>> futures = IntStream.range(0, 200)
+                .<CompletableFuture<?>>mapToObj(i -> executor.submit(1L, () -> order.add(i)))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertThat(order).isEqualTo(IntStream.range(0, 200).boxed().toList());
+        verify(campaignRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void busyCampaignYieldsWorkerAfterDrainLimit() throws Exception {
+        campaignsExist();
+        executor = new CampaignExecutor(threads, campaignRepository, 1, Duration.ofMinutes(10));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(1L, () -> {
+            started.countDown();
+            await(release);
+            order.add("A0");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 40; i++) {
+            String label = "A" + i;
+            futures.add(executor.submit(1L, () -> order.add(label)));
+        }
+        futures.add(executor.submit(2L, () -> order.add("B")));
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // 唯一的工作线程排空战役 1 的 32 个任务后让出，战役 2 排在其余任务之前
+        assertThat(order.indexOf("B")).isEqualTo(32);
+        assertThat(order).hasSize(42);
+    }
+
+    @Test
+    void taskFailureReachesCallerAndMailboxKeepsRunning() throws Exception {
+        campaignsExist();
+        executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMinutes(10));
+
+        CompletableFuture<Object> failed = executor.submit(1L, () -> {
+            throw new IllegalArgumentException("参数错误");
+        });
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(IllegalArgumentException.class).hasMessage("参数错误");
+        assertThatThrownBy(() -> executor.call(1L, () -> {
+            throw new IllegalStateException("状态错误");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("状态错误");
+        assertThat(executor.submit(1L, () -> "ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void unknownCampaignIsRejected() {
+        when(campaignRepository.existsById(anyLong())).thenReturn(false);
+        executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMinutes(10));
+
+        assertThatThrownBy(() -> executor.submit(9L, () -> "x").get(5, TimeUnit.SECONDS))
+                .cause().isInstanceOf(IllegalArgumentException.class).hasMessageContaining("未找到对应战役");
+        assertThatThrownBy(() -> executor.call(9L, () -> "x"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("未找到对应战役");
+    }
+
+    @Test
+    void idleMailboxIsEvictedWhenAnotherIsCreated() throws Exception {
+        campaignsExist();
+        executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMillis(20));
+
+        executor.submit(1L, () -> "a").get(5, TimeUnit.SECONDS);
+        Thread.sleep(60);
+        executor.submit(2L, () -> "b").get(5, TimeUnit.SECONDS);
+        executor.submit(1L, () -> "c").get(5, TimeUnit.SECONDS);
+
+        // 战役 1 的邮箱已被回收，再次提交时重新确认战役存在
+        verify(campaignRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    void callForAnotherCampaignInsideMailboxIsRejected() throws Exception {
+        campaignsExist();
+        executor = new CampaignExecutor(threads, campaignRepository, 1, Duration.ofMinutes(10));
+
+        CompletableFuture<String> nested = executor.submit(1L, () -> executor.call(2L, () -> "b"));
+        CompletableFuture<String> sameCampaign = executor.submit(1L, () -> executor.call(1L, () -> "a"));
+
+        assertThatThrownBy(() -> nested.get(5, TimeUnit.SECONDS))
+                .cause().isInstanceOf(IllegalStateException.class).hasMessageContaining("战役 2");
+        assertThat(sameCampaign.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+    }
+
+    private void campaignsExist() {
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.service.search.CharacterCardSearchIndex;
+import com.fategmhelper.backend.web.CharacterCardController;
+import com.fategmhelper.backend.web.dto.CharacterCardPage;
+import com.fategmhelper.backend.web.dto.CharacterCardResponse;
+import com.fategmhelper.backend.web.dto.CharacterCardSummary;
+import com.fategmhelper.backend.web.exception.RestExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 角色卡游标分页在嵌入式 H2（MySQL 模式）上的行为：游标逐页接续、按战役过滤时包含通用卡、
+ * withTotal 统计同一范围，以及非法游标与 limit 的 400。
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:card-paging;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterCardServiceTest {
+
+    @Autowired
+    private CharacterCardRepository repository;
+    @Autowired
+    private CampaignRepository campaignRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+    private CharacterCardService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from character_card");
+        jdbc.update("delete from campaign");
+        jdbc.update("insert into campaign (id, name) values (1, 'c1'), (2, 'c2')");
+        // 战役 1：2、5、8；战役 2：3、6、9；通用卡：1、4、7
+        for (long id = 1; id <= 9; id++) {
+            Long campaign = id % 3 == 1 ? null : id % 3 == 2 ? 1L : 2L;
+            jdbc.update("insert into character_card (id, code, card_type, campaign_id, retired) values (?, ?, 'SERVANT', ?, false)",
+                    id, "card" + id, campaign);
+        }
+        service = new CharacterCardService(repository, campaignRepository, mock(CharacterCardSearchIndex.class));
+    }
+
+    @Test
+    void pageCursorsChainUntilLastPage() {
+        List<List<Long>> pages = chain(cursor -> service.page(null, cursor, 4, false), CharacterCardResponse::getId);
+
+        assertThat(pages).containsExactly(List.of(1L, 2L, 3L, 4L), List.of(5L, 6L, 7L, 8L), List.of(9L));
+    }
+
+    @Test
+    void campaignFilterIncludesUniversalCards() {
+        assertThat(chain(cursor -> service.page(1L, cursor, 2, false), CharacterCardResponse::getId))
+                .containsExactly(List.of(1L, 2L), List.of(4L, 5L), List.of(7L, 8L));
+        assertThat(chain(cursor -> service.summaries(2L, cursor, 10, false), CharacterCardSummary::getId))
+                .containsExactly(List.of(1L, 3L, 4L, 6L, 7L, 9L));
+    }
+
+    @Test
+    void summariesCarryCampaignNameAndChainLikePages() {
+        assertThat(chain(cursor -> service.summaries(null, cursor, 4, false), CharacterCardSummary::getId))
+                .containsExactly(List.of(1L, 2L, 3L, 4L), List.of(5L, 6L, 7L, 8L), List.of(9L));
+
+        List<CharacterCardSummary> first = service.summaries(1L, null, 2, false).getItems();
+        assertThat(first).extracting(CharacterCardSummary::getCampaignName).containsExactly(null, "c1");
+    }
+
+    @Test
+    void totalIsCountedOnlyWhenRequested() {
+        assertThat(service.page(1L, null, 2, true).getTotal()).isEqualTo(6L);
+        assertThat(service.summaries(null, null, 2, true).getTotal()).isEqualTo(9L);
+        CharacterCardPage<CharacterCardResponse> page = service.page(1L, null, 2, false);
+        assertThat(page.getTotal()).isNull();
+
+        // 后续页带 withTotal 时仍统计整个范围，而不是游标之后的行数
+        assertThat(service.page(1L, page.getNextCursor(), 2, true).getTotal()).isEqualTo(6L);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoNextCursor() {
+        CharacterCardPage<CharacterCardSummary> page = service.summaries(2L, null, 6, false);
+
+        assertThat(page.getItems()).hasSize(6);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> service.page(null, "not-a-cursor", 4, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("无效的分页游标：not-a-cursor");
+        // 合法的 Base64 但前缀或数字不对
+        assertThatThrownBy(() -> service.summaries(null, "YzE6eA", 4, false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.summaries(null, "eDox", 4, false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void controllerAnswersBadRequest() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new CharacterCardController(service))
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+
+        mvc.perform(get("/api/character-cards/page").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("无效的分页游标：%%%"));
+        mvc.perform(get("/api/character-cards/summaries").param("cursor", "YzE6eA"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/character-cards/page").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/character-cards/summaries").param("limit", "201"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("limit 需在 1 到 200 之间"));
+        mvc.perform(get("/api/character-cards/summaries").param("limit", "200").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(9))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    /** 从首页起按 nextCursor 逐页请求，返回每页的 id */
+    private static <T> List<List<Long>> chain(Function<String, CharacterCardPage<T>> fetch, Function<T, Long> id) {
+        List<List<Long>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CharacterCardPage<T> page = fetch.apply(cursor);
+            pages.add(page.getItems().stream().map(id).toList());
+            cursor = page.getNextCursor();
+        } while (cursor != null && pages.size() < 10);
+        return pages;
+    }
+
+    @Configuration
+    @EntityScan("com.fategmhelper.backend.domain")
+    @EnableJpaRepositories("com.fategmhelper.backend.repository")
+    static class JpaOnly {
+    }
+}
@@ -0,0 +1,210 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.domain.CharacterStatus;
+import com.fategmhelper.backend.domain.StatusEffect;
+import com.fategmhelper.backend.domain.StatusEffect.StatusType;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.repository.CharacterStatusRepository;
+import com.fategmhelper.backend.service.archive.RoundArchiveStore;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import com.fategmhelper.backend.web.dto.CharacterStatusPatch;
+import com.fategmhelper.backend.web.dto.CharacterStatusRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 角色状态的版本号与补丁：JSON 列从 MySQL 读回时是规范化后的文本（键重新排序、空白不同），
+ * 与请求内容相同的自动保存不应提升版本号或推送空补丁；
+ * 异常状态列表按名称增删，表达不了时整体替换。
+ */
+class CharacterStatusServiceTest {
+
+    /** MySQL 对 [{"name":"中毒","type":"ABNORMAL","level":2}] 规范化后的形式 */
+    private static final String STORED_EFFECTS = "[{\"name\": \"中毒\", \"type\": \"ABNORMAL\", \"level\": 2}]";
+
+    private final CharacterStatusRepository statusRepository = mock(CharacterStatusRepository.class);
+    private final CampaignEvents campaignEvents = mock(CampaignEvents.class);
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final CharacterCardRepository cardRepository = mock(CharacterCardRepository.class);
+    private CharacterStatusService service;
+    private CharacterStatus status;
+
+    @BeforeEach
+    void setUp() {
+        Campaign campaign = Campaign.builder().id(1L).build();
+        CharacterCard card = CharacterCard.builder().id(2L).campaign(campaign).build();
+        status = CharacterStatus.builder()
+                .id(3L)
+                .campaign(campaign)
+                .characterCard(card)
+                .roundNumber(1)
+                .version(4L)
+                .statusEffects("{\"level\": 1, \"name\": \"回避\"}")
+                .statusEffectsList(STORED_EFFECTS)
+                .build();
+
+        when(campaignRepository.findById(1L)).thenReturn(Optional.of(campaign));
+        when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
+        when(statusRepository.findByCharacterCardIdAndCampaignIdAndRoundNumber(2L, 1L, 1)).thenReturn(Optional.of(status));
+        when(statusRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service = service(new ObjectMapper());
+    }
+
+    private CharacterStatusService service(ObjectMapper objectMapper) {
+        return new CharacterStatusService(statusRepository, cardRepository, campaignRepository,
+                objectMapper, campaignEvents, mock(RoundArchiveStore.class));
+    }
+
+    @Test
+    void identicalAutosaveIsNotAChange() {
+        CharacterStatusRequest req = request(List.of(new StatusEffect("中毒", StatusType.ABNORMAL, 2)));
+        req.setStatusEffects("{\"name\":\"回避\",\"level\":1.0}");
+
+        assertThat(service.updateOrCreate(req).getVersion()).isEqualTo(4L);
+
+        // 与改动前一样照常保存（没有脏字段时不会产生 UPDATE），只是不提升版本号、不推送
+        verify(statusRepository).save(status);
+        verify(campaignEvents, never()).publish(any(), any(), any());
+    }
+
+    @Test
+    void changedFieldsArePatchedAgainstBaseVersion() {
+        CharacterStatusRequest req = request(null);
+        req.setCurrentMana(7);
+        req.setNotes("备注");
+
+        assertThat(service.updateOrCreate(req).getVersion()).isEqualTo(5L);
+
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getBaseVersion()).isEqualTo(4L);
+        assertThat(sent.getVersion()).isEqualTo(5L);
+        assertThat(sent.getChanges()).containsOnlyKeys("currentMana", "notes").containsEntry("currentMana", 7);
+        assertThat(sent.getEffectsUpserted()).isEmpty();
+        assertThat(sent.getEffectsRemoved()).isEmpty();
+        assertThat(sent.getEffectsReplaced()).isNull();
+        assertThat(status.getStatusEffectsList()).isEqualTo(STORED_EFFECTS);
+    }
+
+    @Test
+    void addedAndRemovedEffectsArePatchedByName() {
+        CharacterStatusRequest req = request(List.of(new StatusEffect("魅惑", StatusType.DEBUFF, 1)));
+
+        service.updateOrCreate(req);
+
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getEffectsUpserted()).containsExactly(new StatusEffect("魅惑", StatusType.DEBUFF, 1));
+        assertThat(sent.getEffectsRemoved()).containsExactly("中毒");
+        assertThat(sent.getEffectsReplaced()).isNull();
+    }
+
+    @Test
+    void clearingEffectsIsARemoval() {
+        service.updateOrCreate(request(List.of()));
+
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getEffectsRemoved()).containsExactly("中毒");
+        assertThat(sent.getEffectsReplaced()).isNull();
+        assertThat(status.getStatusEffectsList()).isEqualTo("[]");
+    }
+
+    @Test
+    void reorderedEffectsAreReplaced() {
+        status.setStatusEffectsList("[{\"name\":\"中毒\",\"type\":\"ABNORMAL\",\"level\":2},"
+                + "{\"name\":\"魅惑\",\"type\":\"DEBUFF\",\"level\":1}]");
+        List<StatusEffect> requested = List.of(
+                new StatusEffect("魅惑", StatusType.DEBUFF, 1),
+                new StatusEffect("中毒", StatusType.ABNORMAL, 2));
+
+        service.updateOrCreate(request(requested));
+
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getEffectsReplaced()).containsExactlyElementsOf(requested);
+        assertThat(sent.getEffectsUpserted()).isEmpty();
+        assertThat(sent.getEffectsRemoved()).isEmpty();
+    }
+
+    @Test
+    void duplicateNamesAreReplaced() {
+        List<StatusEffect> requested = List.of(
+                new StatusEffect("中毒", StatusType.ABNORMAL, 2),
+                new StatusEffect("中毒", StatusType.ABNORMAL, 1));
+
+        service.updateOrCreate(request(requested));
+
+        assertThat(publishedPatch().getEffectsReplaced()).containsExactlyElementsOf(requested);
+    }
+
+    @Test
+    void unreadableStoredEffectsAreReplaced() {
+        status.setStatusEffectsList("not json");
+        List<StatusEffect> requested = List.of(new StatusEffect("中毒", StatusType.ABNORMAL, 2));
+
+        service.updateOrCreate(request(requested));
+
+        assertThat(publishedPatch().getEffectsReplaced()).containsExactlyElementsOf(requested);
+    }
+
+    @Test
+    void effectsSerializationFailureKeepsStoredListAndSavesOtherFields() throws Exception {
+        ObjectMapper failing = spy(new ObjectMapper());
+        doThrow(new JsonProcessingException("boom") { }).when(failing).writeValueAsString(anyList());
+        CharacterStatusRequest req = request(List.of(new StatusEffect("中毒", StatusType.ABNORMAL, 3)));
+        req.setCurrentMana(7);
+
+        assertThat(service(failing).updateOrCreate(req).getVersion()).isEqualTo(5L);
+
+        assertThat(status.getStatusEffectsList()).isEqualTo(STORED_EFFECTS);
+        assertThat(status.getCurrentMana()).isEqualTo(7);
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getChanges()).containsOnlyKeys("currentMana");
+        assertThat(sent.getEffectsUpserted()).isEmpty();
+    }
+
+    @Test
+    void changedEffectIsPatched() {
+        CharacterStatusRequest req = request(List.of(new StatusEffect("中毒", StatusType.ABNORMAL, 3)));
+
+        assertThat(service.updateOrCreate(req).getVersion()).isEqualTo(5L);
+
+        CharacterStatusPatch sent = publishedPatch();
+        assertThat(sent.getChanges()).isEmpty();
+        assertThat(sent.getEffectsUpserted()).containsExactly(new StatusEffect("中毒", StatusType.ABNORMAL, 3));
+    }
+
+    private CharacterStatusPatch publishedPatch() {
+        ArgumentCaptor<Object> patch = ArgumentCaptor.forClass(Object.class);
+        verify(campaignEvents).publish(eq(1L), eq(CampaignEventType.STATUS_PATCHED), patch.capture());
+        return (CharacterStatusPatch) patch.getValue();
+    }
+
+    private static CharacterStatusRequest request(List<StatusEffect> effects) {
+        CharacterStatusRequest req = new CharacterStatusRequest();
+        req.setCharacterCardId(2L);
+        req.setCampaignId(1L);
+        req.setRoundNumber(1);
+        req.setStatusEffectsList(effects);
+        return req;
+    }
+}
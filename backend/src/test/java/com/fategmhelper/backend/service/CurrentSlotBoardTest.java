@@ -0,0 +1,172 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.RoundRepository;
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import com.fategmhelper.backend.web.dto.ActionSubmissionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 看板未命中时在 ConcurrentHashMap 之外加载；加载期间有写入时不缓存可能过期的结果。
+ * 回合关闭或下一回合开启后看板清空。
+ */
+class CurrentSlotBoardTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    private final ActionSubmissionRepository repository = mock(ActionSubmissionRepository.class);
+    private final CurrentSlotBoard board = new CurrentSlotBoard(repository);
+
+    @Test
+    void loadedBoardIsCachedAndUpdated() {
+        when(repository.findCurrentInOpenRound(CAMPAIGN)).thenReturn(List.of(row(1L, "弓", "侦察")));
+
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("侦察");
+        board.apply(CAMPAIGN, List.of(ActionSubmissionResponse.fromEntity(row(2L, "弓", "机动"))));
+
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("机动");
+        verify(repository, times(1)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    @Test
+    void writeDuringLoadIsNotLostToStaleCache() {
+        // 加载读到旧数据时，本批写入因看板尚未缓存被跳过
+        when(repository.findCurrentInOpenRound(CAMPAIGN))
+                .thenAnswer(invocation -> {
+                    board.apply(CAMPAIGN, List.of(ActionSubmissionResponse.fromEntity(row(2L, "弓", "机动"))));
+                    return List.of(row(1L, "弓", "侦察"));
+                })
+                .thenReturn(List.of(row(2L, "弓", "机动")));
+
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("侦察");
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("机动");
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("机动");
+        verify(repository, times(2)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    @Test
+    void resetDuringLoadWins() {
+        when(repository.findCurrentInOpenRound(CAMPAIGN)).thenAnswer(invocation -> {
+            board.reset(CAMPAIGN, 11L);
+            return List.of(row(1L, "弓", "侦察"));
+        });
+
+        board.list(CAMPAIGN);
+
+        assertThat(board.list(CAMPAIGN)).isEmpty();
+        verify(repository, times(1)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    @Test
+    void applyOnAnotherThreadDuringColdListIsNotLost() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch applied = new CountDownLatch(1);
+        when(repository.findCurrentInOpenRound(CAMPAIGN))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    applied.await(5, TimeUnit.SECONDS);
+                    return List.of(row(1L, "弓", "侦察"));
+                })
+                .thenReturn(List.of(row(2L, "弓", "机动")));
+
+        CompletableFuture<List<ActionSubmissionResponse>> reader = CompletableFuture.supplyAsync(() -> board.list(CAMPAIGN));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> board.apply(CAMPAIGN,
+                List.of(ActionSubmissionResponse.fromEntity(row(2L, "弓", "机动"))))).get(5, TimeUnit.SECONDS);
+        applied.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        // 加载期间的写入让旧结果不被缓存，之后的读取看到该写入
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("机动");
+        board.apply(CAMPAIGN, List.of(ActionSubmissionResponse.fromEntity(row(3L, "枪", "突击"))));
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getContent).containsExactly("机动", "突击");
+        verify(repository, times(2)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    @Test
+    void closingRoundClearsBoard() {
+        RoundRepository roundRepository = mock(RoundRepository.class);
+        Round open = Round.builder().id(10L).turnNumber(3).status(Round.Status.OPEN).build();
+        when(roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Round.Status.OPEN))
+                .thenReturn(Optional.of(open));
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN)).thenReturn(Optional.of(open));
+        when(roundRepository.findById(10L)).thenReturn(Optional.of(open));
+        when(roundRepository.save(any(Round.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        warmBoard();
+
+        roundService(roundRepository).closeCurrentRound(CAMPAIGN);
+
+        assertThat(board.list(CAMPAIGN)).isEmpty();
+        verify(repository, times(1)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    @Test
+    void openingNextRoundClearsBoard() {
+        RoundRepository roundRepository = mock(RoundRepository.class);
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN))
+                .thenReturn(Optional.of(Round.builder().id(10L).turnNumber(3).status(Round.Status.CLOSED).build()));
+        when(roundRepository.save(any(Round.class))).thenAnswer(invocation -> {
+            Round round = invocation.getArgument(0);
+            round.setId(11L);
+            return round;
+        });
+        CampaignRepository campaignRepository = mock(CampaignRepository.class);
+        when(campaignRepository.findById(CAMPAIGN)).thenReturn(Optional.of(Campaign.builder().id(CAMPAIGN).build()));
+        warmBoard();
+
+        new RoundService(roundRepository, campaignRepository, board, mock(CampaignEvents.class),
+                mock(CampaignEventRelay.class)).createNextRound(CAMPAIGN);
+
+        assertThat(board.list(CAMPAIGN)).isEmpty();
+        // 新回合的提交只进入新看板
+        board.apply(CAMPAIGN, List.of(ActionSubmissionResponse.fromEntity(
+                row(2L, 11L, "弓", "机动"))));
+        assertThat(board.list(CAMPAIGN)).extracting(ActionSubmissionResponse::getRoundId).containsExactly(11L);
+        verify(repository, times(1)).findCurrentInOpenRound(CAMPAIGN);
+    }
+
+    private void warmBoard() {
+        when(repository.findCurrentInOpenRound(CAMPAIGN)).thenReturn(List.of(row(1L, "弓", "侦察")));
+        assertThat(board.list(CAMPAIGN)).hasSize(1);
+    }
+
+    private RoundService roundService(RoundRepository roundRepository) {
+        return new RoundService(roundRepository, mock(CampaignRepository.class), board, mock(CampaignEvents.class),
+                mock(CampaignEventRelay.class));
+    }
+
+    private static ActionSubmission row(Long id, String servantClass, String content) {
+        return row(id, 10L, servantClass, content);
+    }
+
+    private static ActionSubmission row(Long id, Long roundId, String servantClass, String content) {
+        return ActionSubmission.builder()
+                .id(id)
+                .campaign(Campaign.builder().id(CAMPAIGN).build())
+                .round(Round.builder().id(roundId).build())
+                .servantClass(servantClass)
+                .actionType(ActionType.SERVANT_ACTION)
+                .content(content)
+                .current(true)
+                .build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.domain.Round.Status;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.RoundRepository;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 回合登记表：单实例时是权威状态，多实例（outbox）时只是缓存，开启/关闭回合与提交先锁定战役行、按数据库判断。
+ */
+class RoundServiceTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    private final RoundRepository roundRepository = mock(RoundRepository.class);
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final CurrentSlotBoard slotBoard = mock(CurrentSlotBoard.class);
+    private final CampaignEvents campaignEvents = mock(CampaignEvents.class);
+    private final CampaignEventRelay relay = mock(CampaignEventRelay.class);
+    private final Campaign campaign = Campaign.builder().id(CAMPAIGN).build();
+    private final AtomicLong ids = new AtomicLong(100);
+    private RoundService service;
+
+    @BeforeEach
+    void setUp() {
+        when(campaignRepository.findById(CAMPAIGN)).thenReturn(Optional.of(campaign));
+        when(campaignRepository.findByIdForUpdate(CAMPAIGN)).thenReturn(Optional.of(campaign));
+        when(campaignRepository.getReferenceById(CAMPAIGN)).thenReturn(campaign);
+        when(roundRepository.save(any())).thenAnswer(invocation -> {
+            Round round = invocation.getArgument(0);
+            if (round.getId() == null) {
+                round.setId(ids.incrementAndGet());
+            }
+            return round;
+        });
+        service = new RoundService(roundRepository, campaignRepository, slotBoard, campaignEvents, relay);
+    }
+
+    @Test
+    void submissionLocksCampaignRowOnlyWhenMultiInstance() {
+        assertThat(service.findCampaignForSubmission(CAMPAIGN)).contains(campaign);
+        verify(campaignRepository, never()).findByIdForUpdate(anyLong());
+
+        when(relay.multiInstance()).thenReturn(true);
+        assertThat(service.findCampaignForSubmission(CAMPAIGN)).contains(campaign);
+        verify(campaignRepository).findByIdForUpdate(CAMPAIGN);
+    }
+
+    @Test
+    void singleInstanceSubmissionTrustsRegistry() {
+        openInDatabase(round(10L, 3, Status.OPEN));
+
+        assertThat(service.currentRoundForUpdate(CAMPAIGN).getId()).isEqualTo(10L);
+        assertThat(service.currentRoundForUpdate(CAMPAIGN).getId()).isEqualTo(10L);
+
+        // 只在首次加载时查询，之后不核对状态也不加锁
+        verify(roundRepository, times(1)).findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Status.OPEN);
+        verify(roundRepository, never()).findStatusById(anyLong());
+        verify(campaignRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    void multiInstanceSubmissionRechecksCachedRound() {
+        when(relay.multiInstance()).thenReturn(true);
+        openInDatabase(round(10L, 3, Status.OPEN));
+        when(roundRepository.findStatusById(10L)).thenReturn(Optional.of(Status.OPEN));
+
+        assertThat(service.currentRoundForUpdate(CAMPAIGN).getId()).isEqualTo(10L);
+
+        // 其它实例关闭了回合 10 并开启了 11，通知尚未到达
+        when(roundRepository.findStatusById(10L)).thenReturn(Optional.of(Status.CLOSED));
+        openInDatabase(round(11L, 4, Status.OPEN));
+
+        assertThat(service.currentRoundForUpdate(CAMPAIGN).getId()).isEqualTo(11L);
+        verify(roundRepository, never()).save(any());
+    }
+
+    @Test
+    void multiInstanceSubmissionOpensNextRoundFromDatabaseMaximum() {
+        when(relay.multiInstance()).thenReturn(true);
+        when(roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Status.OPEN)).thenReturn(Optional.empty());
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN))
+                .thenReturn(Optional.of(round(12L, 5, Status.CLOSED)));
+
+        OpenRound open = service.currentRoundForUpdate(CAMPAIGN);
+
+        assertThat(open.getTurnNumber()).isEqualTo(6);
+        verify(campaignRepository).findByIdForUpdate(CAMPAIGN);
+        verify(campaignEvents).publish(eq(CAMPAIGN), eq(CampaignEventType.ROUND_OPENED), any());
+    }
+
+    @Test
+    void multiInstanceCloseUsesDatabaseUnderLock() {
+        when(relay.multiInstance()).thenReturn(true);
+        openInDatabase(round(10L, 3, Status.OPEN));
+        service.findCurrentOpenRound(CAMPAIGN);
+        // 其它实例已经推进到回合 11，本实例的登记表仍是 10
+        Round current = round(11L, 4, Status.OPEN);
+        openInDatabase(current);
+
+        Round closed = service.closeCurrentRound(CAMPAIGN);
+
+        assertThat(closed.getId()).isEqualTo(11L);
+        assertThat(current.getStatus()).isEqualTo(Status.CLOSED);
+        verify(campaignRepository).findByIdForUpdate(CAMPAIGN);
+        verify(slotBoard).reset(CAMPAIGN, null);
+        // 登记表被丢弃，下次访问重新加载
+        openInDatabase(round(12L, 5, Status.OPEN));
+        assertThat(service.findCurrentOpenRound(CAMPAIGN)).get().extracting(OpenRound::getId).isEqualTo(12L);
+    }
+
+    @Test
+    void multiInstanceNextRoundIgnoresRegistryTurn() {
+        when(relay.multiInstance()).thenReturn(true);
+        when(roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Status.OPEN)).thenReturn(Optional.empty());
+        service.findCurrentOpenRound(CAMPAIGN);
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN))
+                .thenReturn(Optional.of(round(20L, 7, Status.CLOSED)));
+
+        assertThat(service.createNextRound(CAMPAIGN).getTurnNumber()).isEqualTo(8);
+        verify(campaignRepository).findByIdForUpdate(CAMPAIGN);
+    }
+
+    @Test
+    void singleInstanceNextRoundCountsFromRegistry() {
+        when(roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Status.OPEN)).thenReturn(Optional.empty());
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN))
+                .thenReturn(Optional.of(round(20L, 7, Status.CLOSED)));
+        service.findCurrentOpenRound(CAMPAIGN);
+
+        assertThat(service.createNextRound(CAMPAIGN).getTurnNumber()).isEqualTo(8);
+        assertThat(service.createNextRound(CAMPAIGN).getTurnNumber()).isEqualTo(9);
+
+        verify(roundRepository, times(1)).findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN);
+        verify(campaignRepository, never()).findByIdForUpdate(anyLong());
+        ArgumentCaptor<Round> saved = ArgumentCaptor.forClass(Round.class);
+        verify(roundRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(Round::getStatus).containsOnly(Status.OPEN);
+    }
+
+    @Test
+    void remoteRoundEventsEvictRegistry() {
+        openInDatabase(round(10L, 3, Status.OPEN));
+        service.findCurrentOpenRound(CAMPAIGN);
+
+        service.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.ROUND_OPENED, null));
+        assertThat(service.findCurrentOpenRound(CAMPAIGN)).get().extracting(OpenRound::getId).isEqualTo(10L);
+
+        openInDatabase(round(11L, 4, Status.OPEN));
+        service.onCampaignEvent(new CampaignEvent(5L, CAMPAIGN, CampaignEventType.ROUND_OPENED, null, true));
+
+        assertThat(service.findCurrentOpenRound(CAMPAIGN)).get().extracting(OpenRound::getId).isEqualTo(11L);
+        verify(slotBoard).evict(CAMPAIGN);
+    }
+
+    private void openInDatabase(Round round) {
+        when(roundRepository.findTopByCampaignIdAndStatusOrderByTurnNumberDesc(CAMPAIGN, Status.OPEN)).thenReturn(Optional.of(round));
+        when(roundRepository.findTopByCampaignIdOrderByTurnNumberDesc(CAMPAIGN)).thenReturn(Optional.of(round));
+    }
+
+    private Round round(Long id, int turn, Status status) {
+        return Round.builder().id(id).campaign(campaign).turnNumber(turn).status(status).build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.fategmhelper.backend.service;
+
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fategmhelper.backend.domain.CharacterCard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 提交的阶职到槽位的对应与战斗控制页面一致：先按阶职名识别，再按角色卡的阶职名和代号查找。
+ */
+class RoundSnapshotTest {
+
+    private static final List<CharacterCard> CARDS = List.of(
+            CharacterCard.builder().id(1L).code("S-07").className("Shielder（剑）").build(),
+            CharacterCard.builder().id(2L).code("M-03").className("Caster").build());
+
+    @Test
+    void knownClassNamesDoNotLoadCards() {
+        Supplier<List<CharacterCard>> cards = () -> {
+            throw new AssertionError("不应读取角色卡");
+        };
+
+        RoundSnapshot snapshot = RoundSnapshot.of(List.of(
+                submission("Archer", ActionType.SERVANT_ACTION, "侦察"),
+                submission("狂", ActionType.MASTER_ACTION, "休整")), cards, null);
+
+        assertThat(snapshot.getServantActions().get(0)).isEqualTo("侦察");
+        assertThat(snapshot.getMasterActions().get(6)).isEqualTo("休整");
+    }
+
+    @Test
+    void fallsBackToCardClassNameAndCode() {
+        RoundSnapshot snapshot = RoundSnapshot.of(List.of(
+                submission("shielder", ActionType.SERVANT_ACTION, "机动"),
+                submission("m-03", ActionType.MASTER_ACTION, "制造礼装")), () -> CARDS, null);
+
+        assertThat(snapshot.getServantActions().get(RoundSnapshot.CLASSES.indexOf("剑"))).isEqualTo("机动");
+        assertThat(snapshot.getMasterActions().get(RoundSnapshot.CLASSES.indexOf("术"))).isEqualTo("制造礼装");
+    }
+
+    @Test
+    void unmappedSubmissionIsLeftOut() {
+        RoundSnapshot snapshot = RoundSnapshot.of(List.of(
+                submission("Ruler", ActionType.SERVANT_ACTION, "干涉")), () -> CARDS, null);
+
+        assertThat(snapshot.getServantActions()).containsOnlyNulls();
+    }
+
+    private static ActionSubmission submission(String servantClass, ActionType type, String content) {
+        return ActionSubmission.builder().servantClass(servantClass).actionType(type).content(content).build();
+    }
+}
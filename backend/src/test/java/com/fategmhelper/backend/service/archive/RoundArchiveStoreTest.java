@@ -0,0 +1,160 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fategmhelper.backend.domain.ActionSubmission.ActionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoundArchiveStoreTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<RoundArchiveStore> opened = new ArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (RoundArchiveStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void appendedRoundsCanBeRead() throws IOException {
+        RoundArchiveStore store = open(1024 * 1024);
+
+        store.append(round(1L, 3, "第三回合"));
+        store.append(round(1L, 1, "第一回合"));
+        store.append(round(2L, 1, "另一战役"));
+
+        assertThat(store.rounds(1L)).containsExactly(1, 3);
+        assertThat(store.contains(1L, 3)).isTrue();
+        assertThat(store.contains(1L, 2)).isFalse();
+        assertThat(store.campaigns()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(store.read(1L, 3)).get().extracting(r -> r.getSubmissions().get(0).getContent()).isEqualTo("第三回合");
+        assertThat(store.read(2L, 1)).get().extracting(ArchivedRound::getRoundId).isEqualTo(2001L);
+        assertThat(store.read(1L, 2)).isEmpty();
+        assertThat(store.read(3L, 1)).isEmpty();
+    }
+
+    @Test
+    void laterAppendOfSameRoundWins() throws IOException {
+        RoundArchiveStore store = open(1024 * 1024);
+
+        store.append(round(1L, 1, "旧"));
+        store.append(round(1L, 1, "新"));
+
+        assertThat(store.rounds(1L)).containsExactly(1);
+        assertThat(store.read(1L, 1)).get().extracting(r -> r.getSubmissions().get(0).getContent()).isEqualTo("新");
+    }
+
+    @Test
+    void fullSegmentRollsOverAndAllRoundsStayReadable() throws IOException {
+        RoundArchiveStore store = open(256);
+
+        for (int r = 1; r <= 20; r++) {
+            store.append(round(1L, r, "行动 " + r));
+        }
+
+        try (var files = Files.list(dir)) {
+            assertThat(files.filter(p -> p.getFileName().toString().endsWith(".seg")).count()).isGreaterThan(1);
+        }
+        for (int r = 1; r <= 20; r++) {
+            assertThat(store.read(1L, r)).get().extracting(ArchivedRound::getRoundNumber).isEqualTo(r);
+        }
+    }
+
+    @Test
+    void reopenedStoreLoadsIndexAndKeepsAppending() throws IOException {
+        RoundArchiveStore first = open(256);
+        for (int r = 1; r <= 5; r++) {
+            first.append(round(1L, r, "行动 " + r));
+        }
+        first.close();
+        opened.remove(first);
+
+        RoundArchiveStore reopened = open(256);
+        reopened.append(round(1L, 6, "行动 6"));
+
+        assertThat(reopened.rounds(1L)).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(reopened.read(1L, 2)).get().extracting(r -> r.getSubmissions().get(0).getContent()).isEqualTo("行动 2");
+        assertThat(reopened.read(1L, 6)).get().extracting(r -> r.getSubmissions().get(0).getContent()).isEqualTo("行动 6");
+    }
+
+    @Test
+    void readerSeesAppendsFromWriterSharingDirectory() throws IOException {
+        RoundArchiveStore writer = open(1024 * 1024);
+        RoundArchiveStore reader = open(1024 * 1024);
+
+        writer.append(round(1L, 1, "共享"));
+
+        assertThat(reader.contains(1L, 1)).isTrue();
+        assertThat(reader.read(1L, 1)).get().extracting(r -> r.getSubmissions().get(0).getContent()).isEqualTo("共享");
+    }
+
+    @Test
+    void droppedCampaignIsGoneAfterReopen() throws IOException {
+        RoundArchiveStore store = open(1024 * 1024);
+        store.append(round(1L, 1, "删除"));
+        store.append(round(2L, 1, "保留"));
+
+        store.drop(1L);
+
+        assertThat(store.rounds(1L)).isEmpty();
+        assertThat(store.read(1L, 1)).isEmpty();
+        assertThat(store.campaigns()).containsExactly(2L);
+        assertThat(open(1024 * 1024).campaigns()).containsExactly(2L);
+    }
+
+    @Test
+    void corruptRecordIsReported() throws IOException {
+        RoundArchiveStore store = open(1024 * 1024);
+        store.append(round(1L, 1, "损坏"));
+        // 改写压缩数据的最后一个字节，CRC 不再匹配
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (last.get(0) ^ 0xFF)}), channel.size() - 1);
+        }
+
+        RoundArchiveStore reopened = open(1024 * 1024);
+        assertThatThrownBy(() -> reopened.read(1L, 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("第 1 回合")
+                .cause().hasMessageContaining("校验失败");
+    }
+
+    private RoundArchiveStore open(long segmentBytes) throws IOException {
+        RoundArchiveStore store = new RoundArchiveStore(objectMapper, dir.toString(), segmentBytes);
+        store.open();
+        opened.add(store);
+        return store;
+    }
+
+    private static ArchivedRound round(Long campaignId, int roundNumber, String content) {
+        ArchivedRound.Submission submission = new ArchivedRound.Submission(1L, "弓", ActionType.SERVANT_ACTION,
+                content, "gm", true, Instant.parse("2026-01-01T00:00:00Z"));
+        return new ArchivedRound(campaignId, roundNumber, campaignId * 1000 + roundNumber, Instant.now(),
+                List.of(submission), null, List.of());
+    }
+}
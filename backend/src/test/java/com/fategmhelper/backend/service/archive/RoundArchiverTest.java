@@ -0,0 +1,151 @@
+package com.fategmhelper.backend.service.archive;
+
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.ActionHistoryRepository;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterStatusRepository;
+import com.fategmhelper.backend.repository.RoundRepository;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 归档任务把回合写入归档文件后再删除在库数据。同一回合号有多条行动历史时拒绝归档：
+ * 该回合不写入归档、不删除在库数据，之后的回合照常归档。
+ */
+class RoundArchiverTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    private final RoundRepository rounds = mock(RoundRepository.class);
+    private final ActionSubmissionRepository submissions = mock(ActionSubmissionRepository.class);
+    private final ActionHistoryRepository histories = mock(ActionHistoryRepository.class);
+    private final CharacterStatusRepository statuses = mock(CharacterStatusRepository.class);
+    private final RoundArchiveService service = new RoundArchiveService(rounds, submissions, histories, statuses,
+            mock(CampaignRepository.class));
+
+    @TempDir
+    Path dir;
+    private RoundArchiveStore store;
+    private RoundArchiver archiver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new RoundArchiveStore(Jackson2ObjectMapperBuilder.json().build(), dir.toString(), 1024 * 1024);
+        store.open();
+        CampaignExecutor executor = mock(CampaignExecutor.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(executor).run(anyLong(), any());
+        archiver = new RoundArchiver(service, store, executor, null, true, Duration.ofDays(30), Duration.ofHours(1));
+
+        Round first = round(10L, 1);
+        Round second = round(11L, 2);
+        when(rounds.findTop100ByStatusAndArchivedAtIsNullAndClosedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(Round.Status.CLOSED), any(), eq(0L))).thenReturn(List.of(first, second));
+        when(rounds.findById(10L)).thenReturn(Optional.of(first));
+        when(rounds.findById(11L)).thenReturn(Optional.of(second));
+        when(histories.findByCampaignIdAndRoundNumber(CAMPAIGN, 1)).thenReturn(List.of(history(101L, 1)));
+        when(histories.findByCampaignIdAndRoundNumber(CAMPAIGN, 2)).thenReturn(List.of(history(102L, 2)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void closedRoundsAreArchivedThenPurged() {
+        assertThat(archiver.archiveOnce()).isEqualTo(2);
+
+        assertThat(store.rounds(CAMPAIGN)).containsExactly(1, 2);
+        assertThat(store.read(CAMPAIGN, 1)).get()
+                .extracting(r -> r.getHistory().getId()).isEqualTo(101L);
+        verify(histories).deleteRound(CAMPAIGN, 1);
+        verify(submissions).deleteByRoundId(10L);
+        verify(histories).deleteRound(CAMPAIGN, 2);
+        verify(submissions).deleteByRoundId(11L);
+        assertThat(rounds.findById(10L)).get().extracting(Round::getArchivedAt).isNotNull();
+    }
+
+    @Test
+    void failedAppendKeepsRowsInDatabase() throws IOException {
+        store.close();
+
+        assertThatThrownBy(() -> archiver.archiveOnce())
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("写入归档文件失败");
+
+        verify(histories, never()).deleteRound(CAMPAIGN, 1);
+        verify(submissions, never()).deleteByRoundId(10L);
+    }
+
+    @Test
+    void collectRefusesRoundWithSeveralHistories() {
+        when(histories.findByCampaignIdAndRoundNumber(CAMPAIGN, 1)).thenReturn(List.of(history(100L, 1), history(101L, 1)));
+
+        assertThatThrownBy(() -> service.collect(10L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("2 条行动历史");
+    }
+
+    @Test
+    void ambiguousRoundIsSkippedAndLaterRoundsArchived() {
+        when(histories.findByCampaignIdAndRoundNumber(CAMPAIGN, 1)).thenReturn(List.of(history(100L, 1), history(101L, 1)));
+
+        assertThat(archiver.archiveOnce()).isEqualTo(1);
+
+        assertThat(store.rounds(CAMPAIGN)).containsExactly(2);
+        assertThat(store.read(CAMPAIGN, 2)).get()
+                .extracting(r -> r.getHistory().getId()).isEqualTo(102L);
+        verify(histories, never()).deleteRound(CAMPAIGN, 1);
+        verify(submissions, never()).deleteByRoundId(10L);
+        verify(histories).deleteRound(CAMPAIGN, 2);
+        verify(submissions).deleteByRoundId(11L);
+    }
+
+    private static Round round(Long id, int turnNumber) {
+        Round round = new Round();
+        round.setId(id);
+        round.setCampaign(Campaign.builder().id(CAMPAIGN).build());
+        round.setTurnNumber(turnNumber);
+        round.setStatus(Round.Status.CLOSED);
+        round.setClosedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        return round;
+    }
+
+    private static ActionHistory history(Long id, int roundNumber) {
+        return ActionHistory.builder()
+                .id(id)
+                .campaign(Campaign.builder().id(CAMPAIGN).build())
+                .roundNumber(roundNumber)
+                .snapshot(new byte[]{1, 0})
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.fategmhelper.backend.service.event;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.repository.CampaignEventOutboxRepository;
+import com.fategmhelper.backend.repository.CampaignEventOutboxRepository.Entry;
+import com.fategmhelper.backend.web.dto.RawJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * outbox 转发：写入时带上节点 id，轮询按 id 顺序分发并标记其它节点写入的事件，跳号的 id 在超时前继续补查。
+ */
+class OutboxEventRelayTest {
+
+    private static final String NODE = "node-a";
+
+    private final CampaignEventOutboxRepository outbox = mock(CampaignEventOutboxRepository.class);
+    /** 模拟 outbox 表中已提交的行 */
+    private final List<Entry> rows = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<CampaignEvent> published = new LinkedBlockingQueue<>();
+    private OutboxEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(outbox.maxId()).thenReturn(5L);
+        when(outbox.findAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return rows.stream().filter(e -> e.id() > after).sorted((a, b) -> Long.compare(a.id(), b.id())).limit(limit).toList();
+        });
+        when(outbox.findByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return rows.stream().filter(e -> ids.contains(e.id())).toList();
+        });
+        relay = new OutboxEventRelay(outbox, new ObjectMapper(), event -> published.add((CampaignEvent) event),
+                new ExecutionThreads(new MockEnvironment()), NODE, 10, 2, 5_000, Duration.ofHours(1));
+        relay.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        relay.stop();
+    }
+
+    @Test
+    void enqueueWritesJsonWithNodeId() {
+        relay.enqueue(1L, CampaignEventType.ROUND_CLOSED, Map.of("id", 3));
+
+        verify(outbox).insert(1L, "round.closed", "{\"id\":3}", NODE);
+        assertThat(relay.multiInstance()).isTrue();
+        // 本节点启动前写入的事件不会在本节点分发，日志不能据此回放
+        assertThat(relay.replayableAfter()).isEqualTo(5L);
+    }
+
+    @Test
+    void unserializablePayloadIsDropped() {
+        relay.enqueue(1L, CampaignEventType.ROUND_CLOSED, new Object());
+
+        verify(outbox, never()).insert(anyLong(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void newRowsAreDispatchedInIdOrderAndMarkedRemote() throws InterruptedException {
+        rows.add(new Entry(4, 1, "round.opened", "{}", NODE));
+        rows.add(new Entry(6, 1, "round.opened", "{\"id\":6}", NODE));
+        rows.add(new Entry(7, 2, "submission.batch", "[]", "node-b"));
+        rows.add(new Entry(8, 1, "round.closed", null, "node-b"));
+        relay.start();
+
+        // 启动前的 4 不分发；批次上限为 2 时一次轮询内连续读完
+        CampaignEvent first = next();
+        assertThat(first.getId()).isEqualTo(6L);
+        assertThat(first.isRemote()).isFalse();
+        assertThat(first.getType()).isEqualTo(CampaignEventType.ROUND_OPENED);
+        assertThat(first.getPayload()).isEqualTo(RawJson.of("{\"id\":6}"));
+        CampaignEvent second = next();
+        assertThat(second.getId()).isEqualTo(7L);
+        assertThat(second.getCampaignId()).isEqualTo(2L);
+        assertThat(second.isRemote()).isTrue();
+        assertThat(next().getPayload()).isEqualTo(RawJson.of("null"));
+        assertThat(published.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void lateCommittedRowInGapIsStillDispatched() throws InterruptedException {
+        rows.add(new Entry(6, 1, "round.opened", "{}", NODE));
+        rows.add(new Entry(8, 1, "submission.batch", "[]", NODE));
+        relay.start();
+        assertThat(next().getId()).isEqualTo(6L);
+        assertThat(next().getId()).isEqualTo(8L);
+
+        // 7 的事务晚于 8 提交
+        rows.add(new Entry(7, 1, "submission.batch", "[]", "node-b"));
+
+        CampaignEvent late = next();
+        assertThat(late.getId()).isEqualTo(7L);
+        assertThat(late.isRemote()).isTrue();
+        assertThat(published.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void localEnqueueWakesPoller() throws InterruptedException {
+        OutboxEventRelay slow = new OutboxEventRelay(outbox, new ObjectMapper(), event -> published.add((CampaignEvent) event),
+                new ExecutionThreads(new MockEnvironment()), NODE, 60_000, 100, 5_000, Duration.ofHours(1));
+        slow.init();
+        slow.start();
+        try {
+            // 首次轮询在一个间隔之后，本节点写入（没有事务时立即视为已提交）应提前唤醒
+            rows.add(new Entry(6, 1, "round.closed", "{}", NODE));
+            slow.enqueue(1L, CampaignEventType.ROUND_CLOSED, Map.of());
+
+            assertThat(next().getId()).isEqualTo(6L);
+        } finally {
+            slow.stop();
+        }
+    }
+
+    private CampaignEvent next() throws InterruptedException {
+        CampaignEvent event = published.poll(5, TimeUnit.SECONDS);
+        assertThat(event).as("5 秒内没有分发事件").isNotNull();
+        return event;
+    }
+}
@@ -0,0 +1,159 @@
+package com.fategmhelper.backend.service.search;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.CharacterCard;
+import com.fategmhelper.backend.domain.SkillItem;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CharacterCardSearchIndexTest {
+
+    private final CharacterCardRepository repository = mock(CharacterCardRepository.class);
+
+    @Test
+    void chineseKeywordsMatchByBigrams() {
+        CharacterCardSearchIndex index = index(
+                card(1L, null, "S-01", "Saber", "魔力放出"),
+                card(2L, null, "L-02", "Lancer", "放出"));
+
+        assertThat(index.search("魔力", null)).containsExactly(1L);
+        assertThat(index.search("魔", null)).containsExactly(1L);
+        assertThat(index.search("放出", null)).containsExactly(2L, 1L);
+        // 二元组“力魔”“出魔”不存在
+        assertThat(index.search("力魔", null)).isEmpty();
+        assertThat(index.search("放出魔力", null)).isEmpty();
+    }
+
+    @Test
+    void keywordIsNormalizedAndSplitIntoSegments() {
+        CharacterCardSearchIndex index = index(card(1L, null, "A-01", "Archer", "千里眼"));
+
+        assertThat(index.search("ＡＲＣＨＥＲ", null)).containsExactly(1L);
+        assertThat(index.search("  archer，千里眼 ", null)).containsExactly(1L);
+        assertThat(index.search("，。", null)).isEmpty();
+        assertThat(index.search(null, null)).isEmpty();
+    }
+
+    @Test
+    void segmentsSpreadOverDifferentFieldsStillMatch() {
+        CharacterCardSearchIndex index = index(card(1L, null, "A-01", "Archer", "千里眼"));
+
+        assertThat(index.search("archer 千里眼", null)).containsExactly(1L);
+        // 每段都必须出现在某个字段中
+        assertThat(index.search("archer 剑", null)).isEmpty();
+    }
+
+    @Test
+    void campaignSearchIncludesUniversalCardsOnly() {
+        CharacterCardSearchIndex index = index(
+                card(1L, 1L, "S-01", "Saber", null),
+                card(2L, 2L, "S-02", "Saber", null),
+                card(3L, null, "S-03", "Saber", null));
+
+        assertThat(index.search("saber", 1L)).containsExactly(1L, 3L);
+        assertThat(index.search("saber", 2L)).containsExactly(2L, 3L);
+        assertThat(index.search("saber", null)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void resultsAreRankedByFieldAndMatchQuality() {
+        CharacterCard raw = card(4L, null, "X-04", "Ruler", null);
+        raw.setRawText("原始职阶 saber");
+        CharacterCard retiredRaw = card(5L, null, "X-05", "Ruler", null);
+        retiredRaw.setRawText("原始职阶 saber");
+        retiredRaw.setRetired(true);
+        CharacterCard retiredFirst = card(0L, null, "X-00", "Ruler", null);
+        retiredFirst.setRawText("saber");
+        retiredFirst.setRetired(true);
+        CharacterCardSearchIndex index = index(
+                retiredFirst,
+                retiredRaw,
+                raw,
+                card(3L, null, "X-03", "Ruler", "saber之剑"),
+                card(2L, null, "X-02", "Saber Alter", null),
+                card(1L, null, "saber", "Ruler", null));
+
+        // 编号完全相同 > 阶职前缀 > 技能前缀 > 原始文本（完全相同 > 包含；同分时退役卡靠后）
+        assertThat(index.search("saber", null)).containsExactly(1L, 2L, 3L, 0L, 4L, 5L);
+    }
+
+    @Test
+    void putReplacesAndRemoveDrops() {
+        CharacterCardSearchIndex index = index(card(1L, null, "S-01", "Saber", "魔力放出"));
+
+        index.put(card(1L, null, "S-01", "Saber", "直感"));
+        assertThat(index.search("魔力", null)).isEmpty();
+        assertThat(index.search("直感", null)).containsExactly(1L);
+
+        index.remove(1L);
+        index.put(card(2L, null, "L-02", "Lancer", "战斗续行"));
+        // 新卡复用已删除卡的序号，旧词项不能再命中
+        assertThat(index.search("直感", null)).isEmpty();
+        assertThat(index.search("saber", null)).isEmpty();
+        assertThat(index.search("续行", null)).containsExactly(2L);
+
+        index.remove(3L);
+        assertThat(index.search("lancer", null)).containsExactly(2L);
+    }
+
+    @Test
+    void retiredCardsRankAfterEqualMatches() {
+        CharacterCardSearchIndex index = index(
+                card(1L, null, "S-01", "Saber", null),
+                card(2L, null, "S-02", "Saber", null));
+
+        index.setRetired(1L, true);
+        assertThat(index.search("saber", null)).containsExactly(2L, 1L);
+
+        index.setRetired(1L, false);
+        index.setRetired(9L, true);
+        assertThat(index.search("saber", null)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void clearedCampaignCardsBecomeUniversal() {
+        CharacterCardSearchIndex index = index(
+                card(1L, 1L, "S-01", "Saber", null),
+                card(2L, 2L, "S-02", "Saber", null));
+
+        index.clearCampaign(1L);
+
+        assertThat(index.search("saber", 2L)).containsExactly(1L, 2L);
+        assertThat(index.search("saber", 3L)).containsExactly(1L);
+    }
+
+    @Test
+    void rebuildPicksUpRepositoryChanges() {
+        CharacterCardSearchIndex index = index(card(1L, null, "S-01", "Saber", null));
+        when(repository.findAll()).thenReturn(List.of(card(2L, null, "S-02", "Saber", null)));
+
+        index.rebuild();
+
+        assertThat(index.search("saber", null)).containsExactly(2L);
+    }
+
+    private CharacterCardSearchIndex index(CharacterCard... cards) {
+        when(repository.findAll()).thenReturn(List.of(cards));
+        CharacterCardSearchIndex index = new CharacterCardSearchIndex(repository, mock(ExecutionThreads.class), Duration.ZERO);
+        index.start();
+        return index;
+    }
+
+    private static CharacterCard card(Long id, Long campaignId, String code, String className, String skill) {
+        return CharacterCard.builder()
+                .id(id)
+                .campaign(campaignId != null ? Campaign.builder().id(campaignId).build() : null)
+                .code(code)
+                .className(className)
+                .personalSkills(skill != null ? List.of(SkillItem.builder().name(skill).build()) : null)
+                .build();
+    }
+}
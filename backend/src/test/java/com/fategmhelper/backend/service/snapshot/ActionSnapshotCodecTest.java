@@ -0,0 +1,144 @@
+package com.fategmhelper.backend.service.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ActionSnapshotCodecTest {
+
+    private static final List<String> CLASSES = List.of("弓", "枪", "骑", "剑", "杀", "术", "狂");
+
+    @Test
+    void roundTripsEveryValueTag() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("type", "机动");
+        row.put("actions", Arrays.asList("待机", null, "待机"));
+        row.put("count", -3);
+        row.put("big", Long.MAX_VALUE);
+        row.put("weight", 1.5);
+        row.put("ratio", 0.25f);
+        row.put("done", true);
+        row.put("skipped", false);
+        row.put("nested", Map.of("k", List.of()));
+        List<Object> order = Arrays.asList(row, "文本", null, 7);
+        List<String> servant = Arrays.asList("侦察", null, "", "待机", "待机", null, "休整");
+
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, order, servant, null);
+        ActionSnapshot snapshot = ActionSnapshot.of(stored);
+
+        assertThat(stored[1]).isZero();
+        assertThat(snapshot.classes()).isEqualTo(CLASSES);
+        assertThat(snapshot.servantActions()).isEqualTo(servant);
+        assertThat(snapshot.masterActions()).isNull();
+        List<Object> decoded = snapshot.actionOrder();
+        assertThat(decoded).hasSize(4);
+        assertThat(decoded.subList(1, 4)).containsExactly("文本", null, 7L);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> decodedRow = (Map<String, Object>) decoded.get(0);
+        assertThat(decodedRow).containsExactly(
+                Map.entry("type", "机动"),
+                Map.entry("actions", Arrays.asList("待机", null, "待机")),
+                Map.entry("count", -3L),
+                Map.entry("big", Long.MAX_VALUE),
+                Map.entry("weight", 1.5),
+                Map.entry("ratio", 0.25),
+                Map.entry("done", true),
+                Map.entry("skipped", false),
+                Map.entry("nested", Map.of("k", List.of())));
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        List<String> once = List.of("待机");
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            many.add("待机");
+        }
+
+        int single = ActionSnapshotCodec.encode(CLASSES, null, once, null).length;
+        int repeated = ActionSnapshotCodec.encode(CLASSES, null, many, null).length;
+
+        // 每个重复项只多出标签与下标两个字节
+        assertThat(repeated - single).isEqualTo(49 * 2);
+    }
+
+    @Test
+    void largeSnapshotIsDeflated() {
+        List<String> servant = new ArrayList<>();
+        for (int i = 0; i < CLASSES.size(); i++) {
+            servant.add(("第 " + i + " 个从者移动到灵脉并进行侦察，").repeat(20));
+        }
+        List<Object> order = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            order.add(Map.of("type", "机动", "index", i));
+        }
+
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, order, servant, servant);
+        ActionSnapshot snapshot = ActionSnapshot.of(stored);
+
+        assertThat(stored[1] & ActionSnapshotCodec.FLAG_DEFLATE).isEqualTo(ActionSnapshotCodec.FLAG_DEFLATE);
+        assertThat(snapshot.servantActions()).isEqualTo(servant);
+        assertThat(snapshot.masterActions()).isEqualTo(servant);
+        assertThat(snapshot.actionOrder()).hasSize(200);
+    }
+
+    @Test
+    void emptyDataHasNoSnapshot() {
+        assertThat(ActionSnapshot.of(null)).isNull();
+        assertThat(ActionSnapshot.of(new byte[0])).isNull();
+    }
+
+    @Test
+    void unknownVersionIsRejected() {
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, null, null, null);
+        stored[0] = 9;
+
+        assertThatThrownBy(() -> ActionSnapshotCodec.open(stored))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("格式版本");
+        assertThat(ActionSnapshot.of(stored).classes()).isNull();
+    }
+
+    @Test
+    void truncatedDataDecodesToNull() {
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, null, List.of("侦察"), null);
+        ActionSnapshot snapshot = ActionSnapshot.of(Arrays.copyOf(stored, stored.length - 3));
+
+        assertThat(snapshot.servantActions()).isNull();
+        // 损坏后不再重试解码
+        assertThat(snapshot.classes()).isNull();
+    }
+
+    @Test
+    void unknownTagIsRejected() {
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, null, null, null);
+        // 最后一个分段（御主行动）只有一个 null 标签
+        stored[stored.length - 1] = 42;
+
+        assertThatThrownBy(() -> ActionSnapshotCodec.open(stored).section(ActionSnapshotCodec.SECTION_MASTER_ACTIONS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("未知标签");
+        assertThat(ActionSnapshot.of(stored).classes()).isEqualTo(CLASSES);
+        assertThat(ActionSnapshot.of(stored).masterActions()).isNull();
+    }
+
+    @Test
+    void corruptDeflateStreamIsRejected() {
+        List<String> servant = List.of("侦察".repeat(600));
+        byte[] stored = ActionSnapshotCodec.encode(CLASSES, null, servant, null);
+        assertThat(stored[1] & ActionSnapshotCodec.FLAG_DEFLATE).isEqualTo(ActionSnapshotCodec.FLAG_DEFLATE);
+        byte[] truncated = Arrays.copyOf(stored, stored.length / 2);
+
+        assertThatThrownBy(() -> ActionSnapshotCodec.open(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("损坏");
+        assertThat(ActionSnapshot.of(truncated).servantActions()).isNull();
+    }
+}
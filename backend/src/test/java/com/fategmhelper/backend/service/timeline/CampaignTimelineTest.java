@@ -0,0 +1,175 @@
+package com.fategmhelper.backend.service.timeline;
+
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.web.dto.CharacterStatusPatch;
+import com.fategmhelper.backend.web.dto.RawJson;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用记录调用的假 RoundDeltaLoader 检查每次请求读取了哪一段回合的增量。
+ */
+class CampaignTimelineTest {
+
+    private static final Long CAMPAIGN = 1L;
+    private static final Long OTHER = 2L;
+
+    private final FakeLoader loader = new FakeLoader();
+
+    @Test
+    void buildsFromNearestCachedStateOrKeyframe() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+
+        assertThat(timeline.stateAt(CAMPAIGN, 25).getRoundNumber()).isEqualTo(25);
+        timeline.stateAt(CAMPAIGN, 25);
+        timeline.stateAt(CAMPAIGN, 26);
+        // 只缓存请求回合之前一个间隔内的状态，更早的回合从关键帧 10 出发
+        timeline.stateAt(CAMPAIGN, 12);
+
+        assertThat(loader.calls).containsExactly("1:1-25", "1:26-26", "1:11-12");
+    }
+
+    @Test
+    void statusChangeInvalidatesThatRoundAndLater() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        timeline.stateAt(CAMPAIGN, 25);
+
+        timeline.onCampaignEvent(event(CAMPAIGN, CampaignEventType.STATUS_PATCHED,
+                CharacterStatusPatch.builder().roundNumber(22).build()));
+        timeline.stateAt(CAMPAIGN, 21);
+        timeline.stateAt(CAMPAIGN, 25);
+
+        assertThat(loader.calls).containsExactly("1:1-25", "1:22-25");
+    }
+
+    @Test
+    void relayedRoundEventInvalidatesByTurnNumber() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        timeline.stateAt(CAMPAIGN, 25);
+
+        // 经 outbox 转发的事件数据是存储的 JSON 原文
+        timeline.onCampaignEvent(event(CAMPAIGN, CampaignEventType.ROUND_OPENED, RawJson.of("{\"turnNumber\":5}")));
+        timeline.stateAt(CAMPAIGN, 25);
+
+        assertThat(loader.calls).containsExactly("1:1-25", "1:1-25");
+    }
+
+    @Test
+    void eventWithoutRoundInvalidatesWholeCampaignOnly() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        timeline.stateAt(CAMPAIGN, 3);
+        timeline.stateAt(OTHER, 3);
+
+        timeline.onCampaignEvent(event(CAMPAIGN, CampaignEventType.STATUS_UPDATED, null));
+        timeline.stateAt(CAMPAIGN, 3);
+        timeline.stateAt(OTHER, 3);
+
+        assertThat(loader.calls).containsExactly("1:1-3", "2:1-3", "1:1-3");
+    }
+
+    @Test
+    void leylineChangeInvalidatesOnlyLiveStates() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        loader.liveRound = 5;
+        timeline.stateAt(CAMPAIGN, 5);
+
+        timeline.onCampaignEvent(event(CAMPAIGN, CampaignEventType.LEYLINE_ASSIGNED, null));
+        timeline.stateAt(CAMPAIGN, 4);
+        timeline.stateAt(CAMPAIGN, 5);
+
+        assertThat(loader.calls).containsExactly("1:1-5", "1:5-5");
+    }
+
+    @Test
+    void buildInvalidatedWhileLoadingIsNotCached() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        timeline.stateAt(CAMPAIGN, 1);
+        loader.duringLoad = () -> timeline.onCampaignEvent(event(CAMPAIGN, CampaignEventType.STATUS_PATCHED,
+                CharacterStatusPatch.builder().roundNumber(2).build()));
+
+        timeline.stateAt(CAMPAIGN, 3);
+        loader.duringLoad = null;
+        timeline.stateAt(CAMPAIGN, 3);
+
+        assertThat(loader.calls).containsExactly("1:1-1", "1:2-3", "1:2-3");
+    }
+
+    @Test
+    void leastRecentlyUsedKeyframesAreEvicted() {
+        // 每回合一个关键帧，最多两个；缓存只留一个状态
+        CampaignTimeline timeline = timeline(1, 1, 2);
+        timeline.stateAt(CAMPAIGN, 5);
+        // 关键帧 4 仍在，直接返回
+        timeline.stateAt(CAMPAIGN, 4);
+        // 关键帧 1-3 已淘汰，从头构建
+        timeline.stateAt(CAMPAIGN, 3);
+        // 其它战役的关键帧挤掉本战役的
+        timeline.stateAt(OTHER, 2);
+        timeline.stateAt(CAMPAIGN, 4);
+
+        assertThat(loader.calls).containsExactly("1:1-5", "1:1-3", "2:1-2", "1:1-4");
+    }
+
+    @Test
+    void idleCampaignsAreForgotten() throws InterruptedException {
+        CampaignTimeline timeline = new CampaignTimeline(loader, 10, 256, 1024, Duration.ofMillis(1));
+        timeline.stateAt(CAMPAIGN, 3);
+
+        Thread.sleep(5);
+        timeline.stateAt(OTHER, 1);
+        timeline.stateAt(CAMPAIGN, 3);
+
+        assertThat(loader.calls).containsExactly("1:1-3", "2:1-1", "1:1-3");
+    }
+
+    @Test
+    void dropForgetsCampaign() {
+        CampaignTimeline timeline = timeline(10, 256, 1024);
+        timeline.stateAt(CAMPAIGN, 3);
+
+        timeline.drop(CAMPAIGN);
+        timeline.stateAt(CAMPAIGN, 3);
+
+        assertThat(loader.calls).containsExactly("1:1-3", "1:1-3");
+    }
+
+    private CampaignTimeline timeline(int keyframeInterval, int cacheSize, int keyframeLimit) {
+        return new CampaignTimeline(loader, keyframeInterval, cacheSize, keyframeLimit, Duration.ofHours(1));
+    }
+
+    private static CampaignEvent event(Long campaignId, CampaignEventType type, Object payload) {
+        return CampaignEvent.local(campaignId, type, payload);
+    }
+
+    private static final class FakeLoader extends RoundDeltaLoader {
+
+        final List<String> calls = new ArrayList<>();
+        int liveRound = -1;
+        Runnable duringLoad;
+
+        FakeLoader() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public List<RoundDelta> load(Long campaignId, int fromRound, int toRound) {
+            calls.add(campaignId + ":" + fromRound + "-" + toRound);
+            if (duringLoad != null) {
+                duringLoad.run();
+            }
+            List<RoundDelta> deltas = new ArrayList<>();
+            for (int r = fromRound; r <= toRound; r++) {
+                boolean live = r == liveRound;
+                deltas.add(new RoundDelta(r, live ? "OPEN" : "CLOSED", null, List.of(), null,
+                        RawJson.of("{}"), live));
+            }
+            return deltas;
+        }
+    }
+}
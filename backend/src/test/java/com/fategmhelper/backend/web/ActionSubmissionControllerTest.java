@@ -0,0 +1,163 @@
+package com.fategmhelper.backend.web;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.service.ActionSubmissionGroupCommitter;
+import com.fategmhelper.backend.service.ActionSubmissionService;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import com.fategmhelper.backend.service.CurrentSlotBoard;
+import com.fategmhelper.backend.service.OpenRound;
+import com.fategmhelper.backend.service.RoundService;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.CampaignEvents;
+import com.fategmhelper.backend.web.dto.ActionSubmissionBatchRequest;
+import com.fategmhelper.backend.web.exception.RestExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 批量提交接口：条数上限、未知战役逐条拒绝，同一槽位只有最后一条保持 current。
+ */
+class ActionSubmissionControllerTest {
+
+    private static final Long CAMPAIGN = 1L;
+    private static final Long UNKNOWN = 9L;
+    private static final Long ROUND = 10L;
+
+    private final ActionSubmissionRepository submissionRepository = mock(ActionSubmissionRepository.class);
+    private final RoundService roundService = mock(RoundService.class);
+    private final CurrentSlotBoard slotBoard = mock(CurrentSlotBoard.class);
+    private final CampaignEvents campaignEvents = mock(CampaignEvents.class);
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final ExecutionThreads threads = new ExecutionThreads(new MockEnvironment());
+    private final CampaignExecutor executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMinutes(10));
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(campaignRepository.existsById(anyLong())).thenReturn(false);
+        when(campaignRepository.existsById(CAMPAIGN)).thenReturn(true);
+        when(roundService.findCampaignForSubmission(CAMPAIGN)).thenReturn(Optional.of(Campaign.builder().id(CAMPAIGN).build()));
+        when(roundService.currentRoundForUpdate(CAMPAIGN))
+                .thenReturn(new OpenRound(ROUND, CAMPAIGN, 3, Round.Status.OPEN, null, null));
+        when(roundService.getReference(ROUND)).thenReturn(Round.builder().id(ROUND).build());
+
+        ActionSubmissionService service = new ActionSubmissionService(submissionRepository, roundService, slotBoard, campaignEvents);
+        ActionSubmissionGroupCommitter committer = new ActionSubmissionGroupCommitter(service, executor, threads,
+                false, 5, 256, 4096, 10_000);
+        mvc = MockMvcBuilders.standaloneSetup(new ActionSubmissionController(service, committer))
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void batchOverLimitIsRejectedBeforeWriting() throws Exception {
+        mvc.perform(post("/api/action-submissions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch(IntStream.rangeClosed(1, ActionSubmissionBatchRequest.MAX_SIZE + 1)
+                                .mapToObj(i -> item(CAMPAIGN, "弓" + i, "行动" + i)).toList())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.submissions").value("单次最多提交 200 条"));
+
+        verify(submissionRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void batchAtLimitIsWritten() throws Exception {
+        perform(batch(IntStream.rangeClosed(1, ActionSubmissionBatchRequest.MAX_SIZE)
+                .mapToObj(i -> item(CAMPAIGN, "弓" + i, "行动" + i)).toList()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(ActionSubmissionBatchRequest.MAX_SIZE))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    void unknownCampaignIsRejectedPerItem() throws Exception {
+        perform(batch(List.of(
+                item(CAMPAIGN, "弓", "侦察"),
+                item(UNKNOWN, "枪", "突击"),
+                item(CAMPAIGN, "骑", "机动"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].message").value("未找到对应战役：" + UNKNOWN))
+                .andExpect(jsonPath("$.results[2].submission.content").value("机动"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyLastWritePerSlotStaysCurrent() throws Exception {
+        perform(batch(List.of(
+                item(CAMPAIGN, "弓", "侦察"),
+                item(CAMPAIGN, "枪", "突击"),
+                item(CAMPAIGN, "弓", "狙击"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.superseded").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("SUPERSEDED"))
+                .andExpect(jsonPath("$.results[0].submission.current").value(false))
+                .andExpect(jsonPath("$.results[2].status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.results[2].submission.current").value(true));
+
+        // 每种行动类型一次清除、一次插入，并推送一条 submission.batch
+        ArgumentCaptor<Collection<String>> slots = ArgumentCaptor.forClass(Collection.class);
+        verify(submissionRepository).clearCurrentForSlots(eq(ROUND), eq(ActionSubmission.ActionType.SERVANT_ACTION), slots.capture());
+        assertThat(slots.getValue()).containsExactlyInAnyOrder("弓", "枪");
+        ArgumentCaptor<List<ActionSubmission>> rows = ArgumentCaptor.forClass(List.class);
+        verify(submissionRepository).insertAll(rows.capture());
+        assertThat(rows.getValue()).extracting(ActionSubmission::isCurrent).containsExactly(false, true, true);
+        verify(campaignEvents).publish(eq(CAMPAIGN), eq(CampaignEventType.SUBMISSION_BATCH), any());
+    }
+
+    private ResultActions perform(String body) throws Exception {
+        MvcResult started = mvc.perform(post("/api/action-submissions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started));
+    }
+
+    private static String batch(List<String> items) {
+        return items.stream().collect(Collectors.joining(",", "{\"submissions\":[", "]}"));
+    }
+
+    private static String item(Long campaignId, String servantClass, String content) {
+        return "{\"campaignId\":" + campaignId + ",\"servantClass\":\"" + servantClass
+                + "\",\"actionType\":\"SERVANT_ACTION\",\"content\":\"" + content + "\",\"submittedBy\":\"gm\"}";
+    }
+}
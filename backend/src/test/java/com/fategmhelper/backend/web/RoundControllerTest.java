@@ -0,0 +1,182 @@
+package com.fategmhelper.backend.web;
+
+import com.fategmhelper.backend.domain.ActionHistory;
+import com.fategmhelper.backend.domain.Campaign;
+import com.fategmhelper.backend.repository.ActionHistoryRepository;
+import com.fategmhelper.backend.repository.ActionSubmissionRepository;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.repository.CharacterCardRepository;
+import com.fategmhelper.backend.service.ActionHistoryService;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import com.fategmhelper.backend.service.LeylineService;
+import com.fategmhelper.backend.service.RoundService;
+import com.fategmhelper.backend.service.archive.RoundArchiveStore;
+import com.fategmhelper.backend.web.exception.RestExceptionHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 行动历史的流式输出与游标分页。仓库按 (回合号, id) 键集语义模拟：同一回合号的多行跨越分批边界时按 id 接续，
+ * 不重复也不遗漏。
+ */
+class RoundControllerTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    private final ActionHistoryRepository repository = mock(ActionHistoryRepository.class);
+    private final RoundArchiveStore archive = mock(RoundArchiveStore.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    /** 模拟 action_history 表 */
+    private final List<ActionHistory> rows = new ArrayList<>();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(archive.rounds(anyLong())).thenReturn(new TreeSet<>());
+        when(repository.findByCampaignIdOrderByRoundNumberDescIdDesc(eq(CAMPAIGN), any()))
+                .thenAnswer(invocation -> before(Integer.MAX_VALUE, Long.MAX_VALUE, invocation.getArgument(1)));
+        when(repository.findPageBefore(eq(CAMPAIGN), anyInt(), anyLong(), any()))
+                .thenAnswer(invocation -> before(invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+
+        ActionHistoryService service = new ActionHistoryService(repository, mock(CampaignRepository.class),
+                mock(ActionSubmissionRepository.class), mock(CharacterCardRepository.class), mock(RoundService.class),
+                mock(LeylineService.class), archive);
+        mvc = MockMvcBuilders.standaloneSetup(new RoundController(mock(RoundService.class), service,
+                        mock(CampaignExecutor.class), objectMapper))
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void streamCrossesChunkBoundariesWithinOneRound() throws Exception {
+        // 每个回合号 5 行，id 与回合号顺序无关；400 行跨越多个 128 行的分批，边界落在回合中间
+        IntStream.range(0, 400).forEach(i -> rows.add(history(1000L + (i * 7919L) % 400, 80 - i / 5)));
+
+        JsonNode streamed = stream();
+
+        assertThat(streamed).hasSize(400);
+        assertThat(ids(streamed)).containsExactlyElementsOf(ids(expectedOrder()));
+    }
+
+    @Test
+    void streamOfEmptyCampaignIsEmptyArray() throws Exception {
+        assertThat(stream()).isEmpty();
+    }
+
+    @Test
+    void pagesChainThroughEqualRoundNumbers() throws Exception {
+        IntStream.range(0, 12).forEach(i -> rows.add(history(100L + i, 3 - i / 5)));
+        List<Long> seen = new ArrayList<>();
+        String query = "";
+
+        for (int pages = 0; pages < 10; pages++) {
+            JsonNode page = page(query + "&limit=5");
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            if (page.get("nextBefore").isNull()) {
+                assertThat(page.get("nextBeforeId").isNull()).isTrue();
+                break;
+            }
+            query = "&before=" + page.get("nextBefore").asInt() + "&beforeId=" + page.get("nextBeforeId").asLong();
+        }
+
+        assertThat(seen).containsExactlyElementsOf(ids(expectedOrder()));
+    }
+
+    @Test
+    void emptyCampaignHasNoNextCursor() throws Exception {
+        JsonNode page = page("");
+
+        assertThat(page.get("items")).isEmpty();
+        assertThat(page.get("nextBefore").isNull()).isTrue();
+    }
+
+    @Test
+    void invalidCursorIsRejected() throws Exception {
+        mvc.perform(get("/api/rounds/history/page").param("campaignId", "1").param("beforeId", "5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("beforeId 须与 before 一起传入"));
+        mvc.perform(get("/api/rounds/history/page").param("campaignId", "1").param("before", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("参数 before 格式错误：abc"));
+        mvc.perform(get("/api/rounds/history/page").param("campaignId", "1").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(repository, never()).findPageBefore(any(), any(), any(), any());
+    }
+
+    private JsonNode stream() throws Exception {
+        MvcResult started = mvc.perform(get("/api/rounds/history").param("campaignId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(done.getResponse().getContentAsString());
+    }
+
+    private JsonNode page(String query) throws Exception {
+        MvcResult result = mvc.perform(get("/api/rounds/history/page?campaignId=1" + query))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    /** (回合号, id) 小于游标的行，按回合号、id 倒序取前 page.size 行 */
+    private List<ActionHistory> before(int round, long id, Pageable page) {
+        return rows.stream()
+                .filter(h -> h.getRoundNumber() < round || (h.getRoundNumber() == round && h.getId() < id))
+                .sorted(ORDER)
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    private List<ActionHistory> expectedOrder() {
+        return rows.stream().sorted(ORDER).toList();
+    }
+
+    private static final Comparator<ActionHistory> ORDER = Comparator.comparing(ActionHistory::getRoundNumber)
+            .thenComparing(ActionHistory::getId).reversed();
+
+    private static List<Long> ids(List<ActionHistory> histories) {
+        return histories.stream().map(ActionHistory::getId).toList();
+    }
+
+    private static List<Long> ids(JsonNode array) {
+        List<Long> ids = new ArrayList<>();
+        array.forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    private static ActionHistory history(Long id, int roundNumber) {
+        return ActionHistory.builder()
+                .id(id)
+                .campaign(Campaign.builder().id(CAMPAIGN).build())
+                .roundNumber(roundNumber)
+                .build();
+    }
+}
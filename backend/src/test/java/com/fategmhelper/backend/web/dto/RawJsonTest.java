@@ -0,0 +1,75 @@
+package com.fategmhelper.backend.web.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RawJson 在各条输出路径上的结果：REST 响应（文本 JSON）原样拷贝存储的文本，
+ * WebSocket 的 CBOR 编码和 valueToTree 用到的 TokenBuffer 退回为按树写出，三者得到相同的结构。
+ */
+class RawJsonTest {
+
+    private static final String STORED = "[{\"name\":\"中毒\",\"type\":\"ABNORMAL\",\"level\":2}, {\"name\":\"回避\",\"type\":\"BUFF\",\"level\":1}]";
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    // 与 CampaignSocketHandler 相同的构建方式
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+    @Test
+    void httpConverterCopiesStoredText() throws Exception {
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(json);
+        MockHttpOutputMessage out = new MockHttpOutputMessage();
+
+        converter.write(leyline(STORED), MediaType.APPLICATION_JSON, out);
+
+        String body = out.getBodyAsString(StandardCharsets.UTF_8);
+        // 原文（包括元素之间的空格）出现在输出中，说明没有经过解析再序列化
+        assertThat(body).contains("\"assignedCharacterIds\":" + STORED);
+        assertThat(json.readTree(body).get("assignedCharacterIds")).isEqualTo(json.readTree(STORED));
+    }
+
+    @Test
+    void cborWritesParsedStructure() throws Exception {
+        byte[] encoded = cbor.writeValueAsBytes(leyline(STORED));
+
+        JsonNode decoded = cbor.readTree(encoded).get("assignedCharacterIds");
+        assertThat(decoded.isArray()).isTrue();
+        assertThat(decoded).isEqualTo(json.readTree(STORED));
+    }
+
+    @Test
+    void tokenBufferWritesParsedStructure() throws Exception {
+        JsonNode tree = json.valueToTree(leyline(STORED)).get("assignedCharacterIds");
+
+        assertThat(tree.isArray()).isTrue();
+        assertThat(tree).isEqualTo(json.readTree(STORED));
+    }
+
+    @Test
+    void defaultIsWrittenForMissingValue() throws Exception {
+        String body = json.writeValueAsString(leyline(null));
+
+        assertThat(body).contains("\"assignedCharacterIds\":[]");
+    }
+
+    @Test
+    void deserializesAnyJsonValue() throws Exception {
+        RawJson raw = json.readValue("{\"a\": [1, 2]}", RawJson.class);
+
+        assertThat(json.readTree(raw.json())).isEqualTo(json.readTree("{\"a\":[1,2]}"));
+    }
+
+    private static LeylineResponse leyline(String assigned) {
+        return new LeylineResponse(1L, 1L, "灵脉", null, null, 0, 0, 0, RawJson.orDefault(assigned, "[]"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.fategmhelper.backend.web.poll;
+
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.web.dto.CampaignChangesResponse;
+import com.fategmhelper.backend.web.dto.CampaignChangesResponse.Change;
+import com.fategmhelper.backend.web.sse.TopicFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * outbox 事件可能不按 id 顺序送达（补查到的缺口迟于 id 更大的事件），
+ * 长轮询按到达顺序编号，迟到的事件照常交给客户端，重复投递的只记录一次。
+ */
+class CampaignChangeFeedTest {
+
+    private CampaignChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        CampaignRepository campaigns = mock(CampaignRepository.class);
+        when(campaigns.existsById(anyLong())).thenReturn(true);
+        feed = new CampaignChangeFeed(campaigns, 16);
+    }
+
+    @Test
+    void lateEventWithLowerIdIsDelivered() {
+        long version = currentVersion(1L);
+        feed.onCampaignEvent(event(10L, 1L, CampaignEventType.ROUND_OPENED));
+        CampaignChangesResponse first = poll(1L, version);
+        assertThat(first.getChanges()).extracting(Change::getTopic).containsExactly("round.opened");
+
+        feed.onCampaignEvent(event(8L, 1L, CampaignEventType.STATUS_UPDATED));
+        CampaignChangesResponse second = poll(1L, first.getVersion());
+
+        assertThat(second.isReset()).isFalse();
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        assertThat(second.getChanges()).extracting(Change::getTopic).containsExactly("status.updated");
+    }
+
+    @Test
+    void waitingPollerReceivesLateEvent() {
+        feed.onCampaignEvent(event(20L, 1L, CampaignEventType.ROUND_OPENED));
+        long version = currentVersion(1L);
+        DeferredResult<CampaignChangesResponse> waiting = feed.poll(1L, version, TopicFilter.ALL, 60_000);
+        assertThat(waiting.hasResult()).isFalse();
+
+        feed.onCampaignEvent(event(19L, 1L, CampaignEventType.ROUND_CLOSED));
+
+        CampaignChangesResponse response = (CampaignChangesResponse) waiting.getResult();
+        assertThat(response.isReset()).isFalse();
+        assertThat(response.getChanges()).extracting(Change::getTopic).containsExactly("round.closed");
+    }
+
+    @Test
+    void newCampaignFeedAcceptsIdsBelowOtherCampaigns() {
+        feed.onCampaignEvent(event(100L, 1L, CampaignEventType.ROUND_OPENED));
+        long version = currentVersion(2L);
+
+        feed.onCampaignEvent(event(50L, 2L, CampaignEventType.LEYLINE_CREATED));
+
+        CampaignChangesResponse response = poll(2L, version);
+        assertThat(response.isReset()).isFalse();
+        assertThat(response.getChanges()).extracting(Change::getTopic).containsExactly("leyline.created");
+    }
+
+    @Test
+    void duplicateOutboxIdIsRecordedOnce() {
+        long version = currentVersion(1L);
+        feed.onCampaignEvent(event(5L, 1L, CampaignEventType.ROUND_OPENED));
+        feed.onCampaignEvent(event(5L, 1L, CampaignEventType.ROUND_OPENED));
+        feed.onCampaignEvent(event(6L, 1L, CampaignEventType.ROUND_CLOSED));
+
+        CampaignChangesResponse response = poll(1L, version);
+        assertThat(response.getChanges()).extracting(Change::getTopic).containsExactly("round.opened", "round.closed");
+    }
+
+    @Test
+    void versionOutsideBufferIsReset() {
+        long version = currentVersion(1L);
+        for (long id = 1; id <= 20; id++) {
+            feed.onCampaignEvent(event(id, 1L, CampaignEventType.STATUS_UPDATED));
+        }
+
+        assertThat(poll(1L, version).isReset()).isTrue();
+        assertThat(poll(1L, Long.MAX_VALUE).isReset()).isTrue();
+    }
+
+    private long currentVersion(Long campaignId) {
+        CampaignChangesResponse reset = poll(campaignId, null);
+        assertThat(reset.isReset()).isTrue();
+        return reset.getVersion();
+    }
+
+    private CampaignChangesResponse poll(Long campaignId, Long since) {
+        DeferredResult<CampaignChangesResponse> result = feed.poll(campaignId, since, TopicFilter.ALL, 60_000);
+        assertThat(result.hasResult()).isTrue();
+        return (CampaignChangesResponse) result.getResult();
+    }
+
+    private static CampaignEvent event(Long id, Long campaignId, CampaignEventType type) {
+        return new CampaignEvent(id, campaignId, type, null, false);
+    }
+}
@@ -0,0 +1,212 @@
+package com.fategmhelper.backend.web.sse;
+
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 段文件的追加、滚动、重新打开时的残缺尾部处理、空闲关闭，以及按 Last-Event-ID + 主题过滤回放。
+ */
+class CampaignJournalTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    @TempDir
+    Path dir;
+
+    private final List<CampaignJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(CampaignJournal::close);
+    }
+
+    @Test
+    void appendedEventsAreReplayedAfterLastEventId() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+
+        assertThat(journal.append(null, "round.opened", json(1)).name()).isEqualTo("round.opened");
+        journal.append(null, "submission.batch", json(2));
+        journal.append(null, "round.closed", json(3));
+
+        assertThat(text(journal.readAfter(1, TopicFilter.ALL))).isEqualTo(frame(2, "submission.batch") + frame(3, "round.closed"));
+        assertThat(text(journal.readAfter(3, TopicFilter.ALL))).isEmpty();
+        // 比当前还新的 id 无法回放
+        assertThat(journal.readAfter(4, TopicFilter.ALL)).isNull();
+    }
+
+    @Test
+    void replayThroughTopicFilterMergesAdjacentMatches() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+        journal.append(null, "round.opened", json(1));
+        journal.append(null, "round.closed", json(2));
+        journal.append(null, "submission.batch", json(3));
+        journal.append(null, "round.opened", json(4));
+
+        List<SseFrame> replay = journal.readAfter(0, TopicFilter.parse("round.*"));
+
+        // 相邻的 1、2 合并为一个视图，3 被跳过
+        assertThat(replay).hasSize(2);
+        assertThat(text(replay)).isEqualTo(frame(1, "round.opened") + frame(2, "round.closed") + frame(4, "round.opened"));
+        assertThat(text(journal.readAfter(2, TopicFilter.parse("submission.batch")))).isEqualTo(frame(3, "submission.batch"));
+    }
+
+    @Test
+    void fullSegmentRollsAndOldSegmentsAreRetired() throws IOException {
+        int frameLength = frame(1, "round.opened").length();
+        CampaignJournal journal = open(frameLength * 2, 2);
+
+        for (int i = 1; i <= 6; i++) {
+            journal.append(null, "round.opened", json(i));
+        }
+
+        // 每段两帧，只保留最近两段（3..6）
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(journal.readAfter(1, TopicFilter.ALL)).isNull();
+        assertThat(text(journal.readAfter(2, TopicFilter.ALL)))
+                .isEqualTo(frame(3, "round.opened") + frame(4, "round.opened") + frame(5, "round.opened") + frame(6, "round.opened"));
+    }
+
+    @Test
+    void reopenDropsTornTail() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+        journal.append(null, "round.opened", json(1));
+        journal.append(null, "round.closed", json(2));
+        journal.close();
+        opened.remove(journal);
+        // 崩溃时写了一半的第三帧
+        Path segment = segmentFiles().get(0);
+        writeAt(segment, frame(1, "round.opened").length() * 2L, "id:3\nevent:round.opened\ndata:{\"n\"");
+
+        CampaignJournal reopened = open(4096, 8);
+
+        assertThat(text(reopened.readAfter(0, TopicFilter.ALL))).isEqualTo(frame(1, "round.opened") + frame(2, "round.closed"));
+        reopened.append(null, "round.opened", json(3));
+        assertThat(text(reopened.readAfter(2, TopicFilter.ALL))).isEqualTo(frame(3, "round.opened"));
+    }
+
+    @Test
+    void reopenDropsTruncatedTail() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+        journal.append(null, "round.opened", json(1));
+        journal.append(null, "round.closed", json(2));
+        journal.close();
+        opened.remove(journal);
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(frame(1, "round.opened").length() + 5L);
+        }
+
+        CampaignJournal reopened = open(4096, 8);
+
+        assertThat(text(reopened.readAfter(0, TopicFilter.ALL))).isEqualTo(frame(1, "round.opened"));
+        // 截断的段在重新映射时补足容量，可以继续追加
+        reopened.append(null, "round.closed", json(2));
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(text(reopened.readAfter(1, TopicFilter.ALL))).isEqualTo(frame(2, "round.closed"));
+    }
+
+    @Test
+    void replayViewOutlivesClosedSegment() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+        journal.append(null, "round.opened", json(1));
+        List<SseFrame> replay = journal.readAfter(0, TopicFilter.ALL);
+
+        journal.close();
+
+        // 视图释放前段不会解除映射，仍能读出
+        assertThat(StandardCharsets.UTF_8.decode(replay.get(0).content()).toString()).isEqualTo(frame(1, "round.opened"));
+        replay.forEach(SseFrame::release);
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void retiredSegmentIsDeletedAfterLastViewIsReleased() throws IOException {
+        CampaignJournal journal = open(4096, 8);
+        journal.append(null, "round.opened", json(1));
+        List<SseFrame> replay = journal.readAfter(0, TopicFilter.ALL);
+
+        journal.deleteAll();
+
+        assertThat(segmentFiles()).hasSize(1);
+        replay.forEach(SseFrame::release);
+        assertThat(segmentFiles()).isEmpty();
+    }
+
+    @Test
+    void idleJournalIsClosedAndReopenedOnNextAccess() throws Exception {
+        EventJournal journals = new EventJournal(mock(CampaignEventRelay.class), true, dir.toString(), 4096, 8,
+                Duration.ofMillis(20));
+        journals.withJournal(CAMPAIGN, journal -> journal.append(null, "round.opened", json(1)));
+        CampaignJournal first = journals.journal(CAMPAIGN);
+
+        Thread.sleep(60);
+        // 访问其它战役时顺带回收空闲的日志
+        journals.journal(2L);
+
+        assertThat(first.isClosed()).isTrue();
+        List<String> replayed = new ArrayList<>();
+        journals.withJournal(CAMPAIGN, journal -> {
+            assertThat(journal).isNotSameAs(first);
+            replayed.add(text(journal.readAfter(0, TopicFilter.ALL)));
+            journal.append(null, "round.closed", json(2));
+        });
+        assertThat(replayed).containsExactly(frame(1, "round.opened"));
+        journals.withJournal(CAMPAIGN, journal -> replayed.add(text(journal.readAfter(1, TopicFilter.ALL))));
+        assertThat(replayed).last().isEqualTo(frame(2, "round.closed"));
+        journals.drop(CAMPAIGN);
+        journals.drop(2L);
+    }
+
+    private CampaignJournal open(int segmentBytes, int maxSegments) throws IOException {
+        CampaignJournal journal = CampaignJournal.open(CAMPAIGN, dir.resolve(String.valueOf(CAMPAIGN)), segmentBytes, maxSegments);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve(String.valueOf(CAMPAIGN)))) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void writeAt(Path file, long position, String content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)), position);
+        }
+    }
+
+    /** 读出回放视图的内容并释放 */
+    private static String text(List<SseFrame> frames) {
+        StringBuilder out = new StringBuilder();
+        for (SseFrame frame : frames) {
+            out.append(StandardCharsets.UTF_8.decode(frame.content()));
+            frame.release();
+        }
+        return out.toString();
+    }
+
+    private static byte[] json(int n) {
+        return ("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String frame(long id, String name) {
+        return "id:" + id + "\nevent:" + name + "\ndata:{\"n\":" + id + "}\n\n";
+    }
+}
@@ -0,0 +1,116 @@
+package com.fategmhelper.backend.web.sse;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.service.event.CampaignEventRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 发布只入队：序列化和写日志在分发线程上按发布顺序完成，不占用发布方线程。
+ */
+class SseDispatcherTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    @TempDir
+    Path dir;
+
+    private EventJournal journal;
+    private SseDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        journal = new EventJournal(mock(CampaignEventRelay.class), true, dir.toString(), 4096, 8, Duration.ofMinutes(10));
+        dispatcher = new SseDispatcher(new ObjectMapper(), journal, new ExecutionThreads(new MockEnvironment()),
+                1, 16, Duration.ZERO, 16);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+        journal.flush();
+    }
+
+    @Test
+    void publishDoesNotWaitForEncoding() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingPayload payload = new BlockingPayload(release);
+
+        long start = System.nanoTime();
+        dispatcher.publish(CAMPAIGN, null, "round.closed", payload);
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed)).isLessThan(1_000);
+        assertThat(payload.encoding.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(replay()).isEmpty();
+        release.countDown();
+        assertThat(awaitReplay(1)).contains("id:1\nevent:round.closed\ndata:{\"value\":\"done\"}\n\n");
+    }
+
+    @Test
+    void eventsAreJournaledInPublishOrder() throws Exception {
+        for (int i = 1; i <= 50; i++) {
+            dispatcher.publish(CAMPAIGN, null, "submission.batch", List.of(i));
+        }
+
+        String replayed = awaitReplay(50);
+
+        assertThat(replayed.lines().filter(line -> line.startsWith("data:")).toList())
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 50).mapToObj(i -> "data:[" + i + "]").toList());
+    }
+
+    private String replay() {
+        StringBuilder out = new StringBuilder();
+        journal.withJournal(CAMPAIGN, campaignJournal -> {
+            List<SseFrame> frames = campaignJournal.readAfter(0, TopicFilter.ALL);
+            if (frames != null) {
+                frames.forEach(frame -> {
+                    out.append(StandardCharsets.UTF_8.decode(frame.content()));
+                    frame.release();
+                });
+            }
+        });
+        return out.toString();
+    }
+
+    private String awaitReplay(int events) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String replayed = replay();
+        while (replayed.split("\n\n", -1).length - 1 < events && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            replayed = replay();
+        }
+        return replayed;
+    }
+
+    static final class BlockingPayload {
+        final CountDownLatch encoding = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        BlockingPayload(CountDownLatch release) {
+            this.release = release;
+        }
+
+        public String getValue() throws InterruptedException {
+            encoding.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "done";
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.fategmhelper.backend.web.ws;
+
+import com.fategmhelper.backend.config.ExecutionThreads;
+import com.fategmhelper.backend.domain.ActionSubmission;
+import com.fategmhelper.backend.domain.Round;
+import com.fategmhelper.backend.repository.CampaignRepository;
+import com.fategmhelper.backend.service.ActionHistoryService;
+import com.fategmhelper.backend.service.ActionSubmissionGroupCommitter;
+import com.fategmhelper.backend.service.ActionSubmissionService;
+import com.fategmhelper.backend.service.CampaignExecutor;
+import com.fategmhelper.backend.service.CharacterStatusService;
+import com.fategmhelper.backend.service.ClosedRound;
+import com.fategmhelper.backend.service.RoundService;
+import com.fategmhelper.backend.service.SubmissionCommand;
+import com.fategmhelper.backend.service.SubmissionOutcome;
+import com.fategmhelper.backend.service.event.CampaignEvent;
+import com.fategmhelper.backend.service.event.CampaignEventType;
+import com.fategmhelper.backend.service.event.RoundChange;
+import com.fategmhelper.backend.web.dto.CharacterStatusRequest;
+import com.fategmhelper.backend.web.dto.CharacterStatusResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * WebSocket 通道：七种命令各自的确认帧、事件推送与主题过滤、每连接发送队列，以及组提交确认超时。
+ */
+class CampaignSocketHandlerTest {
+
+    private static final Long CAMPAIGN = 1L;
+
+    /**
+     * 前端 cbor.js 对 {id:7, op:"status", body:{…}} 的编码（frontend/src/services/cbor.test.js 中的 COMMAND_HEX）
+     */
+    private static final String COMMAND_HEX = "a362696407626f706673746174757364626f6479a56f636861726163746572436172644964026b726f756e644e756d6265"
+            + "72036b63757272656e744d616e6124656e6f74657366e5a487e6b3a871737461747573456666656374734c69737481a3646e616d65"
+            + "66e4b8ade6af9264747970656841424e4f524d414c656c6576656c02";
+    /** 服务端的确认帧与事件帧编码，前端 cbor.test.js 中的 ACK_HEX / EVENT_HEX 与此相同 */
+    private static final String ACK_HEX = "bf62726507626f6bf564626f6479bf6861636365707465640265726174696ffb3fe0000000000000656e616d65738263e5bc93"
+            + "63e69eaa6763757272656e74f5636269671b000000012a05f200ffff";
+    private static final String EVENT_HEX = "bf65746f7069636c726f756e642e636c6f73656464626f6479bf62696403ffff";
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ActionSubmissionService submissionService = mock(ActionSubmissionService.class);
+    private final CharacterStatusService characterStatusService = mock(CharacterStatusService.class);
+    private final ActionHistoryService actionHistoryService = mock(ActionHistoryService.class);
+    private final RoundService roundService = mock(RoundService.class);
+    private final CampaignRepository campaignRepository = mock(CampaignRepository.class);
+    private final ExecutionThreads threads = new ExecutionThreads(new MockEnvironment());
+    private final CampaignExecutor executor = new CampaignExecutor(threads, campaignRepository, 2, Duration.ofMinutes(10));
+    /** 会话收到的帧（已解码） */
+    private final BlockingQueue<JsonNode> sent = new LinkedBlockingQueue<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ActionSubmissionGroupCommitter committer;
+    private CampaignSocketHandler handler;
+    private WebSocketSession session;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (handler != null) {
+            handler.shutdown();
+        }
+        if (committer != null) {
+            ReflectionTestUtils.invokeMethod(committer, "stop");
+        }
+    }
+
+    @Test
+    void ping() throws Exception {
+        connect(false, 16);
+
+        command(1, "ping", null);
+
+        JsonNode ack = next();
+        assertThat(ack.get("re").asLong()).isEqualTo(1);
+        assertThat(ack.get("ok").asBoolean()).isTrue();
+        assertThat(ack.has("body")).isFalse();
+    }
+
+    @Test
+    void subscribeReplacesTopicFilter() throws Exception {
+        connect(false, 16);
+
+        command(1, "subscribe", Map.of("topics", "round.*"));
+        assertThat(next().get("ok").asBoolean()).isTrue();
+        handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.SUBMISSION_BATCH, Map.of("n", 1)));
+        handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.ROUND_CLOSED, Map.of("n", 2)));
+        handler.onCampaignEvent(CampaignEvent.local(2L, CampaignEventType.ROUND_CLOSED, Map.of("n", 3)));
+        handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.ROUND_OPENED, Map.of("n", 4)));
+
+        // 被过滤的主题和其它战役的事件都不会发出
+        JsonNode first = next();
+        assertThat(first.get("topic").asText()).isEqualTo("round.closed");
+        assertThat(first.get("body").get("n").asInt()).isEqualTo(2);
+        assertThat(next().get("body").get("n").asInt()).isEqualTo(4);
+        assertThat(sent.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitUsesConnectionCampaign() throws Exception {
+        connect(false, 16);
+        when(submissionService.submitBatch(anyList())).thenAnswer(invocation -> ((List<SubmissionCommand>) invocation.getArgument(0))
+                .stream().map(c -> SubmissionOutcome.written(submission(c))).toList());
+
+        command(3, "submit", Map.of("campaignId", 99, "servantClass", "弓", "actionType", "SERVANT_ACTION", "content", "侦察"));
+
+        JsonNode ack = next();
+        assertThat(ack.get("re").asLong()).isEqualTo(3);
+        assertThat(ack.get("ok").asBoolean()).isTrue();
+        assertThat(ack.get("body").get("servantClass").asText()).isEqualTo("弓");
+        assertThat(ack.get("body").get("current").asBoolean()).isTrue();
+        ArgumentCaptor<List<SubmissionCommand>> commands = ArgumentCaptor.forClass(List.class);
+        verify(submissionService).submitBatch(commands.capture());
+        assertThat(commands.getValue()).extracting(SubmissionCommand::getCampaignId).containsExactly(CAMPAIGN);
+    }
+
+    @Test
+    void rejectedSubmitIsAnError() throws Exception {
+        connect(false, 16);
+        when(submissionService.submitBatch(anyList())).thenReturn(List.of(SubmissionOutcome.rejected("当前回合已关闭")));
+
+        command(4, "submit", Map.of("servantClass", "弓", "actionType", "SERVANT_ACTION", "content", "侦察"));
+
+        JsonNode error = next();
+        assertThat(error.get("re").asLong()).isEqualTo(4);
+        assertThat(error.get("ok").asBoolean()).isFalse();
+        assertThat(error.get("error").asText()).isEqualTo("当前回合已关闭");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitBatch() throws Exception {
+        connect(false, 16);
+        when(submissionService.submitBatch(anyList())).thenAnswer(invocation -> ((List<SubmissionCommand>) invocation.getArgument(0))
+                .stream().map(c -> SubmissionOutcome.written(submission(c))).toList());
+
+        command(5, "submitBatch", Map.of("submissions", List.of(
+                Map.of("servantClass", "弓", "actionType", "SERVANT_ACTION", "content", "侦察"),
+                Map.of("servantClass", "枪", "actionType", "SERVANT_ACTION", "content", "突击"))));
+
+        JsonNode ack = next();
+        assertThat(ack.get("ok").asBoolean()).isTrue();
+        assertThat(ack.get("body").get("accepted").asInt()).isEqualTo(2);
+        assertThat(ack.get("body").get("results")).hasSize(2);
+    }
+
+    @Test
+    void invalidSubmitBatchIsRejectedBeforeWriting() throws Exception {
+        connect(false, 16);
+
+        command(6, "submitBatch", Map.of("submissions", List.of(Map.of("servantClass", "弓"))));
+
+        JsonNode error = next();
+        assertThat(error.get("ok").asBoolean()).isFalse();
+        assertThat(error.get("error").asText()).contains("submissions[0].actionType", "submissions[0].content");
+        verify(submissionService, timeout(100).times(0)).submitBatch(anyList());
+    }
+
+    @Test
+    void statusDecodesFrontendEncoding() throws Exception {
+        connect(false, 16);
+        when(characterStatusService.updateOrCreate(any())).thenReturn(CharacterStatusResponse.builder()
+                .id(8L).campaignId(CAMPAIGN).characterCardId(2L).roundNumber(3).version(1L).build());
+
+        handler.handleMessage(session, new BinaryMessage(HexFormat.of().parseHex(COMMAND_HEX)));
+
+        JsonNode ack = next();
+        assertThat(ack.get("re").asLong()).isEqualTo(7);
+        assertThat(ack.get("body").get("version").asLong()).isEqualTo(1);
+        ArgumentCaptor<CharacterStatusRequest> req = ArgumentCaptor.forClass(CharacterStatusRequest.class);
+        verify(characterStatusService).updateOrCreate(req.capture());
+        assertThat(req.getValue().getCampaignId()).isEqualTo(CAMPAIGN);
+        assertThat(req.getValue().getCurrentMana()).isEqualTo(-5);
+        assertThat(req.getValue().getNotes()).isEqualTo("备注");
+        assertThat(req.getValue().getStatusEffectsList()).singleElement()
+                .satisfies(effect -> assertThat(effect.getName()).isEqualTo("中毒"));
+    }
+
+    @Test
+    void statusWithoutRequiredFieldsIsRejected() throws Exception {
+        connect(false, 16);
+
+        command(8, "status", Map.of("currentMana", 3));
+
+        JsonNode error = next();
+        assertThat(error.get("ok").asBoolean()).isFalse();
+        assertThat(error.get("error").asText()).contains("characterCardId", "roundNumber");
+    }
+
+    @Test
+    void closeRound() throws Exception {
+        connect(false, 16);
+        when(actionHistoryService.closeRound(CAMPAIGN, null))
+                .thenReturn(new ClosedRound(new RoundChange(10L, CAMPAIGN, 3, "CLOSED", null, null), null));
+
+        command(9, "closeRound", null);
+
+        JsonNode ack = next();
+        assertThat(ack.get("ok").asBoolean()).isTrue();
+        assertThat(ack.get("body").get("round").get("status").asText()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void nextRound() throws Exception {
+        connect(false, 16);
+        when(roundService.createNextRound(CAMPAIGN))
+                .thenReturn(Round.builder().id(11L).turnNumber(4).status(Round.Status.OPEN).build());
+
+        command(10, "nextRound", null);
+
+        JsonNode round = next().get("body").get("round");
+        assertThat(round.get("id").asLong()).isEqualTo(11);
+        assertThat(round.get("campaignId").asLong()).isEqualTo(CAMPAIGN);
+        assertThat(round.get("turnNumber").asInt()).isEqualTo(4);
+    }
+
+    @Test
+    void unknownOpAndUnreadableFramesAreErrors() throws Exception {
+        connect(false, 16);
+
+        command(11, "jump", null);
+        JsonNode unknown = next();
+        assertThat(unknown.get("re").asLong()).isEqualTo(11);
+        assertThat(unknown.get("error").asText()).isEqualTo("未知操作：jump");
+
+        handler.handleMessage(session, new BinaryMessage(new byte[]{(byte) 0xff, 0x00}));
+        JsonNode unreadable = next();
+        assertThat(unreadable.has("re")).isFalse();
+        assertThat(unreadable.get("error").asText()).isEqualTo("无法解析的消息");
+    }
+
+    @Test
+    void framesAreSentInOrder() throws Exception {
+        connect(false, 64);
+
+        for (int i = 1; i <= 20; i++) {
+            handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.SUBMISSION_BATCH, Map.of("n", i)));
+        }
+
+        for (int i = 1; i <= 20; i++) {
+            assertThat(next().get("body").get("n").asInt()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void fullQueueClosesSlowConnection() throws Exception {
+        connect(false, 2);
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+
+        // 第一帧占住发送线程，随后两帧填满队列，第四帧溢出
+        handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.ROUND_OPENED, Map.of("n", 1)));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 4; i++) {
+            handler.onCampaignEvent(CampaignEvent.local(CAMPAIGN, CampaignEventType.ROUND_OPENED, Map.of("n", i)));
+        }
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void unacknowledgedGroupCommitIsReportedAsError() throws Exception {
+        connect(true, 16);
+        when(submissionService.submitBatch(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        command(12, "submit", Map.of("servantClass", "弓", "actionType", "SERVANT_ACTION", "content", "侦察"));
+
+        JsonNode error = next();
+        assertThat(error.get("re").asLong()).isEqualTo(12);
+        assertThat(error.get("ok").asBoolean()).isFalse();
+        assertThat(error.get("error").asText()).isEqualTo("等待行动提交确认超时");
+    }
+
+    @Test
+    void serverEncodingMatchesFrontendFixtures() throws Exception {
+        // 与 CampaignSocketHandler 相同的构造方式
+        ObjectMapper server = new Jackson2ObjectMapperBuilder().factory(new CBORFactory()).build();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accepted", 2);
+        body.put("ratio", 0.5);
+        body.put("names", List.of("弓", "枪"));
+        body.put("current", true);
+        body.put("big", 5_000_000_000L);
+
+        assertThat(HexFormat.of().formatHex(server.writeValueAsBytes(SocketFrame.ack(7L, body)))).isEqualTo(ACK_HEX);
+        assertThat(HexFormat.of().formatHex(server.writeValueAsBytes(SocketFrame.event("round.closed", Map.of("id", 3)))))
+                .isEqualTo(EVENT_HEX);
+    }
+
+    private void connect(boolean groupCommit, int queueCapacity) throws Exception {
+        when(campaignRepository.existsById(anyLong())).thenReturn(true);
+        committer = new ActionSubmissionGroupCommitter(submissionService, executor, threads,
+                groupCommit, 5, 256, 1024, 200);
+        ReflectionTestUtils.invokeMethod(committer, "start");
+        handler = new CampaignSocketHandler(new Jackson2ObjectMapperBuilder(), validator, committer,
+                characterStatusService, actionHistoryService, roundService, executor, threads,
+                1, queueCapacity, Duration.ofSeconds(5));
+
+        session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(CampaignHandshakeInterceptor.CAMPAIGN_ID, CAMPAIGN);
+        when(session.getId()).thenReturn("s1");
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            ByteBuffer payload = invocation.<BinaryMessage>getArgument(0).getPayload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            sent.add(cbor.readTree(bytes));
+            return null;
+        }).when(session).sendMessage(any());
+        handler.afterConnectionEstablished(session);
+    }
+
+    private void command(long id, String op, Object body) throws Exception {
+        Map<String, Object> command = new HashMap<>();
+        command.put("id", id);
+        command.put("op", op);
+        command.put("body", body);
+        handler.handleMessage(session, new BinaryMessage(cbor.writeValueAsBytes(command)));
+    }
+
+    private JsonNode next() throws InterruptedException {
+        JsonNode frame = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(frame).as("5 秒内没有收到帧").isNotNull();
+        return frame;
+    }
+
+    private static ActionSubmission submission(SubmissionCommand command) {
+        return ActionSubmission.builder()
+                .servantClass(command.getServantClass())
+                .actionType(command.getActionType())
+                .content(command.getContent())
+                .current(true)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在嵌入式 H2（MySQL 模式）上先迁移到 V7、写入旧格式数据，再执行 V8：
+ * 结构相同的值不动，改写和置空的值原样备份到 raw_json_backup_v8。
+ */
+class V8__NormalizeRawJsonColumnsTest {
+
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:v8-normalize;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+    @Test
+    void changedValuesAreBackedUp() {
+        migrateTo("7");
+        jdbc.update("insert into campaign (id, name) values (1, 'c1')");
+        insertLeyline(1, "[1, 2]");
+        insertLeyline(2, "[\"3\", 4]");
+        insertLeyline(3, "not json");
+        insertLeyline(4, "null");
+
+        migrateTo("8");
+
+        assertThat(assignedIds(1)).isEqualTo("[1, 2]");
+        assertThat(assignedIds(2)).isEqualTo("[3,4]");
+        assertThat(assignedIds(3)).isNull();
+        assertThat(assignedIds(4)).isNull();
+        assertThat(jdbc.queryForList("""
+                select row_id, original_value, normalized_value from raw_json_backup_v8
+                 where table_name = 'leyline' and column_name = 'assigned_character_ids' order by row_id
+                """)).containsExactly(
+                Map.of("row_id", 2L, "original_value", "[\"3\", 4]", "normalized_value", "[3,4]"),
+                backup(3L, "not json"),
+                backup(4L, "null"));
+    }
+
+    private void migrateTo(String version) {
+        Flyway.configure().dataSource(dataSource).target(version).load().migrate();
+    }
+
+    private void insertLeyline(long id, String assignedIds) {
+        jdbc.update("""
+                insert into leyline (id, campaign_id, name, mana_amount, battlefield_width, population_flow, assigned_character_ids)
+                values (?, 1, 'l', 1, 1, 1, ?)
+                """, id, assignedIds);
+    }
+
+    private String assignedIds(long id) {
+        return jdbc.queryForObject("select assigned_character_ids from leyline where id = ?", String.class, id);
+    }
+
+    /** 置空的行：Map.of 不接受 null 值 */
+    private static Map<String, Object> backup(long rowId, String original) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("row_id", rowId);
+        row.put("original_value", original);
+        row.put("normalized_value", null);
+        return row;
+    }
+}
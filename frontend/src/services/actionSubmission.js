@@ -24,4 +24,10 @@ export async function listCurrentSubmissions(campaignId) {
   return request(`${API_BASE}/action-submissions?${params.toString()}`);
 }
 
-
+// 批量提交：返回 { accepted, superseded, rejected, results: [{ index, status, submission, message }] }
+export async function submitActionBatch(submissions) {
+  return request(`${API_BASE}/action-submissions/batch`, {
+    method: 'POST',
+    body: JSON.stringify({ submissions }),
+  });
+}
@@ -0,0 +1,62 @@
+import { encode, decode } from './cbor'
+
+const API_BASE = 'http://localhost:8080/api'
+
+// 与 REST 接口同一地址，只换协议（http → ws，https → wss）；API_BASE 为相对路径时按当前页面解析
+function wsBase() {
+  const url = new URL(API_BASE, location.href)
+  url.protocol = url.protocol === 'https:' ? 'wss:' : 'ws:'
+  return `${url.href.replace(/\/$/, '')}/ws/campaigns`
+}
+
+/**
+ * 战役 WebSocket 通道（CBOR 帧）。
+ * request(op, body) 返回 Promise，由服务端确认帧（re = 请求 id）完成；on(topic, fn) 订阅战役事件。
+ */
+export function openCampaignSocket(campaignId, { topics, onOpen, onClose } = {}) {
+  const query = topics ? `?topics=${encodeURIComponent(topics)}` : ''
+  const ws = new WebSocket(`${wsBase()}/${campaignId}${query}`)
+  ws.binaryType = 'arraybuffer'
+  const pending = new Map()
+  const listeners = new Map()
+  let seq = 0
+
+  ws.onopen = () => { if (onOpen) onOpen() }
+  ws.onclose = () => {
+    pending.forEach(({ reject }) => reject(new Error('连接已关闭')))
+    pending.clear()
+    if (onClose) onClose()
+  }
+  ws.onmessage = (e) => {
+    let frame
+    try { frame = decode(e.data) } catch (err) { console.error('解析 WebSocket 帧失败', err); return }
+    if (frame.re != null) {
+      const p = pending.get(frame.re)
+      if (!p) return
+      pending.delete(frame.re)
+      if (frame.ok) p.resolve(frame.body ?? null)
+      else p.reject(new Error(frame.error || '请求失败'))
+    } else if (frame.topic) {
+      ;(listeners.get(frame.topic) || []).forEach(fn => {
+        try { fn(frame.body) } catch (err) { console.error(`处理 ${frame.topic} 事件失败`, err) }
+      })
+    }
+  }
+
+  return {
+    get ready() { return ws.readyState === WebSocket.OPEN },
+    request(op, body) {
+      if (ws.readyState !== WebSocket.OPEN) return Promise.reject(new Error('连接未就绪'))
+      const id = ++seq
+      return new Promise((resolve, reject) => {
+        pending.set(id, { resolve, reject })
+        ws.send(encode({ id, op, body }))
+      })
+    },
+    on(topic, fn) {
+      if (!listeners.has(topic)) listeners.set(topic, [])
+      listeners.get(topic).push(fn)
+    },
+    close() { try { ws.close() } catch (e) {} }
+  }
+}
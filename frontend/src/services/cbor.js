@@ -0,0 +1,158 @@
+// 最小的 CBOR 编解码（RFC 8949 子集），用于战控 WebSocket 通道。
+// 支持：整数、浮点、字符串、字节串、数组、对象、布尔、null；解码兼容不定长容器与标签。
+
+const textEncoder = new TextEncoder()
+const textDecoder = new TextDecoder()
+
+export function encode(value) {
+  const out = []
+  write(out, value)
+  return new Uint8Array(out)
+}
+
+function writeHead(out, major, n) {
+  const m = major << 5
+  if (n < 24) out.push(m | n)
+  else if (n < 0x100) out.push(m | 24, n)
+  else if (n < 0x10000) out.push(m | 25, n >> 8, n & 0xff)
+  else if (n < 0x100000000) out.push(m | 26, (n >>> 24) & 0xff, (n >>> 16) & 0xff, (n >>> 8) & 0xff, n & 0xff)
+  else {
+    const hi = Math.floor(n / 0x100000000)
+    const lo = n >>> 0
+    out.push(m | 27, (hi >>> 24) & 0xff, (hi >>> 16) & 0xff, (hi >>> 8) & 0xff, hi & 0xff,
+      (lo >>> 24) & 0xff, (lo >>> 16) & 0xff, (lo >>> 8) & 0xff, lo & 0xff)
+  }
+}
+
+function write(out, v) {
+  if (v === null || v === undefined) { out.push(0xf6); return }
+  if (v === false) { out.push(0xf4); return }
+  if (v === true) { out.push(0xf5); return }
+  if (typeof v === 'number') {
+    if (Number.isSafeInteger(v)) {
+      if (v >= 0) writeHead(out, 0, v)
+      else writeHead(out, 1, -1 - v)
+    } else {
+      const buf = new DataView(new ArrayBuffer(8))
+      buf.setFloat64(0, v)
+      out.push(0xfb)
+      for (let i = 0; i < 8; i++) out.push(buf.getUint8(i))
+    }
+    return
+  }
+  if (typeof v === 'string') {
+    const bytes = textEncoder.encode(v)
+    writeHead(out, 3, bytes.length)
+    for (const b of bytes) out.push(b)
+    return
+  }
+  if (v instanceof Uint8Array) {
+    writeHead(out, 2, v.length)
+    for (const b of v) out.push(b)
+    return
+  }
+  if (Array.isArray(v)) {
+    writeHead(out, 4, v.length)
+    v.forEach(item => write(out, item))
+    return
+  }
+  if (typeof v === 'object') {
+    const keys = Object.keys(v).filter(k => v[k] !== undefined)
+    writeHead(out, 5, keys.length)
+    keys.forEach(k => { write(out, k); write(out, v[k]) })
+    return
+  }
+  throw new Error('无法编码的类型：' + typeof v)
+}
+
+export function decode(data) {
+  const bytes = data instanceof Uint8Array ? data : new Uint8Array(data)
+  const view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength)
+  let pos = 0
+  const BREAK = Symbol('break')
+
+  function readLength(info) {
+    if (info < 24) return info
+    if (info === 24) return view.getUint8(pos++)
+    if (info === 25) { const n = view.getUint16(pos); pos += 2; return n }
+    if (info === 26) { const n = view.getUint32(pos); pos += 4; return n }
+    if (info === 27) {
+      const n = view.getUint32(pos) * 0x100000000 + view.getUint32(pos + 4)
+      pos += 8
+      return n
+    }
+    if (info === 31) return -1
+    throw new Error('CBOR 长度字段无效')
+  }
+
+  function halfToFloat(h) {
+    const exp = (h >> 10) & 0x1f
+    const frac = h & 0x3ff
+    const sign = h & 0x8000 ? -1 : 1
+    if (exp === 0) return sign * Math.pow(2, -14) * (frac / 1024)
+    if (exp === 31) return frac ? NaN : sign * Infinity
+    return sign * Math.pow(2, exp - 15) * (1 + frac / 1024)
+  }
+
+  function readChunks(major, len) {
+    if (len >= 0) {
+      const chunk = bytes.subarray(pos, pos + len)
+      pos += len
+      return major === 3 ? textDecoder.decode(chunk) : chunk.slice()
+    }
+    const parts = []
+    for (;;) {
+      const part = read()
+      if (part === BREAK) break
+      parts.push(part)
+    }
+    if (major === 3) return parts.join('')
+    const total = parts.reduce((n, p) => n + p.length, 0)
+    const joined = new Uint8Array(total)
+    let off = 0
+    parts.forEach(p => { joined.set(p, off); off += p.length })
+    return joined
+  }
+
+  function read() {
+    const initial = view.getUint8(pos++)
+    const major = initial >> 5
+    const info = initial & 0x1f
+    switch (major) {
+      case 0: return readLength(info)
+      case 1: return -1 - readLength(info)
+      case 2:
+      case 3: return readChunks(major, readLength(info))
+      case 4: {
+        const len = readLength(info)
+        const arr = []
+        if (len >= 0) { for (let i = 0; i < len; i++) arr.push(read()) } else {
+          for (;;) { const item = read(); if (item === BREAK) break; arr.push(item) }
+        }
+        return arr
+      }
+      case 5: {
+        const len = readLength(info)
+        const obj = {}
+        if (len >= 0) { for (let i = 0; i < len; i++) { const k = read(); obj[k] = read() } } else {
+          for (;;) { const k = read(); if (k === BREAK) break; obj[k] = read() }
+        }
+        return obj
+      }
+      case 6: readLength(info); return read() // 忽略标签，只取内容
+      default: {
+        if (info === 20) return false
+        if (info === 21) return true
+        if (info === 22 || info === 23) return null
+        if (info === 25) { const h = view.getUint16(pos); pos += 2; return halfToFloat(h) }
+        if (info === 26) { const f = view.getFloat32(pos); pos += 4; return f }
+        if (info === 27) { const f = view.getFloat64(pos); pos += 8; return f }
+        if (info === 31) return BREAK
+        if (info < 24) return info
+        throw new Error('不支持的 CBOR 简单值')
+      }
+    }
+  }
+
+  return read()
+}
@@ -0,0 +1,76 @@
+// node --test：CBOR 编解码往返，以及与服务端（Jackson CBOR）之间的互通。
+// 十六进制样本与 backend 的 CampaignSocketHandlerTest 共用，两边任一改动编码方式都会失败。
+import { test } from 'node:test'
+import assert from 'node:assert/strict'
+import { encode, decode } from './cbor.js'
+
+const hex = (s) => Uint8Array.from(s.match(/../g).map(b => parseInt(b, 16)))
+const toHex = (bytes) => Array.from(bytes, b => b.toString(16).padStart(2, '0')).join('')
+
+test('往返后值不变', () => {
+  const values = [
+    0, 23, 24, 255, 256, 65535, 65536, 2 ** 32, Number.MAX_SAFE_INTEGER,
+    -1, -24, -25, -256, -257, -(2 ** 32) - 1,
+    0.5, -1.25, 1e300,
+    '', 'a', '中毒', 'x'.repeat(300),
+    true, false, null,
+    new Uint8Array([0, 1, 255]),
+    [], [1, [2, [3]]],
+    {},
+    { id: 1, op: 'submitBatch', body: { submissions: [{ servantClass: '弓', content: '侦察' }] } }
+  ]
+  for (const value of values) {
+    assert.deepEqual(decode(encode(value)), value)
+  }
+})
+
+test('对象中值为 undefined 的键不编码', () => {
+  assert.deepEqual(decode(encode({ a: 1, b: undefined })), { a: 1 })
+})
+
+test('解码接受 ArrayBuffer', () => {
+  const bytes = encode({ re: 1, ok: true })
+  assert.deepEqual(decode(bytes.buffer), { re: 1, ok: true })
+})
+
+test('编码的命令与服务端样本一致', () => {
+  const command = {
+    id: 7,
+    op: 'status',
+    body: {
+      characterCardId: 2,
+      roundNumber: 3,
+      currentMana: -5,
+      notes: '备注',
+      statusEffectsList: [{ name: '中毒', type: 'ABNORMAL', level: 2 }]
+    }
+  }
+  assert.equal(toHex(encode(command)), COMMAND_HEX)
+})
+
+test('解码服务端的确认帧（不定长对象、float64、64 位整数）', () => {
+  assert.deepEqual(decode(hex(ACK_HEX)), {
+    re: 7,
+    ok: true,
+    body: { accepted: 2, ratio: 0.5, names: ['弓', '枪'], current: true, big: 5000000000 }
+  })
+})
+
+test('解码服务端的事件帧', () => {
+  assert.deepEqual(decode(hex(EVENT_HEX)), { topic: 'round.closed', body: { id: 3 } })
+})
+
+test('不定长字符串与标签', () => {
+  // (_ "中", "毒")，以及 tag 1 包裹的整数
+  assert.equal(decode(hex('7f63e4b8ad63e6af92ff')), '中毒')
+  assert.equal(decode(hex('c11a514b67b0')), 1363896240)
+})
+
+const COMMAND_HEX = 'a362696407626f706673746174757364626f6479a56f636861726163746572436172644964026b726f756e644e756d6265'
+  + '72036b63757272656e744d616e6124656e6f74657366e5a487e6b3a871737461747573456666656374734c69737481a3646e616d65'
+  + '66e4b8ade6af9264747970656841424e4f524d414c656c6576656c02'
+
+const ACK_HEX = 'bf62726507626f6bf564626f6479bf6861636365707465640265726174696ffb3fe0000000000000656e616d65738263e5bc93'
+  + '63e69eaa6763757272656e74f5636269671b000000012a05f200ffff'
+
+const EVENT_HEX = 'bf65746f7069636c726f756e642e636c6f73656464626f6479bf62696403ffff'
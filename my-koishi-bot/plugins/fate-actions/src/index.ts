@@ -10,9 +10,9 @@ export const Config: Schema<Config> = Schema.object({
   apiBase: Schema.string().default('http://localhost:8080/api').description('后端 API 基地址'),
 })
 
-// 简单的内存绑定：{ 平台:频道 } -> { campaignId }
+// 简单的内存绑定：{ 平台:频道 } -> { campaignId, 用于推送回合状态的 bot 与频道 }
 // 如果需要持久化，可以改成使用 Koishi 数据库表来保存
-const bindings = new Map<string, { campaignId: number }>()
+const bindings = new Map<string, { campaignId: number; sid: string; channelId: string }>()
 
 function bindingKey(platform: string, guildId: string) {
   return `${platform}:${guildId}`
@@ -32,7 +32,60 @@ function normalizeServantClass(cls: string): { raw: string; normalized: string }
   return { raw, normalized: raw }
 }
 
+function describeRoundChange(change: any): string | null {
+  const turn = change?.payload?.turnNumber
+  if (change?.topic === 'round.opened') return `第 ${turn} 回合已开启，可以提交行动。`
+  if (change?.topic === 'round.closed') return `第 ${turn} 回合已关闭，停止接收行动。`
+  return null
+}
+
 export function apply(ctx: Context, config: Config) {
+  // 每个战役一个长轮询循环，把回合开启/关闭推送到绑定了该战役的群
+  const watchers = new Set<number>()
+  let disposed = false
+  ctx.on('dispose', () => { disposed = true })
+
+  async function broadcast(campaignId: number, text: string) {
+    for (const binding of bindings.values()) {
+      if (binding.campaignId !== campaignId) continue
+      const bot = ctx.bots[binding.sid]
+      if (!bot) continue
+      try {
+        await bot.sendMessage(binding.channelId, text)
+      } catch (e: any) {
+        ctx.logger('fate-actions').warn(`推送回合状态失败：${e?.message || e}`)
+      }
+    }
+  }
+
+  async function watchCampaign(campaignId: number) {
+    if (watchers.has(campaignId)) return
+    watchers.add(campaignId)
+    let since: number | undefined
+    try {
+      while (!disposed && [...bindings.values()].some((b) => b.campaignId === campaignId)) {
+        try {
+          const params = new URLSearchParams({ topics: 'round.*', timeout: '25' })
+          if (since !== undefined) params.set('since', String(since))
+          // 服务端无变化时挂起最多 25 秒，空闲时几乎没有请求
+          const res = await ctx.http.get(`${config.apiBase}/campaigns/${campaignId}/changes?${params}`, { timeout: 35000 })
+          since = res.version
+          if (res.reset) continue
+          for (const change of res.changes || []) {
+            const text = describeRoundChange(change)
+            if (text) await broadcast(campaignId, text)
+          }
+        } catch {
+          // 后端不可用时稍后重试，重连后从头开始（reset）
+          since = undefined
+          await new Promise((resolve) => setTimeout(resolve, 5000))
+        }
+      }
+    } finally {
+      watchers.delete(campaignId)
+    }
+  }
+
   // 绑定战役指令
   ctx.command('绑定战役 <campaignId:number>', '将本群绑定到指定战役')
     .action(async ({ session }, campaignId) => {
@@ -45,7 +98,8 @@ export function apply(ctx: Context, config: Config) {
       try {
         const campaign = await ctx.http.get(`${config.apiBase}/campaigns/${campaignId}`)
         const key = bindingKey(session.platform, session.guildId)
-        bindings.set(key, { campaignId })
+        bindings.set(key, { campaignId, sid: session.sid, channelId: session.channelId })
+        watchCampaign(campaignId)
         const name = campaign?.name || '（未命名战役）'
         return `已将本群绑定到战役 ID=${campaignId}，${name}`
       } catch (e: any) {